@@ -0,0 +1,161 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// drives a running courier instance with location polls, location updates and status updates at a fixed
+// concurrency and prints throughput and latency percentiles; run once per execution mode and compare the lines.
+// usage: java perf/LoadComparison.java <base-url> <label> [tasks] [location-requests] [concurrency]
+public class LoadComparison {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final double P50 = 0.50;
+    private static final double P99 = 0.99;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(REQUEST_TIMEOUT)
+            .build();
+    private final String baseUrl;
+
+    LoadComparison(final String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        String baseUrl = args[0];
+        String label = args[1];
+        int tasks = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        int locationRequests = args.length > 3 ? Integer.parseInt(args[3]) : 50_000;
+        int concurrency = args.length > 4 ? Integer.parseInt(args[4]) : 400;
+
+        LoadComparison harness = new LoadComparison(baseUrl);
+        List<String[]> seeded = harness.seed(tasks, concurrency);
+        System.out.printf("%-10s %-16s %9s %10s %9s %9s %7s%n",
+                "mode", "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "errors");
+        // warm up the JIT and the connection pools of both sides before measuring
+        harness.run(Math.min(locationRequests, 5_000), concurrency, i -> harness.locationUpdate(seeded, i));
+        harness.run(locationRequests, concurrency, i -> harness.locationPoll(seeded, i))
+                .print(label, "location-poll");
+        harness.run(locationRequests, concurrency, i -> harness.locationUpdate(seeded, i))
+                .print(label, "location-update");
+        harness.run(seeded.size(), concurrency, i -> harness.statusUpdate(seeded.get(i)[0]))
+                .print(label, "status-update");
+    }
+
+    // creates the tasks both phases work on, returns {id, orderId} pairs
+    private List<String[]> seed(final int tasks, final int concurrency) throws InterruptedException {
+        List<String[]> seeded = Collections.synchronizedList(new ArrayList<>(tasks));
+        run(tasks, concurrency, i -> {
+            String orderId = "perf-" + UUID.randomUUID();
+            String body = String.format(Locale.ROOT, "{\"orderId\":\"%s\",\"courierId\":\"perf-courier-%d\","
+                    + "\"totalAmount\":100,\"orderLatitude\":30.05,\"orderLongitude\":31.23,"
+                    + "\"confirmationType\":\"OTP\"}", orderId, i % 500);
+            HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/delivery-tasks"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)));
+            Matcher matcher = ID.matcher(response.body());
+            if (response.statusCode() == 200 && matcher.find()) {
+                seeded.add(new String[] {matcher.group(1), orderId});
+            }
+            return response.statusCode();
+        });
+        if (seeded.isEmpty()) {
+            throw new IllegalStateException("No delivery task could be created at " + baseUrl);
+        }
+        return new ArrayList<>(seeded);
+    }
+
+    private int locationPoll(final List<String[]> seeded, final int request) throws Exception {
+        String orderId = seeded.get(request % seeded.size())[1];
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/delivery-tasks/" + orderId + "/location")).GET())
+                .statusCode();
+    }
+
+    private int locationUpdate(final List<String[]> seeded, final int request) throws Exception {
+        String orderId = seeded.get(request % seeded.size())[1];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String body = String.format(Locale.ROOT, "{\"latitude\":%.6f,\"longitude\":%.6f}",
+                30.0 + random.nextDouble(0.1), 31.2 + random.nextDouble(0.1));
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/delivery-tasks/" + orderId + "/location"))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(body))).statusCode();
+    }
+
+    private int statusUpdate(final String id) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/delivery-tasks/" + id))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"status\":\"OUT_FOR_DELIVERY\"}")))
+                .statusCode();
+    }
+
+    private HttpResponse<String> send(final HttpRequest.Builder request) throws Exception {
+        return client.send(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // issues the requests from virtual threads with at most concurrency of them in flight, so the client side
+    // never becomes the bottleneck of the platform-thread run
+    private Result run(final int requests, final int concurrency, final Call call) throws InterruptedException {
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(concurrency);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                inFlight.acquire();
+                int request = i;
+                executor.execute(() -> {
+                    long sent = System.nanoTime();
+                    try {
+                        if (call.apply(request) >= 300) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        latencies[request] = System.nanoTime() - sent;
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return new Result(latencies, System.nanoTime() - start, errors.get());
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        int apply(int request) throws Exception;
+    }
+
+    private record Result(long[] latencies, long elapsedNanos, int errors) {
+
+        void print(final String label, final String endpoint) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            System.out.printf(Locale.ROOT, "%-10s %-16s %9d %10.0f %9.2f %9.2f %7d%n", label, endpoint,
+                    sorted.length, sorted.length * NANOS_PER_SECOND / elapsedNanos,
+                    percentile(sorted, P50) / NANOS_PER_MILLI, percentile(sorted, P99) / NANOS_PER_MILLI, errors);
+        }
+
+        private static long percentile(final long[] sorted, final double quantile) {
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+        }
+    }
+}
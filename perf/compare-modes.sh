@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# starts the packaged service once per execution mode against the same Mongo and RabbitMQ, drives each with
+# perf/LoadComparison.java and prints their results one after the other. the modes are platform (servlet on
+# platform threads), virtual (servlet on virtual threads) and reactive (WebFlux and reactive Mongo).
+# usage: perf/compare-modes.sh [tasks] [location-requests] [concurrency]
+# MODES="platform reactive" perf/compare-modes.sh runs a subset
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+PORT=${PORT:-8090}
+BASE_URL="http://localhost:${PORT}/api"
+MODES=${MODES:-"platform virtual reactive"}
+JAR=$(ls target/courier-*.jar 2>/dev/null | grep -v original | head -n 1 || true)
+if [ -z "$JAR" ]; then
+    ./mvnw -q clean package -DskipTests
+    JAR=$(ls target/courier-*.jar | grep -v original | head -n 1)
+fi
+
+for mode in $MODES; do
+    case "$mode" in
+        platform) options=(--spring.threads.virtual.enabled=false) ;;
+        virtual) options=(--spring.threads.virtual.enabled=true) ;;
+        reactive) options=(--spring.profiles.active=reactive) ;;
+        *) echo "unknown mode: $mode" >&2; exit 1 ;;
+    esac
+    java -jar "$JAR" --server.port="$PORT" --logging.level.com.podzilla=WARN "${options[@]}" \
+        > "target/perf-${mode}.log" 2>&1 &
+    pid=$!
+    trap 'kill $pid 2>/dev/null || true' EXIT
+    until curl -sf "${BASE_URL}/actuator/health" > /dev/null; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "service failed to start, see target/perf-${mode}.log" >&2
+            exit 1
+        fi
+        sleep 1
+    done
+    java perf/LoadComparison.java "$BASE_URL" "$mode" "$@"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+done
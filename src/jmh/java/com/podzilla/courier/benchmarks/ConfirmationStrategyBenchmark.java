@@ -0,0 +1,70 @@
+package com.podzilla.courier.benchmarks;
+
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.services.delivery_task.confirmation_strategy.DeliveryConfirmationStrategy;
+import com.podzilla.courier.services.delivery_task.confirmation_strategy.OtpConfirmationStrategy;
+import com.podzilla.courier.services.delivery_task.confirmation_strategy.QrCodeConfirmationStrategy;
+import com.podzilla.courier.services.delivery_task.confirmation_strategy.SignatureConfirmationStrategy;
+import com.podzilla.mq.events.ConfirmationType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// each strategy on a matching and on a wrong input; a confirmed task stays DELIVERED, so repeating it is stable
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConfirmationStrategyBenchmark {
+
+    private static final String OTP = "4f2a";
+    private static final String QR_CODE = "qr-code 6650f1c2a9e4b83d1c7e4f2a";
+    private static final String WRONG_INPUT = "wrong";
+
+    @Param({"true", "false"})
+    private boolean matching;
+
+    private final DeliveryConfirmationStrategy otpStrategy = new OtpConfirmationStrategy();
+    private final DeliveryConfirmationStrategy qrCodeStrategy = new QrCodeConfirmationStrategy();
+    private final DeliveryConfirmationStrategy signatureStrategy = new SignatureConfirmationStrategy();
+    private DeliveryTask otpTask;
+    private DeliveryTask qrCodeTask;
+    private DeliveryTask signatureTask;
+
+    @Setup
+    public void setUp() {
+        otpTask = Fixtures.storedTask(1, ConfirmationType.OTP);
+        otpTask.setOtp(OTP);
+        qrCodeTask = Fixtures.storedTask(2, ConfirmationType.QR_CODE);
+        qrCodeTask.setQrCode(QR_CODE);
+        signatureTask = Fixtures.storedTask(3, ConfirmationType.SIGNATURE);
+    }
+
+    @Benchmark
+    public Optional<String> otp() {
+        return otpStrategy.confirmDelivery(otpTask, matching ? OTP : WRONG_INPUT);
+    }
+
+    @Benchmark
+    public Optional<String> qrCode() {
+        return qrCodeStrategy.confirmDelivery(qrCodeTask, matching ? QR_CODE : WRONG_INPUT);
+    }
+
+    @Benchmark
+    public Optional<String> signature() {
+        return signatureStrategy.confirmDelivery(signatureTask, matching ? Fixtures.SIGNATURE : WRONG_INPUT);
+    }
+}
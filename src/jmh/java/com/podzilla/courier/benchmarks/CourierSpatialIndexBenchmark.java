@@ -0,0 +1,94 @@
+package com.podzilla.courier.benchmarks;
+
+import com.podzilla.courier.dtos.couriers.NearbyCourierDto;
+import com.podzilla.courier.models.CourierStatus;
+import com.podzilla.courier.services.courier.spatial.CourierSpatialIndex;
+import com.podzilla.courier.utils.GeoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// k-nearest available couriers from the grid index against scanning every courier and sorting by distance, over a
+// fleet spread across a city; a third of the couriers are available
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CourierSpatialIndexBenchmark {
+
+    private static final int COURIERS = 20_000;
+    private static final int QUERIES = 2_000;
+    private static final int NEAREST = 5;
+    private static final double MAX_RADIUS_KM = 50;
+    private static final double CELL_SIZE_DEGREES = 0.01;
+    private static final double BASE_LATITUDE = 30.0;
+    private static final double BASE_LONGITUDE = 31.2;
+    private static final double SPREAD_DEGREES = 0.4;
+
+    private final double[] latitudes = new double[COURIERS];
+    private final double[] longitudes = new double[COURIERS];
+    private final CourierStatus[] statuses = new CourierStatus[COURIERS];
+    private final double[] queryLatitudes = new double[QUERIES];
+    private final double[] queryLongitudes = new double[QUERIES];
+    private CourierSpatialIndex index;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new CourierSpatialIndex(CELL_SIZE_DEGREES);
+        for (int i = 0; i < COURIERS; i++) {
+            latitudes[i] = BASE_LATITUDE + random.nextDouble() * SPREAD_DEGREES;
+            longitudes[i] = BASE_LONGITUDE + random.nextDouble() * SPREAD_DEGREES;
+            statuses[i] = i % 3 == 0 ? CourierStatus.AVAILABLE : CourierStatus.DELIVERING;
+            index.updateStatus("c-" + i, statuses[i]);
+            index.updatePosition("c-" + i, latitudes[i], longitudes[i]);
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            queryLatitudes[i] = BASE_LATITUDE + random.nextDouble() * SPREAD_DEGREES;
+            queryLongitudes[i] = BASE_LONGITUDE + random.nextDouble() * SPREAD_DEGREES;
+        }
+    }
+
+    @Benchmark
+    public List<NearbyCourierDto> gridIndex() {
+        int query = nextQuery();
+        return index.findNearest(queryLatitudes[query], queryLongitudes[query], NEAREST, MAX_RADIUS_KM,
+                CourierStatus.AVAILABLE);
+    }
+
+    @Benchmark
+    public List<NearbyCourierDto> bruteForce() {
+        int query = nextQuery();
+        List<NearbyCourierDto> available = new ArrayList<>();
+        for (int i = 0; i < COURIERS; i++) {
+            if (statuses[i] == CourierStatus.AVAILABLE) {
+                available.add(new NearbyCourierDto("c-" + i, statuses[i], latitudes[i], longitudes[i],
+                        GeoUtils.haversineKm(queryLatitudes[query], queryLongitudes[query], latitudes[i],
+                                longitudes[i])));
+            }
+        }
+        available.sort(Comparator.comparingDouble(NearbyCourierDto::distanceKm));
+        return available.subList(0, NEAREST);
+    }
+
+    private int nextQuery() {
+        next = (next + 1) % QUERIES;
+        return next;
+    }
+}
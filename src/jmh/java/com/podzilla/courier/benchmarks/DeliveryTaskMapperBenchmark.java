@@ -0,0 +1,47 @@
+package com.podzilla.courier.benchmarks;
+
+import com.podzilla.courier.dtos.delivery_tasks.CreateDeliveryTaskRequestDto;
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import com.podzilla.courier.mappers.DeliveryTaskMapper;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.mq.events.ConfirmationType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeliveryTaskMapperBenchmark {
+
+    private CreateDeliveryTaskRequestDto request;
+    private DeliveryTask task;
+
+    @Setup
+    public void setUp() {
+        request = Fixtures.createRequest(1, ConfirmationType.OTP);
+        task = Fixtures.storedTask(1, ConfirmationType.OTP);
+    }
+
+    @Benchmark
+    public DeliveryTask toEntity() {
+        return DeliveryTaskMapper.toEntity(request);
+    }
+
+    @Benchmark
+    public DeliveryTaskResponseDto toCreateResponseDto() {
+        return DeliveryTaskMapper.toCreateResponseDto(task);
+    }
+}
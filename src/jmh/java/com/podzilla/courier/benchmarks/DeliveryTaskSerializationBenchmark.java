@@ -0,0 +1,61 @@
+package com.podzilla.courier.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import com.podzilla.courier.mappers.DeliveryTaskMapper;
+import com.podzilla.mq.events.ConfirmationType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// response bodies as the web layer writes them: one task, and the lists returned by the by-courier/by-status reads
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeliveryTaskSerializationBenchmark {
+
+    private static final int LIST_SIZE = 100;
+
+    private ObjectWriter writer;
+    private DeliveryTaskResponseDto task;
+    private List<DeliveryTaskResponseDto> tasks;
+
+    @Setup
+    public void setUp() {
+        // the same defaults Spring Boot applies to the mapper behind the message converters
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writer();
+        task = DeliveryTaskMapper.toCreateResponseDto(Fixtures.storedTask(0, ConfirmationType.OTP));
+        tasks = IntStream.range(0, LIST_SIZE)
+                .mapToObj(index -> DeliveryTaskMapper.toCreateResponseDto(
+                        Fixtures.storedTask(index, ConfirmationType.OTP)))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] writeTask() throws JsonProcessingException {
+        return writer.writeValueAsBytes(task);
+    }
+
+    @Benchmark
+    public byte[] writeTaskList() throws JsonProcessingException {
+        return writer.writeValueAsBytes(tasks);
+    }
+}
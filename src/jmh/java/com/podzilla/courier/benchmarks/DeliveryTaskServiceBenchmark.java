@@ -0,0 +1,116 @@
+package com.podzilla.courier.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import com.podzilla.courier.mappers.DeliveryTaskMapper;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.repositories.courier.CourierRepository;
+import com.podzilla.courier.services.courier.rating.CourierRatingLeaderboard;
+import com.podzilla.courier.services.courier.rating.CourierRatingService;
+import com.podzilla.courier.services.delivery_task.DeliveryTaskService;
+import com.podzilla.courier.services.delivery_task.cache.DeliveryTaskCache;
+import com.podzilla.courier.services.delivery_task.location.LiveLocationStore;
+import com.podzilla.courier.services.delivery_task.location.LocationStreamHub;
+import com.podzilla.courier.services.delivery_task.stats.DeliveryTaskCounters;
+import com.podzilla.mq.events.ConfirmationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.util.Pair;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+// the service over the in-memory repository and a broker-less cache. half of the orders are tracked by the live
+// location store, so location reads are measured on both the buffered and the stored path
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeliveryTaskServiceBenchmark {
+
+    private static final int TASK_COUNT = 1024;
+    private static final int OTP_LENGTH = 4;
+    private static final long CACHE_MAXIMUM_SIZE = 10_000;
+    private static final long CACHE_TTL_MS = 30_000;
+    private static final int CACHE_BROADCAST_QUEUE_SIZE = 10_000;
+    private static final long STREAM_TIMEOUT_MS = 60_000;
+    private static final int LIVE_WINDOW_MINUTES = 60;
+    private static final int MAX_CANCELLATION_REASONS = 100;
+
+    private final List<String> ids = new ArrayList<>();
+    private final List<String> trackedOrderIds = new ArrayList<>();
+    private final List<String> storedOrderIds = new ArrayList<>();
+    private LocationStreamHub locationStreamHub;
+    private DeliveryTaskService deliveryTaskService;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        RepeatableTransitionRepository repository = new RepeatableTransitionRepository();
+        LiveLocationStore liveLocationStore = new LiveLocationStore(TASK_COUNT);
+        for (int index = 0; index < TASK_COUNT; index++) {
+            DeliveryTask task = repository.save(Fixtures.storedTask(index, ConfirmationType.OTP));
+            ids.add(task.getId());
+            if (index % 2 == 0) {
+                DeliveryTaskResponseDto dto = DeliveryTaskMapper.toCreateResponseDto(task);
+                liveLocationStore.track(dto);
+                trackedOrderIds.add(task.getOrderId());
+            } else {
+                storedOrderIds.add(task.getOrderId());
+            }
+        }
+        locationStreamHub = new LocationStreamHub(STREAM_TIMEOUT_MS);
+        DeliveryTaskCache deliveryTaskCache = new DeliveryTaskCache(new NoOpRabbitTemplate(),
+                new SimpleMeterRegistry(), "benchmark", CACHE_MAXIMUM_SIZE, CACHE_TTL_MS, CACHE_BROADCAST_QUEUE_SIZE);
+        deliveryTaskService = new DeliveryTaskService(repository, liveLocationStore, locationStreamHub,
+                List.of(locationStreamHub), new ObjectMapper(), deliveryTaskCache,
+                new CourierRatingService(mock(CourierRepository.class), new CourierRatingLeaderboard(1), 1),
+                new DeliveryTaskCounters(LIVE_WINDOW_MINUTES, MAX_CANCELLATION_REASONS));
+        ReflectionTestUtils.setField(deliveryTaskService, "otpLength", OTP_LENGTH);
+    }
+
+    @TearDown
+    public void tearDown() {
+        locationStreamHub.shutdown();
+    }
+
+    // derives the otp and qr code from the id and writes them with the status
+    @Benchmark
+    public Optional<DeliveryTaskResponseDto> updateDeliveryTaskStatusOutForDelivery() {
+        return deliveryTaskService.updateDeliveryTaskStatus(ids.get(nextIndex()),
+                DeliveryStatus.OUT_FOR_DELIVERY);
+    }
+
+    @Benchmark
+    public Pair<Double, Double> getDeliveryTaskLocationTracked() {
+        return deliveryTaskService.getDeliveryTaskLocation(trackedOrderIds.get(nextIndex() % trackedOrderIds.size()));
+    }
+
+    @Benchmark
+    public Pair<Double, Double> getDeliveryTaskLocationStored() {
+        return deliveryTaskService.getDeliveryTaskLocation(storedOrderIds.get(nextIndex() % storedOrderIds.size()));
+    }
+
+    private int nextIndex() {
+        next = (next + 1) % TASK_COUNT;
+        return next;
+    }
+}
@@ -0,0 +1,31 @@
+package com.podzilla.courier.benchmarks;
+
+import com.podzilla.courier.dtos.delivery_tasks.CreateDeliveryTaskRequestDto;
+import com.podzilla.courier.mappers.DeliveryTaskMapper;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.mq.events.ConfirmationType;
+import org.bson.types.ObjectId;
+
+import java.math.BigDecimal;
+
+final class Fixtures {
+
+    static final double ORDER_LATITUDE = 30.0444;
+    static final double ORDER_LONGITUDE = 31.2357;
+    static final String SIGNATURE = "signed-by-recipient";
+
+    private Fixtures() {
+    }
+
+    static CreateDeliveryTaskRequestDto createRequest(final int index, final ConfirmationType confirmationType) {
+        return new CreateDeliveryTaskRequestDto("order-" + index, "courier-" + index, BigDecimal.valueOf(index),
+                ORDER_LATITUDE, ORDER_LONGITUDE, confirmationType, SIGNATURE);
+    }
+
+    // a stored task as Mongo would return it, with a generated id
+    static DeliveryTask storedTask(final int index, final ConfirmationType confirmationType) {
+        DeliveryTask task = DeliveryTaskMapper.toEntity(createRequest(index, confirmationType));
+        task.setId(new ObjectId().toHexString());
+        return task;
+    }
+}
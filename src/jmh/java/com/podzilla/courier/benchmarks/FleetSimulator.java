@@ -0,0 +1,372 @@
+package com.podzilla.courier.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.podzilla.courier.controllers.DeliveryTaskController;
+import com.podzilla.courier.events.ConsumerMetrics;
+import com.podzilla.courier.events.CourierAssignmentEventConsumer;
+import com.podzilla.courier.events.EventDeduplicator;
+import com.podzilla.courier.models.Courier;
+import com.podzilla.courier.models.CourierRating;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.repositories.courier.CourierRepository;
+import com.podzilla.courier.repositories.delivery_task.InMemoryDeliveryTaskRepository;
+import com.podzilla.courier.repositories.location_track.LocationTrackRepository;
+import com.podzilla.courier.services.courier.rating.CourierRatingLeaderboard;
+import com.podzilla.courier.services.courier.rating.CourierRatingService;
+import com.podzilla.courier.services.courier.spatial.CourierSpatialIndex;
+import com.podzilla.courier.services.delivery_task.DeliveryTaskService;
+import com.podzilla.courier.services.delivery_task.cache.DeliveryTaskCache;
+import com.podzilla.courier.services.delivery_task.eta.EtaEngine;
+import com.podzilla.courier.services.delivery_task.geofence.GeofenceMonitor;
+import com.podzilla.courier.services.delivery_task.location.LiveLocationFlusher;
+import com.podzilla.courier.services.delivery_task.location.LiveLocationStore;
+import com.podzilla.courier.services.delivery_task.location.LocationStreamHub;
+import com.podzilla.courier.services.delivery_task.location.LocationTrackRecorder;
+import com.podzilla.courier.services.delivery_task.outbox.OutboxRelay;
+import com.podzilla.courier.services.delivery_task.stats.DeliveryTaskCounters;
+import com.podzilla.mq.EventPublisher;
+import com.podzilla.mq.events.ConfirmationType;
+import com.podzilla.mq.events.OrderAssignedToCourierEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+// drives a fleet of couriers and orders through the whole delivery lifecycle in process: the assignment event is
+// handed to the consumer, every later step goes through DeliveryTaskController over MockMvc, and pings reach the
+// same location listeners the application registers. the outbox relay publishes the lifecycle events through an
+// EventPublisher stub that only counts them. Mongo is replaced by the in-memory repository and the broker by a
+// template that drops what it is sent, so the numbers are the cost of the service itself. each stage runs on a
+// fixed pool and reports throughput, latency percentiles and the bytes the pool allocated while running it.
+// usage: FleetSimulator [couriers] [orders] [pings-per-order] [threads]
+public final class FleetSimulator {
+
+    private static final int OTP_LENGTH = 4;
+    private static final long CACHE_MAXIMUM_SIZE = 10_000;
+    private static final long CACHE_TTL_MS = 30_000;
+    private static final int CACHE_BROADCAST_QUEUE_SIZE = 10_000;
+    private static final long STREAM_TIMEOUT_MS = 60_000;
+    private static final double CELL_SIZE_DEGREES = 0.01;
+    private static final double DEDUP_FALSE_POSITIVE_RATE = 0.01;
+    private static final double DEFAULT_SPEED_KMH = 20;
+    private static final double MIN_SPEED_KMH = 5;
+    private static final double MAX_SPEED_KMH = 120;
+    private static final double DETOUR_FACTOR = 1.3;
+    private static final double SPEED_SMOOTHING = 0.3;
+    private static final double ARRIVAL_RADIUS_METERS = 75;
+    private static final double DEPARTURE_RADIUS_METERS = 150;
+    private static final int TRACK_BUCKET_SIZE = 200;
+    private static final long TRACK_MAX_BUFFER_MS = 60_000;
+    private static final int TRACK_MAX_PENDING_POINTS = 5_000;
+    private static final int OUTBOX_BATCH_SIZE = 500;
+    private static final long OUTBOX_CONFIRM_TIMEOUT_MS = 5_000;
+    private static final long OUTBOX_RETRY_DELAY_MS = 1_000;
+    private static final long OUTBOX_MAX_RETRY_DELAY_MS = 60_000;
+    private static final long OUTBOX_CLAIM_LEASE_MS = 30_000;
+    private static final double DEPOT_LATITUDE = 30.0444;
+    private static final double DEPOT_LONGITUDE = 31.2357;
+    private static final double ORDER_SPREAD_DEGREES = 0.2;
+    private static final int MAX_RATING = 5;
+    private static final int RECENT_RATINGS = 20;
+    private static final int LIVE_WINDOW_MINUTES = 60;
+    private static final int MAX_CANCELLATION_REASONS = 100;
+    private static final int WARMUP_ORDERS = 2_000;
+    private static final int LOCK_STRIPES = 64;
+    private static final double P50 = 0.50;
+    private static final double P99 = 0.99;
+    private static final double P999 = 0.999;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double BYTES_PER_KB = 1024.0;
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int couriers;
+    private final int threads;
+    private final InMemoryDeliveryTaskRepository repository;
+    private final LocationStreamHub locationStreamHub = new LocationStreamHub(STREAM_TIMEOUT_MS);
+    private final LiveLocationFlusher liveLocationFlusher;
+    private final LocationTrackRecorder locationTrackRecorder;
+    private final OutboxRelay outboxRelay;
+    private final AtomicInteger publishedEvents = new AtomicInteger();
+    private final CourierAssignmentEventConsumer assignmentConsumer;
+    private final MockMvc mockMvc;
+
+    private FleetSimulator(final int couriers, final int orders, final int threads) {
+        this.couriers = couriers;
+        this.threads = threads;
+        this.repository = new InMemoryDeliveryTaskRepository(objectMapper, LOCK_STRIPES, "");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LiveLocationStore liveLocationStore = new LiveLocationStore(orders);
+        CourierSpatialIndex courierSpatialIndex = new CourierSpatialIndex(CELL_SIZE_DEGREES);
+        DeliveryTaskCache deliveryTaskCache = new DeliveryTaskCache(new NoOpRabbitTemplate(), meterRegistry,
+                "simulator", CACHE_MAXIMUM_SIZE, CACHE_TTL_MS, CACHE_BROADCAST_QUEUE_SIZE);
+        // the courier aggregates live in Mongo, the rating stage measures the task update and the leaderboard
+        CourierRepository courierRepository = mock(CourierRepository.class);
+        when(courierRepository.applyRating(anyString(), any(), any(), anyInt()))
+                .thenAnswer(invocation -> Optional.of(ratedCourier(invocation.getArgument(1))));
+        CourierRatingService courierRatingService = new CourierRatingService(courierRepository,
+                new CourierRatingLeaderboard(1), RECENT_RATINGS);
+        // the listener beans of the application; the track buckets are encoded but never stored
+        GeofenceMonitor geofenceMonitor = new GeofenceMonitor(liveLocationStore, new NoOpRabbitTemplate(),
+                "simulator", ARRIVAL_RADIUS_METERS, DEPARTURE_RADIUS_METERS);
+        EtaEngine etaEngine = new EtaEngine(liveLocationStore, DEFAULT_SPEED_KMH, MIN_SPEED_KMH, MAX_SPEED_KMH,
+                DETOUR_FACTOR, SPEED_SMOOTHING);
+        this.locationTrackRecorder = new LocationTrackRecorder(mock(LocationTrackRepository.class),
+                TRACK_BUCKET_SIZE, TRACK_MAX_BUFFER_MS, TRACK_MAX_PENDING_POINTS);
+        DeliveryTaskService deliveryTaskService = new DeliveryTaskService(repository, liveLocationStore,
+                locationStreamHub, List.of(locationStreamHub, courierSpatialIndex, geofenceMonitor, etaEngine,
+                locationTrackRecorder), objectMapper, deliveryTaskCache, courierRatingService,
+                new DeliveryTaskCounters(LIVE_WINDOW_MINUTES, MAX_CANCELLATION_REASONS));
+        ReflectionTestUtils.setField(deliveryTaskService, "otpLength", OTP_LENGTH);
+        this.liveLocationFlusher = new LiveLocationFlusher(liveLocationStore, repository);
+        EventPublisher eventPublisher = mock(EventPublisher.class, invocation -> {
+            if ("publishEvent".equals(invocation.getMethod().getName())) {
+                publishedEvents.incrementAndGet();
+            }
+            return null;
+        });
+        this.outboxRelay = new OutboxRelay(repository, eventPublisher, new NoOpRabbitTemplate(), OUTBOX_BATCH_SIZE,
+                OUTBOX_CONFIRM_TIMEOUT_MS, OUTBOX_RETRY_DELAY_MS, OUTBOX_MAX_RETRY_DELAY_MS, OUTBOX_CLAIM_LEASE_MS,
+                meterRegistry);
+        this.assignmentConsumer = new CourierAssignmentEventConsumer(deliveryTaskService,
+                new EventDeduplicator(orders, DEDUP_FALSE_POSITIVE_RATE, meterRegistry), new NoOpRabbitTemplate(),
+                new ConsumerMetrics(meterRegistry));
+        this.mockMvc = MockMvcBuilders.standaloneSetup(new DeliveryTaskController(deliveryTaskService)).build();
+    }
+
+    public static void main(final String[] args) throws Exception {
+        int couriers = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int orders = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int pingsPerOrder = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        // a throwaway fleet first, so the measured one runs on compiled code
+        FleetSimulator warmup = new FleetSimulator(couriers, WARMUP_ORDERS, threads);
+        warmup.simulate("warmup-", WARMUP_ORDERS, pingsPerOrder, false);
+        warmup.shutdown();
+
+        FleetSimulator simulator = new FleetSimulator(couriers, orders, threads);
+        System.out.printf("%d couriers, %d orders, %d pings per order, %d threads%n", couriers, orders,
+                pingsPerOrder, threads);
+        System.out.printf("%-18s %9s %10s %8s %8s %8s %10s %9s %7s%n",
+                "stage", "ops", "ops/s", "p50 ms", "p99 ms", "p999 ms", "alloc MB/s", "KB/op", "errors");
+        simulator.simulate("order-", orders, pingsPerOrder, true);
+        simulator.shutdown();
+    }
+
+    private void simulate(final String orderPrefix, final int orders, final int pingsPerOrder,
+                          final boolean print) throws Exception {
+        List<Order> fleet = new ArrayList<>(orders);
+        for (int index = 0; index < orders; index++) {
+            fleet.add(new Order(orderPrefix + index, "courier-" + (index % couriers), index));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            report(print, run(pool, "assignment", orders, index -> assign(fleet.get(index))));
+            // the task id is generated on insert; looking it up is setup, not part of any stage
+            for (Order order : fleet) {
+                order.taskId = repository.findByOrderId(order.orderId).get(0).getId();
+            }
+            report(print, run(pool, "out-for-delivery", orders, index -> outForDelivery(fleet.get(index))));
+            // ping rounds are interleaved, so consecutive pings of an order are far apart like real couriers'
+            report(print, run(pool, "location-ping", orders * pingsPerOrder,
+                    index -> ping(fleet.get(index % orders), index / orders, pingsPerOrder)));
+            report(print, run(pool, "location-flush", 1, index -> {
+                liveLocationFlusher.flush();
+                return true;
+            }));
+            report(print, run(pool, "confirmation", orders, index -> confirm(fleet.get(index))));
+            // the tracks were closed by the confirmations, so this writes all of them
+            report(print, run(pool, "track-flush", 1, index -> {
+                locationTrackRecorder.flush();
+                return true;
+            }));
+            // out-for-delivery and delivered of every order; the scheduled relay would have spread this over the
+            // earlier stages
+            int published = publishedEvents.get();
+            report(print, run(pool, "outbox-relay", 1, index -> {
+                outboxRelay.relay();
+                return publishedEvents.get() - published == 2 * orders;
+            }));
+            report(print, run(pool, "rating", orders, index -> rate(fleet.get(index))));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private boolean assign(final Order order) {
+        OrderAssignedToCourierEvent event = objectMapper.convertValue(Map.of(
+                "orderId", order.orderId,
+                "courierId", order.courierId,
+                "totalAmount", BigDecimal.valueOf(order.index % MAX_RATING + 1),
+                "orderLatitude", order.latitude,
+                "orderLongitude", order.longitude,
+                "confirmationType", order.confirmationType.name(),
+                "signature", Fixtures.SIGNATURE), OrderAssignedToCourierEvent.class);
+        assignmentConsumer.handleEvent(event, new Date());
+        return true;
+    }
+
+    private boolean outForDelivery(final Order order) throws Exception {
+        return isOk(perform(patch("/delivery-tasks/{id}", order.taskId),
+                Map.of("status", DeliveryStatus.OUT_FOR_DELIVERY)));
+    }
+
+    // the courier moves in a straight line from the depot towards the order
+    private boolean ping(final Order order, final int round, final int rounds) throws Exception {
+        double progress = (round + 1) / (double) rounds;
+        return isOk(perform(patch("/delivery-tasks/{orderId}/location", order.orderId), Map.of(
+                "latitude", DEPOT_LATITUDE + (order.latitude - DEPOT_LATITUDE) * progress,
+                "longitude", DEPOT_LONGITUDE + (order.longitude - DEPOT_LONGITUDE) * progress)));
+    }
+
+    private boolean confirm(final Order order) throws Exception {
+        String input = switch (order.confirmationType) {
+            case OTP -> order.taskId.substring(order.taskId.length() - OTP_LENGTH);
+            case QR_CODE -> "qr-code " + order.taskId;
+            case SIGNATURE -> Fixtures.SIGNATURE;
+        };
+        MvcResult result = perform(put("/delivery-tasks/{id}/confirmation", order.taskId),
+                Map.of("confirmationInput", input));
+        return isOk(result) && result.getResponse().getContentAsString().contains("confirmed");
+    }
+
+    private boolean rate(final Order order) throws Exception {
+        return isOk(perform(patch("/delivery-tasks/{id}/rate", order.taskId),
+                Map.of("rating", order.index % MAX_RATING + 1)));
+    }
+
+    private MvcResult perform(final MockHttpServletRequestBuilder request, final Object body) throws Exception {
+        return mockMvc.perform(request.contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsBytes(body))).andReturn();
+    }
+
+    private static boolean isOk(final MvcResult result) {
+        return result.getResponse().getStatus() / 100 == 2;
+    }
+
+    private static Courier ratedCourier(final BigDecimal rating) {
+        CourierRating courierRating = new CourierRating();
+        courierRating.setCount(1);
+        courierRating.setSumHundredths(CourierRating.toHundredths(rating));
+        Courier courier = new Courier();
+        courier.setRating(courierRating);
+        return courier;
+    }
+
+    private StageResult run(final ExecutorService pool, final String stage, final int operations,
+                            final Operation operation) throws Exception {
+        long[] latencies = new long[operations];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        List<Callable<Long>> workers = new ArrayList<>(threads);
+        for (int worker = 0; worker < threads; worker++) {
+            workers.add(() -> {
+                // bytes allocated by this worker thread while it ran the stage
+                com.sun.management.ThreadMXBean threadBean =
+                        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+                long allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+                for (int index = next.getAndIncrement(); index < operations; index = next.getAndIncrement()) {
+                    long start = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = operation.apply(index);
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    latencies[index] = System.nanoTime() - start;
+                    if (!ok) {
+                        errors.incrementAndGet();
+                    }
+                }
+                return threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            });
+        }
+        long start = System.nanoTime();
+        long allocatedBytes = 0;
+        for (Future<Long> allocated : pool.invokeAll(workers)) {
+            allocatedBytes += allocated.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return new StageResult(stage, operations, elapsed, latencies, allocatedBytes, errors.get());
+    }
+
+    private static void report(final boolean print, final StageResult result) {
+        if (print) {
+            result.print();
+        }
+    }
+
+    private void shutdown() {
+        locationStreamHub.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        boolean apply(int index) throws Exception;
+    }
+
+    private static final class Order {
+        private final String orderId;
+        private final String courierId;
+        private final int index;
+        private final double latitude;
+        private final double longitude;
+        private final ConfirmationType confirmationType;
+        private String taskId;
+
+        private Order(final String orderId, final String courierId, final int index) {
+            this.orderId = orderId;
+            this.courierId = courierId;
+            this.index = index;
+            // spread deterministically around the depot so runs are comparable
+            this.latitude = DEPOT_LATITUDE + ORDER_SPREAD_DEGREES * Math.sin(index);
+            this.longitude = DEPOT_LONGITUDE + ORDER_SPREAD_DEGREES * Math.cos(index);
+            this.confirmationType = ConfirmationType.values()[index % ConfirmationType.values().length];
+        }
+    }
+
+    private record StageResult(String stage, int operations, long elapsedNanos, long[] sortedLatencies,
+                               long allocatedBytes, int errors) {
+
+        void print() {
+            double seconds = elapsedNanos / NANOS_PER_SECOND;
+            System.out.printf(Locale.ROOT, "%-18s %9d %10.0f %8.2f %8.2f %8.2f %10.1f %9.2f %7d%n",
+                    stage, operations, operations / seconds, percentile(P50), percentile(P99), percentile(P999),
+                    allocatedBytes / BYTES_PER_MB / seconds, allocatedBytes / BYTES_PER_KB / operations, errors);
+        }
+
+        private double percentile(final double quantile) {
+            int index = (int) Math.ceil(quantile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / NANOS_PER_MILLI;
+        }
+    }
+}
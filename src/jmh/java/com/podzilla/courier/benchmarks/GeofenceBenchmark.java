@@ -0,0 +1,65 @@
+package com.podzilla.courier.benchmarks;
+
+import com.podzilla.courier.mappers.DeliveryTaskMapper;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.services.delivery_task.geofence.GeofenceMonitor;
+import com.podzilla.courier.services.delivery_task.location.LiveLocationStore;
+import com.podzilla.mq.events.ConfirmationType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// the per-ping cost of the geofence once the fence exists: a fix far away is rejected by the bounding box, a fix
+// inside the fence also pays for the distance check; neither crosses the fence, so nothing is published
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeofenceBenchmark {
+
+    private static final double FAR_OFFSET_DEGREES = 0.05;
+    private static final double NEAR_OFFSET_DEGREES = 0.0002;
+
+    private GeofenceMonitor farMonitor;
+    private GeofenceMonitor nearMonitor;
+    private String orderId;
+    private String courierId;
+
+    @Setup
+    public void setUp() {
+        DeliveryTask task = Fixtures.storedTask(1, ConfirmationType.OTP);
+        orderId = task.getOrderId();
+        courierId = task.getCourierId();
+        LiveLocationStore liveLocationStore = new LiveLocationStore(16);
+        liveLocationStore.track(DeliveryTaskMapper.toCreateResponseDto(task));
+        farMonitor = new GeofenceMonitor(liveLocationStore, new NoOpRabbitTemplate(), "benchmark", 75, 150);
+        nearMonitor = new GeofenceMonitor(liveLocationStore, new NoOpRabbitTemplate(), "benchmark", 75, 150);
+        // enters the fence once here, later near fixes stay inside it
+        nearMonitor.onLocationUpdate(orderId, courierId, Fixtures.ORDER_LATITUDE, Fixtures.ORDER_LONGITUDE);
+        farMonitor.onLocationUpdate(orderId, courierId, Fixtures.ORDER_LATITUDE + FAR_OFFSET_DEGREES,
+                Fixtures.ORDER_LONGITUDE);
+    }
+
+    @Benchmark
+    public void farFix() {
+        farMonitor.onLocationUpdate(orderId, courierId, Fixtures.ORDER_LATITUDE + FAR_OFFSET_DEGREES,
+                Fixtures.ORDER_LONGITUDE);
+    }
+
+    @Benchmark
+    public void fixInsideFence() {
+        nearMonitor.onLocationUpdate(orderId, courierId, Fixtures.ORDER_LATITUDE + NEAR_OFFSET_DEGREES,
+                Fixtures.ORDER_LONGITUDE);
+    }
+}
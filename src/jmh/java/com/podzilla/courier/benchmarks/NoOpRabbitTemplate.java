@@ -0,0 +1,21 @@
+package com.podzilla.courier.benchmarks;
+
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+// swallows the cache invalidation broadcasts instead of opening a broker connection. invoke runs the callback
+// against the template itself and every wait for confirms succeeds at once, as if the broker had acked
+class NoOpRabbitTemplate extends RabbitTemplate {
+
+    @Override
+    public void convertAndSend(final String exchange, final String routingKey, final Object object) {
+    }
+
+    @Override
+    public <T> T invoke(final OperationsCallback<T> action) {
+        return action.doInRabbit(this);
+    }
+
+    @Override
+    public void waitForConfirmsOrDie(final long timeout) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.podzilla.courier.benchmarks;
+
+import com.podzilla.courier.models.CourierLocation;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryStatusTransition;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.models.DeliveryTaskFields;
+import com.podzilla.courier.models.DeliveryTaskFilter;
+import com.podzilla.courier.models.DeliveryTaskStats;
+import com.podzilla.courier.models.StatsGranularity;
+import com.podzilla.courier.repositories.delivery_task.IDeliveryTaskRepository;
+import org.bson.types.ObjectId;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// stands in for Mongo so the benchmarks measure the service code only; just the reads and writes the benchmarked
+// paths reach are supported, and a transition is applied without the status guard so it can be repeated
+class RepeatableTransitionRepository implements IDeliveryTaskRepository {
+
+    private final Map<String, DeliveryTask> byId = new ConcurrentHashMap<>();
+    private final Map<String, DeliveryTask> byOrderId = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<DeliveryTask> findById(final String id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    // the benchmarks only read whole tasks, so projections are ignored
+    @Override
+    public Optional<DeliveryTask> findById(final String id, final DeliveryTaskFields fields) {
+        return findById(id);
+    }
+
+    @Override
+    public List<DeliveryTask> findMatching(final DeliveryTaskFilter filter, final DeliveryTaskFields fields) {
+        if (filter.orderId() == null) {
+            throw new UnsupportedOperationException();
+        }
+        return findByOrderId(filter.orderId());
+    }
+
+    @Override
+    public List<DeliveryTask> findByCourierId(final String courierId) {
+        return byId.values().stream().filter(task -> courierId.equals(task.getCourierId())).toList();
+    }
+
+    @Override
+    public List<DeliveryTask> findByStatus(final DeliveryStatus status) {
+        return byId.values().stream().filter(task -> task.getStatus() == status).toList();
+    }
+
+    @Override
+    public List<DeliveryTask> findByOrderId(final String orderId) {
+        DeliveryTask task = byOrderId.get(orderId);
+        return task == null ? List.of() : List.of(task);
+    }
+
+    @Override
+    public DeliveryTask save(final DeliveryTask deliveryTask) {
+        if (deliveryTask.getId() == null) {
+            deliveryTask.setId(new ObjectId().toHexString());
+        }
+        byId.put(deliveryTask.getId(), deliveryTask);
+        byOrderId.put(deliveryTask.getOrderId(), deliveryTask);
+        return deliveryTask;
+    }
+
+    @Override
+    public void delete(final DeliveryTask deliveryTask) {
+        byId.remove(deliveryTask.getId());
+        byOrderId.remove(deliveryTask.getOrderId());
+    }
+
+    @Override
+    public List<DeliveryTask> findAll() {
+        return List.copyOf(byId.values());
+    }
+
+    @Override
+    public Optional<DeliveryTask> transitionStatus(final String id, final DeliveryStatusTransition transition) {
+        DeliveryTask task = byId.get(id);
+        if (task == null) {
+            return Optional.empty();
+        }
+        task.setStatus(transition.status());
+        if (transition.otp() != null) {
+            task.setOtp(transition.otp());
+        }
+        if (transition.qrCode() != null) {
+            task.setQrCode(transition.qrCode());
+        }
+        return Optional.of(task);
+    }
+
+    @Override
+    public void updateCourierLocations(final List<CourierLocation> locations) {
+        for (CourierLocation location : locations) {
+            DeliveryTask task = byOrderId.get(location.orderId());
+            if (task != null) {
+                task.setCourierLatitude(location.latitude());
+                task.setCourierLongitude(location.longitude());
+            }
+        }
+    }
+
+    @Override
+    public Map<String, String> findCourierIdsByOrderIds(final Collection<String> orderIds) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<DeliveryTask> findPage(final DeliveryTaskFilter filter, final String afterId, final int limit,
+                                       final DeliveryTaskFields fields) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Stream<DeliveryTask> streamAll(final DeliveryTaskFilter filter, final DeliveryTaskFields fields) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<DeliveryTask> claimPendingEvents(final int limit, final Duration lease) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeOutboxEvents(final Map<String, List<String>> eventIdsByTaskId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Set<Integer> insertAll(final List<DeliveryTask> tasks) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<DeliveryStatus, Long> countByStatus() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<DeliveryTask> updateCourierRating(final String id, final BigDecimal rating,
+                                                      final LocalDateTime ratedAt) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DeliveryTaskStats aggregateStats(final LocalDateTime from, final LocalDateTime to,
+                                            final StatsGranularity granularity, final int limit) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -4,9 +4,11 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableMongoRepositories(basePackages = "com.podzilla.courier.repositories")
 @SpringBootApplication
+@EnableScheduling
 @ComponentScan(basePackages = {"com.podzilla.courier", "com.podzilla.mq"})
 public class CourierApplication {
 
@@ -1,7 +1,12 @@
 package com.podzilla.courier.controllers;
 
+import com.podzilla.courier.dtos.CursorPageDto;
+import com.podzilla.courier.dtos.couriers.CourierRankDto;
 import com.podzilla.courier.dtos.couriers.CourierResponseDto;
+import com.podzilla.courier.dtos.couriers.CourierStatusMembersDto;
+import com.podzilla.courier.dtos.couriers.NearbyCourierDto;
 import com.podzilla.courier.dtos.couriers.UpdateCourierRequestDto;
+import com.podzilla.courier.models.CourierStatus;
 import com.podzilla.courier.services.courier.CourierService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -16,6 +21,7 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
 
@@ -25,6 +31,7 @@ public class CourierController {
     private final CourierService courierService;
     private static final Logger LOGGER =
             LoggerFactory.getLogger(CourierController.class);
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     public CourierController(final CourierService courierService) {
         this.courierService = courierService;
@@ -32,12 +39,87 @@ public class CourierController {
 
     @GetMapping
     @Operation(summary = "Get all couriers",
-            description = "Retrieves a list of all couriers.")
+            description = "Retrieves a list of all couriers, or one page of them when a cursor or limit is given.")
     @ApiResponse(responseCode = "200",
             description = "Successfully retrieved list of couriers")
-    public ResponseEntity<List<CourierResponseDto>> getAllCouriers() {
+    public ResponseEntity<List<CourierResponseDto>> getAllCouriers(
+            @Parameter(description = "ID of the last courier of the previous page")
+            @RequestParam(required = false) final String cursor,
+            @Parameter(description = "Maximum number of couriers in the page")
+            @RequestParam(required = false) final Integer limit) {
         LOGGER.info("Received request to get all couriers");
-        return ResponseEntity.ok(courierService.getAllCouriers());
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(courierService.getAllCouriers());
+        }
+        CursorPageDto<CourierResponseDto> page = courierService.getCouriersPage(cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    @GetMapping("/status/{status}")
+    @Operation(summary = "Get couriers by status",
+            description = "Retrieves the number of couriers in a status and their IDs from the in-memory registry.")
+    @ApiResponse(responseCode = "200",
+            description = "Successfully retrieved couriers with the status")
+    public ResponseEntity<CourierStatusMembersDto> getCouriersByStatus(
+            @Parameter(description = "Courier status")
+            @PathVariable final CourierStatus status,
+            @Parameter(description = "Maximum number of courier IDs to return")
+            @RequestParam(required = false) final Integer limit) {
+        LOGGER.info("Received request to get couriers with status {}", status);
+        return ResponseEntity.ok(courierService.getCouriersByStatus(status, limit));
+    }
+
+    @GetMapping("/nearby")
+    @Operation(summary = "Get couriers within a radius",
+            description = "Retrieves couriers with the given status within a radius of a point, nearest first.")
+    @ApiResponse(responseCode = "200",
+            description = "Successfully retrieved nearby couriers")
+    public ResponseEntity<List<NearbyCourierDto>> getCouriersWithinRadius(
+            @Parameter(description = "Latitude of the point")
+            @RequestParam final double latitude,
+            @Parameter(description = "Longitude of the point")
+            @RequestParam final double longitude,
+            @Parameter(description = "Search radius in kilometres")
+            @RequestParam final double radiusKm,
+            @Parameter(description = "Courier status filter")
+            @RequestParam(defaultValue = "AVAILABLE") final CourierStatus status) {
+        LOGGER.info("Received request to get couriers within {} km of ({}, {})", radiusKm, latitude, longitude);
+        return ResponseEntity.ok(courierService.getCouriersWithinRadius(latitude, longitude, radiusKm, status));
+    }
+
+    @GetMapping("/nearest")
+    @Operation(summary = "Get nearest couriers",
+            description = "Retrieves the couriers with the given status closest to a point.")
+    @ApiResponse(responseCode = "200",
+            description = "Successfully retrieved nearest couriers")
+    public ResponseEntity<List<NearbyCourierDto>> getNearestCouriers(
+            @Parameter(description = "Latitude of the point")
+            @RequestParam final double latitude,
+            @Parameter(description = "Longitude of the point")
+            @RequestParam final double longitude,
+            @Parameter(description = "Maximum number of couriers to return")
+            @RequestParam(defaultValue = "5") final int limit,
+            @Parameter(description = "Courier status filter")
+            @RequestParam(defaultValue = "AVAILABLE") final CourierStatus status) {
+        LOGGER.info("Received request to get {} nearest couriers to ({}, {})", limit, latitude, longitude);
+        return ResponseEntity.ok(courierService.getNearestCouriers(latitude, longitude, limit, status));
+    }
+
+    @GetMapping("/leaderboard")
+    @Operation(summary = "Get the courier rating leaderboard",
+            description = "Retrieves the best rated couriers from the in-memory leaderboard, counting only couriers "
+                    + "with enough ratings.")
+    @ApiResponse(responseCode = "200",
+            description = "Successfully retrieved the leaderboard")
+    public ResponseEntity<List<CourierRankDto>> getRatingLeaderboard(
+            @Parameter(description = "Number of couriers to return")
+            @RequestParam(required = false) final Integer limit) {
+        LOGGER.info("Received request to get the courier rating leaderboard");
+        return ResponseEntity.ok(courierService.getRatingLeaderboard(limit));
     }
 
     @GetMapping("/{id}")
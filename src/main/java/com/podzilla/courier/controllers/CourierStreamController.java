@@ -0,0 +1,40 @@
+package com.podzilla.courier.controllers;
+
+import com.podzilla.courier.services.courier.CourierService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// WebFlux cannot write a StreamingResponseBody, ReactiveCourierStreamController serves this path under reactive
+@RestController
+@Profile("!reactive")
+@RequestMapping("/couriers")
+public class CourierStreamController {
+    private final CourierService courierService;
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(CourierStreamController.class);
+
+    public CourierStreamController(final CourierService courierService) {
+        this.courierService = courierService;
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream couriers",
+            description = "Streams all couriers as newline-delimited JSON straight from the database cursor.")
+    @ApiResponse(responseCode = "200",
+            description = "Couriers streamed successfully")
+    public ResponseEntity<StreamingResponseBody> streamCouriers() {
+        LOGGER.info("Received request to stream all couriers");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(courierService::streamCouriers);
+    }
+}
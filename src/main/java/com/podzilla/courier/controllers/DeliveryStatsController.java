@@ -0,0 +1,65 @@
+package com.podzilla.courier.controllers;
+
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryStatsDto;
+import com.podzilla.courier.models.StatsGranularity;
+import com.podzilla.courier.services.delivery_task.stats.DeliveryStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/delivery-tasks/stats")
+public class DeliveryStatsController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeliveryStatsController.class);
+
+    private final DeliveryStatsService deliveryStatsService;
+
+    public DeliveryStatsController(final DeliveryStatsService deliveryStatsService) {
+        this.deliveryStatsService = deliveryStatsService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get delivery task stats",
+            description = "Aggregates the delivery tasks created in a range in the database: counts per status, "
+                    + "courier and time bucket, cancellation reasons and average time to deliver")
+    @ApiResponse(responseCode = "200", description = "Stats of the tasks created in the range")
+    @ApiResponse(responseCode = "400", description = "Empty range or more buckets than one request may ask for")
+    public ResponseEntity<DeliveryStatsDto> getStats(
+            @Parameter(description = "Start of the range, inclusive, defaults to a day before its end")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            final LocalDateTime from,
+            @Parameter(description = "End of the range, exclusive, defaults to now")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            final LocalDateTime to,
+            @Parameter(description = "Width of the time buckets")
+            @RequestParam(defaultValue = "HOUR") final StatsGranularity granularity) {
+        LOGGER.info("Received request to get delivery task stats from {} to {}", from, to);
+        LocalDateTime end = to == null ? LocalDateTime.now() : to;
+        LocalDateTime start = from == null ? end.minusDays(1) : from;
+        return deliveryStatsService.getStats(start, end, granularity)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.badRequest().build());
+    }
+
+    @GetMapping("/live")
+    @Operation(summary = "Get live delivery task stats",
+            description = "Counts what this instance did over the last minutes from in-memory counters, per minute")
+    @ApiResponse(responseCode = "200", description = "Stats of the window")
+    public ResponseEntity<DeliveryStatsDto> getLiveStats(
+            @Parameter(description = "Length of the window in minutes, capped at the configured window")
+            @RequestParam(required = false) final Integer minutes) {
+        LOGGER.info("Received request to get live delivery task stats");
+        return ResponseEntity.ok(deliveryStatsService.getLiveStats(minutes));
+    }
+}
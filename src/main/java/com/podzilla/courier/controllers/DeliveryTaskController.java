@@ -1,5 +1,6 @@
 package com.podzilla.courier.controllers;
 
+import com.podzilla.courier.dtos.CursorPageDto;
 import com.podzilla.courier.dtos.delivery_tasks.CreateDeliveryTaskRequestDto;
 import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
 import com.podzilla.courier.dtos.delivery_tasks.UpdateDeliveryStatusRequestDto;
@@ -8,8 +9,12 @@ import com.podzilla.courier.dtos.delivery_tasks.CancelDeliveryTaskRequestDto;
 import com.podzilla.courier.dtos.delivery_tasks.CancelDeliveryTaskResponseDto;
 import com.podzilla.courier.dtos.delivery_tasks.ConfirmDeliveryDto;
 import com.podzilla.courier.dtos.delivery_tasks.LocationUpdateDto;
+import com.podzilla.courier.dtos.delivery_tasks.LocationUpdateResultDto;
+import com.podzilla.courier.dtos.delivery_tasks.OrderLocationUpdateDto;
 import com.podzilla.courier.dtos.delivery_tasks.SubmitCourierRatingRequestDto;
 import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryTaskFields;
+import com.podzilla.courier.models.DeliveryTaskFilter;
 import com.podzilla.courier.services.delivery_task.DeliveryTaskService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -19,7 +24,10 @@ import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.util.Pair;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -28,13 +36,19 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/delivery-tasks")
 public class DeliveryTaskController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DeliveryTaskController.class);
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     private final DeliveryTaskService deliveryTaskService;
 
@@ -66,22 +80,62 @@ public class DeliveryTaskController {
     }
 
     @GetMapping
-    @Operation(summary = "Get all delivery tasks", description = "Retrieves all delivery tasks")
+    @Operation(summary = "Get all delivery tasks",
+            description = "Retrieves all delivery tasks, or one page of them when a cursor or limit is given")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved all tasks")
-    public ResponseEntity<List<DeliveryTaskResponseDto>> getAllDeliveryTasks() {
+    @ApiResponse(responseCode = "400", description = "Unknown field requested")
+    public ResponseEntity<List<DeliveryTaskResponseDto>> getAllDeliveryTasks(
+            @Parameter(description = "ID of the last task of the previous page")
+            @RequestParam(required = false) final String cursor,
+            @Parameter(description = "Maximum number of tasks in the page")
+            @RequestParam(required = false) final Integer limit,
+            @Parameter(description = "Fields to return, all of them when omitted, id is always returned")
+            @RequestParam(required = false) final List<String> fields) {
         LOGGER.info("Received request to get all delivery tasks");
-        return ResponseEntity.ok(deliveryTaskService.getAllDeliveryTasks());
+        DeliveryTaskFields requestedFields = requestedFields(fields);
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(deliveryTaskService.getAllDeliveryTasks(requestedFields));
+        }
+        return toPageResponse(deliveryTaskService.getDeliveryTasksPage(DeliveryTaskFilter.all(), cursor, limit,
+                requestedFields));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream delivery tasks",
+            description = "Streams matching delivery tasks as newline-delimited JSON straight from the database cursor")
+    @ApiResponse(responseCode = "200", description = "Tasks streamed successfully")
+    @ApiResponse(responseCode = "400", description = "Unknown field requested")
+    public ResponseEntity<StreamingResponseBody> streamDeliveryTasks(
+            @Parameter(description = "Delivery status filter")
+            @RequestParam(required = false) final DeliveryStatus status,
+            @Parameter(description = "Courier ID filter")
+            @RequestParam(required = false) final String courierId,
+            @Parameter(description = "Order ID filter")
+            @RequestParam(required = false) final String orderId,
+            @Parameter(description = "Fields to return, all of them when omitted, id is always returned")
+            @RequestParam(required = false) final List<String> fields) {
+        LOGGER.info("Received request to stream delivery tasks");
+        DeliveryTaskFields requestedFields = requestedFields(fields);
+        DeliveryTaskFilter filter = new DeliveryTaskFilter(status, courierId, orderId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> deliveryTaskService.streamDeliveryTasks(filter, requestedFields,
+                        outputStream));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get delivery task by ID", description = "Retrieves a specific delivery task")
     @ApiResponse(responseCode = "200", description = "Delivery task found")
+    @ApiResponse(responseCode = "400", description = "Unknown field requested")
     @ApiResponse(responseCode = "404", description = "Delivery task not found")
     public ResponseEntity<DeliveryTaskResponseDto> getDeliveryTaskById(
             @Parameter(description = "ID of the delivery task")
-            @PathVariable final String id) {
+            @PathVariable final String id,
+            @Parameter(description = "Fields to return, all of them when omitted, id is always returned")
+            @RequestParam(required = false) final List<String> fields) {
         LOGGER.info("Received request to get delivery task with id {}", id);
-        return deliveryTaskService.getDeliveryTaskById(id)
+        DeliveryTaskFields requestedFields = requestedFields(fields);
+        return deliveryTaskService.getDeliveryTaskById(id, requestedFields)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -89,31 +143,67 @@ public class DeliveryTaskController {
     @GetMapping("/courier/{courierId}")
     @Operation(summary = "Get tasks by courier ID", description = "Retrieves delivery tasks for a specific courier")
     @ApiResponse(responseCode = "200", description = "Tasks retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Unknown field requested")
     public ResponseEntity<List<DeliveryTaskResponseDto>> getDeliveryTasksByCourierId(
             @Parameter(description = "ID of the courier")
-            @PathVariable final String courierId) {
+            @PathVariable final String courierId,
+            @Parameter(description = "ID of the last task of the previous page")
+            @RequestParam(required = false) final String cursor,
+            @Parameter(description = "Maximum number of tasks in the page")
+            @RequestParam(required = false) final Integer limit,
+            @Parameter(description = "Fields to return, all of them when omitted, id is always returned")
+            @RequestParam(required = false) final List<String> fields) {
         LOGGER.info("Received request to get delivery task with courier id {}", courierId);
-        return ResponseEntity.ok(deliveryTaskService.getDeliveryTasksByCourierId(courierId));
+        DeliveryTaskFields requestedFields = requestedFields(fields);
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(deliveryTaskService.getDeliveryTasksByCourierId(courierId, requestedFields));
+        }
+        return toPageResponse(deliveryTaskService.getDeliveryTasksPage(
+                DeliveryTaskFilter.byCourierId(courierId), cursor, limit, requestedFields));
     }
 
     @GetMapping("/status/{status}")
     @Operation(summary = "Get tasks by status", description = "Retrieves delivery tasks filtered by status")
     @ApiResponse(responseCode = "200", description = "Tasks retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Unknown field requested")
     public ResponseEntity<List<DeliveryTaskResponseDto>> getDeliveryTasksByStatus(
             @Parameter(description = "Delivery status filter")
-            @PathVariable final DeliveryStatus status) {
+            @PathVariable final DeliveryStatus status,
+            @Parameter(description = "ID of the last task of the previous page")
+            @RequestParam(required = false) final String cursor,
+            @Parameter(description = "Maximum number of tasks in the page")
+            @RequestParam(required = false) final Integer limit,
+            @Parameter(description = "Fields to return, all of them when omitted, id is always returned")
+            @RequestParam(required = false) final List<String> fields) {
         LOGGER.info("Received request to get delivery task with status {}", status);
-        return ResponseEntity.ok(deliveryTaskService.getDeliveryTasksByStatus(status));
+        DeliveryTaskFields requestedFields = requestedFields(fields);
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(deliveryTaskService.getDeliveryTasksByStatus(status, requestedFields));
+        }
+        return toPageResponse(deliveryTaskService.getDeliveryTasksPage(
+                DeliveryTaskFilter.byStatus(status), cursor, limit, requestedFields));
     }
 
     @GetMapping("/order/{orderId}")
     @Operation(summary = "Get tasks by order ID", description = "Retrieves delivery tasks for a specific order")
     @ApiResponse(responseCode = "200", description = "Tasks retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Unknown field requested")
     public ResponseEntity<List<DeliveryTaskResponseDto>> getDeliveryTasksByOrderId(
             @Parameter(description = "ID of the order")
-            @PathVariable final String orderId) {
+            @PathVariable final String orderId,
+            @Parameter(description = "ID of the last task of the previous page")
+            @RequestParam(required = false) final String cursor,
+            @Parameter(description = "Maximum number of tasks in the page")
+            @RequestParam(required = false) final Integer limit,
+            @Parameter(description = "Fields to return, all of them when omitted, id is always returned")
+            @RequestParam(required = false) final List<String> fields) {
         LOGGER.info("Received request to get delivery task with order id {}", orderId);
-        return ResponseEntity.ok(deliveryTaskService.getDeliveryTasksByOrderId(orderId));
+        DeliveryTaskFields requestedFields = requestedFields(fields);
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(deliveryTaskService.getDeliveryTasksByOrderId(orderId, requestedFields));
+        }
+        return toPageResponse(deliveryTaskService.getDeliveryTasksPage(
+                DeliveryTaskFilter.byOrderId(orderId), cursor, limit, requestedFields));
     }
 
     @GetMapping("/{orderId}/location")
@@ -127,6 +217,20 @@ public class DeliveryTaskController {
         return ResponseEntity.ok(deliveryTaskService.getDeliveryTaskLocation(orderId));
     }
 
+    @GetMapping(value = "/{orderId}/location/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream task location",
+            description = "Pushes courier coordinates of a delivery task as server-sent events until it ends")
+    @ApiResponse(responseCode = "200", description = "Location stream opened")
+    @ApiResponse(responseCode = "404", description = "Task not found")
+    public ResponseEntity<SseEmitter> streamDeliveryTaskLocation(
+            @Parameter(description = "ID of the order")
+            @PathVariable final String orderId) {
+        LOGGER.info("Received request to stream the location of delivery task with order id {}", orderId);
+        return deliveryTaskService.streamDeliveryTaskLocation(orderId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PatchMapping("/{orderId}/location")
     @Operation(summary = "Update task location", description = "Updates coordinates of a delivery task")
     @ApiResponse(responseCode = "200", description = "Location updated successfully")
@@ -142,6 +246,17 @@ public class DeliveryTaskController {
                 locationUpdateDto.getLongitude()));
     }
 
+    @PatchMapping("/locations")
+    @Operation(summary = "Update task locations in bulk",
+            description = "Applies buffered coordinates for many orders, keeping only the latest fix per order")
+    @ApiResponse(responseCode = "200", description = "Per-item results of the location updates")
+    public ResponseEntity<List<LocationUpdateResultDto>> updateDeliveryTaskLocations(
+            @RequestBody(description = "Coordinates per order")
+            @org.springframework.web.bind.annotation.RequestBody final List<OrderLocationUpdateDto> locationUpdates) {
+        LOGGER.info("Received request to update the location of {} delivery tasks", locationUpdates.size());
+        return ResponseEntity.ok(deliveryTaskService.updateDeliveryTaskLocations(locationUpdates));
+    }
+
     @PatchMapping("/{id}/cancel")
     @Operation(summary = "Cancel delivery task", description = "Cancels a delivery task with a reason")
     @ApiResponse(responseCode = "200", description = "Task cancelled successfully")
@@ -190,4 +305,18 @@ public class DeliveryTaskController {
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    private static <T> ResponseEntity<List<T>> toPageResponse(final CursorPageDto<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    // every handler taking a fields parameter answers 400 for a field that is not in the response
+    private static DeliveryTaskFields requestedFields(final List<String> fields) {
+        return DeliveryTaskFields.parse(fields)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field requested"));
+    }
 }
@@ -0,0 +1,51 @@
+package com.podzilla.courier.controllers;
+
+import com.podzilla.courier.dtos.dispatch.DispatchAssignmentDto;
+import com.podzilla.courier.dtos.dispatch.PendingOrderDto;
+import com.podzilla.courier.services.dispatch.DispatchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.parameters.RequestBody;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/dispatch")
+public class DispatchController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DispatchController.class);
+
+    private final DispatchService dispatchService;
+
+    public DispatchController(final DispatchService dispatchService) {
+        this.dispatchService = dispatchService;
+    }
+
+    @PostMapping("/orders")
+    @Operation(summary = "Queue orders for dispatch",
+            description = "Adds unassigned orders to the window assigned on the next dispatch tick")
+    @ApiResponse(responseCode = "202", description = "Orders queued, returns the number of pending orders")
+    public ResponseEntity<Integer> submitOrders(
+            @RequestBody(description = "Unassigned orders")
+            @org.springframework.web.bind.annotation.RequestBody final List<PendingOrderDto> orders) {
+        LOGGER.info("Received request to queue {} orders for dispatch", orders.size());
+        return ResponseEntity.accepted().body(dispatchService.submitOrders(orders));
+    }
+
+    @PostMapping
+    @Operation(summary = "Dispatch orders",
+            description = "Assigns the given orders to available couriers right away and creates their delivery tasks")
+    @ApiResponse(responseCode = "200", description = "Assignments made, orders without a courier are omitted")
+    public ResponseEntity<List<DispatchAssignmentDto>> dispatchOrders(
+            @RequestBody(description = "Unassigned orders")
+            @org.springframework.web.bind.annotation.RequestBody final List<PendingOrderDto> orders) {
+        LOGGER.info("Received request to dispatch {} orders", orders.size());
+        return ResponseEntity.ok(dispatchService.dispatch(orders));
+    }
+}
@@ -0,0 +1,47 @@
+package com.podzilla.courier.controllers;
+
+import com.podzilla.courier.dtos.delivery_tasks.EtaDto;
+import com.podzilla.courier.services.delivery_task.eta.EtaEngine;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/delivery-tasks")
+public class EtaController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EtaController.class);
+
+    private final EtaEngine etaEngine;
+    private final int maxBatchSize;
+
+    public EtaController(final EtaEngine etaEngine, @Value("${eta.max-batch-size}") final int maxBatchSize) {
+        this.etaEngine = etaEngine;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @GetMapping("/eta")
+    @Operation(summary = "Get estimated arrivals",
+            description = "Retrieves the latest arrival estimate of each given order from memory")
+    @ApiResponse(responseCode = "200", description = "Estimates of the orders that have one, in request order")
+    @ApiResponse(responseCode = "400", description = "More orders than one request may ask for")
+    public ResponseEntity<List<EtaDto>> getEtas(
+            @Parameter(description = "IDs of the orders, comma separated or repeated")
+            @RequestParam final List<String> orderIds) {
+        LOGGER.info("Received request to get the ETA of {} orders", orderIds.size());
+        if (orderIds.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(etaEngine.getEtas(orderIds));
+    }
+}
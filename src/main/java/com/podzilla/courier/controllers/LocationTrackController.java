@@ -0,0 +1,44 @@
+package com.podzilla.courier.controllers;
+
+import com.podzilla.courier.dtos.delivery_tasks.LocationTrackDto;
+import com.podzilla.courier.services.delivery_task.location.LocationTrackRecorder;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/delivery-tasks")
+public class LocationTrackController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocationTrackController.class);
+
+    private final LocationTrackRecorder locationTrackRecorder;
+
+    public LocationTrackController(final LocationTrackRecorder locationTrackRecorder) {
+        this.locationTrackRecorder = locationTrackRecorder;
+    }
+
+    @GetMapping("/{orderId}/track")
+    @Operation(summary = "Get task location track",
+            description = "Retrieves every recorded courier position of a delivery task, oldest first")
+    @ApiResponse(responseCode = "200", description = "Track retrieved successfully")
+    @ApiResponse(responseCode = "404", description = "No positions recorded for the order")
+    public ResponseEntity<LocationTrackDto> getDeliveryTaskTrack(
+            @Parameter(description = "ID of the order")
+            @PathVariable final String orderId,
+            @Parameter(description = "Downsample the track to at most this many evenly spaced positions")
+            @RequestParam(required = false) final Integer maxPoints) {
+        LOGGER.info("Received request to get the location track of delivery task with order id {}", orderId);
+        return locationTrackRecorder.getTrack(orderId, maxPoints)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,43 @@
+package com.podzilla.courier.controllers;
+
+import com.podzilla.courier.dtos.couriers.CourierResponseDto;
+import com.podzilla.courier.services.courier.CourierService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.stream.Stream;
+
+// same path as CourierStreamController under the reactive profile. the courier cursor is blocking, so it is read
+// on boundedElastic and closed when the response completes or the client goes away
+@RestController
+@Profile("reactive")
+@RequestMapping("/couriers")
+public class ReactiveCourierStreamController {
+    private final CourierService courierService;
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(ReactiveCourierStreamController.class);
+
+    public ReactiveCourierStreamController(final CourierService courierService) {
+        this.courierService = courierService;
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream couriers",
+            description = "Streams all couriers as newline-delimited JSON straight from the database cursor.")
+    @ApiResponse(responseCode = "200",
+            description = "Couriers streamed successfully")
+    public Flux<CourierResponseDto> streamCouriers() {
+        LOGGER.info("Received request to stream all couriers");
+        return Flux.using(courierService::openCourierStream, Flux::fromStream, Stream::close)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
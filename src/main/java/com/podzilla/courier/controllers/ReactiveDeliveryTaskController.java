@@ -0,0 +1,303 @@
+package com.podzilla.courier.controllers;
+
+import com.podzilla.courier.dtos.CursorPageDto;
+import com.podzilla.courier.dtos.delivery_tasks.CancelDeliveryTaskRequestDto;
+import com.podzilla.courier.dtos.delivery_tasks.CancelDeliveryTaskResponseDto;
+import com.podzilla.courier.dtos.delivery_tasks.ConfirmDeliveryDto;
+import com.podzilla.courier.dtos.delivery_tasks.CreateDeliveryTaskRequestDto;
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import com.podzilla.courier.dtos.delivery_tasks.LocationUpdateDto;
+import com.podzilla.courier.dtos.delivery_tasks.LocationUpdateResultDto;
+import com.podzilla.courier.dtos.delivery_tasks.OrderLocationUpdateDto;
+import com.podzilla.courier.dtos.delivery_tasks.SubmitCourierRatingRequestDto;
+import com.podzilla.courier.dtos.delivery_tasks.SubmitCourierRatingResponseDto;
+import com.podzilla.courier.dtos.delivery_tasks.UpdateDeliveryStatusRequestDto;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryTaskFilter;
+import com.podzilla.courier.services.delivery_task.DeliveryTaskService;
+import com.podzilla.courier.services.delivery_task.ReactiveDeliveryTaskService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.parameters.RequestBody;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.util.Pair;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+
+// same paths and DTOs as DeliveryTaskController, served by WebFlux under the reactive profile. the methods that
+// still return plain values call the blocking service and are run off the event loop by ReactiveWebConfig
+@RestController
+@Profile("reactive")
+@RequestMapping("/delivery-tasks")
+public class ReactiveDeliveryTaskController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveDeliveryTaskController.class);
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final ReactiveDeliveryTaskService reactiveDeliveryTaskService;
+    private final DeliveryTaskService deliveryTaskService;
+
+    public ReactiveDeliveryTaskController(final ReactiveDeliveryTaskService reactiveDeliveryTaskService,
+                                          final DeliveryTaskService deliveryTaskService) {
+        this.reactiveDeliveryTaskService = reactiveDeliveryTaskService;
+        this.deliveryTaskService = deliveryTaskService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Create delivery task", description = "Creates a new delivery task")
+    @ApiResponse(responseCode = "200", description = "Delivery task created successfully")
+    public Mono<ResponseEntity<DeliveryTaskResponseDto>> createDeliveryTask(
+            @RequestBody(description = "Delivery task creation details")
+            @org.springframework.web.bind.annotation.RequestBody final CreateDeliveryTaskRequestDto requestDto) {
+        LOGGER.info("Received request to create delivery task");
+        return reactiveDeliveryTaskService.createDeliveryTask(requestDto).map(ResponseEntity::ok);
+    }
+
+    @PatchMapping("/{id}")
+    @Operation(summary = "Update delivery task status", description = "Updates the status of a delivery task")
+    @ApiResponse(responseCode = "200", description = "Status updated successfully")
+    @ApiResponse(responseCode = "404", description = "Delivery task not found")
+    public Mono<ResponseEntity<Optional<DeliveryTaskResponseDto>>> updateDeliveryTaskStatus(
+            @Parameter(description = "ID of the delivery task")
+            @PathVariable final String id,
+            @RequestBody(description = "New status details")
+            @org.springframework.web.bind.annotation.RequestBody final UpdateDeliveryStatusRequestDto statusDto) {
+        LOGGER.info("Received request to update delivery task with id {}", id);
+        return reactiveDeliveryTaskService.updateDeliveryTaskStatus(id, statusDto.getStatus())
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .map(ResponseEntity::ok);
+    }
+
+    @GetMapping
+    @Operation(summary = "Get all delivery tasks",
+            description = "Retrieves all delivery tasks, or one page of them when a cursor or limit is given")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved all tasks")
+    public Mono<ResponseEntity<List<DeliveryTaskResponseDto>>> getAllDeliveryTasks(
+            @Parameter(description = "ID of the last task of the previous page")
+            @RequestParam(required = false) final String cursor,
+            @Parameter(description = "Maximum number of tasks in the page")
+            @RequestParam(required = false) final Integer limit) {
+        LOGGER.info("Received request to get all delivery tasks");
+        if (cursor == null && limit == null) {
+            return toListResponse(reactiveDeliveryTaskService.getAllDeliveryTasks());
+        }
+        return reactiveDeliveryTaskService.getDeliveryTasksPage(DeliveryTaskFilter.all(), cursor, limit)
+                .map(ReactiveDeliveryTaskController::toPageResponse);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream delivery tasks",
+            description = "Streams matching delivery tasks as newline-delimited JSON straight from the database cursor")
+    @ApiResponse(responseCode = "200", description = "Tasks streamed successfully")
+    public Flux<DeliveryTaskResponseDto> streamDeliveryTasks(
+            @Parameter(description = "Delivery status filter")
+            @RequestParam(required = false) final DeliveryStatus status,
+            @Parameter(description = "Courier ID filter")
+            @RequestParam(required = false) final String courierId,
+            @Parameter(description = "Order ID filter")
+            @RequestParam(required = false) final String orderId) {
+        LOGGER.info("Received request to stream delivery tasks");
+        return reactiveDeliveryTaskService.streamDeliveryTasks(new DeliveryTaskFilter(status, courierId, orderId));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get delivery task by ID", description = "Retrieves a specific delivery task")
+    @ApiResponse(responseCode = "200", description = "Delivery task found")
+    @ApiResponse(responseCode = "404", description = "Delivery task not found")
+    public Mono<ResponseEntity<DeliveryTaskResponseDto>> getDeliveryTaskById(
+            @Parameter(description = "ID of the delivery task")
+            @PathVariable final String id) {
+        LOGGER.info("Received request to get delivery task with id {}", id);
+        return reactiveDeliveryTaskService.getDeliveryTaskById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/courier/{courierId}")
+    @Operation(summary = "Get tasks by courier ID", description = "Retrieves delivery tasks for a specific courier")
+    @ApiResponse(responseCode = "200", description = "Tasks retrieved successfully")
+    public Mono<ResponseEntity<List<DeliveryTaskResponseDto>>> getDeliveryTasksByCourierId(
+            @Parameter(description = "ID of the courier")
+            @PathVariable final String courierId,
+            @Parameter(description = "ID of the last task of the previous page")
+            @RequestParam(required = false) final String cursor,
+            @Parameter(description = "Maximum number of tasks in the page")
+            @RequestParam(required = false) final Integer limit) {
+        LOGGER.info("Received request to get delivery task with courier id {}", courierId);
+        if (cursor == null && limit == null) {
+            return toListResponse(reactiveDeliveryTaskService.getDeliveryTasksByCourierId(courierId));
+        }
+        return reactiveDeliveryTaskService.getDeliveryTasksPage(DeliveryTaskFilter.byCourierId(courierId), cursor,
+                limit).map(ReactiveDeliveryTaskController::toPageResponse);
+    }
+
+    @GetMapping("/status/{status}")
+    @Operation(summary = "Get tasks by status", description = "Retrieves delivery tasks filtered by status")
+    @ApiResponse(responseCode = "200", description = "Tasks retrieved successfully")
+    public Mono<ResponseEntity<List<DeliveryTaskResponseDto>>> getDeliveryTasksByStatus(
+            @Parameter(description = "Delivery status filter")
+            @PathVariable final DeliveryStatus status,
+            @Parameter(description = "ID of the last task of the previous page")
+            @RequestParam(required = false) final String cursor,
+            @Parameter(description = "Maximum number of tasks in the page")
+            @RequestParam(required = false) final Integer limit) {
+        LOGGER.info("Received request to get delivery task with status {}", status);
+        if (cursor == null && limit == null) {
+            return toListResponse(reactiveDeliveryTaskService.getDeliveryTasksByStatus(status));
+        }
+        return reactiveDeliveryTaskService.getDeliveryTasksPage(DeliveryTaskFilter.byStatus(status), cursor, limit)
+                .map(ReactiveDeliveryTaskController::toPageResponse);
+    }
+
+    @GetMapping("/order/{orderId}")
+    @Operation(summary = "Get tasks by order ID", description = "Retrieves delivery tasks for a specific order")
+    @ApiResponse(responseCode = "200", description = "Tasks retrieved successfully")
+    public Mono<ResponseEntity<List<DeliveryTaskResponseDto>>> getDeliveryTasksByOrderId(
+            @Parameter(description = "ID of the order")
+            @PathVariable final String orderId,
+            @Parameter(description = "ID of the last task of the previous page")
+            @RequestParam(required = false) final String cursor,
+            @Parameter(description = "Maximum number of tasks in the page")
+            @RequestParam(required = false) final Integer limit) {
+        LOGGER.info("Received request to get delivery task with order id {}", orderId);
+        if (cursor == null && limit == null) {
+            return toListResponse(reactiveDeliveryTaskService.getDeliveryTasksByOrderId(orderId));
+        }
+        return reactiveDeliveryTaskService.getDeliveryTasksPage(DeliveryTaskFilter.byOrderId(orderId), cursor, limit)
+                .map(ReactiveDeliveryTaskController::toPageResponse);
+    }
+
+    @GetMapping("/{orderId}/location")
+    @Operation(summary = "Get task location", description = "Retrieves coordinates of a delivery task")
+    @ApiResponse(responseCode = "200", description = "Location retrieved successfully")
+    @ApiResponse(responseCode = "404", description = "Task not found")
+    public Mono<ResponseEntity<Pair<Double, Double>>> getDeliveryTaskLocation(
+            @Parameter(description = "ID of the order")
+            @PathVariable final String orderId) {
+        LOGGER.info("Received request to get the location of delivery task with order id {}", orderId);
+        return reactiveDeliveryTaskService.getDeliveryTaskLocation(orderId).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/{orderId}/location/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream task location",
+            description = "Pushes courier coordinates of a delivery task as server-sent events until it ends")
+    @ApiResponse(responseCode = "200", description = "Location stream opened")
+    @ApiResponse(responseCode = "404", description = "Task not found")
+    public Mono<ResponseEntity<Flux<ServerSentEvent<Object>>>> streamDeliveryTaskLocation(
+            @Parameter(description = "ID of the order")
+            @PathVariable final String orderId) {
+        LOGGER.info("Received request to stream the location of delivery task with order id {}", orderId);
+        return reactiveDeliveryTaskService.streamDeliveryTaskLocation(orderId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PatchMapping("/{orderId}/location")
+    @Operation(summary = "Update task location", description = "Updates coordinates of a delivery task")
+    @ApiResponse(responseCode = "200", description = "Location updated successfully")
+    public Mono<ResponseEntity<DeliveryTaskResponseDto>> updateDeliveryTaskLocation(
+            @Parameter(description = "ID of the order")
+            @PathVariable final String orderId,
+            @RequestBody(description = "New coordinates data")
+            @org.springframework.web.bind.annotation.RequestBody final LocationUpdateDto locationUpdateDto) {
+        LOGGER.info("Received request to update the location of delivery task with order id {}", orderId);
+        return reactiveDeliveryTaskService.updateDeliveryTaskLocation(
+                        orderId,
+                        locationUpdateDto.getLatitude(),
+                        locationUpdateDto.getLongitude())
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.ok().build());
+    }
+
+    @PatchMapping("/locations")
+    @Operation(summary = "Update task locations in bulk",
+            description = "Applies buffered coordinates for many orders, keeping only the latest fix per order")
+    @ApiResponse(responseCode = "200", description = "Per-item results of the location updates")
+    public ResponseEntity<List<LocationUpdateResultDto>> updateDeliveryTaskLocations(
+            @RequestBody(description = "Coordinates per order")
+            @org.springframework.web.bind.annotation.RequestBody final List<OrderLocationUpdateDto> locationUpdates) {
+        LOGGER.info("Received request to update the location of {} delivery tasks", locationUpdates.size());
+        return ResponseEntity.ok(deliveryTaskService.updateDeliveryTaskLocations(locationUpdates));
+    }
+
+    @PatchMapping("/{id}/cancel")
+    @Operation(summary = "Cancel delivery task", description = "Cancels a delivery task with a reason")
+    @ApiResponse(responseCode = "200", description = "Task cancelled successfully")
+    public ResponseEntity<CancelDeliveryTaskResponseDto> cancelDeliveryTask(
+            @Parameter(description = "ID of the delivery task")
+            @PathVariable final String id,
+            @RequestBody(description = "Cancellation details")
+            @org.springframework.web.bind.annotation.RequestBody final CancelDeliveryTaskRequestDto cancelTaskDto) {
+        LOGGER.info("Received request to cancel delivery task with id {}", id);
+        return ResponseEntity.ok(deliveryTaskService.cancelDeliveryTask(id, cancelTaskDto.cancellationReason()));
+    }
+
+    @PatchMapping("/{id}/rate")
+    @Operation(summary = "Submit courier rating", description = "Submits a rating for the courier's performance")
+    @ApiResponse(responseCode = "200", description = "Rating submitted successfully")
+    public ResponseEntity<SubmitCourierRatingResponseDto> submitCourierRating(
+            @Parameter(description = "ID of the delivery task")
+            @PathVariable final String id,
+            @RequestBody(description = "Rating details")
+            @org.springframework.web.bind.annotation.RequestBody final SubmitCourierRatingRequestDto ratingDto) {
+        return ResponseEntity.ok(deliveryTaskService.submitCourierRating(id, ratingDto.getRating()));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete delivery task", description = "Permanently removes a delivery task")
+    @ApiResponse(responseCode = "200", description = "Task deleted successfully")
+    public ResponseEntity<DeliveryTaskResponseDto> deleteDeliveryTask(
+            @Parameter(description = "ID of the delivery task")
+            @PathVariable final String id) {
+        LOGGER.info("Received request to delete delivery task with id {}", id);
+        return ResponseEntity.ok(deliveryTaskService.deleteDeliveryTask(id));
+    }
+
+    @PutMapping("/{id}/confirmation")
+    @Operation(summary = "Confirm delivery",
+            description = "Validates the delivery confirmation input (e.g., OTP, QR code, or signature)")
+    @ApiResponse(responseCode = "200", description = "Delivery confirmed successfully")
+    @ApiResponse(responseCode = "404", description = "Invalid confirmation input or task not found")
+    public ResponseEntity<String> confirmDelivery(
+            @Parameter(description = "ID of the delivery task")
+            @PathVariable final String id,
+            @RequestBody(description = "Confirmation input (e.g., OTP, QR code, or signature)")
+            @org.springframework.web.bind.annotation.RequestBody final ConfirmDeliveryDto confirmDeliveryDto) {
+        LOGGER.info("Received request to confirm delivery for task ID: {}", id);
+        return deliveryTaskService.confirmDelivery(id, confirmDeliveryDto.getConfirmationInput())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private static Mono<ResponseEntity<List<DeliveryTaskResponseDto>>> toListResponse(
+            final Flux<DeliveryTaskResponseDto> tasks) {
+        return tasks.collectList().map(ResponseEntity::ok);
+    }
+
+    private static <T> ResponseEntity<List<T>> toPageResponse(final CursorPageDto<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+}
@@ -0,0 +1,21 @@
+package com.podzilla.courier.controllers;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.reactive.config.BlockingExecutionConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+// under WebFlux the controllers that still call blocking services (couriers, dispatch and the colder delivery task
+// endpoints) return plain values; those handlers are run on virtual threads instead of the event loop
+@Configuration
+@Profile("reactive")
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+    @Override
+    public void configureBlockingExecution(final BlockingExecutionConfigurer configurer) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("webflux-blocking-");
+        executor.setVirtualThreads(true);
+        configurer.setExecutor(executor);
+    }
+}
@@ -0,0 +1,17 @@
+package com.podzilla.courier.dtos;
+
+import java.util.List;
+import java.util.function.Function;
+
+// nextCursor is the id to pass as the cursor of the following page, null on the last page
+public record CursorPageDto<T>(List<T> items, String nextCursor) {
+
+    // fetched holds up to limit + 1 entities, the extra one only tells that another page exists
+    public static <E, T> CursorPageDto<T> of(final List<E> fetched, final int limit, final Function<E, T> mapper,
+                                            final Function<T, String> cursorOf) {
+        List<T> items = fetched.stream().limit(limit).map(mapper).toList();
+        String nextCursor = fetched.size() > limit && !items.isEmpty() ? cursorOf.apply(items.get(items.size() - 1))
+                : null;
+        return new CursorPageDto<>(items, nextCursor);
+    }
+}
@@ -0,0 +1,4 @@
+package com.podzilla.courier.dtos.couriers;
+
+public record CourierRankDto(int rank, String courierId, double averageRating, long ratingCount) {
+}
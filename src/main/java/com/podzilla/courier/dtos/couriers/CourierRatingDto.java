@@ -0,0 +1,7 @@
+package com.podzilla.courier.dtos.couriers;
+
+import java.util.Map;
+
+// histogram holds the number of ratings per star, recentAverage covers the latest rating.recent-window ratings
+public record CourierRatingDto(long count, double average, double recentAverage, Map<Integer, Long> histogram) {
+}
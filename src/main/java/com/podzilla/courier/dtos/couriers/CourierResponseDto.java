@@ -2,5 +2,7 @@ package com.podzilla.courier.dtos.couriers;
 
 import com.podzilla.courier.models.CourierStatus;
 
-public record CourierResponseDto(String id, String name, String mobileNo, CourierStatus status) {
+// rating is null until the courier has been rated
+public record CourierResponseDto(String id, String name, String mobileNo, CourierStatus status,
+                                 CourierRatingDto rating) {
 }
@@ -0,0 +1,8 @@
+package com.podzilla.courier.dtos.couriers;
+
+import com.podzilla.courier.models.CourierStatus;
+
+import java.util.List;
+
+public record CourierStatusMembersDto(CourierStatus status, int count, List<String> courierIds) {
+}
@@ -0,0 +1,7 @@
+package com.podzilla.courier.dtos.couriers;
+
+import com.podzilla.courier.models.CourierStatus;
+
+public record NearbyCourierDto(String courierId, CourierStatus status, double latitude, double longitude,
+                               double distanceKm) {
+}
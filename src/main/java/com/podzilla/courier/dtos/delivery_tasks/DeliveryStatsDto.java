@@ -0,0 +1,16 @@
+package com.podzilla.courier.dtos.delivery_tasks;
+
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.StatsGranularity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// over a historical range the counts are of the tasks created in it, byStatus by their current status; live counts
+// are of what happened in the window, byStatus by the status tasks entered. byCourier counts assigned tasks
+public record DeliveryStatsDto(LocalDateTime from, LocalDateTime to, StatsGranularity granularity, long tasks,
+                               Map<DeliveryStatus, Long> byStatus, Map<String, Long> byCourier,
+                               List<StatsBucketDto> buckets, Map<String, Long> cancellationReasons,
+                               long deliveries, Double averageMinutesToDeliver) {
+}
@@ -1,11 +1,14 @@
 package com.podzilla.courier.dtos.delivery_tasks;
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.podzilla.courier.models.DeliveryStatus;
 import com.podzilla.mq.events.ConfirmationType;
 
 import java.math.BigDecimal;
 
+// a read asking for some fields leaves the rest null, which are omitted
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record DeliveryTaskResponseDto(String id, String orderId, String courierId, BigDecimal totalAmount,
                                       DeliveryStatus status, Double orderLatitude, Double orderLongitude,
                                       Double courierLatitude, Double courierLongitude,
@@ -0,0 +1,8 @@
+package com.podzilla.courier.dtos.delivery_tasks;
+
+import java.time.Instant;
+
+// remainingKm is the straight-line distance to the order, the arrival estimate already allows for the detour
+public record EtaDto(String orderId, String courierId, double remainingKm, double speedKmh,
+                     Instant estimatedArrival, Instant computedAt) {
+}
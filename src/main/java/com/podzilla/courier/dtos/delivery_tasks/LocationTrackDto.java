@@ -0,0 +1,7 @@
+package com.podzilla.courier.dtos.delivery_tasks;
+
+import java.util.List;
+
+// recordedPoints counts the whole track, points may be a downsampled subset of it
+public record LocationTrackDto(String orderId, int recordedPoints, List<TrackPointDto> points) {
+}
@@ -0,0 +1,4 @@
+package com.podzilla.courier.dtos.delivery_tasks;
+
+public record LocationUpdateResultDto(String orderId, LocationUpdateStatus status) {
+}
@@ -0,0 +1,8 @@
+package com.podzilla.courier.dtos.delivery_tasks;
+
+public enum LocationUpdateStatus {
+    APPLIED,
+    SUPERSEDED,
+    NOT_FOUND,
+    INVALID
+}
@@ -0,0 +1,17 @@
+package com.podzilla.courier.dtos.delivery_tasks;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Setter
+@Getter
+public class OrderLocationUpdateDto extends LocationUpdateDto {
+    @NotNull(message = "Order ID is required")
+    private String orderId;
+
+    // when the fix was taken on the device, used to keep only the latest fix per order
+    private Instant recordedAt;
+}
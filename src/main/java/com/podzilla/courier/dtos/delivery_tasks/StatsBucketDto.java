@@ -0,0 +1,6 @@
+package com.podzilla.courier.dtos.delivery_tasks;
+
+import java.time.Instant;
+
+public record StatsBucketDto(Instant start, long tasks) {
+}
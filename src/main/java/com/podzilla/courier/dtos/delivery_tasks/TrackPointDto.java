@@ -0,0 +1,6 @@
+package com.podzilla.courier.dtos.delivery_tasks;
+
+import java.time.Instant;
+
+public record TrackPointDto(Instant recordedAt, double latitude, double longitude) {
+}
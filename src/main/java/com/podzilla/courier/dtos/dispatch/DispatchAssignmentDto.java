@@ -0,0 +1,4 @@
+package com.podzilla.courier.dtos.dispatch;
+
+public record DispatchAssignmentDto(String orderId, String courierId, double distanceKm) {
+}
@@ -0,0 +1,29 @@
+package com.podzilla.courier.dtos.dispatch;
+
+import com.podzilla.mq.events.ConfirmationType;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+@AllArgsConstructor
+public class PendingOrderDto {
+    @NotNull(message = "Order ID is required")
+    private String orderId;
+
+    @NotNull(message = "Total amount is required")
+    private BigDecimal totalAmount;
+
+    @NotNull(message = "Order latitude is required")
+    private double orderLatitude;
+
+    @NotNull(message = "Order longitude is required")
+    private double orderLongitude;
+
+    @NotNull(message = "Confirmation type is required")
+    private ConfirmationType confirmationType;
+
+    private String signature;
+}
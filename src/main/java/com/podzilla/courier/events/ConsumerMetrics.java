@@ -0,0 +1,47 @@
+package com.podzilla.courier.events;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+
+// processing time of the event consumers and their lag behind the publisher. lag is measured from the AMQP
+// timestamp property, so messages published without one only count towards the processing time
+@Component
+public class ConsumerMetrics {
+
+    private static final String PROCESSING_TIMER = "courier.events.consume";
+    private static final String LAG_TIMER = "courier.events.lag";
+
+    private final MeterRegistry meterRegistry;
+
+    public ConsumerMetrics(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Timer.Sample start(final String consumer, final Date publishedAt) {
+        recordLag(consumer, publishedAt);
+        return Timer.start(meterRegistry);
+    }
+
+    public void recordLag(final String consumer, final Date publishedAt) {
+        if (publishedAt == null) {
+            return;
+        }
+        long lagMs = Math.max(0, System.currentTimeMillis() - publishedAt.getTime());
+        Timer.builder(LAG_TIMER)
+                .description("Time between publishing an event and its consumer picking it up")
+                .tag("consumer", consumer)
+                .register(meterRegistry)
+                .record(Duration.ofMillis(lagMs));
+    }
+
+    public void stop(final String consumer, final Timer.Sample sample) {
+        sample.stop(Timer.builder(PROCESSING_TIMER)
+                .description("Time spent by a consumer handling a message or a batch")
+                .tag("consumer", consumer)
+                .register(meterRegistry));
+    }
+}
@@ -1,34 +1,75 @@
 package com.podzilla.courier.events;
 
 import com.podzilla.courier.dtos.delivery_tasks.CreateDeliveryTaskRequestDto;
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
 import com.podzilla.courier.services.delivery_task.DeliveryTaskService;
 import com.podzilla.mq.EventsConstants;
 import com.podzilla.mq.events.BaseEvent;
 import com.podzilla.mq.events.OrderAssignedToCourierEvent;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @Component
 public class CourierAssignmentEventConsumer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CourierAssignmentEventConsumer.class);
+    private static final String EVENT_KEY_PREFIX = "order-assigned:";
+    private static final String CONSUMER = "courier-assignment";
     private final DeliveryTaskService deliveryTaskService;
+    private final EventDeduplicator eventDeduplicator;
+    private final MessageConverter messageConverter;
+    private final ConsumerMetrics consumerMetrics;
 
-    public CourierAssignmentEventConsumer(final DeliveryTaskService deliveryTaskService) {
+    public CourierAssignmentEventConsumer(final DeliveryTaskService deliveryTaskService,
+                                          final EventDeduplicator eventDeduplicator,
+                                          final RabbitTemplate rabbitTemplate,
+                                          final ConsumerMetrics consumerMetrics) {
         this.deliveryTaskService = deliveryTaskService;
+        this.eventDeduplicator = eventDeduplicator;
+        this.messageConverter = rabbitTemplate.getMessageConverter();
+        this.consumerMetrics = consumerMetrics;
     }
 
-    @RabbitListener(queues = EventsConstants.COURIER_ORDER_EVENT_QUEUE)
-    public void handleEvent(final BaseEvent event) {
-        if (event instanceof OrderAssignedToCourierEvent) {
-            OrderAssignedToCourierEvent courierEvent = (OrderAssignedToCourierEvent) event;
-            CreateDeliveryTaskRequestDto deliveryTask = new CreateDeliveryTaskRequestDto(
-                    courierEvent.getOrderId(),
-                    courierEvent.getCourierId(),
-                    courierEvent.getTotalAmount(),
-                    courierEvent.getOrderLatitude(),
-                    courierEvent.getOrderLongitude(),
-                    courierEvent.getConfirmationType(),
-                    courierEvent.getSignature());
-            deliveryTaskService.createDeliveryTask(deliveryTask);
+    @RabbitListener(queues = EventsConstants.COURIER_ORDER_EVENT_QUEUE,
+            autoStartup = "#{!${assignment.batch.enabled}}")
+    public void handleEvent(final BaseEvent event,
+                            @Header(name = AmqpHeaders.TIMESTAMP, required = false) final Date publishedAt) {
+        Timer.Sample sample = consumerMetrics.start(CONSUMER, publishedAt);
+        try {
+            consume(event);
+        } finally {
+            consumerMetrics.stop(CONSUMER, sample);
+        }
+    }
+
+    // one insertMany per batch; replays are dropped, and an order that already has a task is acknowledged like a
+    // new one. messages that cannot be read or inserted are rejected one by one and the rest of the batch is
+    // acknowledged with a single multiple ack up to its last unsettled tag
+    @RabbitListener(queues = EventsConstants.COURIER_ORDER_EVENT_QUEUE,
+            containerFactory = "batchRabbitListenerContainerFactory",
+            autoStartup = "${assignment.batch.enabled}")
+    public void handleEvents(final List<Message> messages, final Channel channel) throws IOException {
+        Timer.Sample sample = consumerMetrics.start(CONSUMER, null);
+        try {
+            consumeBatch(messages, channel);
+        } finally {
+            consumerMetrics.stop(CONSUMER, sample);
         }
     }
 
@@ -36,4 +77,91 @@ public class CourierAssignmentEventConsumer {
     public void handleUserEvent(final BaseEvent event) {
         System.out.println("Received user event: " + event);
     }
+
+    private void consume(final BaseEvent event) {
+        if (event instanceof OrderAssignedToCourierEvent) {
+            OrderAssignedToCourierEvent courierEvent = (OrderAssignedToCourierEvent) event;
+            String eventKey = EVENT_KEY_PREFIX + courierEvent.getOrderId();
+            if (eventDeduplicator.isReplay(eventKey)) {
+                LOGGER.debug("Dropping replayed courier assignment for order {}", courierEvent.getOrderId());
+                return;
+            }
+            deliveryTaskService.createDeliveryTask(toRequestDto(courierEvent));
+            eventDeduplicator.record(eventKey);
+        }
+    }
+
+    private void consumeBatch(final List<Message> messages, final Channel channel) throws IOException {
+        List<CreateDeliveryTaskRequestDto> requestDtos = new ArrayList<>(messages.size());
+        List<Long> deliveryTags = new ArrayList<>(messages.size());
+        Set<String> batchOrderIds = new HashSet<>();
+        Set<Long> rejectedTags = new HashSet<>();
+        for (Message message : messages) {
+            long deliveryTag = message.getMessageProperties().getDeliveryTag();
+            consumerMetrics.recordLag(CONSUMER, message.getMessageProperties().getTimestamp());
+            try {
+                if (messageConverter.fromMessage(message) instanceof OrderAssignedToCourierEvent courierEvent
+                        && !eventDeduplicator.isReplay(EVENT_KEY_PREFIX + courierEvent.getOrderId())
+                        && batchOrderIds.add(courierEvent.getOrderId())) {
+                    requestDtos.add(toRequestDto(courierEvent));
+                    deliveryTags.add(deliveryTag);
+                }
+            } catch (MessageConversionException e) {
+                LOGGER.warn("Rejecting unreadable courier assignment message {}", deliveryTag, e);
+                channel.basicNack(deliveryTag, false, false);
+                rejectedTags.add(deliveryTag);
+            }
+        }
+
+        if (!requestDtos.isEmpty()) {
+            List<DeliveryTaskResponseDto> createdTasks;
+            try {
+                createdTasks = deliveryTaskService.createDeliveryTasks(requestDtos);
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to store {} courier assignments, requeueing them", requestDtos.size(), e);
+                long lastTag = lastUnsettledTag(messages, rejectedTags);
+                if (lastTag != 0) {
+                    channel.basicNack(lastTag, true, true);
+                }
+                return;
+            }
+            for (int i = 0; i < createdTasks.size(); i++) {
+                if (createdTasks.get(i) == null) {
+                    LOGGER.warn("Rejecting courier assignment for order {}", requestDtos.get(i).getOrderId());
+                    channel.basicNack(deliveryTags.get(i), false, false);
+                    rejectedTags.add(deliveryTags.get(i));
+                } else {
+                    eventDeduplicator.record(EVENT_KEY_PREFIX + requestDtos.get(i).getOrderId());
+                }
+            }
+        }
+        long lastTag = lastUnsettledTag(messages, rejectedTags);
+        if (lastTag != 0) {
+            channel.basicAck(lastTag, true);
+        }
+        LOGGER.debug("Consumed {} courier assignment messages, rejected {}", messages.size(), rejectedTags.size());
+    }
+
+    // a multiple ack or nack must name a tag that is still unsettled, otherwise the broker closes the channel;
+    // 0 when every message of the batch was rejected on its own
+    private static long lastUnsettledTag(final List<Message> messages, final Set<Long> settledTags) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            long deliveryTag = messages.get(i).getMessageProperties().getDeliveryTag();
+            if (!settledTags.contains(deliveryTag)) {
+                return deliveryTag;
+            }
+        }
+        return 0;
+    }
+
+    private static CreateDeliveryTaskRequestDto toRequestDto(final OrderAssignedToCourierEvent courierEvent) {
+        return new CreateDeliveryTaskRequestDto(
+                courierEvent.getOrderId(),
+                courierEvent.getCourierId(),
+                courierEvent.getTotalAmount(),
+                courierEvent.getOrderLatitude(),
+                courierEvent.getOrderLongitude(),
+                courierEvent.getConfirmationType(),
+                courierEvent.getSignature());
+    }
 }
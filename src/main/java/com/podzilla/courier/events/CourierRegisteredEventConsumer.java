@@ -5,27 +5,60 @@ import com.podzilla.courier.services.courier.CourierService;
 import com.podzilla.mq.EventsConstants;
 import com.podzilla.mq.events.BaseEvent;
 import com.podzilla.mq.events.CourierRegisteredEvent;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.util.Date;
+
 @Component
 public class CourierRegisteredEventConsumer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CourierRegisteredEventConsumer.class);
+    private static final String EVENT_KEY_PREFIX = "courier-registered:";
+    private static final String CONSUMER = "courier-registered";
     private final CourierService courierService;
+    private final EventDeduplicator eventDeduplicator;
+    private final ConsumerMetrics consumerMetrics;
 
-    public CourierRegisteredEventConsumer(final CourierService courierService) {
+    public CourierRegisteredEventConsumer(final CourierService courierService,
+                                          final EventDeduplicator eventDeduplicator,
+                                          final ConsumerMetrics consumerMetrics) {
         this.courierService = courierService;
+        this.eventDeduplicator = eventDeduplicator;
+        this.consumerMetrics = consumerMetrics;
     }
 
     @RabbitListener(queues = EventsConstants.COURIER_USER_EVENT_QUEUE)
-    public void consumeCourierRegisteredEvent(final BaseEvent event) {
+    public void consumeCourierRegisteredEvent(final BaseEvent event,
+                                              @Header(name = AmqpHeaders.TIMESTAMP, required = false)
+                                              final Date publishedAt) {
+        Timer.Sample sample = consumerMetrics.start(CONSUMER, publishedAt);
+        try {
+            consume(event);
+        } finally {
+            consumerMetrics.stop(CONSUMER, sample);
+        }
+    }
+
+    private void consume(final BaseEvent event) {
         if (event instanceof CourierRegisteredEvent) {
             CourierRegisteredEvent courierRegisteredEvent = (CourierRegisteredEvent) event;
+            String eventKey = EVENT_KEY_PREFIX + courierRegisteredEvent.getCourierId();
+            if (eventDeduplicator.isReplay(eventKey)) {
+                LOGGER.debug("Dropping replayed registration of courier {}", courierRegisteredEvent.getCourierId());
+                return;
+            }
             CreateCourierRequestDto courier = new CreateCourierRequestDto(
                     courierRegisteredEvent.getCourierId(),
                     courierRegisteredEvent.getName(),
                     courierRegisteredEvent.getMobileNo()
             );
             courierService.createCourier(courier);
+            eventDeduplicator.record(eventKey);
         }
     }
 }
@@ -0,0 +1,71 @@
+package com.podzilla.courier.events;
+
+import com.podzilla.courier.utils.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// remembers the keys of recently consumed events so broker redeliveries are dropped before they reach Mongo.
+// the bloom filter answers most fresh keys without taking the lock of the LRU, which holds the exact recent keys;
+// anything evicted from both is still rejected by the unique key of the stored document
+@Component
+public class EventDeduplicator {
+
+    private static final int BLOOM_CAPACITY_FACTOR = 4;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final BloomFilter recentKeys;
+    private final Map<String, Boolean> lru;
+    private final int bloomCapacity;
+    private final Counter hits;
+    private final Counter misses;
+    private int bloomInsertions;
+
+    public EventDeduplicator(@Value("${events.dedup.capacity}") final int capacity,
+                             @Value("${events.dedup.false-positive-rate}") final double falsePositiveRate,
+                             final MeterRegistry meterRegistry) {
+        this.bloomCapacity = capacity * BLOOM_CAPACITY_FACTOR;
+        this.recentKeys = new BloomFilter(bloomCapacity, falsePositiveRate);
+        this.lru = new LinkedHashMap<>(capacity, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.hits = Counter.builder("courier.events.dedup")
+                .description("Consumed events checked against the recent event keys")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("courier.events.dedup")
+                .description("Consumed events checked against the recent event keys")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    public boolean isReplay(final String key) {
+        boolean replay = recentKeys.mightContain(key) && containsRecent(key);
+        (replay ? hits : misses).increment();
+        return replay;
+    }
+
+    // only record an event once it has been stored, so a failed attempt is not mistaken for a replay
+    public synchronized void record(final String key) {
+        lru.put(key, Boolean.TRUE);
+        if (++bloomInsertions <= bloomCapacity) {
+            recentKeys.put(key);
+            return;
+        }
+        // the filter is saturated with evicted keys: rebuild it from the keys the LRU still holds
+        recentKeys.clear();
+        lru.keySet().forEach(recentKeys::put);
+        bloomInsertions = lru.size();
+    }
+
+    private synchronized boolean containsRecent(final String key) {
+        return lru.get(key) != null;
+    }
+}
@@ -1,11 +1,18 @@
 package com.podzilla.courier.mappers;
 
+import com.podzilla.courier.dtos.couriers.CourierRatingDto;
 import com.podzilla.courier.dtos.couriers.CourierResponseDto;
 import com.podzilla.courier.dtos.couriers.CreateCourierRequestDto;
 import com.podzilla.courier.models.Courier;
+import com.podzilla.courier.models.CourierRating;
+
+import java.util.Map;
+import java.util.TreeMap;
 
 public class CourierMapper {
 
+    private static final double HUNDREDTHS = 100.0;
+
     public static Courier toEntity(final CreateCourierRequestDto dto) {
         Courier courier = new Courier();
         courier.setName(dto.getName());
@@ -15,6 +22,33 @@ public class CourierMapper {
     }
 
     public static CourierResponseDto toCreateResponseDto(final Courier courier) {
-        return new CourierResponseDto(courier.getId(), courier.getName(), courier.getMobileNo(), courier.getStatus());
+        return new CourierResponseDto(courier.getId(), courier.getName(), courier.getMobileNo(), courier.getStatus(),
+                toRatingDto(courier.getRating()));
+    }
+
+    public static CourierRatingDto toRatingDto(final CourierRating rating) {
+        if (rating == null || rating.getCount() <= 0) {
+            return null;
+        }
+        Map<Integer, Long> histogram = new TreeMap<>();
+        if (rating.getHistogram() != null) {
+            rating.getHistogram().forEach((star, count) -> {
+                if (count > 0) {
+                    histogram.put(Integer.valueOf(star), count);
+                }
+            });
+        }
+        return new CourierRatingDto(rating.getCount(), averageOf(rating), recentAverageOf(rating), histogram);
+    }
+
+    public static double averageOf(final CourierRating rating) {
+        return rating.getCount() > 0 ? rating.getSumHundredths() / HUNDREDTHS / rating.getCount() : 0.0;
+    }
+
+    private static double recentAverageOf(final CourierRating rating) {
+        if (rating.getRecent() == null || rating.getRecent().isEmpty()) {
+            return averageOf(rating);
+        }
+        return rating.getRecent().stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
     }
 }
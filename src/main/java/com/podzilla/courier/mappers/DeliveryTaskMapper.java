@@ -2,12 +2,22 @@ package com.podzilla.courier.mappers;
 
 import com.podzilla.courier.dtos.delivery_tasks.CancelDeliveryTaskResponseDto;
 import com.podzilla.courier.dtos.delivery_tasks.CreateDeliveryTaskRequestDto;
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryStatsDto;
 import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import com.podzilla.courier.dtos.delivery_tasks.StatsBucketDto;
 import com.podzilla.courier.dtos.delivery_tasks.SubmitCourierRatingResponseDto;
 import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.models.DeliveryTaskFields;
+import com.podzilla.courier.models.DeliveryTaskStats;
+import com.podzilla.courier.models.StatsGranularity;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 public class DeliveryTaskMapper {
 
+    private static final double MILLIS_PER_MINUTE = 60_000.0;
+
     public static DeliveryTask toEntity(final CreateDeliveryTaskRequestDto dto) {
         DeliveryTask task = new DeliveryTask();
         task.setOrderId(dto.getOrderId());
@@ -35,6 +45,29 @@ public class DeliveryTaskMapper {
         );
     }
 
+    public static DeliveryTaskResponseDto toResponseDto(final DeliveryTask task, final DeliveryTaskFields fields) {
+        return project(toCreateResponseDto(task), fields);
+    }
+
+    // leaves out the fields not asked for, a projected entity carries defaults for them rather than nulls
+    public static DeliveryTaskResponseDto project(final DeliveryTaskResponseDto dto, final DeliveryTaskFields fields) {
+        if (fields.isResponse()) {
+            return dto;
+        }
+        return new DeliveryTaskResponseDto(
+                dto.id(),
+                fields.includes("orderId") ? dto.orderId() : null,
+                fields.includes("courierId") ? dto.courierId() : null,
+                fields.includes("totalAmount") ? dto.totalAmount() : null,
+                fields.includes("status") ? dto.status() : null,
+                fields.includes("orderLatitude") ? dto.orderLatitude() : null,
+                fields.includes("orderLongitude") ? dto.orderLongitude() : null,
+                fields.includes("courierLatitude") ? dto.courierLatitude() : null,
+                fields.includes("courierLongitude") ? dto.courierLongitude() : null,
+                fields.includes("confirmationType") ? dto.confirmationType() : null
+        );
+    }
+
     public static CancelDeliveryTaskResponseDto toCancelResponseDto(final DeliveryTask task) {
         return new CancelDeliveryTaskResponseDto(
                 task.getId(),
@@ -52,4 +85,23 @@ public class DeliveryTaskMapper {
                 task.getCourierRating()
         );
     }
+
+    public static DeliveryStatsDto toStatsDto(final DeliveryTaskStats stats, final LocalDateTime from,
+                                              final LocalDateTime to, final StatsGranularity granularity) {
+        List<StatsBucketDto> buckets = stats.byBucket().entrySet().stream()
+                .map(bucket -> new StatsBucketDto(bucket.getKey(), bucket.getValue()))
+                .toList();
+        return new DeliveryStatsDto(
+                from,
+                to,
+                granularity,
+                stats.tasks(),
+                stats.byStatus(),
+                stats.byCourier(),
+                buckets,
+                stats.cancellationReasons(),
+                stats.deliveries(),
+                stats.averageDeliveryMs() == null ? null : stats.averageDeliveryMs() / MILLIS_PER_MINUTE
+        );
+    }
 }
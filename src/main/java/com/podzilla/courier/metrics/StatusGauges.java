@@ -0,0 +1,58 @@
+package com.podzilla.courier.metrics;
+
+import com.podzilla.courier.models.CourierStatus;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.repositories.delivery_task.IDeliveryTaskRepository;
+import com.podzilla.courier.services.courier.availability.CourierAvailabilityRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// couriers and delivery tasks per status. courier counts are read from the availability registry on every scrape;
+// task counts need an aggregation over the collection, so they are refreshed on a fixed delay instead
+@Component
+public class StatusGauges {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatusGauges.class);
+
+    private final IDeliveryTaskRepository deliveryTaskRepository;
+    private final Map<DeliveryStatus, AtomicLong> taskCounts = new EnumMap<>(DeliveryStatus.class);
+
+    public StatusGauges(final IDeliveryTaskRepository deliveryTaskRepository,
+                        final CourierAvailabilityRegistry courierAvailabilityRegistry,
+                        final MeterRegistry meterRegistry) {
+        this.deliveryTaskRepository = deliveryTaskRepository;
+        for (CourierStatus status : CourierStatus.values()) {
+            Gauge.builder("courier.couriers", courierAvailabilityRegistry, registry -> registry.count(status))
+                    .description("Couriers in each status")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
+        for (DeliveryStatus status : DeliveryStatus.values()) {
+            AtomicLong count = new AtomicLong();
+            taskCounts.put(status, count);
+            Gauge.builder("courier.delivery.tasks", count, AtomicLong::get)
+                    .description("Delivery tasks in each status, as of the last refresh")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${metrics.task-status-refresh-ms}")
+    public void refreshTaskCounts() {
+        try {
+            Map<DeliveryStatus, Long> counts = deliveryTaskRepository.countByStatus();
+            taskCounts.forEach((status, count) -> count.set(counts.getOrDefault(status, 0L)));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to refresh delivery task counts, keeping the last ones", e);
+        }
+    }
+}
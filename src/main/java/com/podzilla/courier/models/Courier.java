@@ -2,6 +2,7 @@ package com.podzilla.courier.models;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
@@ -10,6 +11,8 @@ public class Courier {
     @Id
     private String id;
     private String name;
+    @Indexed
     private CourierStatus status = CourierStatus.AVAILABLE;
     private String mobileNo;
+    private CourierRating rating;
 }
\ No newline at end of file
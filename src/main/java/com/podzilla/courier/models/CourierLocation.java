@@ -0,0 +1,4 @@
+package com.podzilla.courier.models;
+
+public record CourierLocation(String orderId, double latitude, double longitude) {
+}
@@ -0,0 +1,32 @@
+package com.podzilla.courier.models;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// running aggregates of the ratings a courier received, maintained with $inc so no task has to be read again
+@Data
+public class CourierRating {
+    private static final int HUNDREDTHS_SCALE = 2;
+
+    private long count;
+    // sum of the ratings in hundredths, so $inc stays exact for ratings with up to two decimals
+    private long sumHundredths;
+    // ratings per star keyed "1" to "5", a rating counts towards its nearest star
+    private Map<String, Long> histogram = new HashMap<>();
+    // the latest ratings, oldest first, at most rating.recent-window of them
+    private List<Double> recent = new ArrayList<>();
+
+    public static long toHundredths(final BigDecimal rating) {
+        return rating.setScale(HUNDREDTHS_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static int toStar(final BigDecimal rating) {
+        return rating.setScale(0, RoundingMode.HALF_UP).intValueExact();
+    }
+}
@@ -1,8 +1,34 @@
 package com.podzilla.courier.models;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum DeliveryStatus {
     ASSIGNED,
     OUT_FOR_DELIVERY,
     DELIVERED,
-    CANCELLED
-}
\ No newline at end of file
+    CANCELLED;
+
+    // a task only moves forward, DELIVERED and CANCELLED are final
+    public boolean canTransitionTo(final DeliveryStatus next) {
+        return switch (this) {
+            case ASSIGNED -> next == OUT_FOR_DELIVERY || next == CANCELLED;
+            case OUT_FOR_DELIVERY -> next == DELIVERED || next == CANCELLED;
+            case DELIVERED, CANCELLED -> false;
+        };
+    }
+
+    public boolean isTerminal() {
+        return this == DELIVERED || this == CANCELLED;
+    }
+
+    public static Set<DeliveryStatus> sourcesOf(final DeliveryStatus target) {
+        Set<DeliveryStatus> sources = EnumSet.noneOf(DeliveryStatus.class);
+        for (DeliveryStatus status : values()) {
+            if (status.canTransitionTo(target)) {
+                sources.add(status);
+            }
+        }
+        return sources;
+    }
+}
@@ -0,0 +1,18 @@
+package com.podzilla.courier.models;
+
+// a guarded status change and the fields written with it in the same update; otp and qrCode are only stored on
+// tasks confirmed by that type, null fields are left untouched
+public record DeliveryStatusTransition(DeliveryStatus status, String otp, String qrCode, String cancellationReason) {
+
+    public static DeliveryStatusTransition to(final DeliveryStatus status) {
+        return new DeliveryStatusTransition(status, null, null, null);
+    }
+
+    public static DeliveryStatusTransition outForDelivery(final String otp, final String qrCode) {
+        return new DeliveryStatusTransition(DeliveryStatus.OUT_FOR_DELIVERY, otp, qrCode, null);
+    }
+
+    public static DeliveryStatusTransition cancelled(final String cancellationReason) {
+        return new DeliveryStatusTransition(DeliveryStatus.CANCELLED, null, null, cancellationReason);
+    }
+}
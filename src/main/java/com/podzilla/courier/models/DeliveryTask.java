@@ -3,16 +3,28 @@ package com.podzilla.courier.models;
 import com.podzilla.mq.events.ConfirmationType;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @Document(collection = "delivery_tasks")
+@CompoundIndexes({
+    @CompoundIndex(name = "courierId_status", def = "{'courierId': 1, 'status': 1}"),
+    @CompoundIndex(name = "status_createdAt", def = "{'status': 1, 'createdAt': 1}"),
+    @CompoundIndex(name = "createdAt", def = "{'createdAt': 1}"),
+    @CompoundIndex(name = "outbox_pending", def = "{'outbox.eventId': 1}", sparse = true),
+    @CompoundIndex(name = "outbox_claim", def = "{'outboxClaim': 1}", sparse = true)
+})
 public class DeliveryTask {
     @Id
     private String id;
+    @Indexed(unique = true)
     private String orderId;
     private String courierId;
     private BigDecimal totalAmount;
@@ -29,7 +41,14 @@ public class DeliveryTask {
     private LocalDateTime ratingTimestamp;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // set by the transition to DELIVERED or CANCELLED, unlike updatedAt it does not move on a later rating
+    private LocalDateTime closedAt;
     private ConfirmationType confirmationType;
+    // transactional outbox kept inside the task so it is written by the same single-document update
+    private List<OutboxEvent> outbox;
+    // the relay batch publishing the outbox, other relays skip the task until outboxClaimedUntil has passed
+    private String outboxClaim;
+    private LocalDateTime outboxClaimedUntil;
 
     public DeliveryTask() {
         this.status = DeliveryStatus.ASSIGNED;
@@ -0,0 +1,56 @@
+package com.podzilla.courier.models;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+// the fields of a delivery task a read loads and returns, named as in DeliveryTaskResponseDto. reads are projected
+// to RESPONSE at most, so the signature, the confirmation codes, the rating and the outbox never leave Mongo for
+// them; id is always included since it is the paging cursor
+public record DeliveryTaskFields(Set<String> names) {
+
+    public static final String ID = "id";
+    public static final DeliveryTaskFields RESPONSE = new DeliveryTaskFields(Set.of(ID, "orderId", "courierId",
+            "totalAmount", "status", "orderLatitude", "orderLongitude", "courierLatitude", "courierLongitude",
+            "confirmationType"));
+
+    public DeliveryTaskFields {
+        names = Set.copyOf(names);
+    }
+
+    public static DeliveryTaskFields of(final String... names) {
+        Set<String> fields = new HashSet<>(List.of(names));
+        fields.add(ID);
+        return new DeliveryTaskFields(fields);
+    }
+
+    // RESPONSE when nothing is requested, empty when a requested field is not one of RESPONSE
+    public static Optional<DeliveryTaskFields> parse(final Collection<String> requested) {
+        if (requested == null || requested.isEmpty()) {
+            return Optional.of(RESPONSE);
+        }
+        Set<String> fields = new HashSet<>();
+        fields.add(ID);
+        for (String name : requested) {
+            String field = name.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (!RESPONSE.includes(field)) {
+                return Optional.empty();
+            }
+            fields.add(field);
+        }
+        return Optional.of(new DeliveryTaskFields(fields));
+    }
+
+    public boolean includes(final String name) {
+        return names.contains(name);
+    }
+
+    public boolean isResponse() {
+        return names.equals(RESPONSE.names);
+    }
+}
@@ -0,0 +1,21 @@
+package com.podzilla.courier.models;
+
+// equality filters on a delivery task listing, a null field matches every task
+public record DeliveryTaskFilter(DeliveryStatus status, String courierId, String orderId) {
+
+    public static DeliveryTaskFilter all() {
+        return new DeliveryTaskFilter(null, null, null);
+    }
+
+    public static DeliveryTaskFilter byStatus(final DeliveryStatus status) {
+        return new DeliveryTaskFilter(status, null, null);
+    }
+
+    public static DeliveryTaskFilter byCourierId(final String courierId) {
+        return new DeliveryTaskFilter(null, courierId, null);
+    }
+
+    public static DeliveryTaskFilter byOrderId(final String orderId) {
+        return new DeliveryTaskFilter(null, null, orderId);
+    }
+}
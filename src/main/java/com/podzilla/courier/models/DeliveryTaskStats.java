@@ -0,0 +1,30 @@
+package com.podzilla.courier.models;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+
+// counts over a set of delivery tasks. byCourier and cancellationReasons hold the largest counts only, most first;
+// averageDeliveryMs is null when none of the tasks was delivered
+public record DeliveryTaskStats(long tasks,
+                                Map<DeliveryStatus, Long> byStatus,
+                                Map<String, Long> byCourier,
+                                SortedMap<Instant, Long> byBucket,
+                                Map<String, Long> cancellationReasons,
+                                long deliveries,
+                                Double averageDeliveryMs) {
+
+    public static final String UNSPECIFIED_REASON = "unspecified";
+
+    public static Map<String, Long> top(final Map<String, Long> counts, final int limit) {
+        Map<String, Long> top = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+}
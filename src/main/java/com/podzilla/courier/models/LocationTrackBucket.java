@@ -0,0 +1,25 @@
+package com.podzilla.courier.models;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// a run of consecutive positions of one delivery, stored as a single document so a track costs one write per
+// bucket instead of one per ping
+@Data
+@Document(collection = "location_tracks")
+@CompoundIndex(name = "orderId_startTime", def = "{'orderId': 1, 'startTime': 1}")
+public class LocationTrackBucket {
+    @Id
+    private String id;
+    private String orderId;
+    private String courierId;
+    private Instant startTime;
+    private Instant endTime;
+    private int pointCount;
+    // encoded by TrackEncoding, timestamps relative to startTime
+    private byte[] points;
+}
@@ -0,0 +1,18 @@
+package com.podzilla.courier.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// a status change of the enclosing task that has not been published yet; the event itself is built from the
+// task when it is relayed
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    private String eventId;
+    private DeliveryStatus status;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,27 @@
+package com.podzilla.courier.models;
+
+import java.time.temporal.ChronoUnit;
+
+// width of the time buckets of the delivery task statistics, buckets start on whole units in UTC
+public enum StatsGranularity {
+    MINUTE(ChronoUnit.MINUTES, "minute"),
+    HOUR(ChronoUnit.HOURS, "hour"),
+    DAY(ChronoUnit.DAYS, "day");
+
+    private final ChronoUnit unit;
+    private final String mongoUnit;
+
+    StatsGranularity(final ChronoUnit unit, final String mongoUnit) {
+        this.unit = unit;
+        this.mongoUnit = mongoUnit;
+    }
+
+    public ChronoUnit unit() {
+        return unit;
+    }
+
+    // the unit as $dateTrunc spells it
+    public String mongoUnit() {
+        return mongoUnit;
+    }
+}
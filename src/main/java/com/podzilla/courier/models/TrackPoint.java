@@ -0,0 +1,4 @@
+package com.podzilla.courier.models;
+
+public record TrackPoint(long timestamp, double latitude, double longitude) {
+}
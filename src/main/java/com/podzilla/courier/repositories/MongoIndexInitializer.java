@@ -0,0 +1,149 @@
+package com.podzilla.courier.repositories;
+
+import com.podzilla.courier.models.Courier;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.models.LocationTrackBucket;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+// creates the indexes declared on the documents before any repository is used, then asks the planner to explain
+// the query shape behind every repository method and reports the ones that would scan the whole collection
+@Component
+public class MongoIndexInitializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MongoIndexInitializer.class);
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(DeliveryTask.class, Courier.class,
+            LocationTrackBucket.class);
+    private static final String COLLECTION_SCAN = "COLLSCAN";
+    private static final String PROBE_ID = "probe";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean failOnCollectionScan;
+
+    public MongoIndexInitializer(final MongoTemplate mongoTemplate,
+                                 @Value("${mongo.indexes.fail-on-collection-scan}")
+                                 final boolean failOnCollectionScan) {
+        this.mongoTemplate = mongoTemplate;
+        this.failOnCollectionScan = failOnCollectionScan;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        createIndexes();
+        verifyQueries();
+    }
+
+    private void createIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(
+                mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> type : INDEXED_DOCUMENTS) {
+            IndexOperations indexOperations = mongoTemplate.indexOps(type);
+            resolver.resolveIndexFor(type).forEach(index -> ensureIndex(type, indexOperations, index));
+            LOGGER.info("Ensured indexes on {}: {}", mongoTemplate.getCollectionName(type),
+                    indexOperations.getIndexInfo().size());
+        }
+    }
+
+    // an index the stored documents violate, like the unique orderId index over duplicate tasks written before it
+    // was declared, is reported and skipped so the service still starts; it is created on the first start after
+    // the duplicates have been cleaned up
+    private void ensureIndex(final Class<?> type, final IndexOperations indexOperations,
+                             final IndexDefinition index) {
+        try {
+            indexOperations.ensureIndex(index);
+        } catch (DataAccessException e) {
+            LOGGER.error("Failed to create index {} on {}, continuing without it", index.getIndexKeys().toJson(),
+                    mongoTemplate.getCollectionName(type), e);
+        }
+    }
+
+    private void verifyQueries() {
+        List<String> scanningQueries = new ArrayList<>();
+        for (QueryProbe probe : probes()) {
+            Document plan = mongoTemplate.getCollection(mongoTemplate.getCollectionName(probe.type()))
+                    .find(probe.filter())
+                    .sort(probe.sort())
+                    .explain();
+            if (usesCollectionScan(plan.get("queryPlanner", Document.class).get("winningPlan"))) {
+                scanningQueries.add(probe.name());
+            } else {
+                LOGGER.debug("Query {} is served by an index", probe.name());
+            }
+        }
+        if (scanningQueries.isEmpty()) {
+            LOGGER.info("All repository queries are served by an index");
+            return;
+        }
+        if (failOnCollectionScan) {
+            throw new IllegalStateException("Repository queries would scan the whole collection: " + scanningQueries);
+        }
+        LOGGER.warn("Repository queries would scan the whole collection: {}", scanningQueries);
+    }
+
+    // the winning plan is a tree of stages; newer servers nest the classic plan under queryPlan
+    private static boolean usesCollectionScan(final Object planNode) {
+        if (planNode instanceof Map<?, ?> stage) {
+            if (COLLECTION_SCAN.equals(stage.get("stage"))) {
+                return true;
+            }
+            return stage.values().stream().anyMatch(MongoIndexInitializer::usesCollectionScan);
+        }
+        if (planNode instanceof List<?> stages) {
+            return stages.stream().anyMatch(MongoIndexInitializer::usesCollectionScan);
+        }
+        return false;
+    }
+
+    // one entry per repository query shape, named after the method it stands for
+    private static List<QueryProbe> probes() {
+        String status = DeliveryStatus.OUT_FOR_DELIVERY.name();
+        Document afterId = new Document("_id", new Document("$gt", new ObjectId()));
+        Document byId = new Document("_id", 1);
+        return List.of(
+                new QueryProbe("DeliveryTaskRepository.findByOrderId", DeliveryTask.class,
+                        new Document("orderId", PROBE_ID), new Document()),
+                new QueryProbe("DeliveryTaskRepository.findByCourierId", DeliveryTask.class,
+                        new Document("courierId", PROBE_ID), new Document()),
+                new QueryProbe("DeliveryTaskRepository.findByStatus", DeliveryTask.class,
+                        new Document("status", status), new Document()),
+                new QueryProbe("DeliveryTaskRepository.findCourierIdsByOrderIds", DeliveryTask.class,
+                        new Document("orderId", new Document("$in", List.of(PROBE_ID))), new Document()),
+                new QueryProbe("DeliveryTaskRepository.updateCourierLocations", DeliveryTask.class,
+                        new Document("orderId", PROBE_ID), new Document()),
+                new QueryProbe("DeliveryTaskRepository.claimPendingEvents", DeliveryTask.class,
+                        new Document("outbox.eventId", new Document("$exists", true)), new Document()),
+                new QueryProbe("DeliveryTaskRepository.claimPendingEvents(claimed)", DeliveryTask.class,
+                        new Document("outboxClaim", PROBE_ID), new Document()),
+                new QueryProbe("DeliveryTaskRepository.findPage(all)", DeliveryTask.class, afterId, byId),
+                new QueryProbe("DeliveryTaskRepository.findPage(courierId)", DeliveryTask.class,
+                        new Document(afterId).append("courierId", PROBE_ID), byId),
+                new QueryProbe("DeliveryTaskRepository.findPage(status)", DeliveryTask.class,
+                        new Document(afterId).append("status", status), byId),
+                new QueryProbe("DeliveryTaskRepository.aggregateStats", DeliveryTask.class,
+                        new Document("createdAt", new Document("$gte", new Date())), new Document()),
+                new QueryProbe("CourierRepository.findPage", Courier.class, afterId, byId),
+                new QueryProbe("LocationTrackRepository.findByOrderIdOrderByStartTimeAsc", LocationTrackBucket.class,
+                        new Document("orderId", PROBE_ID), new Document("startTime", 1))
+        );
+    }
+
+    private record QueryProbe(String name, Class<?> type, Document filter, Document sort) {
+    }
+}
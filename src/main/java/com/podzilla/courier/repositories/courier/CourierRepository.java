@@ -3,6 +3,6 @@ package com.podzilla.courier.repositories.courier;
 import com.podzilla.courier.models.Courier;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface CourierRepository extends MongoRepository<Courier, String> {
+public interface CourierRepository extends MongoRepository<Courier, String>, CourierRepositoryCustom {
 
 }
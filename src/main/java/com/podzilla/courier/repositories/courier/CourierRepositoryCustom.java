@@ -0,0 +1,29 @@
+package com.podzilla.courier.repositories.courier;
+
+import com.podzilla.courier.models.Courier;
+import com.podzilla.courier.models.CourierStatus;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface CourierRepositoryCustom {
+    // keyset page ordered by id, starting after afterId (or from the first courier when null)
+    List<Courier> findPage(String afterId, int limit);
+
+    // backed by an open Mongo cursor, callers must close the stream
+    Stream<Courier> streamAll();
+
+    // sets the non-null details with a single $set, leaving the rating aggregates to applyRating; returns the courier
+    // after the update, empty when there is no such courier
+    Optional<Courier> updateDetails(String id, String name, String mobileNo, CourierStatus status);
+
+    // folds one rating into the courier aggregates with a single $inc/$push update; a previousRating is the one the
+    // rating replaces, it is swapped out of the sum, the histogram and the recent window by an $inc/$set update and
+    // the count stays the same. returns the courier after the update, empty when there is no such courier
+    Optional<Courier> applyRating(String courierId, BigDecimal rating, BigDecimal previousRating, int recentWindow);
+
+    // couriers with at least one rating, holding only their id and rating aggregates; callers must close the stream
+    Stream<Courier> streamRated();
+}
@@ -0,0 +1,116 @@
+package com.podzilla.courier.repositories.courier;
+
+import com.podzilla.courier.models.Courier;
+import com.podzilla.courier.models.CourierRating;
+import com.podzilla.courier.models.CourierStatus;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class CourierRepositoryCustomImpl implements CourierRepositoryCustom {
+
+    private static final String RATING = "rating";
+    private static final String RECENT = RATING + ".recent";
+
+    private final MongoTemplate mongoTemplate;
+
+    public CourierRepositoryCustomImpl(final MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Courier> findPage(final String afterId, final int limit) {
+        Query query = new Query();
+        if (afterId != null) {
+            query.addCriteria(Criteria.where("id").gt(afterId));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "id")).limit(limit);
+        return mongoTemplate.find(query, Courier.class);
+    }
+
+    @Override
+    public Stream<Courier> streamAll() {
+        return mongoTemplate.stream(new Query(), Courier.class);
+    }
+
+    @Override
+    public Optional<Courier> updateDetails(final String id, final String name, final String mobileNo,
+                                           final CourierStatus status) {
+        Query query = Query.query(Criteria.where("id").is(id));
+        Update update = new Update();
+        if (name != null) {
+            update.set("name", name);
+        }
+        if (mobileNo != null) {
+            update.set("mobileNo", mobileNo);
+        }
+        if (status != null) {
+            update.set("status", status);
+        }
+        if (update.getUpdateObject().isEmpty()) {
+            return Optional.ofNullable(mongoTemplate.findOne(query, Courier.class));
+        }
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Courier.class));
+    }
+
+    @Override
+    public Optional<Courier> applyRating(final String courierId, final BigDecimal rating,
+                                         final BigDecimal previousRating, final int recentWindow) {
+        FindAndModifyOptions returnNew = FindAndModifyOptions.options().returnNew(true);
+        Query byId = Query.query(Criteria.where("id").is(courierId));
+        if (previousRating == null) {
+            Update update = aggregateUpdate(rating, null).push(RECENT).slice(-recentWindow).each(rating.doubleValue());
+            return Optional.ofNullable(mongoTemplate.findAndModify(byId, update, returnNew, Courier.class));
+        }
+        // a changed rating takes the place of the one it replaces in the window; once that one has left the window
+        // the window is left alone
+        Query withPrevious = Query.query(Criteria.where("id").is(courierId)
+                .and(RECENT).is(previousRating.doubleValue()));
+        Courier rated = mongoTemplate.findAndModify(withPrevious,
+                aggregateUpdate(rating, previousRating).set(RECENT + ".$", rating.doubleValue()), returnNew,
+                Courier.class);
+        if (rated != null) {
+            return Optional.of(rated);
+        }
+        return Optional.ofNullable(mongoTemplate.findAndModify(byId, aggregateUpdate(rating, previousRating),
+                returnNew, Courier.class));
+    }
+
+    @Override
+    public Stream<Courier> streamRated() {
+        Query query = Query.query(Criteria.where(RATING + ".count").gt(0));
+        query.fields().include("id", RATING);
+        return mongoTemplate.stream(query, Courier.class);
+    }
+
+    // the count, sum and histogram part of a rating
+    private static Update aggregateUpdate(final BigDecimal rating, final BigDecimal previousRating) {
+        long hundredths = CourierRating.toHundredths(rating);
+        int star = CourierRating.toStar(rating);
+        Update update = new Update();
+        if (previousRating == null) {
+            return update.inc(RATING + ".count", 1)
+                    .inc(RATING + ".sumHundredths", hundredths)
+                    .inc(histogramKey(star), 1);
+        }
+        update.inc(RATING + ".sumHundredths", hundredths - CourierRating.toHundredths(previousRating));
+        int previousStar = CourierRating.toStar(previousRating);
+        if (previousStar != star) {
+            update.inc(histogramKey(star), 1).inc(histogramKey(previousStar), -1);
+        }
+        return update;
+    }
+
+    private static String histogramKey(final int star) {
+        return RATING + ".histogram." + star;
+    }
+}
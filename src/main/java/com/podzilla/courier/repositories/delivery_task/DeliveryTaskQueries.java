@@ -0,0 +1,124 @@
+package com.podzilla.courier.repositories.delivery_task;
+
+import com.podzilla.courier.models.CourierLocation;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryStatusTransition;
+import com.podzilla.courier.models.DeliveryTaskFields;
+import com.podzilla.courier.models.DeliveryTaskFilter;
+import com.podzilla.mq.events.ConfirmationType;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.LiteralOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+// query shapes shared by the blocking and the reactive delivery task repositories
+final class DeliveryTaskQueries {
+
+    private DeliveryTaskQueries() {
+    }
+
+    static Query byFilter(final DeliveryTaskFilter filter) {
+        Query query = new Query();
+        if (filter.status() != null) {
+            query.addCriteria(Criteria.where("status").is(filter.status()));
+        }
+        if (filter.courierId() != null) {
+            query.addCriteria(Criteria.where("courierId").is(filter.courierId()));
+        }
+        if (filter.orderId() != null) {
+            query.addCriteria(Criteria.where("orderId").is(filter.orderId()));
+        }
+        return query;
+    }
+
+    static Query projected(final Query query, final DeliveryTaskFields fields) {
+        query.fields().include(fields.names().toArray(String[]::new));
+        return query;
+    }
+
+    // pending outbox events not held by a live relay claim
+    static Criteria claimable(final LocalDateTime now) {
+        return new Criteria().andOperator(
+                Criteria.where("outbox.eventId").exists(true),
+                new Criteria().orOperator(
+                        Criteria.where("outboxClaimedUntil").is(null),
+                        Criteria.where("outboxClaimedUntil").lt(now)));
+    }
+
+    static Query byOrderId(final String orderId) {
+        return Query.query(Criteria.where("orderId").is(orderId));
+    }
+
+    static Query page(final DeliveryTaskFilter filter, final String afterId, final int limit) {
+        Query query = byFilter(filter);
+        if (afterId != null) {
+            query.addCriteria(Criteria.where("id").gt(afterId));
+        }
+        return query.with(Sort.by(Sort.Direction.ASC, "id")).limit(limit);
+    }
+
+    static Query courierIdsOf(final Collection<String> orderIds) {
+        Query query = Query.query(Criteria.where("orderId").in(orderIds));
+        query.fields().include("orderId", "courierId");
+        return query;
+    }
+
+    static Update courierLocation(final CourierLocation location) {
+        return new Update()
+                .set("courierLatitude", location.latitude())
+                .set("courierLongitude", location.longitude());
+    }
+
+    static Query transitionable(final String id, final DeliveryStatusTransition transition) {
+        return Query.query(Criteria.where("id").is(id)
+                .and("status").in(DeliveryStatus.sourcesOf(transition.status())));
+    }
+
+    // a pipeline update, so the confirmation code can be chosen from the stored confirmation type
+    static AggregationUpdate transition(final DeliveryStatusTransition transition) {
+        Document outboxEvent = new Document("eventId", UUID.randomUUID().toString())
+                .append("status", transition.status().name())
+                .append("createdAt", new Date());
+        LocalDateTime now = LocalDateTime.now();
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("status").toValue(transition.status().name())
+                .set("updatedAt").toValue(now)
+                .set("outbox").toValue(ArrayOperators.ConcatArrays
+                        .arrayOf(ConditionalOperators.ifNull("outbox").then(List.of()))
+                        .concat(LiteralOperators.Literal.asLiteral(List.of(outboxEvent))));
+        if (transition.status().isTerminal()) {
+            update.set("closedAt").toValue(now);
+        }
+        if (transition.otp() != null) {
+            update.set("otp").toValue(whenConfirmedBy(ConfirmationType.OTP, transition.otp(), "otp"));
+        }
+        if (transition.qrCode() != null) {
+            update.set("qrCode").toValue(whenConfirmedBy(ConfirmationType.QR_CODE, transition.qrCode(), "qrCode"));
+        }
+        if (transition.cancellationReason() != null) {
+            update.set("cancellationReason")
+                    .toValue(LiteralOperators.Literal.asLiteral(transition.cancellationReason()));
+        }
+        return update;
+    }
+
+    private static ConditionalOperators.Cond whenConfirmedBy(final ConfirmationType confirmationType,
+                                                             final String value, final String field) {
+        return ConditionalOperators
+                .when(ComparisonOperators.valueOf("confirmationType").equalToValue(confirmationType.name()))
+                .then(value)
+                .otherwiseValueOf(field);
+    }
+}
@@ -6,7 +6,8 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
 
-public interface DeliveryTaskRepository extends MongoRepository<DeliveryTask, String>, IDeliveryTaskRepository {
+public interface DeliveryTaskRepository extends MongoRepository<DeliveryTask, String>, DeliveryTaskRepositoryCustom,
+        IDeliveryTaskRepository {
     @Override
     List<DeliveryTask> findByStatus(DeliveryStatus status);
 
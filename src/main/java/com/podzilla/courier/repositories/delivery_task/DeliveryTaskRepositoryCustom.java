@@ -0,0 +1,63 @@
+package com.podzilla.courier.repositories.delivery_task;
+
+import com.podzilla.courier.models.CourierLocation;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryStatusTransition;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.models.DeliveryTaskFields;
+import com.podzilla.courier.models.DeliveryTaskFilter;
+import com.podzilla.courier.models.DeliveryTaskStats;
+import com.podzilla.courier.models.StatsGranularity;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface DeliveryTaskRepositoryCustom {
+    void updateCourierLocations(List<CourierLocation> locations);
+
+    Map<String, String> findCourierIdsByOrderIds(Collection<String> orderIds);
+
+    // the reads below load only the given fields, the others keep the defaults of a new DeliveryTask
+    Optional<DeliveryTask> findById(String id, DeliveryTaskFields fields);
+
+    List<DeliveryTask> findMatching(DeliveryTaskFilter filter, DeliveryTaskFields fields);
+
+    // keyset page ordered by id, starting after afterId (or from the first task when null)
+    List<DeliveryTask> findPage(DeliveryTaskFilter filter, String afterId, int limit, DeliveryTaskFields fields);
+
+    // backed by an open Mongo cursor, callers must close the stream
+    Stream<DeliveryTask> streamAll(DeliveryTaskFilter filter, DeliveryTaskFields fields);
+
+    // one atomic findAndModify: applies the transition only when the current status allows it, appends it to the
+    // task outbox and returns the updated task, empty when the task does not exist or may not move to the target
+    Optional<DeliveryTask> transitionStatus(String id, DeliveryStatusTransition transition);
+
+    // claims up to limit tasks holding unpublished outbox events that no other relay holds a live claim on, for
+    // lease, and returns them with only the fields needed to build the events. the claim is one updateMany guarded
+    // by the claim state, so two relays never both claim a task
+    List<DeliveryTask> claimPendingEvents(int limit, Duration lease);
+
+    // also releases the claim on each task
+    void removeOutboxEvents(Map<String, List<String>> eventIdsByTaskId);
+
+    // one unordered insertMany, returns the positions of the tasks that could not be inserted
+    Set<Integer> insertAll(List<DeliveryTask> tasks);
+
+    // number of tasks in each status, statuses without tasks are left out
+    Map<DeliveryStatus, Long> countByStatus();
+
+    // one atomic findAndModify that stores the rating of a DELIVERED task and returns the task as it was before,
+    // so the caller sees the rating it replaced; empty when the task does not exist or is not delivered
+    Optional<DeliveryTask> updateCourierRating(String id, BigDecimal rating, LocalDateTime ratedAt);
+
+    // statistics of the tasks created in [from, to), computed server side in one pass; byCourier and
+    // cancellationReasons keep the limit largest counts
+    DeliveryTaskStats aggregateStats(LocalDateTime from, LocalDateTime to, StatsGranularity granularity, int limit);
+}
@@ -0,0 +1,273 @@
+package com.podzilla.courier.repositories.delivery_task;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.podzilla.courier.models.CourierLocation;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryStatusTransition;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.models.DeliveryTaskFields;
+import com.podzilla.courier.models.DeliveryTaskFilter;
+import com.podzilla.courier.models.DeliveryTaskStats;
+import com.podzilla.courier.models.StatsGranularity;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public class DeliveryTaskRepositoryCustomImpl implements DeliveryTaskRepositoryCustom {
+
+    private static final String COUNT = "count";
+
+    private final MongoTemplate mongoTemplate;
+
+    public DeliveryTaskRepositoryCustomImpl(final MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void updateCourierLocations(final List<CourierLocation> locations) {
+        if (locations.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DeliveryTask.class);
+        for (CourierLocation location : locations) {
+            bulkOperations.updateOne(DeliveryTaskQueries.byOrderId(location.orderId()),
+                    DeliveryTaskQueries.courierLocation(location));
+        }
+        bulkOperations.execute();
+    }
+
+    @Override
+    public Map<String, String> findCourierIdsByOrderIds(final Collection<String> orderIds) {
+        Map<String, String> courierIds = new HashMap<>();
+        if (orderIds.isEmpty()) {
+            return courierIds;
+        }
+        for (DeliveryTask task : mongoTemplate.find(DeliveryTaskQueries.courierIdsOf(orderIds), DeliveryTask.class)) {
+            courierIds.putIfAbsent(task.getOrderId(), task.getCourierId());
+        }
+        return courierIds;
+    }
+
+    @Override
+    public Optional<DeliveryTask> findById(final String id, final DeliveryTaskFields fields) {
+        return Optional.ofNullable(mongoTemplate.findOne(
+                DeliveryTaskQueries.projected(Query.query(Criteria.where("id").is(id)), fields), DeliveryTask.class));
+    }
+
+    @Override
+    public List<DeliveryTask> findMatching(final DeliveryTaskFilter filter, final DeliveryTaskFields fields) {
+        return mongoTemplate.find(DeliveryTaskQueries.projected(DeliveryTaskQueries.byFilter(filter), fields),
+                DeliveryTask.class);
+    }
+
+    @Override
+    public List<DeliveryTask> findPage(final DeliveryTaskFilter filter, final String afterId, final int limit,
+                                       final DeliveryTaskFields fields) {
+        return mongoTemplate.find(DeliveryTaskQueries.projected(DeliveryTaskQueries.page(filter, afterId, limit),
+                fields), DeliveryTask.class);
+    }
+
+    @Override
+    public Stream<DeliveryTask> streamAll(final DeliveryTaskFilter filter, final DeliveryTaskFields fields) {
+        return mongoTemplate.stream(DeliveryTaskQueries.projected(DeliveryTaskQueries.byFilter(filter), fields),
+                DeliveryTask.class);
+    }
+
+    @Override
+    public Optional<DeliveryTask> transitionStatus(final String id, final DeliveryStatusTransition transition) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(DeliveryTaskQueries.transitionable(id, transition),
+                DeliveryTaskQueries.transition(transition), FindAndModifyOptions.options().returnNew(true),
+                DeliveryTask.class));
+    }
+
+    @Override
+    public List<DeliveryTask> claimPendingEvents(final int limit, final Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Query candidates = Query.query(DeliveryTaskQueries.claimable(now)).limit(limit);
+        candidates.fields().include("id");
+        List<String> ids = mongoTemplate.find(candidates, DeliveryTask.class).stream()
+                .map(DeliveryTask::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // a candidate claimed by another relay in between no longer matches the guard and is left to it
+        String claim = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                Query.query(new Criteria().andOperator(Criteria.where("id").in(ids),
+                        DeliveryTaskQueries.claimable(now))),
+                new Update().set("outboxClaim", claim).set("outboxClaimedUntil", now.plus(lease)),
+                DeliveryTask.class);
+        Query claimed = Query.query(Criteria.where("outboxClaim").is(claim));
+        claimed.fields().include("orderId", "courierId", "cancellationReason", "courierRating", "outbox");
+        return mongoTemplate.find(claimed, DeliveryTask.class);
+    }
+
+    @Override
+    public void removeOutboxEvents(final Map<String, List<String>> eventIdsByTaskId) {
+        if (eventIdsByTaskId.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DeliveryTask.class);
+        for (Map.Entry<String, List<String>> entry : eventIdsByTaskId.entrySet()) {
+            bulkOperations.updateOne(
+                    Query.query(Criteria.where("id").is(entry.getKey())),
+                    new Update().pull("outbox", Query.query(Criteria.where("eventId").in(entry.getValue())))
+                            .unset("outboxClaim")
+                            .unset("outboxClaimedUntil"));
+        }
+        bulkOperations.execute();
+    }
+
+    @Override
+    public Set<Integer> insertAll(final List<DeliveryTask> tasks) {
+        Set<Integer> failed = new HashSet<>();
+        if (tasks.isEmpty()) {
+            return failed;
+        }
+        // an unordered bulk insert does not hand generated ids back, so they are assigned up front
+        for (DeliveryTask task : tasks) {
+            if (task.getId() == null) {
+                task.setId(new ObjectId().toHexString());
+            }
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DeliveryTask.class).insert(tasks).execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(error.getIndex());
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public Map<DeliveryStatus, Long> countByStatus() {
+        Aggregation aggregation = Aggregation.newAggregation(Aggregation.group("status").count().as("count"));
+        Map<DeliveryStatus, Long> counts = new EnumMap<>(DeliveryStatus.class);
+        for (Document group : mongoTemplate.aggregate(aggregation, DeliveryTask.class, Document.class)) {
+            String status = group.getString("_id");
+            if (status != null) {
+                counts.put(DeliveryStatus.valueOf(status), ((Number) group.get("count")).longValue());
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public Optional<DeliveryTask> updateCourierRating(final String id, final BigDecimal rating,
+                                                      final LocalDateTime ratedAt) {
+        Query query = Query.query(Criteria.where("id").is(id).and("status").is(DeliveryStatus.DELIVERED));
+        Update update = new Update()
+                .set("courierRating", rating)
+                .set("ratingTimestamp", ratedAt)
+                .set("updatedAt", ratedAt);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(false), DeliveryTask.class));
+    }
+
+    @Override
+    public DeliveryTaskStats aggregateStats(final LocalDateTime from, final LocalDateTime to,
+                                            final StatsGranularity granularity, final int limit) {
+        // one $facet stage, so the range is matched once on the createdAt index and every count comes from that
+        Document facets = new Document()
+                .append("total", List.of(new Document("$count", COUNT)))
+                .append("byStatus", List.of(countBy("$status")))
+                .append("byCourier", List.of(
+                        new Document("$match", new Document("courierId", new Document("$ne", null))),
+                        countBy("$courierId"), largestFirst(), new Document("$limit", limit)))
+                .append("byBucket", List.of(
+                        countBy(new Document("$dateTrunc", new Document("date", "$createdAt")
+                                .append("unit", granularity.mongoUnit()))),
+                        new Document("$sort", new Document("_id", 1))))
+                .append("cancellationReasons", List.of(
+                        new Document("$match", new Document("status", DeliveryStatus.CANCELLED.name())),
+                        countBy(new Document("$ifNull",
+                                List.of("$cancellationReason", DeliveryTaskStats.UNSPECIFIED_REASON))),
+                        largestFirst(), new Document("$limit", limit)))
+                .append("deliveries", List.of(
+                        new Document("$match", new Document("status", DeliveryStatus.DELIVERED.name())
+                                .append("closedAt", new Document("$ne", null))),
+                        new Document("$group", new Document("_id", null)
+                                .append(COUNT, new Document("$sum", 1))
+                                .append("averageMs", new Document("$avg",
+                                        new Document("$subtract", List.of("$closedAt", "$createdAt")))))));
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("createdAt").gte(from).lt(to)),
+                context -> new Document("$facet", facets));
+        Document result = mongoTemplate.aggregate(aggregation, DeliveryTask.class, Document.class)
+                .getUniqueMappedResult();
+        if (result == null) {
+            return new DeliveryTaskStats(0, new EnumMap<>(DeliveryStatus.class), Map.of(), new TreeMap<>(), Map.of(),
+                    0, null);
+        }
+        Map<DeliveryStatus, Long> byStatus = new EnumMap<>(DeliveryStatus.class);
+        for (Document group : result.getList("byStatus", Document.class)) {
+            String status = group.getString("_id");
+            if (status != null) {
+                byStatus.put(DeliveryStatus.valueOf(status), countOf(group));
+            }
+        }
+        SortedMap<Instant, Long> byBucket = new TreeMap<>();
+        for (Document group : result.getList("byBucket", Document.class)) {
+            Date start = group.getDate("_id");
+            if (start != null) {
+                byBucket.put(start.toInstant(), countOf(group));
+            }
+        }
+        List<Document> total = result.getList("total", Document.class);
+        List<Document> deliveries = result.getList("deliveries", Document.class);
+        Document delivered = deliveries.isEmpty() ? null : deliveries.get(0);
+        return new DeliveryTaskStats(total.isEmpty() ? 0 : countOf(total.get(0)), byStatus,
+                countsById(result.getList("byCourier", Document.class)), byBucket,
+                countsById(result.getList("cancellationReasons", Document.class)),
+                delivered == null ? 0 : countOf(delivered),
+                delivered == null ? null : ((Number) delivered.get("averageMs")).doubleValue());
+    }
+
+    private static Document countBy(final Object key) {
+        return new Document("$group", new Document("_id", key).append(COUNT, new Document("$sum", 1)));
+    }
+
+    private static Document largestFirst() {
+        return new Document("$sort", new Document(COUNT, -1).append("_id", 1));
+    }
+
+    private static long countOf(final Document group) {
+        return ((Number) group.get(COUNT)).longValue();
+    }
+
+    private static Map<String, Long> countsById(final List<Document> groups) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Document group : groups) {
+            counts.put(group.getString("_id"), countOf(group));
+        }
+        return counts;
+    }
+}
@@ -1,10 +1,23 @@
 package com.podzilla.courier.repositories.delivery_task;
 
+import com.podzilla.courier.models.CourierLocation;
 import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryStatusTransition;
 import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.models.DeliveryTaskFields;
+import com.podzilla.courier.models.DeliveryTaskFilter;
+import com.podzilla.courier.models.DeliveryTaskStats;
+import com.podzilla.courier.models.StatsGranularity;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface IDeliveryTaskRepository {
     Optional<DeliveryTask> findById(String id);
@@ -14,4 +27,17 @@ public interface IDeliveryTaskRepository {
     DeliveryTask save(DeliveryTask deliveryTask);
     void delete(DeliveryTask deliveryTask);
     List<DeliveryTask> findAll();
+    void updateCourierLocations(List<CourierLocation> locations);
+    Map<String, String> findCourierIdsByOrderIds(Collection<String> orderIds);
+    Optional<DeliveryTask> findById(String id, DeliveryTaskFields fields);
+    List<DeliveryTask> findMatching(DeliveryTaskFilter filter, DeliveryTaskFields fields);
+    List<DeliveryTask> findPage(DeliveryTaskFilter filter, String afterId, int limit, DeliveryTaskFields fields);
+    Stream<DeliveryTask> streamAll(DeliveryTaskFilter filter, DeliveryTaskFields fields);
+    Optional<DeliveryTask> transitionStatus(String id, DeliveryStatusTransition transition);
+    List<DeliveryTask> claimPendingEvents(int limit, Duration lease);
+    void removeOutboxEvents(Map<String, List<String>> eventIdsByTaskId);
+    Set<Integer> insertAll(List<DeliveryTask> tasks);
+    Map<DeliveryStatus, Long> countByStatus();
+    Optional<DeliveryTask> updateCourierRating(String id, BigDecimal rating, LocalDateTime ratedAt);
+    DeliveryTaskStats aggregateStats(LocalDateTime from, LocalDateTime to, StatsGranularity granularity, int limit);
 }
\ No newline at end of file
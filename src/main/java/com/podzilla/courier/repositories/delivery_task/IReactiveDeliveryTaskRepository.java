@@ -0,0 +1,30 @@
+package com.podzilla.courier.repositories.delivery_task;
+
+import com.podzilla.courier.models.CourierLocation;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryStatusTransition;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.models.DeliveryTaskFilter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// non-blocking counterpart of IDeliveryTaskRepository for the request path; the outbox relay and the batch
+// assignment consumer keep using the blocking repository
+public interface IReactiveDeliveryTaskRepository {
+    Mono<DeliveryTask> findById(String id);
+    Flux<DeliveryTask> findByCourierId(String courierId);
+    Flux<DeliveryTask> findByStatus(DeliveryStatus status);
+    Flux<DeliveryTask> findByOrderId(String orderId);
+    Mono<DeliveryTask> insert(DeliveryTask deliveryTask);
+    Mono<DeliveryTask> save(DeliveryTask deliveryTask);
+    Mono<Void> delete(DeliveryTask deliveryTask);
+    Flux<DeliveryTask> findAll(DeliveryTaskFilter filter);
+    Mono<Void> updateCourierLocations(List<CourierLocation> locations);
+    Mono<Map<String, String>> findCourierIdsByOrderIds(Collection<String> orderIds);
+    Flux<DeliveryTask> findPage(DeliveryTaskFilter filter, String afterId, int limit);
+    Mono<DeliveryTask> transitionStatus(String id, DeliveryStatusTransition transition);
+}
@@ -0,0 +1,605 @@
+package com.podzilla.courier.repositories.delivery_task;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.podzilla.courier.models.CourierLocation;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryStatusTransition;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.models.DeliveryTaskFields;
+import com.podzilla.courier.models.DeliveryTaskFilter;
+import com.podzilla.courier.models.DeliveryTaskStats;
+import com.podzilla.courier.models.OutboxEvent;
+import com.podzilla.courier.models.StatsGranularity;
+import com.podzilla.mq.events.ConfirmationType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// delivery tasks held in memory, as a fast task store and as a backend in tests and benchmarks. only the delivery
+// tasks move off Mongo: couriers, location tracks and the index initializer still need it under this profile.
+// stored tasks are never mutated: a write builds a new copy under the lock stripe of the task id and swaps it in,
+// so reads take no lock and always see a whole task. orderId is a unique hash index; courierId and status are hash
+// indexes whose postings are ordered by id, so keyset pages are served from the index. the snapshot, when a path
+// is configured, is consistent per task but not across tasks
+@Repository
+@Primary
+@Profile("in-memory")
+public class InMemoryDeliveryTaskRepository implements IDeliveryTaskRepository {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryDeliveryTaskRepository.class);
+    private static final int HASH_SPREAD_SHIFT = 16;
+
+    private final ConcurrentSkipListMap<String, DeliveryTask> tasksById = new ConcurrentSkipListMap<>();
+    private final Map<String, String> idByOrderId = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<String>> idsByCourierId = new ConcurrentHashMap<>();
+    private final Map<DeliveryStatus, NavigableSet<String>> idsByStatus = new EnumMap<>(DeliveryStatus.class);
+    private final NavigableSet<String> idsWithPendingEvents = new ConcurrentSkipListSet<>();
+    private final ReentrantLock[] stripes;
+    private final ObjectMapper objectMapper;
+    private final Path snapshotPath;
+
+    public InMemoryDeliveryTaskRepository(final ObjectMapper objectMapper,
+                                          @Value("${delivery-task.in-memory.lock-stripes}") final int lockStripes,
+                                          @Value("${delivery-task.in-memory.snapshot-path}")
+                                          final String snapshotPath) {
+        this.objectMapper = objectMapper;
+        this.snapshotPath = snapshotPath == null || snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        this.stripes = new ReentrantLock[Integer.highestOneBit(Math.max(1, lockStripes - 1)) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        for (DeliveryStatus status : DeliveryStatus.values()) {
+            idsByStatus.put(status, new ConcurrentSkipListSet<>());
+        }
+    }
+
+    @PostConstruct
+    public void loadSnapshot() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return;
+        }
+        try {
+            List<DeliveryTask> tasks = objectMapper.readValue(snapshotPath.toFile(),
+                    new TypeReference<List<DeliveryTask>>() { });
+            tasks.forEach(this::save);
+            LOGGER.info("Loaded {} delivery tasks from {}", tasks.size(), snapshotPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load delivery task snapshot " + snapshotPath, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${delivery-task.in-memory.snapshot-interval-ms}")
+    public void scheduledSnapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        try {
+            writeSnapshot();
+        } catch (IOException e) {
+            LOGGER.error("Failed to write delivery task snapshot {}, retrying on the next one", snapshotPath, e);
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() throws IOException {
+        if (snapshotPath != null) {
+            writeSnapshot();
+        }
+    }
+
+    // written next to the target and moved over it, so a crash mid-write keeps the previous snapshot
+    public void writeSnapshot() throws IOException {
+        Path directory = snapshotPath.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path partial = Files.createTempFile(directory, snapshotPath.getFileName().toString(), ".partial");
+        try {
+            objectMapper.writeValue(partial.toFile(), List.copyOf(tasksById.values()));
+            Files.move(partial, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        LOGGER.debug("Wrote {} delivery tasks to {}", tasksById.size(), snapshotPath);
+    }
+
+    @Override
+    public Optional<DeliveryTask> findById(final String id) {
+        return Optional.ofNullable(tasksById.get(id)).map(InMemoryDeliveryTaskRepository::copy);
+    }
+
+    @Override
+    public Optional<DeliveryTask> findById(final String id, final DeliveryTaskFields fields) {
+        return Optional.ofNullable(tasksById.get(id)).map(task -> project(task, fields));
+    }
+
+    @Override
+    public List<DeliveryTask> findMatching(final DeliveryTaskFilter filter, final DeliveryTaskFields fields) {
+        return streamAll(filter, fields).toList();
+    }
+
+    @Override
+    public List<DeliveryTask> findByCourierId(final String courierId) {
+        return matching(DeliveryTaskFilter.byCourierId(courierId)).map(InMemoryDeliveryTaskRepository::copy).toList();
+    }
+
+    @Override
+    public List<DeliveryTask> findByStatus(final DeliveryStatus status) {
+        return matching(DeliveryTaskFilter.byStatus(status)).map(InMemoryDeliveryTaskRepository::copy).toList();
+    }
+
+    @Override
+    public List<DeliveryTask> findByOrderId(final String orderId) {
+        return matching(DeliveryTaskFilter.byOrderId(orderId)).map(InMemoryDeliveryTaskRepository::copy).toList();
+    }
+
+    @Override
+    public DeliveryTask save(final DeliveryTask deliveryTask) {
+        if (deliveryTask.getId() == null) {
+            deliveryTask.setId(new ObjectId().toHexString());
+        }
+        write(deliveryTask, true);
+        return deliveryTask;
+    }
+
+    @Override
+    public void delete(final DeliveryTask deliveryTask) {
+        String id = deliveryTask.getId();
+        ReentrantLock lock = stripeOf(id);
+        lock.lock();
+        try {
+            DeliveryTask removed = tasksById.remove(id);
+            if (removed != null) {
+                reindex(removed, null);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<DeliveryTask> findAll() {
+        return matching(DeliveryTaskFilter.all()).map(InMemoryDeliveryTaskRepository::copy).toList();
+    }
+
+    @Override
+    public void updateCourierLocations(final List<CourierLocation> locations) {
+        for (CourierLocation location : locations) {
+            String id = idByOrderId.get(location.orderId());
+            if (id != null) {
+                update(id, task -> {
+                    task.setCourierLatitude(location.latitude());
+                    task.setCourierLongitude(location.longitude());
+                    return true;
+                });
+            }
+        }
+    }
+
+    @Override
+    public Map<String, String> findCourierIdsByOrderIds(final Collection<String> orderIds) {
+        Map<String, String> courierIds = new HashMap<>();
+        for (String orderId : orderIds) {
+            String id = idByOrderId.get(orderId);
+            DeliveryTask task = id == null ? null : tasksById.get(id);
+            if (task != null) {
+                courierIds.putIfAbsent(orderId, task.getCourierId());
+            }
+        }
+        return courierIds;
+    }
+
+    @Override
+    public List<DeliveryTask> findPage(final DeliveryTaskFilter filter, final String afterId, final int limit,
+                                       final DeliveryTaskFields fields) {
+        NavigableSet<String> ids = candidateIds(filter);
+        Collection<String> pageIds = afterId == null ? ids : ids.tailSet(afterId, false);
+        return pageIds.stream()
+                .map(tasksById::get)
+                .filter(task -> matches(task, filter))
+                .limit(limit)
+                .map(task -> project(task, fields))
+                .toList();
+    }
+
+    @Override
+    public Stream<DeliveryTask> streamAll(final DeliveryTaskFilter filter, final DeliveryTaskFields fields) {
+        return matching(filter).map(task -> project(task, fields));
+    }
+
+    @Override
+    public Optional<DeliveryTask> transitionStatus(final String id, final DeliveryStatusTransition transition) {
+        DeliveryTask updated = update(id, task -> {
+            if (task.getStatus() == null || !task.getStatus().canTransitionTo(transition.status())) {
+                return false;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            task.setStatus(transition.status());
+            task.setUpdatedAt(now);
+            if (transition.status().isTerminal()) {
+                task.setClosedAt(now);
+            }
+            List<OutboxEvent> outbox = task.getOutbox() == null ? new ArrayList<>() : task.getOutbox();
+            outbox.add(new OutboxEvent(UUID.randomUUID().toString(), transition.status(), now));
+            task.setOutbox(outbox);
+            if (transition.otp() != null && task.getConfirmationType() == ConfirmationType.OTP) {
+                task.setOtp(transition.otp());
+            }
+            if (transition.qrCode() != null && task.getConfirmationType() == ConfirmationType.QR_CODE) {
+                task.setQrCode(transition.qrCode());
+            }
+            if (transition.cancellationReason() != null) {
+                task.setCancellationReason(transition.cancellationReason());
+            }
+            return true;
+        });
+        return Optional.ofNullable(updated).map(InMemoryDeliveryTaskRepository::copy);
+    }
+
+    @Override
+    public Optional<DeliveryTask> updateCourierRating(final String id, final BigDecimal rating,
+                                                      final LocalDateTime ratedAt) {
+        DeliveryTask[] before = new DeliveryTask[1];
+        update(id, task -> {
+            if (task.getStatus() != DeliveryStatus.DELIVERED) {
+                return false;
+            }
+            before[0] = copy(task);
+            task.setCourierRating(rating);
+            task.setRatingTimestamp(ratedAt);
+            task.setUpdatedAt(ratedAt);
+            return true;
+        });
+        return Optional.ofNullable(before[0]);
+    }
+
+    @Override
+    public List<DeliveryTask> claimPendingEvents(final int limit, final Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        String claim = UUID.randomUUID().toString();
+        List<DeliveryTask> claimed = new ArrayList<>();
+        for (String id : idsWithPendingEvents) {
+            if (claimed.size() == limit) {
+                break;
+            }
+            DeliveryTask task = update(id, candidate -> {
+                boolean held = candidate.getOutboxClaimedUntil() != null
+                        && !candidate.getOutboxClaimedUntil().isBefore(now);
+                if (candidate.getOutbox() == null || candidate.getOutbox().isEmpty() || held) {
+                    return false;
+                }
+                candidate.setOutboxClaim(claim);
+                candidate.setOutboxClaimedUntil(now.plus(lease));
+                return true;
+            });
+            if (task != null) {
+                claimed.add(copy(task));
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public void removeOutboxEvents(final Map<String, List<String>> eventIdsByTaskId) {
+        eventIdsByTaskId.forEach((id, eventIds) -> update(id, task -> {
+            if (task.getOutbox() != null) {
+                task.getOutbox().removeIf(event -> eventIds.contains(event.getEventId()));
+            }
+            task.setOutboxClaim(null);
+            task.setOutboxClaimedUntil(null);
+            return true;
+        }));
+    }
+
+    @Override
+    public Set<Integer> insertAll(final List<DeliveryTask> tasks) {
+        Set<Integer> failed = new HashSet<>();
+        for (DeliveryTask task : tasks) {
+            if (task.getId() == null) {
+                task.setId(new ObjectId().toHexString());
+            }
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                write(tasks.get(i), false);
+            } catch (DuplicateKeyException e) {
+                failed.add(i);
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public Map<DeliveryStatus, Long> countByStatus() {
+        Map<DeliveryStatus, Long> counts = new EnumMap<>(DeliveryStatus.class);
+        idsByStatus.forEach((status, ids) -> {
+            long count = ids.size();
+            if (count > 0) {
+                counts.put(status, count);
+            }
+        });
+        return counts;
+    }
+
+    // a scan over every stored task, there is no index on createdAt
+    @Override
+    public DeliveryTaskStats aggregateStats(final LocalDateTime from, final LocalDateTime to,
+                                            final StatsGranularity granularity, final int limit) {
+        long tasks = 0;
+        long deliveries = 0;
+        long deliveryMs = 0;
+        Map<DeliveryStatus, Long> byStatus = new EnumMap<>(DeliveryStatus.class);
+        Map<String, Long> byCourier = new HashMap<>();
+        SortedMap<Instant, Long> byBucket = new TreeMap<>();
+        Map<String, Long> cancellationReasons = new HashMap<>();
+        for (DeliveryTask task : tasksById.values()) {
+            LocalDateTime createdAt = task.getCreatedAt();
+            if (createdAt == null || createdAt.isBefore(from) || !createdAt.isBefore(to)) {
+                continue;
+            }
+            tasks++;
+            if (task.getStatus() != null) {
+                byStatus.merge(task.getStatus(), 1L, Long::sum);
+            }
+            if (task.getCourierId() != null) {
+                byCourier.merge(task.getCourierId(), 1L, Long::sum);
+            }
+            // the same instants Mongo buckets, which stores LocalDateTime in the default time zone
+            byBucket.merge(createdAt.atZone(ZoneId.systemDefault()).toInstant().truncatedTo(granularity.unit()),
+                    1L, Long::sum);
+            if (task.getStatus() == DeliveryStatus.CANCELLED) {
+                cancellationReasons.merge(task.getCancellationReason() == null ? DeliveryTaskStats.UNSPECIFIED_REASON
+                        : task.getCancellationReason(), 1L, Long::sum);
+            } else if (task.getStatus() == DeliveryStatus.DELIVERED && task.getClosedAt() != null) {
+                deliveries++;
+                deliveryMs += Duration.between(createdAt, task.getClosedAt()).toMillis();
+            }
+        }
+        return new DeliveryTaskStats(tasks, byStatus, DeliveryTaskStats.top(byCourier, limit), byBucket,
+                DeliveryTaskStats.top(cancellationReasons, limit), deliveries,
+                deliveries == 0 ? null : (double) deliveryMs / deliveries);
+    }
+
+    // stores a copy of the task; an insert may not replace a task with the same id, a save may
+    private void write(final DeliveryTask task, final boolean replace) {
+        String id = task.getId();
+        ReentrantLock lock = stripeOf(id);
+        lock.lock();
+        try {
+            DeliveryTask previous = tasksById.get(id);
+            if (previous != null && !replace) {
+                throw new DuplicateKeyException("Duplicate delivery task id: " + id);
+            }
+            DeliveryTask stored = copy(task);
+            tasksById.put(id, stored);
+            reindex(previous, stored);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // applies the change to a copy of the stored task and swaps it in; null when the task is missing or the change
+    // declined by returning false
+    private DeliveryTask update(final String id, final TaskChange change) {
+        ReentrantLock lock = stripeOf(id);
+        lock.lock();
+        try {
+            DeliveryTask previous = tasksById.get(id);
+            if (previous == null) {
+                return null;
+            }
+            DeliveryTask updated = copy(previous);
+            if (!change.apply(updated)) {
+                return null;
+            }
+            tasksById.put(id, updated);
+            reindex(previous, updated);
+            return updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // called under the stripe lock of the task; the orderId claim comes first, so a duplicate leaves nothing behind
+    private void reindex(final DeliveryTask previous, final DeliveryTask current) {
+        String id = previous != null ? previous.getId() : current.getId();
+        String previousOrderId = previous == null ? null : previous.getOrderId();
+        String currentOrderId = current == null ? null : current.getOrderId();
+        if (currentOrderId != null && !currentOrderId.equals(previousOrderId)) {
+            String owner = idByOrderId.putIfAbsent(currentOrderId, id);
+            if (owner != null && !owner.equals(id)) {
+                restore(id, previous);
+                throw new DuplicateKeyException("Duplicate delivery task orderId: " + currentOrderId);
+            }
+        }
+        if (previousOrderId != null && !previousOrderId.equals(currentOrderId)) {
+            idByOrderId.remove(previousOrderId, id);
+        }
+
+        String previousCourierId = previous == null ? null : previous.getCourierId();
+        String currentCourierId = current == null ? null : current.getCourierId();
+        if (previousCourierId != null && !previousCourierId.equals(currentCourierId)) {
+            idsByCourierId.computeIfPresent(previousCourierId, (courierId, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        if (currentCourierId != null) {
+            idsByCourierId.compute(currentCourierId, (courierId, ids) -> {
+                NavigableSet<String> courierIds = ids == null ? new ConcurrentSkipListSet<>() : ids;
+                courierIds.add(id);
+                return courierIds;
+            });
+        }
+
+        DeliveryStatus previousStatus = previous == null ? null : previous.getStatus();
+        DeliveryStatus currentStatus = current == null ? null : current.getStatus();
+        if (previousStatus != null && previousStatus != currentStatus) {
+            idsByStatus.get(previousStatus).remove(id);
+        }
+        if (currentStatus != null) {
+            idsByStatus.get(currentStatus).add(id);
+        }
+
+        if (current != null && current.getOutbox() != null && !current.getOutbox().isEmpty()) {
+            idsWithPendingEvents.add(id);
+        } else {
+            idsWithPendingEvents.remove(id);
+        }
+    }
+
+    private void restore(final String id, final DeliveryTask previous) {
+        if (previous == null) {
+            tasksById.remove(id);
+        } else {
+            tasksById.put(id, previous);
+        }
+    }
+
+    // the most selective index the filter allows; the other fields are checked on the tasks it yields
+    // the stored tasks, which callers must not hand out
+    private Stream<DeliveryTask> matching(final DeliveryTaskFilter filter) {
+        return candidateIds(filter).stream()
+                .map(tasksById::get)
+                .filter(task -> matches(task, filter));
+    }
+
+    private NavigableSet<String> candidateIds(final DeliveryTaskFilter filter) {
+        if (filter.orderId() != null) {
+            String id = idByOrderId.get(filter.orderId());
+            NavigableSet<String> ids = new ConcurrentSkipListSet<>();
+            if (id != null) {
+                ids.add(id);
+            }
+            return ids;
+        }
+        if (filter.courierId() != null) {
+            NavigableSet<String> ids = idsByCourierId.get(filter.courierId());
+            return ids == null ? new ConcurrentSkipListSet<>() : ids;
+        }
+        if (filter.status() != null) {
+            return idsByStatus.get(filter.status());
+        }
+        return tasksById.navigableKeySet();
+    }
+
+    private static boolean matches(final DeliveryTask task, final DeliveryTaskFilter filter) {
+        return task != null
+                && (filter.status() == null || filter.status() == task.getStatus())
+                && (filter.courierId() == null || filter.courierId().equals(task.getCourierId()))
+                && (filter.orderId() == null || filter.orderId().equals(task.getOrderId()));
+    }
+
+    private ReentrantLock stripeOf(final String id) {
+        int hash = id.hashCode();
+        return stripes[(hash ^ (hash >>> HASH_SPREAD_SHIFT)) & (stripes.length - 1)];
+    }
+
+    private static DeliveryTask copy(final DeliveryTask task) {
+        DeliveryTask copy = new DeliveryTask();
+        copy.setId(task.getId());
+        copy.setOrderId(task.getOrderId());
+        copy.setCourierId(task.getCourierId());
+        copy.setTotalAmount(task.getTotalAmount());
+        copy.setStatus(task.getStatus());
+        copy.setOrderLatitude(task.getOrderLatitude());
+        copy.setOrderLongitude(task.getOrderLongitude());
+        copy.setCourierLatitude(task.getCourierLatitude());
+        copy.setCourierLongitude(task.getCourierLongitude());
+        copy.setOtp(task.getOtp());
+        copy.setQrCode(task.getQrCode());
+        copy.setSignature(task.getSignature());
+        copy.setCancellationReason(task.getCancellationReason());
+        copy.setCourierRating(task.getCourierRating());
+        copy.setRatingTimestamp(task.getRatingTimestamp());
+        copy.setCreatedAt(task.getCreatedAt());
+        copy.setUpdatedAt(task.getUpdatedAt());
+        copy.setClosedAt(task.getClosedAt());
+        copy.setConfirmationType(task.getConfirmationType());
+        if (task.getOutbox() != null) {
+            List<OutboxEvent> outbox = new ArrayList<>(task.getOutbox().size());
+            for (OutboxEvent event : task.getOutbox()) {
+                outbox.add(new OutboxEvent(event.getEventId(), event.getStatus(), event.getCreatedAt()));
+            }
+            copy.setOutbox(outbox);
+        }
+        copy.setOutboxClaim(task.getOutboxClaim());
+        copy.setOutboxClaimedUntil(task.getOutboxClaimedUntil());
+        return copy;
+    }
+
+    // what a Mongo projection reads back: the fields left out keep the defaults of a new task
+    private static DeliveryTask project(final DeliveryTask task, final DeliveryTaskFields fields) {
+        DeliveryTask projected = new DeliveryTask();
+        projected.setId(task.getId());
+        if (fields.includes("orderId")) {
+            projected.setOrderId(task.getOrderId());
+        }
+        if (fields.includes("courierId")) {
+            projected.setCourierId(task.getCourierId());
+        }
+        if (fields.includes("totalAmount")) {
+            projected.setTotalAmount(task.getTotalAmount());
+        }
+        if (fields.includes("status")) {
+            projected.setStatus(task.getStatus());
+        }
+        if (fields.includes("orderLatitude")) {
+            projected.setOrderLatitude(task.getOrderLatitude());
+        }
+        if (fields.includes("orderLongitude")) {
+            projected.setOrderLongitude(task.getOrderLongitude());
+        }
+        if (fields.includes("courierLatitude")) {
+            projected.setCourierLatitude(task.getCourierLatitude());
+        }
+        if (fields.includes("courierLongitude")) {
+            projected.setCourierLongitude(task.getCourierLongitude());
+        }
+        if (fields.includes("confirmationType")) {
+            projected.setConfirmationType(task.getConfirmationType());
+        }
+        return projected;
+    }
+
+    @FunctionalInterface
+    private interface TaskChange {
+        boolean apply(DeliveryTask task);
+    }
+}
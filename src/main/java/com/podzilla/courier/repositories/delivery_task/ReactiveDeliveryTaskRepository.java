@@ -0,0 +1,107 @@
+package com.podzilla.courier.repositories.delivery_task;
+
+import com.podzilla.courier.models.CourierLocation;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryStatusTransition;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.models.DeliveryTaskFilter;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@Profile("reactive")
+public class ReactiveDeliveryTaskRepository implements IReactiveDeliveryTaskRepository {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public ReactiveDeliveryTaskRepository(final ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    @Override
+    public Mono<DeliveryTask> findById(final String id) {
+        return reactiveMongoTemplate.findById(id, DeliveryTask.class);
+    }
+
+    @Override
+    public Flux<DeliveryTask> findByCourierId(final String courierId) {
+        return findAll(DeliveryTaskFilter.byCourierId(courierId));
+    }
+
+    @Override
+    public Flux<DeliveryTask> findByStatus(final DeliveryStatus status) {
+        return findAll(DeliveryTaskFilter.byStatus(status));
+    }
+
+    @Override
+    public Flux<DeliveryTask> findByOrderId(final String orderId) {
+        return reactiveMongoTemplate.find(DeliveryTaskQueries.byOrderId(orderId), DeliveryTask.class);
+    }
+
+    @Override
+    public Mono<DeliveryTask> insert(final DeliveryTask deliveryTask) {
+        return reactiveMongoTemplate.insert(deliveryTask);
+    }
+
+    @Override
+    public Mono<DeliveryTask> save(final DeliveryTask deliveryTask) {
+        return reactiveMongoTemplate.save(deliveryTask);
+    }
+
+    @Override
+    public Mono<Void> delete(final DeliveryTask deliveryTask) {
+        return reactiveMongoTemplate.remove(deliveryTask).then();
+    }
+
+    @Override
+    public Flux<DeliveryTask> findAll(final DeliveryTaskFilter filter) {
+        return reactiveMongoTemplate.find(DeliveryTaskQueries.byFilter(filter), DeliveryTask.class);
+    }
+
+    @Override
+    public Mono<Void> updateCourierLocations(final List<CourierLocation> locations) {
+        if (locations.isEmpty()) {
+            return Mono.empty();
+        }
+        ReactiveBulkOperations bulkOperations = reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                DeliveryTask.class);
+        for (CourierLocation location : locations) {
+            bulkOperations.updateOne(DeliveryTaskQueries.byOrderId(location.orderId()),
+                    DeliveryTaskQueries.courierLocation(location));
+        }
+        return bulkOperations.execute().then();
+    }
+
+    @Override
+    public Mono<Map<String, String>> findCourierIdsByOrderIds(final Collection<String> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Mono.just(new HashMap<>());
+        }
+        return reactiveMongoTemplate.find(DeliveryTaskQueries.courierIdsOf(orderIds), DeliveryTask.class)
+                .collect(HashMap::new, (courierIds, task) -> courierIds.putIfAbsent(task.getOrderId(),
+                        task.getCourierId()));
+    }
+
+    @Override
+    public Flux<DeliveryTask> findPage(final DeliveryTaskFilter filter, final String afterId, final int limit) {
+        return reactiveMongoTemplate.find(DeliveryTaskQueries.page(filter, afterId, limit), DeliveryTask.class);
+    }
+
+    @Override
+    public Mono<DeliveryTask> transitionStatus(final String id, final DeliveryStatusTransition transition) {
+        return reactiveMongoTemplate.findAndModify(DeliveryTaskQueries.transitionable(id, transition),
+                DeliveryTaskQueries.transition(transition), FindAndModifyOptions.options().returnNew(true),
+                DeliveryTask.class);
+    }
+}
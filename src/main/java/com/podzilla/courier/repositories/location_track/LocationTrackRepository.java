@@ -0,0 +1,11 @@
+package com.podzilla.courier.repositories.location_track;
+
+import com.podzilla.courier.models.LocationTrackBucket;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface LocationTrackRepository extends MongoRepository<LocationTrackBucket, String> {
+
+    List<LocationTrackBucket> findByOrderIdOrderByStartTimeAsc(String orderId);
+}
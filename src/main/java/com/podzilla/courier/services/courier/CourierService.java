@@ -1,37 +1,106 @@
 package com.podzilla.courier.services.courier;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.podzilla.courier.dtos.CursorPageDto;
+import com.podzilla.courier.dtos.couriers.CourierRankDto;
 import com.podzilla.courier.dtos.couriers.CourierResponseDto;
+import com.podzilla.courier.dtos.couriers.CourierStatusMembersDto;
 import com.podzilla.courier.dtos.couriers.CreateCourierRequestDto;
+import com.podzilla.courier.dtos.couriers.NearbyCourierDto;
 import com.podzilla.courier.dtos.couriers.UpdateCourierRequestDto;
 import com.podzilla.courier.mappers.CourierMapper;
 import com.podzilla.courier.models.Courier;
+import com.podzilla.courier.models.CourierStatus;
 import com.podzilla.courier.repositories.courier.CourierRepository;
+import com.podzilla.courier.services.courier.availability.CourierAvailabilityRegistry;
+import com.podzilla.courier.services.courier.rating.CourierRatingLeaderboard;
+import com.podzilla.courier.services.courier.spatial.CourierSpatialIndex;
+import com.podzilla.courier.utils.NdjsonWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class CourierService {
 
     private final CourierRepository courierRepository;
+    private final CourierSpatialIndex courierSpatialIndex;
+    private final CourierAvailabilityRegistry courierAvailabilityRegistry;
+    private final CourierRatingLeaderboard courierRatingLeaderboard;
+    private final ObjectMapper objectMapper;
     private static final Logger LOGGER = LoggerFactory.getLogger(CourierService.class);
+    private static final int DEFAULT_LEADERBOARD_SIZE = 10;
+    @Value("${courier.spatial.max-radius-km}")
+    private double maxSearchRadiusKm;
+    @Value("${pagination.default-limit}")
+    private int defaultPageSize;
+    @Value("${pagination.max-limit}")
+    private int maxPageSize;
 
-    public CourierService(final CourierRepository courierRepository) {
+    public CourierService(final CourierRepository courierRepository,
+                          final CourierSpatialIndex courierSpatialIndex,
+                          final CourierAvailabilityRegistry courierAvailabilityRegistry,
+                          final CourierRatingLeaderboard courierRatingLeaderboard,
+                          final ObjectMapper objectMapper) {
         this.courierRepository = courierRepository;
+        this.courierSpatialIndex = courierSpatialIndex;
+        this.courierAvailabilityRegistry = courierAvailabilityRegistry;
+        this.courierRatingLeaderboard = courierRatingLeaderboard;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCourierStatuses() {
+        LOGGER.info("Loading courier statuses into the spatial index and the availability registry");
+        try (Stream<Courier> couriers = courierRepository.streamAll()) {
+            couriers.forEach(this::trackStatus);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not load courier statuses, they will be filled in as couriers change", e);
+        }
     }
 
     public List<CourierResponseDto> getAllCouriers() {
         LOGGER.info("Fetching all couriers");
         List<CourierResponseDto> couriers = courierRepository.findAll().stream()
                 .map(CourierMapper::toCreateResponseDto).collect(Collectors.toList());
-        LOGGER.info("Couriers Fetched: {}", couriers);
+        LOGGER.debug("Couriers fetched: {}", couriers.size());
         return couriers;
     }
 
+    public CursorPageDto<CourierResponseDto> getCouriersPage(final String cursor, final Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        LOGGER.info("Fetching page of {} couriers after cursor: {}", pageSize, cursor);
+        List<Courier> couriers = courierRepository.findPage(cursor, pageSize + 1);
+        CursorPageDto<CourierResponseDto> page = CursorPageDto.of(couriers, pageSize,
+                CourierMapper::toCreateResponseDto, CourierResponseDto::id);
+        LOGGER.debug("Fetched {} couriers, next cursor: {}", page.items().size(), page.nextCursor());
+        return page;
+    }
+
+    public void streamCouriers(final OutputStream outputStream) throws IOException {
+        LOGGER.info("Streaming all couriers");
+        try (Stream<CourierResponseDto> couriers = openCourierStream()) {
+            long written = NdjsonWriter.write(objectMapper, couriers, outputStream);
+            LOGGER.debug("Streamed {} couriers", written);
+        }
+    }
+
+    // backed by an open Mongo cursor, callers must close the stream
+    public Stream<CourierResponseDto> openCourierStream() {
+        return courierRepository.streamAll().map(CourierMapper::toCreateResponseDto);
+    }
+
     public Optional<CourierResponseDto> getCourierById(final String id) {
         LOGGER.info("Fetching courier with ID: {}", id);
         Optional<Courier> courier = courierRepository.findById(id);
@@ -46,29 +115,32 @@ public class CourierService {
     public CourierResponseDto createCourier(final CreateCourierRequestDto courier) {
         LOGGER.info("Creating new courier");
         Courier newCourier = CourierMapper.toEntity(courier);
-        Courier savedCourier = courierRepository.save(newCourier);
+        Courier savedCourier;
+        try {
+            // insert rather than save, so a replayed registration cannot reset an existing courier
+            savedCourier = courierRepository.insert(newCourier);
+        } catch (DuplicateKeyException e) {
+            LOGGER.info("Courier with ID: {} already exists", newCourier.getId());
+            return courierRepository.findById(newCourier.getId())
+                    .map(CourierMapper::toCreateResponseDto)
+                    .orElseThrow(() -> e);
+        }
+        trackStatus(savedCourier);
         LOGGER.info("Created courier with ID: {}", savedCourier.getId());
         return CourierMapper.toCreateResponseDto(savedCourier);
     }
 
     public Optional<CourierResponseDto> updateCourier(final String id, final UpdateCourierRequestDto courierDto) {
         LOGGER.info("Updating courier with ID: {}", id);
-        Optional<Courier> existingCourier = courierRepository.findById(id);
-        if (existingCourier.isEmpty()) {
+        // a targeted update, saving the whole courier would overwrite ratings folded in concurrently
+        Optional<Courier> updatedCourier = courierRepository.updateDetails(id, courierDto.getName(),
+                courierDto.getMobileNo(), courierDto.getStatus());
+        if (updatedCourier.isEmpty()) {
             LOGGER.debug("Courier not found with ID: {}", id);
             return Optional.empty();
         }
-        Courier courier = existingCourier.get();
-        if (courierDto.getName() != null) {
-            courier.setName(courierDto.getName());
-        }
-        if (courierDto.getMobileNo() != null) {
-            courier.setMobileNo(courierDto.getMobileNo());
-        }
-        if (courierDto.getStatus() != null) {
-            courier.setStatus(courierDto.getStatus());
-        }
-        Courier savedCourier = courierRepository.save(courier);
+        Courier savedCourier = updatedCourier.get();
+        trackStatus(savedCourier);
         LOGGER.info("Updated courier with ID: {}", savedCourier.getId());
         return Optional.of(CourierMapper.toCreateResponseDto(savedCourier));
     }
@@ -78,11 +150,56 @@ public class CourierService {
         Optional<Courier> courier = courierRepository.findById(id);
         if (courier.isPresent()) {
             courierRepository.deleteById(id);
+            courierSpatialIndex.remove(id);
+            courierAvailabilityRegistry.remove(id);
+            courierRatingLeaderboard.remove(id);
             LOGGER.info("Deleted courier with ID: {}", id);
             return courier.map(CourierMapper::toCreateResponseDto);
         }
         LOGGER.debug("Courier not found with ID: {}", id);
         return Optional.empty();
     }
-}
 
+    public CourierStatusMembersDto getCouriersByStatus(final CourierStatus status, final Integer limit) {
+        // 0 is allowed, for callers that only want the count
+        int size = limit == null ? defaultPageSize : Math.max(0, Math.min(limit, maxPageSize));
+        LOGGER.info("Fetching couriers with status: {}, limit: {}", status, size);
+        List<String> courierIds = courierAvailabilityRegistry.members(status, size);
+        CourierStatusMembersDto members = new CourierStatusMembersDto(status,
+                courierAvailabilityRegistry.count(status), courierIds);
+        LOGGER.debug("{} couriers with status: {}", members.count(), status);
+        return members;
+    }
+
+    public List<NearbyCourierDto> getCouriersWithinRadius(final double latitude, final double longitude,
+                                                          final double radiusKm, final CourierStatus status) {
+        LOGGER.info("Fetching {} couriers within {} km of ({}, {})", status, radiusKm, latitude, longitude);
+        List<NearbyCourierDto> couriers = courierSpatialIndex.findWithinRadius(latitude, longitude,
+                Math.min(radiusKm, maxSearchRadiusKm), status);
+        LOGGER.debug("Found {} couriers within {} km", couriers.size(), radiusKm);
+        return couriers;
+    }
+
+    public List<NearbyCourierDto> getNearestCouriers(final double latitude, final double longitude, final int limit,
+                                                     final CourierStatus status) {
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        LOGGER.info("Fetching {} nearest {} couriers to ({}, {})", size, status, latitude, longitude);
+        List<NearbyCourierDto> couriers = courierSpatialIndex.findNearest(latitude, longitude, size,
+                maxSearchRadiusKm, status);
+        LOGGER.debug("Found {} nearest couriers", couriers.size());
+        return couriers;
+    }
+
+    public List<CourierRankDto> getRatingLeaderboard(final Integer limit) {
+        int size = limit == null ? DEFAULT_LEADERBOARD_SIZE : Math.max(1, Math.min(limit, maxPageSize));
+        LOGGER.info("Fetching the top {} couriers by rating", size);
+        List<CourierRankDto> leaderboard = courierRatingLeaderboard.top(size);
+        LOGGER.debug("Fetched {} ranked couriers", leaderboard.size());
+        return leaderboard;
+    }
+
+    private void trackStatus(final Courier courier) {
+        courierSpatialIndex.updateStatus(courier.getId(), courier.getStatus());
+        courierAvailabilityRegistry.update(courier.getId(), courier.getStatus());
+    }
+}
@@ -0,0 +1,78 @@
+package com.podzilla.courier.services.courier.availability;
+
+import com.podzilla.courier.models.CourierStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// courier ids partitioned by status, so counting the couriers in a status is O(1) and listing k of them O(k).
+// a status change moves the id between sets under the lock of its entry in statusByCourierId, so writes to one
+// courier are serialised; a reader racing with a move may briefly miss the courier or see it in both sets
+@Component
+public class CourierAvailabilityRegistry {
+
+    private final Map<CourierStatus, Set<String>> courierIdsByStatus = new EnumMap<>(CourierStatus.class);
+    private final ConcurrentHashMap<String, CourierStatus> statusByCourierId = new ConcurrentHashMap<>();
+
+    public CourierAvailabilityRegistry() {
+        // the map itself is never modified after this, only the sets are
+        for (CourierStatus status : CourierStatus.values()) {
+            courierIdsByStatus.put(status, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    public void update(final String courierId, final CourierStatus status) {
+        if (status == null) {
+            remove(courierId);
+            return;
+        }
+        statusByCourierId.compute(courierId, (id, previous) -> {
+            if (previous != status) {
+                courierIdsByStatus.get(status).add(id);
+                if (previous != null) {
+                    courierIdsByStatus.get(previous).remove(id);
+                }
+            }
+            return status;
+        });
+    }
+
+    public void remove(final String courierId) {
+        statusByCourierId.computeIfPresent(courierId, (id, previous) -> {
+            courierIdsByStatus.get(previous).remove(id);
+            return null;
+        });
+    }
+
+    public CourierStatus statusOf(final String courierId) {
+        return statusByCourierId.get(courierId);
+    }
+
+    public int count(final CourierStatus status) {
+        return courierIdsByStatus.get(status).size();
+    }
+
+    public Map<CourierStatus, Integer> counts() {
+        Map<CourierStatus, Integer> counts = new EnumMap<>(CourierStatus.class);
+        courierIdsByStatus.forEach((status, courierIds) -> counts.put(status, courierIds.size()));
+        return counts;
+    }
+
+    // up to limit ids in no particular order; a negative limit returns all of them
+    public List<String> members(final CourierStatus status, final int limit) {
+        Set<String> courierIds = courierIdsByStatus.get(status);
+        List<String> members = new ArrayList<>(limit < 0 ? courierIds.size() : Math.min(limit, courierIds.size()));
+        for (String courierId : courierIds) {
+            if (members.size() == limit) {
+                break;
+            }
+            members.add(courierId);
+        }
+        return members;
+    }
+}
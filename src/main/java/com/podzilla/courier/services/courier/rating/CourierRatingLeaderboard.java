@@ -0,0 +1,80 @@
+package com.podzilla.courier.services.courier.rating;
+
+import com.podzilla.courier.dtos.couriers.CourierRankDto;
+import com.podzilla.courier.mappers.CourierMapper;
+import com.podzilla.courier.models.CourierRating;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// couriers ordered by average rating, then by number of ratings, so the top n is the first n entries of a skip
+// list. a courier only ranks once it has min-ratings ratings. updates of one courier are serialised by the compute
+// on its entry in standings; a reader racing with an update may briefly see the courier twice or not at all
+@Component
+public class CourierRatingLeaderboard {
+
+    private static final Comparator<Standing> RANKING = Comparator.comparingDouble(Standing::average).reversed()
+            .thenComparing(Comparator.comparingLong(Standing::count).reversed())
+            .thenComparing(Standing::courierId);
+
+    private final int minRatings;
+    private final NavigableSet<Standing> ranking = new ConcurrentSkipListSet<>(RANKING);
+    private final ConcurrentHashMap<String, Standing> standings = new ConcurrentHashMap<>();
+
+    public CourierRatingLeaderboard(@Value("${rating.leaderboard.min-ratings}") final int minRatings) {
+        this.minRatings = minRatings;
+    }
+
+    public void update(final String courierId, final CourierRating rating) {
+        if (rating == null || rating.getCount() < minRatings) {
+            remove(courierId);
+            return;
+        }
+        Standing standing = new Standing(courierId, CourierMapper.averageOf(rating), rating.getCount());
+        standings.compute(courierId, (id, previous) -> {
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            ranking.add(standing);
+            return standing;
+        });
+    }
+
+    public void remove(final String courierId) {
+        standings.computeIfPresent(courierId, (id, previous) -> {
+            ranking.remove(previous);
+            return null;
+        });
+    }
+
+    // brings the board in line with the stored aggregates, dropping couriers that are no longer among them
+    public void replaceAll(final Map<String, CourierRating> ratings) {
+        ratings.forEach(this::update);
+        for (String courierId : standings.keySet()) {
+            if (!ratings.containsKey(courierId)) {
+                remove(courierId);
+            }
+        }
+    }
+
+    public List<CourierRankDto> top(final int limit) {
+        List<CourierRankDto> top = new ArrayList<>(Math.min(limit, standings.size()));
+        for (Standing standing : ranking) {
+            if (top.size() == limit) {
+                break;
+            }
+            top.add(new CourierRankDto(top.size() + 1, standing.courierId(), standing.average(), standing.count()));
+        }
+        return top;
+    }
+
+    private record Standing(String courierId, double average, long count) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.podzilla.courier.services.courier.rating;
+
+import com.podzilla.courier.models.Courier;
+import com.podzilla.courier.models.CourierRating;
+import com.podzilla.courier.repositories.courier.CourierRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// keeps the per-courier rating aggregates and the leaderboard in step with the ratings stored on the tasks. the
+// task and the courier are separate documents, so a failure between the two writes leaves the rating out of the
+// aggregates; it is logged with everything needed to replay it
+@Service
+public class CourierRatingService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CourierRatingService.class);
+
+    private final CourierRepository courierRepository;
+    private final CourierRatingLeaderboard leaderboard;
+    private final int recentWindow;
+
+    public CourierRatingService(final CourierRepository courierRepository,
+                                final CourierRatingLeaderboard leaderboard,
+                                @Value("${rating.recent-window}") final int recentWindow) {
+        this.courierRepository = courierRepository;
+        this.leaderboard = leaderboard;
+        this.recentWindow = recentWindow;
+    }
+
+    // previousRating is the rating the task held before, null for its first one
+    public void recordRating(final String courierId, final BigDecimal rating, final BigDecimal previousRating) {
+        if (courierId == null || previousRating != null && previousRating.compareTo(rating) == 0) {
+            return;
+        }
+        try {
+            Optional<Courier> courier = courierRepository.applyRating(courierId, rating, previousRating,
+                    recentWindow);
+            if (courier.isEmpty()) {
+                LOGGER.warn("Courier {} not found, rating {} is not aggregated", courierId, rating);
+                return;
+            }
+            leaderboard.update(courierId, courier.get().getRating());
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to aggregate rating {} (replacing {}) of courier {}", rating, previousRating,
+                    courierId, e);
+        }
+    }
+
+    // other instances aggregate ratings too, so the board is rebuilt from the stored aggregates now and then
+    @Scheduled(fixedDelayString = "${rating.leaderboard.refresh-ms}")
+    public void refreshLeaderboard() {
+        Map<String, CourierRating> ratings = new HashMap<>();
+        try (Stream<Courier> couriers = courierRepository.streamRated()) {
+            couriers.forEach(courier -> ratings.put(courier.getId(), courier.getRating()));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to refresh the courier rating leaderboard, keeping the current one", e);
+            return;
+        }
+        leaderboard.replaceAll(ratings);
+        LOGGER.debug("Refreshed the courier rating leaderboard from {} rated couriers", ratings.size());
+    }
+}
@@ -0,0 +1,312 @@
+package com.podzilla.courier.services.courier.spatial;
+
+import com.podzilla.courier.dtos.couriers.NearbyCourierDto;
+import com.podzilla.courier.models.CourierStatus;
+import com.podzilla.courier.services.delivery_task.location.LocationUpdateListener;
+import com.podzilla.courier.utils.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// uniform lat/lon grid of the last known courier positions; couriers are kept in parallel arrays and each grid
+// cell holds the slots of the couriers inside it, so a query only measures couriers in the cells it overlaps.
+// the grid does not wrap around the antimeridian.
+@Component
+public class CourierSpatialIndex implements LocationUpdateListener {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_CELL_CAPACITY = 4;
+    private static final double MAX_LATITUDE = 90.0;
+    private static final double MAX_LONGITUDE = 180.0;
+    private static final int COLUMN_BITS = 32;
+    private static final long COLUMN_MASK = 0xFFFFFFFFL;
+
+    private final double cellSizeDegrees;
+    private final int rowCount;
+    private final int columnCount;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> slotsByCourierId = new HashMap<>();
+    private final Map<Long, Cell> cells = new HashMap<>();
+
+    private String[] courierIds = new String[INITIAL_CAPACITY];
+    private CourierStatus[] statuses = new CourierStatus[INITIAL_CAPACITY];
+    private double[] latitudes = new double[INITIAL_CAPACITY];
+    private double[] longitudes = new double[INITIAL_CAPACITY];
+    private boolean[] positioned = new boolean[INITIAL_CAPACITY];
+    private long[] cellKeys = new long[INITIAL_CAPACITY];
+    private int[] cellPositions = new int[INITIAL_CAPACITY];
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeSlotCount;
+    private int slotCount;
+    private int positionedCount;
+
+    public CourierSpatialIndex(@Value("${courier.spatial.cell-size-degrees}") final double cellSizeDegrees) {
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.rowCount = (int) Math.ceil(2 * MAX_LATITUDE / cellSizeDegrees);
+        this.columnCount = (int) Math.ceil(2 * MAX_LONGITUDE / cellSizeDegrees);
+    }
+
+    public void updatePosition(final String courierId, final double latitude, final double longitude) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf(courierId);
+            long cellKey = cellKey(row(latitude), column(longitude));
+            latitudes[slot] = latitude;
+            longitudes[slot] = longitude;
+            if (positioned[slot] && cellKeys[slot] == cellKey) {
+                return;
+            }
+            if (positioned[slot]) {
+                removeFromCell(slot);
+            } else {
+                positioned[slot] = true;
+                positionedCount++;
+            }
+            addToCell(slot, cellKey);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onLocationUpdate(final String orderId, final String courierId, final double latitude,
+                                 final double longitude) {
+        if (courierId != null) {
+            updatePosition(courierId, latitude, longitude);
+        }
+    }
+
+    public void updateStatus(final String courierId, final CourierStatus status) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf(courierId);
+            statuses[slot] = status;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(final String courierId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsByCourierId.remove(courierId);
+            if (slot == null) {
+                return;
+            }
+            if (positioned[slot]) {
+                removeFromCell(slot);
+                positioned[slot] = false;
+                positionedCount--;
+            }
+            courierIds[slot] = null;
+            statuses[slot] = null;
+            freeSlots[freeSlotCount++] = slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return positionedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // couriers within radiusKm of the point, nearest first; a null status matches every courier
+    public List<NearbyCourierDto> findWithinRadius(final double latitude, final double longitude,
+                                                   final double radiusKm, final CourierStatus status) {
+        double latitudeSpan = radiusKm / GeoUtils.KM_PER_DEGREE;
+        double longitudeSpan = radiusKm / (GeoUtils.KM_PER_DEGREE * Math.cos(Math.toRadians(
+                Math.min(MAX_LATITUDE, Math.abs(latitude) + latitudeSpan))));
+        int fromRow = row(latitude - latitudeSpan);
+        int toRow = row(latitude + latitudeSpan);
+        int fromColumn = Double.isFinite(longitudeSpan) ? column(longitude - longitudeSpan) : 0;
+        int toColumn = Double.isFinite(longitudeSpan) ? column(longitude + longitudeSpan) : columnCount - 1;
+
+        List<NearbyCourierDto> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int row = fromRow; row <= toRow; row++) {
+                for (int column = fromColumn; column <= toColumn; column++) {
+                    Cell cell = cells.get(cellKey(row, column));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < cell.size; i++) {
+                        int slot = cell.slots[i];
+                        if (status != null && statuses[slot] != status) {
+                            continue;
+                        }
+                        double distanceKm = GeoUtils.haversineKm(latitude, longitude, latitudes[slot],
+                                longitudes[slot]);
+                        if (distanceKm <= radiusKm) {
+                            result.add(toDto(slot, distanceKm));
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.sort(Comparator.comparingDouble(NearbyCourierDto::distanceKm));
+        return result;
+    }
+
+    // up to k couriers nearest to the point, searched ring by ring outwards and never further than maxRadiusKm
+    public List<NearbyCourierDto> findNearest(final double latitude, final double longitude, final int k,
+                                              final double maxRadiusKm, final CourierStatus status) {
+        if (k <= 0) {
+            return List.of();
+        }
+        // not presized by k, which comes from the caller and may be far more than there are couriers
+        PriorityQueue<NearbyCourierDto> nearest = new PriorityQueue<>(
+                Comparator.comparingDouble(NearbyCourierDto::distanceKm).reversed());
+        int centerRow = row(latitude);
+        int centerColumn = column(longitude);
+        double cellHeightKm = cellSizeDegrees * GeoUtils.KM_PER_DEGREE;
+
+        lock.readLock().lock();
+        try {
+            int visited = 0;
+            for (int ring = 0; visited < positionedCount; ring++) {
+                // a point in the center cell is at least (ring - 1) cells away from anything in this ring
+                double cellWidthKm = cellHeightKm * Math.cos(Math.toRadians(
+                        Math.min(MAX_LATITUDE, Math.abs(latitude) + (ring + 1) * cellSizeDegrees)));
+                double ringDistanceKm = Math.max(0, ring - 1) * Math.min(cellHeightKm, cellWidthKm);
+                if (ringDistanceKm > maxRadiusKm
+                        || (nearest.size() == k && ringDistanceKm > nearest.peek().distanceKm())
+                        || (ring > rowCount && ring > columnCount)) {
+                    break;
+                }
+                for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+                    if (row < 0 || row >= rowCount) {
+                        continue;
+                    }
+                    boolean edgeRow = row == centerRow - ring || row == centerRow + ring;
+                    int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                    for (int column = centerColumn - ring; column <= centerColumn + ring; column += step) {
+                        if (column < 0 || column >= columnCount) {
+                            continue;
+                        }
+                        Cell cell = cells.get(cellKey(row, column));
+                        if (cell == null) {
+                            continue;
+                        }
+                        visited += cell.size;
+                        for (int i = 0; i < cell.size; i++) {
+                            int slot = cell.slots[i];
+                            if (status != null && statuses[slot] != status) {
+                                continue;
+                            }
+                            double distanceKm = GeoUtils.haversineKm(latitude, longitude, latitudes[slot],
+                                    longitudes[slot]);
+                            if (distanceKm > maxRadiusKm) {
+                                continue;
+                            }
+                            if (nearest.size() < k) {
+                                nearest.add(toDto(slot, distanceKm));
+                            } else if (distanceKm < nearest.peek().distanceKm()) {
+                                nearest.poll();
+                                nearest.add(toDto(slot, distanceKm));
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<NearbyCourierDto> result = new ArrayList<>(nearest);
+        result.sort(Comparator.comparingDouble(NearbyCourierDto::distanceKm));
+        return result;
+    }
+
+    private NearbyCourierDto toDto(final int slot, final double distanceKm) {
+        return new NearbyCourierDto(courierIds[slot], statuses[slot], latitudes[slot], longitudes[slot], distanceKm);
+    }
+
+    private int slotOf(final String courierId) {
+        Integer existing = slotsByCourierId.get(courierId);
+        if (existing != null) {
+            return existing;
+        }
+        int slot;
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else {
+            if (slotCount == courierIds.length) {
+                grow();
+            }
+            slot = slotCount++;
+        }
+        courierIds[slot] = courierId;
+        statuses[slot] = null;
+        positioned[slot] = false;
+        slotsByCourierId.put(courierId, slot);
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = courierIds.length << 1;
+        courierIds = Arrays.copyOf(courierIds, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+        positioned = Arrays.copyOf(positioned, capacity);
+        cellKeys = Arrays.copyOf(cellKeys, capacity);
+        cellPositions = Arrays.copyOf(cellPositions, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+
+    private void addToCell(final int slot, final long cellKey) {
+        Cell cell = cells.computeIfAbsent(cellKey, key -> new Cell());
+        if (cell.size == cell.slots.length) {
+            cell.slots = Arrays.copyOf(cell.slots, cell.size << 1);
+        }
+        cellKeys[slot] = cellKey;
+        cellPositions[slot] = cell.size;
+        cell.slots[cell.size++] = slot;
+    }
+
+    // swap-remove: the last slot of the cell takes the place of the removed one
+    private void removeFromCell(final int slot) {
+        Cell cell = cells.get(cellKeys[slot]);
+        int position = cellPositions[slot];
+        int last = cell.slots[--cell.size];
+        cell.slots[position] = last;
+        cellPositions[last] = position;
+        if (cell.size == 0) {
+            cells.remove(cellKeys[slot]);
+        }
+    }
+
+    private int row(final double latitude) {
+        int row = (int) Math.floor((latitude + MAX_LATITUDE) / cellSizeDegrees);
+        return Math.min(Math.max(row, 0), rowCount - 1);
+    }
+
+    private int column(final double longitude) {
+        int column = (int) Math.floor((longitude + MAX_LONGITUDE) / cellSizeDegrees);
+        return Math.min(Math.max(column, 0), columnCount - 1);
+    }
+
+    private static long cellKey(final int row, final int column) {
+        return ((long) row << COLUMN_BITS) | (column & COLUMN_MASK);
+    }
+
+    private static final class Cell {
+        private int[] slots = new int[INITIAL_CELL_CAPACITY];
+        private int size;
+    }
+}
@@ -1,106 +1,233 @@
 package com.podzilla.courier.services.delivery_task;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.podzilla.courier.dtos.CursorPageDto;
 import com.podzilla.courier.dtos.delivery_tasks.CancelDeliveryTaskResponseDto;
 import com.podzilla.courier.dtos.delivery_tasks.CreateDeliveryTaskRequestDto;
 import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import com.podzilla.courier.dtos.delivery_tasks.LocationUpdateResultDto;
+import com.podzilla.courier.dtos.delivery_tasks.LocationUpdateStatus;
+import com.podzilla.courier.dtos.delivery_tasks.OrderLocationUpdateDto;
 import com.podzilla.courier.dtos.delivery_tasks.SubmitCourierRatingResponseDto;
 import com.podzilla.courier.mappers.DeliveryTaskMapper;
+import com.podzilla.courier.models.CourierLocation;
 import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryStatusTransition;
 import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.models.DeliveryTaskFields;
+import com.podzilla.courier.models.DeliveryTaskFilter;
 import com.podzilla.courier.repositories.delivery_task.IDeliveryTaskRepository;
+import com.podzilla.courier.services.courier.rating.CourierRatingService;
+import com.podzilla.courier.services.delivery_task.cache.DeliveryTaskCache;
 import com.podzilla.courier.services.delivery_task.confirmation_strategy.DeliveryConfirmationStrategy;
 import com.podzilla.courier.services.delivery_task.confirmation_strategy.OtpConfirmationStrategy;
 import com.podzilla.courier.services.delivery_task.confirmation_strategy.QrCodeConfirmationStrategy;
 import com.podzilla.courier.services.delivery_task.confirmation_strategy.SignatureConfirmationStrategy;
-import com.podzilla.courier.services.delivery_task.poll_command.Command;
-import com.podzilla.courier.services.delivery_task.poll_command.StopPollingCommand;
-import com.podzilla.courier.services.delivery_task.poll_command.StartPollingCommand;
-import com.podzilla.mq.EventPublisher;
+import com.podzilla.courier.services.delivery_task.location.LiveLocationStore;
+import com.podzilla.courier.services.delivery_task.location.LocationStreamHub;
+import com.podzilla.courier.services.delivery_task.location.LocationUpdateListener;
+import com.podzilla.courier.services.delivery_task.stats.DeliveryTaskCounters;
+import com.podzilla.courier.utils.NdjsonWriter;
 import com.podzilla.mq.events.ConfirmationType;
-import com.podzilla.mq.events.OrderDeliveryFailedEvent;
-import com.podzilla.mq.events.OrderOutForDeliveryEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
 public class DeliveryTaskService {
 
     private final IDeliveryTaskRepository deliveryTaskRepository;
-    private final EventPublisher eventPublisher;
+    private final LiveLocationStore liveLocationStore;
+    private final LocationStreamHub locationStreamHub;
+    private final List<LocationUpdateListener> locationUpdateListeners;
+    private final ObjectMapper objectMapper;
+    private final DeliveryTaskCache deliveryTaskCache;
+    private final CourierRatingService courierRatingService;
+    private final DeliveryTaskCounters deliveryTaskCounters;
     private static final Logger LOGGER = LoggerFactory.getLogger(DeliveryTaskService.class);
+    private static final double MAX_LATITUDE = 90.0;
+    private static final double MAX_LONGITUDE = 180.0;
+    private static final String QR_CODE_PREFIX = "qr-code ";
+    private static final DeliveryTaskFields LOCATION_FIELDS =
+            DeliveryTaskFields.of("courierLatitude", "courierLongitude");
     @Value("${otp.length}")
     private int otpLength;
+    @Value("${pagination.default-limit}")
+    private int defaultPageSize;
+    @Value("${pagination.max-limit}")
+    private int maxPageSize;
 
     public DeliveryTaskService(final IDeliveryTaskRepository deliveryTaskRepository,
-                               final EventPublisher eventPublisher) {
+                               final LiveLocationStore liveLocationStore,
+                               final LocationStreamHub locationStreamHub,
+                               final List<LocationUpdateListener> locationUpdateListeners,
+                               final ObjectMapper objectMapper,
+                               final DeliveryTaskCache deliveryTaskCache,
+                               final CourierRatingService courierRatingService,
+                               final DeliveryTaskCounters deliveryTaskCounters) {
         this.deliveryTaskRepository = deliveryTaskRepository;
-        this.eventPublisher = eventPublisher;
+        this.liveLocationStore = liveLocationStore;
+        this.locationStreamHub = locationStreamHub;
+        this.locationUpdateListeners = locationUpdateListeners;
+        this.objectMapper = objectMapper;
+        this.deliveryTaskCache = deliveryTaskCache;
+        this.courierRatingService = courierRatingService;
+        this.deliveryTaskCounters = deliveryTaskCounters;
     }
 
     public DeliveryTaskResponseDto createDeliveryTask(final CreateDeliveryTaskRequestDto deliveryTaskRequestDto) {
         LOGGER.info("Creating delivery task for order ID: {}", deliveryTaskRequestDto.getOrderId());
         DeliveryTask deliveryTask = DeliveryTaskMapper.toEntity(deliveryTaskRequestDto);
-        DeliveryTask savedTask = deliveryTaskRepository.save(deliveryTask);
+        DeliveryTask savedTask;
+        try {
+            savedTask = deliveryTaskRepository.save(deliveryTask);
+        } catch (DuplicateKeyException e) {
+            // orderId is unique, a second task for the same order is a replay of the first
+            LOGGER.info("Delivery task for order ID: {} already exists", deliveryTask.getOrderId());
+            return deliveryTaskRepository.findByOrderId(deliveryTask.getOrderId()).stream()
+                    .findFirst()
+                    .map(DeliveryTaskMapper::toCreateResponseDto)
+                    .orElseThrow(() -> e);
+        }
         LOGGER.debug("Delivery task created with ID: {}", savedTask.getId());
-        return DeliveryTaskMapper.toCreateResponseDto(savedTask);
+        deliveryTaskCounters.recordCreated(savedTask);
+        DeliveryTaskResponseDto createdTask = DeliveryTaskMapper.toCreateResponseDto(savedTask);
+        deliveryTaskCache.invalidate(createdTask);
+        return createdTask;
+    }
+
+    // created tasks in request order. as in createDeliveryTask, an order that already has a task gets the existing
+    // one back; null where the task could not be inserted for any other reason
+    public List<DeliveryTaskResponseDto> createDeliveryTasks(final List<CreateDeliveryTaskRequestDto> requestDtos) {
+        LOGGER.info("Creating {} delivery tasks", requestDtos.size());
+        List<DeliveryTask> deliveryTasks = requestDtos.stream().map(DeliveryTaskMapper::toEntity).toList();
+        Set<Integer> failed = deliveryTaskRepository.insertAll(deliveryTasks);
+        List<DeliveryTaskResponseDto> createdTasks = new ArrayList<>(deliveryTasks.size());
+        for (int i = 0; i < deliveryTasks.size(); i++) {
+            DeliveryTask deliveryTask = deliveryTasks.get(i);
+            if (failed.contains(i)) {
+                // orderId is unique, so a failed insert whose order has a task is a replay of the first
+                createdTasks.add(deliveryTaskRepository.findByOrderId(deliveryTask.getOrderId()).stream()
+                        .findFirst()
+                        .map(DeliveryTaskMapper::toCreateResponseDto)
+                        .orElse(null));
+                continue;
+            }
+            DeliveryTaskResponseDto createdTask = DeliveryTaskMapper.toCreateResponseDto(deliveryTask);
+            deliveryTaskCounters.recordCreated(deliveryTask);
+            deliveryTaskCache.invalidate(createdTask);
+            createdTasks.add(createdTask);
+        }
+        LOGGER.debug("Created {} of {} delivery tasks", deliveryTasks.size() - failed.size(), deliveryTasks.size());
+        return createdTasks;
     }
 
-    public List<DeliveryTaskResponseDto> getAllDeliveryTasks() {
+    public List<DeliveryTaskResponseDto> getAllDeliveryTasks(final DeliveryTaskFields fields) {
         LOGGER.info("Fetching all delivery tasks");
-        List<DeliveryTaskResponseDto> deliveryTasks = deliveryTaskRepository.findAll()
+        List<DeliveryTaskResponseDto> deliveryTasks = deliveryTaskRepository
+                .findMatching(DeliveryTaskFilter.all(), fields)
                 .stream()
-                .map(DeliveryTaskMapper::toCreateResponseDto)
+                .map(task -> DeliveryTaskMapper.toResponseDto(task, fields))
                 .collect(Collectors.toList());
         LOGGER.debug("Delivery tasks fetched: {}", deliveryTasks);
         return deliveryTasks;
     }
 
-    public Optional<DeliveryTaskResponseDto> getDeliveryTaskById(final String id) {
+    public CursorPageDto<DeliveryTaskResponseDto> getDeliveryTasksPage(final DeliveryTaskFilter filter,
+                                                                       final String cursor, final Integer limit,
+                                                                       final DeliveryTaskFields fields) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        LOGGER.info("Fetching page of {} delivery tasks after cursor: {} for {}", pageSize, cursor, filter);
+        List<DeliveryTask> deliveryTasks = deliveryTaskRepository.findPage(filter, cursor, pageSize + 1, fields);
+        CursorPageDto<DeliveryTaskResponseDto> page = CursorPageDto.of(deliveryTasks, pageSize,
+                task -> DeliveryTaskMapper.toResponseDto(task, fields), DeliveryTaskResponseDto::id);
+        LOGGER.debug("Fetched {} delivery tasks, next cursor: {}", page.items().size(), page.nextCursor());
+        return page;
+    }
+
+    public void streamDeliveryTasks(final DeliveryTaskFilter filter, final DeliveryTaskFields fields,
+                                    final OutputStream outputStream) throws IOException {
+        LOGGER.info("Streaming delivery tasks for {}", filter);
+        try (Stream<DeliveryTask> deliveryTasks = deliveryTaskRepository.streamAll(filter, fields)) {
+            long written = NdjsonWriter.write(objectMapper,
+                    deliveryTasks.map(task -> DeliveryTaskMapper.toResponseDto(task, fields)), outputStream);
+            LOGGER.debug("Streamed {} delivery tasks", written);
+        }
+    }
+
+    // the cache holds whole responses, so the fields asked for are picked after the lookup
+    public Optional<DeliveryTaskResponseDto> getDeliveryTaskById(final String id, final DeliveryTaskFields fields) {
         LOGGER.info("Fetching delivery task with ID: {}", id);
-        Optional<DeliveryTask> deliveryTask = deliveryTaskRepository.findById(id);
+        Optional<DeliveryTaskResponseDto> deliveryTask = Optional.ofNullable(deliveryTaskCache.getById(id,
+                key -> deliveryTaskRepository.findById(key, DeliveryTaskFields.RESPONSE)
+                        .map(DeliveryTaskMapper::toCreateResponseDto)
+                        .orElse(null)));
         if (deliveryTask.isPresent()) {
-            LOGGER.debug("Delivery task found with ID: {}", deliveryTask.get().getId());
+            LOGGER.debug("Delivery task found with ID: {}", deliveryTask.get().id());
         } else {
             LOGGER.debug("Delivery task not found with ID: {}", id);
         }
-        return deliveryTask.map(DeliveryTaskMapper::toCreateResponseDto);
+        return deliveryTask.map(this::withLiveLocation).map(task -> DeliveryTaskMapper.project(task, fields));
     }
 
-    public List<DeliveryTaskResponseDto> getDeliveryTasksByCourierId(final String courierId) {
+    public List<DeliveryTaskResponseDto> getDeliveryTasksByCourierId(final String courierId,
+                                                                     final DeliveryTaskFields fields) {
         LOGGER.info("Fetching delivery tasks by courier ID: {}", courierId);
-        List<DeliveryTaskResponseDto> deliveryTasks = deliveryTaskRepository.findByCourierId(courierId)
+        List<DeliveryTaskResponseDto> deliveryTasks = deliveryTaskCache.getByCourierId(courierId,
+                key -> deliveryTaskRepository
+                        .findMatching(DeliveryTaskFilter.byCourierId(key), DeliveryTaskFields.RESPONSE)
+                        .stream()
+                        .map(DeliveryTaskMapper::toCreateResponseDto)
+                        .toList())
                 .stream()
-                .map(DeliveryTaskMapper::toCreateResponseDto)
+                .map(this::withLiveLocation)
+                .map(task -> DeliveryTaskMapper.project(task, fields))
                 .collect(Collectors.toList());
         LOGGER.debug("Retrieved {} delivery tasks for courier ID: {}", deliveryTasks.size(), courierId);
         return deliveryTasks;
     }
 
-    public List<DeliveryTaskResponseDto> getDeliveryTasksByStatus(final DeliveryStatus status) {
+    public List<DeliveryTaskResponseDto> getDeliveryTasksByStatus(final DeliveryStatus status,
+                                                                  final DeliveryTaskFields fields) {
         LOGGER.info("Fetching delivery tasks by status: {}", status);
-        List<DeliveryTaskResponseDto> deliveryTasks = deliveryTaskRepository.findByStatus(status)
+        List<DeliveryTaskResponseDto> deliveryTasks = deliveryTaskRepository
+                .findMatching(DeliveryTaskFilter.byStatus(status), fields)
                 .stream()
-                .map(DeliveryTaskMapper::toCreateResponseDto)
+                .map(task -> DeliveryTaskMapper.toResponseDto(task, fields))
                 .collect(Collectors.toList());
         LOGGER.debug("Retrieved {} delivery tasks for status: {}", deliveryTasks.size(), status);
         return deliveryTasks;
     }
 
-    public List<DeliveryTaskResponseDto> getDeliveryTasksByOrderId(final String orderId) {
+    public List<DeliveryTaskResponseDto> getDeliveryTasksByOrderId(final String orderId,
+                                                                   final DeliveryTaskFields fields) {
         LOGGER.info("Fetching delivery tasks by order ID: {}", orderId);
-        List<DeliveryTaskResponseDto> deliveryTasks = deliveryTaskRepository.findByOrderId(orderId)
+        List<DeliveryTaskResponseDto> deliveryTasks = deliveryTaskCache.getByOrderId(orderId,
+                key -> deliveryTaskRepository
+                        .findMatching(DeliveryTaskFilter.byOrderId(key), DeliveryTaskFields.RESPONSE)
+                        .stream()
+                        .map(DeliveryTaskMapper::toCreateResponseDto)
+                        .toList())
                 .stream()
-                .map(DeliveryTaskMapper::toCreateResponseDto)
+                .map(this::withLiveLocation)
+                .map(task -> DeliveryTaskMapper.project(task, fields))
                 .collect(Collectors.toList());
         LOGGER.debug("Retrieved {} delivery tasks for order ID: {}", deliveryTasks.size(), orderId);
         return deliveryTasks;
@@ -108,48 +235,46 @@ public class DeliveryTaskService {
 
     public Optional<DeliveryTaskResponseDto> updateDeliveryTaskStatus(final String id, final DeliveryStatus status) {
         LOGGER.info("Updating delivery task with ID: {} to {}", id, status);
-        Optional<DeliveryTask> updatedDeliveryTask = deliveryTaskRepository.findById(id);
-        if (updatedDeliveryTask.isPresent()) {
-            DeliveryTask task = updatedDeliveryTask.get();
-            task.setStatus(status);
-            deliveryTaskRepository.save(task);
-            LOGGER.debug("Delivery task ID: {} updated to status: {}", id, status);
-            // publish order.shipped event if status is OUT_FOR_DELIVERY
-            if (status == DeliveryStatus.OUT_FOR_DELIVERY) {
-                OrderOutForDeliveryEvent event = new OrderOutForDeliveryEvent(task.getOrderId(),
-                        task.getCourierId());
-                Command startPollingCommand = new StartPollingCommand(
-                        eventPublisher,
-                        event,
-                        deliveryTaskRepository
-                );
-                startPollingCommand.execute();
-
-                if (task.getConfirmationType() == ConfirmationType.OTP) {
-                    String otp = IntStream.range(0, otpLength)
-                            .mapToObj(i -> String.valueOf(task.getId().charAt(i)))
-                            .collect(Collectors.joining());
-                    task.setOtp(otp);
-                } else if (task.getConfirmationType() == ConfirmationType.QR_CODE) {
-                    String qrContent = "QR-" + task.getId();
-                    task.setQrCode(qrContent);
-                }
-            }
-            return Optional.of(DeliveryTaskMapper.toCreateResponseDto(updatedDeliveryTask.get()));
+        // the confirmation code is derived from the id, so it is written in the same update as the status
+        DeliveryStatusTransition transition = status == DeliveryStatus.OUT_FOR_DELIVERY
+                ? DeliveryStatusTransition.outForDelivery(generateOtp(id), QR_CODE_PREFIX + id)
+                : DeliveryStatusTransition.to(status);
+        Optional<DeliveryTask> updatedDeliveryTask = deliveryTaskRepository.transitionStatus(id, transition);
+        if (updatedDeliveryTask.isEmpty()) {
+            LOGGER.warn("Delivery task with ID: {} not found or not allowed to move to {}", id, status);
+            return Optional.empty();
+        }
+        DeliveryTask task = updatedDeliveryTask.get();
+        deliveryTaskCounters.recordTransition(task);
+        applyLiveLocation(task);
+        // the order.shipped / order.delivered / order.failed event is published from the task outbox
+        LOGGER.debug("Delivery task ID: {} updated to status: {}", id, status);
+        DeliveryTaskResponseDto updatedTask = DeliveryTaskMapper.toCreateResponseDto(task);
+        deliveryTaskCache.invalidate(updatedTask);
+        if (status.isTerminal()) {
+            liveLocationStore.retire(task.getOrderId());
+            notifyTrackingClosed(task.getOrderId());
+        } else if (liveLocationStore.snapshot(task.getOrderId()) != null) {
+            liveLocationStore.track(updatedTask);
         }
-        LOGGER.warn("Delivery task not found with ID: {} for status update", id);
-        return Optional.empty();
+        return Optional.of(updatedTask);
     }
 
     public Pair<Double, Double> getDeliveryTaskLocation(final String orderId) {
         LOGGER.info("Fetching location for delivery task with order id: {}", orderId);
-        Optional<DeliveryTask> deliveryTask = deliveryTaskRepository.findByOrderId(orderId).stream().findFirst();
+        DeliveryTaskResponseDto liveTask = liveLocationStore.snapshot(orderId);
+        if (liveTask != null) {
+            LOGGER.debug("Live location for delivery task with order id: {} is ({}, {})", orderId,
+                    liveTask.courierLatitude(), liveTask.courierLongitude());
+            return Pair.of(liveTask.courierLatitude(), liveTask.courierLongitude());
+        }
+        Optional<DeliveryTask> deliveryTask = deliveryTaskRepository
+                .findMatching(DeliveryTaskFilter.byOrderId(orderId), LOCATION_FIELDS)
+                .stream()
+                .findFirst();
         if (deliveryTask.isPresent()) {
-            Double latitude = deliveryTask.get().getCourierLatitude() + 0.01;
-            Double longitude = deliveryTask.get().getCourierLongitude() + 0.01;
-            deliveryTask.get().setCourierLatitude(latitude);
-            deliveryTask.get().setCourierLongitude(longitude);
-            deliveryTaskRepository.save(deliveryTask.get());
+            Double latitude = deliveryTask.get().getCourierLatitude();
+            Double longitude = deliveryTask.get().getCourierLongitude();
             LOGGER.debug("Location for delivery task with order id: {} is ({}, {})", orderId, latitude, longitude);
             return Pair.of(latitude, longitude);
         }
@@ -157,46 +282,148 @@ public class DeliveryTaskService {
         return Pair.of(0.0, 0.0);
     }
 
+    public Optional<SseEmitter> streamDeliveryTaskLocation(final String orderId) {
+        LOGGER.info("Opening location stream for delivery task with order id: {}", orderId);
+        DeliveryTaskResponseDto task = liveLocationStore.snapshot(orderId);
+        if (task == null) {
+            task = deliveryTaskRepository
+                    .findMatching(DeliveryTaskFilter.byOrderId(orderId), DeliveryTaskFields.RESPONSE)
+                    .stream()
+                    .findFirst()
+                    .map(DeliveryTaskMapper::toCreateResponseDto)
+                    .orElse(null);
+        }
+        if (task == null) {
+            LOGGER.warn("Delivery task not found with order id: {} for location stream", orderId);
+            return Optional.empty();
+        }
+        CourierLocation currentLocation = new CourierLocation(orderId, task.courierLatitude(), task.courierLongitude());
+        return Optional.of(locationStreamHub.subscribe(orderId, currentLocation));
+    }
+
     public DeliveryTaskResponseDto updateDeliveryTaskLocation(final String orderId, final Double latitude,
                                                               final Double longitude) {
         LOGGER.info("Updating location for delivery task with order id: {} to ({}, {})", orderId, latitude, longitude);
+        if (liveLocationStore.update(orderId, latitude, longitude)) {
+            DeliveryTaskResponseDto liveTask = liveLocationStore.snapshot(orderId);
+            if (liveTask != null) {
+                // a closed order keeps its pending position until flushed, onTrackingClosed was the last callback
+                if (!liveLocationStore.isRetired(orderId)) {
+                    notifyLocationUpdate(orderId, liveTask.courierId(), latitude, longitude);
+                }
+                LOGGER.debug("Location buffered for delivery task with order id: {}", orderId);
+                return liveTask;
+            }
+        }
         Optional<DeliveryTask> updatedDeliveryTask = deliveryTaskRepository.findByOrderId(orderId).stream().findFirst();
         if (updatedDeliveryTask.isPresent()) {
             DeliveryTask deliveryTask = updatedDeliveryTask.get();
             deliveryTask.setCourierLatitude(latitude);
             deliveryTask.setCourierLongitude(longitude);
-            deliveryTaskRepository.save(deliveryTask);
-            LOGGER.debug("Location updated for delivery task with order id: {}", orderId);
-            return DeliveryTaskMapper.toCreateResponseDto(deliveryTask);
+            DeliveryTaskResponseDto updatedTask = DeliveryTaskMapper.toCreateResponseDto(deliveryTask);
+            if (deliveryTask.getStatus().isTerminal()) {
+                // only the coordinates are written, saving the whole task would undo a concurrent relay or rating
+                deliveryTaskRepository.updateCourierLocations(
+                        List.of(new CourierLocation(orderId, latitude, longitude)));
+                deliveryTaskCache.invalidate(updatedTask);
+                LOGGER.debug("Location updated for delivery task with order id: {}", orderId);
+                return updatedTask;
+            }
+            // first ping for this order, later pings are absorbed by the store and written behind
+            liveLocationStore.track(updatedTask);
+            liveLocationStore.update(orderId, latitude, longitude);
+            // listeners are told after the store has the task, so they can read it from there
+            notifyLocationUpdate(orderId, deliveryTask.getCourierId(), latitude, longitude);
+            LOGGER.debug("Started tracking live location for delivery task with order id: {}", orderId);
+            return updatedTask;
         }
         LOGGER.warn("Delivery task not found with order id: {} for location update", orderId);
         return null;
     }
 
+    public List<LocationUpdateResultDto> updateDeliveryTaskLocations(final List<OrderLocationUpdateDto> updates) {
+        LOGGER.info("Applying {} location updates", updates.size());
+        LocationUpdateStatus[] statuses = new LocationUpdateStatus[updates.size()];
+        Map<String, Integer> latestByOrderId = new HashMap<>();
+        for (int i = 0; i < updates.size(); i++) {
+            OrderLocationUpdateDto update = updates.get(i);
+            if (!isValidLocationUpdate(update)) {
+                statuses[i] = LocationUpdateStatus.INVALID;
+                continue;
+            }
+            Integer latest = latestByOrderId.get(update.getOrderId());
+            if (latest != null && isOlder(update, updates.get(latest))) {
+                statuses[i] = LocationUpdateStatus.SUPERSEDED;
+                continue;
+            }
+            if (latest != null) {
+                statuses[latest] = LocationUpdateStatus.SUPERSEDED;
+            }
+            latestByOrderId.put(update.getOrderId(), i);
+        }
+
+        // orders tracked by the live store are written behind with it, the rest go to Mongo in one bulk write
+        Map<String, Integer> untracked = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : latestByOrderId.entrySet()) {
+            OrderLocationUpdateDto update = updates.get(entry.getValue());
+            LocationUpdateStatus liveStatus = updateLiveLocation(entry.getKey(), update);
+            if (liveStatus == LocationUpdateStatus.NOT_FOUND) {
+                untracked.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+            // as for a single ping, a closed order's position is kept but no longer passed on
+            if (liveStatus == LocationUpdateStatus.APPLIED && !liveLocationStore.isRetired(entry.getKey())) {
+                notifyLocationUpdate(entry.getKey(), liveLocationStore.courierIdOf(entry.getKey()),
+                        update.getLatitude(), update.getLongitude());
+            }
+            statuses[entry.getValue()] = liveStatus;
+        }
+        if (!untracked.isEmpty()) {
+            Map<String, String> courierIds = deliveryTaskRepository.findCourierIdsByOrderIds(untracked.keySet());
+            List<CourierLocation> locations = new ArrayList<>(courierIds.size());
+            for (Map.Entry<String, Integer> entry : untracked.entrySet()) {
+                if (!courierIds.containsKey(entry.getKey())) {
+                    statuses[entry.getValue()] = LocationUpdateStatus.NOT_FOUND;
+                    continue;
+                }
+                OrderLocationUpdateDto update = updates.get(entry.getValue());
+                locations.add(new CourierLocation(entry.getKey(), update.getLatitude(), update.getLongitude()));
+                statuses[entry.getValue()] = LocationUpdateStatus.APPLIED;
+            }
+            deliveryTaskRepository.updateCourierLocations(locations);
+            for (CourierLocation location : locations) {
+                // the task id is not known here, a copy cached by id picks the position up when it expires
+                deliveryTaskCache.invalidate(null, location.orderId(), courierIds.get(location.orderId()));
+                notifyLocationUpdate(location.orderId(), courierIds.get(location.orderId()), location.latitude(),
+                        location.longitude());
+            }
+        }
+
+        List<LocationUpdateResultDto> results = new ArrayList<>(updates.size());
+        for (int i = 0; i < updates.size(); i++) {
+            String orderId = updates.get(i) != null ? updates.get(i).getOrderId() : null;
+            results.add(new LocationUpdateResultDto(orderId, statuses[i]));
+        }
+        LOGGER.debug("Applied {} location updates across {} orders", updates.size(), latestByOrderId.size());
+        return results;
+    }
+
     public CancelDeliveryTaskResponseDto cancelDeliveryTask(final String id, final String cancellationReason) {
         LOGGER.info("Cancelling delivery task with ID: {}", id);
-        Optional<DeliveryTask> deliveryTask = deliveryTaskRepository.findById(id);
+        Optional<DeliveryTask> deliveryTask = deliveryTaskRepository.transitionStatus(id,
+                DeliveryStatusTransition.cancelled(cancellationReason));
         if (deliveryTask.isPresent()) {
             DeliveryTask deliveryTaskToCancel = deliveryTask.get();
-            deliveryTaskToCancel.setStatus(DeliveryStatus.CANCELLED);
-            deliveryTaskToCancel.setCancellationReason(cancellationReason);
-            deliveryTaskRepository.save(deliveryTaskToCancel);
+            deliveryTaskCounters.recordTransition(deliveryTaskToCancel);
+            applyLiveLocation(deliveryTaskToCancel);
+            liveLocationStore.retire(deliveryTaskToCancel.getOrderId());
+            notifyTrackingClosed(deliveryTaskToCancel.getOrderId());
+            deliveryTaskCache.invalidate(DeliveryTaskMapper.toCreateResponseDto(deliveryTaskToCancel));
+            // order.failed event is published from the task outbox
             LOGGER.debug("Delivery task cancelled for delivery task ID: {}", id);
-            // publish order.failed event
-            OrderDeliveryFailedEvent event = new OrderDeliveryFailedEvent(
-                    deliveryTaskToCancel.getOrderId(),
-                    deliveryTaskToCancel.getCourierId(),
-                    cancellationReason
-            );
-            Command stopPollingCommand = new StopPollingCommand(
-                    eventPublisher,
-                    event
-            );
-            stopPollingCommand.execute();
-
             return DeliveryTaskMapper.toCancelResponseDto(deliveryTaskToCancel);
         }
-        LOGGER.warn("Delivery task not found with ID: {}", id);
+        LOGGER.warn("Delivery task not found with ID: {} or already closed", id);
         return null;
     }
 
@@ -205,8 +432,11 @@ public class DeliveryTaskService {
         Optional<DeliveryTask> deliveryTask = deliveryTaskRepository.findById(id);
         if (deliveryTask.isPresent()) {
             deliveryTaskRepository.delete(deliveryTask.get());
+            liveLocationStore.remove(deliveryTask.get().getOrderId());
+            DeliveryTaskResponseDto deletedTask = DeliveryTaskMapper.toCreateResponseDto(deliveryTask.get());
+            deliveryTaskCache.invalidate(deletedTask);
             LOGGER.debug("Delivery task with ID: {} deleted", id);
-            return DeliveryTaskMapper.toCreateResponseDto(deliveryTask.get());
+            return deletedTask;
         }
         LOGGER.warn("Delivery task not found with ID: {} for deletion", id);
         return null;
@@ -222,10 +452,11 @@ public class DeliveryTaskService {
 
         ConfirmationType confirmationType = task.getConfirmationType();
         DeliveryConfirmationStrategy strategy = confirmationType.equals(ConfirmationType.OTP)
-                ? new OtpConfirmationStrategy(eventPublisher)
+                ? new OtpConfirmationStrategy()
                 : confirmationType.equals(ConfirmationType.QR_CODE)
-                ? new QrCodeConfirmationStrategy(eventPublisher) : confirmationType.equals(ConfirmationType.SIGNATURE)
-                ? new SignatureConfirmationStrategy(eventPublisher) : null;
+                ? new QrCodeConfirmationStrategy()
+                : confirmationType.equals(ConfirmationType.SIGNATURE)
+                ? new SignatureConfirmationStrategy() : null;
         if (strategy == null) {
             LOGGER.error("No confirmation strategy found for type: {}", confirmationType);
             return Optional.of("Invalid confirmation type");
@@ -233,27 +464,104 @@ public class DeliveryTaskService {
 
         Optional<String> result = strategy.confirmDelivery(task, confirmationInput);
         if (result.isPresent() && result.get().contains("confirmed")) {
-            deliveryTaskRepository.save(task);
+            // order.delivered event is published from the task outbox
+            Optional<DeliveryTask> deliveredTask = deliveryTaskRepository.transitionStatus(id,
+                    DeliveryStatusTransition.to(DeliveryStatus.DELIVERED));
+            if (deliveredTask.isEmpty()) {
+                LOGGER.warn("Delivery task ID: {} was closed before its confirmation was stored", id);
+                return Optional.of("Delivery task is already closed");
+            }
+            deliveryTaskCounters.recordTransition(deliveredTask.get());
+            liveLocationStore.retire(task.getOrderId());
+            notifyTrackingClosed(task.getOrderId());
+            deliveryTaskCache.invalidate(task.getId(), task.getOrderId(), task.getCourierId());
         }
         return result;
     }
 
     public SubmitCourierRatingResponseDto submitCourierRating(final String id, final BigDecimal rating) {
         LOGGER.info("Submitting courier rating for delivery task with ID: {}", id);
-        Optional<DeliveryTask> deliveryTask = deliveryTaskRepository.findById(id);
-        if (deliveryTask.isPresent()) {
-            DeliveryTask deliveryTaskToSubmit = deliveryTask.get();
-            if (!deliveryTaskToSubmit.getStatus().equals(DeliveryStatus.DELIVERED)) {
+        LocalDateTime ratedAt = LocalDateTime.now();
+        // the task is rated by a conditional update that hands back the rating it replaced, so the courier
+        // aggregates can take a changed rating out again instead of counting it twice
+        Optional<DeliveryTask> previousTask = deliveryTaskRepository.updateCourierRating(id, rating, ratedAt);
+        if (previousTask.isEmpty()) {
+            if (deliveryTaskRepository.findById(id).isPresent()) {
                 LOGGER.error("Delivery task status is not DELIVERED");
                 throw new IllegalStateException("Task must be delivered to submit a rating");
             }
-            deliveryTaskToSubmit.setCourierRating(rating);
-            deliveryTaskToSubmit.setRatingTimestamp(LocalDateTime.now());
-            deliveryTaskToSubmit.setUpdatedAt(LocalDateTime.now());
-            deliveryTaskRepository.save(deliveryTaskToSubmit);
-            return DeliveryTaskMapper.toSubmitCourierRatingResponseDto(deliveryTaskToSubmit);
+            LOGGER.warn("Delivery task not found with ID: {} for courier rating", id);
+            return null;
         }
-        LOGGER.warn("Delivery task not found with ID: {} for courier rating", id);
-        return null;
+        DeliveryTask ratedTask = previousTask.get();
+        courierRatingService.recordRating(ratedTask.getCourierId(), rating, ratedTask.getCourierRating());
+        ratedTask.setCourierRating(rating);
+        ratedTask.setRatingTimestamp(ratedAt);
+        ratedTask.setUpdatedAt(ratedAt);
+        deliveryTaskCache.invalidate(ratedTask.getId(), ratedTask.getOrderId(), ratedTask.getCourierId());
+        return DeliveryTaskMapper.toSubmitCourierRatingResponseDto(ratedTask);
+    }
+
+    private void notifyLocationUpdate(final String orderId, final String courierId, final double latitude,
+                                      final double longitude) {
+        for (LocationUpdateListener listener : locationUpdateListeners) {
+            listener.onLocationUpdate(orderId, courierId, latitude, longitude);
+        }
+    }
+
+    private void notifyTrackingClosed(final String orderId) {
+        for (LocationUpdateListener listener : locationUpdateListeners) {
+            listener.onTrackingClosed(orderId);
+        }
+    }
+
+    // the stored coordinates lag behind a position that is still waiting to be flushed
+    private void applyLiveLocation(final DeliveryTask task) {
+        DeliveryTaskResponseDto liveTask = liveLocationStore.snapshot(task.getOrderId());
+        if (liveTask != null) {
+            task.setCourierLatitude(liveTask.courierLatitude());
+            task.setCourierLongitude(liveTask.courierLongitude());
+        }
+    }
+
+    private String generateOtp(final String id) {
+        return id.length() > otpLength ? id.substring(id.length() - otpLength) : id;
+    }
+
+    // cached tasks keep the position they were loaded with, a buffered position is newer
+    private DeliveryTaskResponseDto withLiveLocation(final DeliveryTaskResponseDto task) {
+        DeliveryTaskResponseDto liveTask = liveLocationStore.snapshot(task.orderId());
+        if (liveTask == null) {
+            return task;
+        }
+        return new DeliveryTaskResponseDto(task.id(), task.orderId(), task.courierId(), task.totalAmount(),
+                task.status(), task.orderLatitude(), task.orderLongitude(), liveTask.courierLatitude(),
+                liveTask.courierLongitude(), task.confirmationType());
+    }
+
+    private static boolean isValidLocationUpdate(final OrderLocationUpdateDto update) {
+        return update != null
+                && update.getOrderId() != null
+                && update.getLatitude() != null
+                && update.getLongitude() != null
+                && Math.abs(update.getLatitude()) <= MAX_LATITUDE
+                && Math.abs(update.getLongitude()) <= MAX_LONGITUDE;
+    }
+
+    // fixes without a device timestamp are ordered by their position in the batch
+    // NOT_FOUND when the live store does not track the order
+    private LocationUpdateStatus updateLiveLocation(final String orderId, final OrderLocationUpdateDto update) {
+        if (update.getRecordedAt() != null) {
+            return liveLocationStore.update(orderId, update.getLatitude(), update.getLongitude(),
+                    update.getRecordedAt().toEpochMilli());
+        }
+        return liveLocationStore.update(orderId, update.getLatitude(), update.getLongitude())
+                ? LocationUpdateStatus.APPLIED : LocationUpdateStatus.NOT_FOUND;
+    }
+
+    private static boolean isOlder(final OrderLocationUpdateDto update, final OrderLocationUpdateDto latest) {
+        return update.getRecordedAt() != null
+                && latest.getRecordedAt() != null
+                && update.getRecordedAt().isBefore(latest.getRecordedAt());
     }
 }
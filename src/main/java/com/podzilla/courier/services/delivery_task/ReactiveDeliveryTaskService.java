@@ -0,0 +1,251 @@
+package com.podzilla.courier.services.delivery_task;
+
+import com.podzilla.courier.dtos.CursorPageDto;
+import com.podzilla.courier.dtos.delivery_tasks.CreateDeliveryTaskRequestDto;
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import com.podzilla.courier.mappers.DeliveryTaskMapper;
+import com.podzilla.courier.models.CourierLocation;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryStatusTransition;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.models.DeliveryTaskFilter;
+import com.podzilla.courier.repositories.delivery_task.IReactiveDeliveryTaskRepository;
+import com.podzilla.courier.services.delivery_task.cache.DeliveryTaskCache;
+import com.podzilla.courier.services.delivery_task.location.LiveLocationStore;
+import com.podzilla.courier.services.delivery_task.location.LocationUpdateListener;
+import com.podzilla.courier.services.delivery_task.location.ReactiveLocationStreamHub;
+import com.podzilla.courier.services.delivery_task.stats.DeliveryTaskCounters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.util.Pair;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// non-blocking counterpart of the request-path operations of DeliveryTaskService. it shares the live location
+// store, the location listeners and the cache with the blocking service, so both can serve the same tasks
+@Service
+@Profile("reactive")
+public class ReactiveDeliveryTaskService {
+
+    private final IReactiveDeliveryTaskRepository deliveryTaskRepository;
+    private final LiveLocationStore liveLocationStore;
+    private final ReactiveLocationStreamHub locationStreamHub;
+    private final List<LocationUpdateListener> locationUpdateListeners;
+    private final DeliveryTaskCache deliveryTaskCache;
+    private final DeliveryTaskCounters deliveryTaskCounters;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveDeliveryTaskService.class);
+    private static final String QR_CODE_PREFIX = "qr-code ";
+    @Value("${otp.length}")
+    private int otpLength;
+    @Value("${pagination.default-limit}")
+    private int defaultPageSize;
+    @Value("${pagination.max-limit}")
+    private int maxPageSize;
+
+    public ReactiveDeliveryTaskService(final IReactiveDeliveryTaskRepository deliveryTaskRepository,
+                                       final LiveLocationStore liveLocationStore,
+                                       final ReactiveLocationStreamHub locationStreamHub,
+                                       final List<LocationUpdateListener> locationUpdateListeners,
+                                       final DeliveryTaskCache deliveryTaskCache,
+                                       final DeliveryTaskCounters deliveryTaskCounters) {
+        this.deliveryTaskRepository = deliveryTaskRepository;
+        this.liveLocationStore = liveLocationStore;
+        this.locationStreamHub = locationStreamHub;
+        this.locationUpdateListeners = locationUpdateListeners;
+        this.deliveryTaskCache = deliveryTaskCache;
+        this.deliveryTaskCounters = deliveryTaskCounters;
+    }
+
+    public Mono<DeliveryTaskResponseDto> createDeliveryTask(final CreateDeliveryTaskRequestDto deliveryTaskRequestDto) {
+        LOGGER.info("Creating delivery task for order ID: {}", deliveryTaskRequestDto.getOrderId());
+        DeliveryTask deliveryTask = DeliveryTaskMapper.toEntity(deliveryTaskRequestDto);
+        return deliveryTaskRepository.insert(deliveryTask)
+                .doOnNext(deliveryTaskCounters::recordCreated)
+                .map(DeliveryTaskMapper::toCreateResponseDto)
+                .flatMap(this::invalidated)
+                // orderId is unique, a second task for the same order is a replay of the first
+                .onErrorResume(DuplicateKeyException.class, e -> deliveryTaskRepository
+                        .findByOrderId(deliveryTask.getOrderId())
+                        .next()
+                        .map(DeliveryTaskMapper::toCreateResponseDto)
+                        .switchIfEmpty(Mono.error(e)))
+                .doOnNext(task -> LOGGER.debug("Delivery task created with ID: {}", task.id()));
+    }
+
+    public Flux<DeliveryTaskResponseDto> getAllDeliveryTasks() {
+        LOGGER.info("Fetching all delivery tasks");
+        return deliveryTaskRepository.findAll(DeliveryTaskFilter.all()).map(DeliveryTaskMapper::toCreateResponseDto);
+    }
+
+    public Mono<CursorPageDto<DeliveryTaskResponseDto>> getDeliveryTasksPage(final DeliveryTaskFilter filter,
+                                                                             final String cursor,
+                                                                             final Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        LOGGER.info("Fetching page of {} delivery tasks after cursor: {} for {}", pageSize, cursor, filter);
+        return deliveryTaskRepository.findPage(filter, cursor, pageSize + 1)
+                .collectList()
+                .map(tasks -> CursorPageDto.of(tasks, pageSize, DeliveryTaskMapper::toCreateResponseDto,
+                        DeliveryTaskResponseDto::id));
+    }
+
+    public Flux<DeliveryTaskResponseDto> streamDeliveryTasks(final DeliveryTaskFilter filter) {
+        LOGGER.info("Streaming delivery tasks for {}", filter);
+        return deliveryTaskRepository.findAll(filter).map(DeliveryTaskMapper::toCreateResponseDto);
+    }
+
+    public Mono<DeliveryTaskResponseDto> getDeliveryTaskById(final String id) {
+        LOGGER.info("Fetching delivery task with ID: {}", id);
+        return deliveryTaskRepository.findById(id)
+                .map(DeliveryTaskMapper::toCreateResponseDto)
+                .map(this::withLiveLocation);
+    }
+
+    public Flux<DeliveryTaskResponseDto> getDeliveryTasksByCourierId(final String courierId) {
+        LOGGER.info("Fetching delivery tasks by courier ID: {}", courierId);
+        return deliveryTaskRepository.findByCourierId(courierId)
+                .map(DeliveryTaskMapper::toCreateResponseDto)
+                .map(this::withLiveLocation);
+    }
+
+    public Flux<DeliveryTaskResponseDto> getDeliveryTasksByStatus(final DeliveryStatus status) {
+        LOGGER.info("Fetching delivery tasks by status: {}", status);
+        return deliveryTaskRepository.findByStatus(status)
+                .map(DeliveryTaskMapper::toCreateResponseDto)
+                .map(this::withLiveLocation);
+    }
+
+    public Flux<DeliveryTaskResponseDto> getDeliveryTasksByOrderId(final String orderId) {
+        LOGGER.info("Fetching delivery tasks by order ID: {}", orderId);
+        return deliveryTaskRepository.findByOrderId(orderId)
+                .map(DeliveryTaskMapper::toCreateResponseDto)
+                .map(this::withLiveLocation);
+    }
+
+    // empty when the task does not exist or may not move to the status
+    public Mono<DeliveryTaskResponseDto> updateDeliveryTaskStatus(final String id, final DeliveryStatus status) {
+        LOGGER.info("Updating delivery task with ID: {} to {}", id, status);
+        DeliveryStatusTransition transition = status == DeliveryStatus.OUT_FOR_DELIVERY
+                ? DeliveryStatusTransition.outForDelivery(generateOtp(id), QR_CODE_PREFIX + id)
+                : DeliveryStatusTransition.to(status);
+        return deliveryTaskRepository.transitionStatus(id, transition)
+                .doOnNext(deliveryTaskCounters::recordTransition)
+                .map(task -> {
+                    // the order.shipped / order.delivered / order.failed event is published from the task outbox
+                    DeliveryTaskResponseDto updatedTask = withLiveLocation(
+                            DeliveryTaskMapper.toCreateResponseDto(task));
+                    if (status.isTerminal()) {
+                        liveLocationStore.retire(task.getOrderId());
+                        notifyTrackingClosed(task.getOrderId());
+                    } else if (liveLocationStore.snapshot(task.getOrderId()) != null) {
+                        liveLocationStore.track(updatedTask);
+                    }
+                    return updatedTask;
+                })
+                .flatMap(this::invalidated)
+                .switchIfEmpty(Mono.fromRunnable(() -> LOGGER.warn(
+                        "Delivery task with ID: {} not found or not allowed to move to {}", id, status)));
+    }
+
+    public Mono<Pair<Double, Double>> getDeliveryTaskLocation(final String orderId) {
+        LOGGER.info("Fetching location for delivery task with order id: {}", orderId);
+        DeliveryTaskResponseDto liveTask = liveLocationStore.snapshot(orderId);
+        if (liveTask != null) {
+            return Mono.just(Pair.of(liveTask.courierLatitude(), liveTask.courierLongitude()));
+        }
+        return deliveryTaskRepository.findByOrderId(orderId)
+                .next()
+                .map(task -> Pair.of(task.getCourierLatitude(), task.getCourierLongitude()))
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    LOGGER.warn("Delivery task not found with order id: {} for location", orderId);
+                    return Pair.of(0.0, 0.0);
+                }));
+    }
+
+    // empty when the order has no task
+    public Mono<Flux<ServerSentEvent<Object>>> streamDeliveryTaskLocation(final String orderId) {
+        LOGGER.info("Opening location stream for delivery task with order id: {}", orderId);
+        return Mono.justOrEmpty(liveLocationStore.snapshot(orderId))
+                .switchIfEmpty(deliveryTaskRepository.findByOrderId(orderId)
+                        .next()
+                        .map(DeliveryTaskMapper::toCreateResponseDto))
+                .map(task -> locationStreamHub.subscribe(orderId,
+                        new CourierLocation(orderId, task.courierLatitude(), task.courierLongitude())));
+    }
+
+    // empty when the order has no task
+    public Mono<DeliveryTaskResponseDto> updateDeliveryTaskLocation(final String orderId, final Double latitude,
+                                                                    final Double longitude) {
+        LOGGER.info("Updating location for delivery task with order id: {} to ({}, {})", orderId, latitude, longitude);
+        if (liveLocationStore.update(orderId, latitude, longitude)) {
+            DeliveryTaskResponseDto liveTask = liveLocationStore.snapshot(orderId);
+            if (liveTask != null) {
+                // a closed order keeps its pending position until flushed, onTrackingClosed was the last callback
+                if (!liveLocationStore.isRetired(orderId)) {
+                    notifyLocationUpdate(orderId, liveTask.courierId(), latitude, longitude);
+                }
+                return Mono.just(liveTask);
+            }
+        }
+        return deliveryTaskRepository.findByOrderId(orderId)
+                .next()
+                .flatMap(deliveryTask -> {
+                    deliveryTask.setCourierLatitude(latitude);
+                    deliveryTask.setCourierLongitude(longitude);
+                    DeliveryTaskResponseDto updatedTask = DeliveryTaskMapper.toCreateResponseDto(deliveryTask);
+                    if (deliveryTask.getStatus().isTerminal()) {
+                        // only the coordinates are written, saving the whole task would undo a concurrent relay
+                        // or rating
+                        return deliveryTaskRepository
+                                .updateCourierLocations(List.of(new CourierLocation(orderId, latitude, longitude)))
+                                .then(invalidated(updatedTask));
+                    }
+                    // first ping for this order, later pings are absorbed by the store and written behind
+                    liveLocationStore.track(updatedTask);
+                    liveLocationStore.update(orderId, latitude, longitude);
+                    notifyLocationUpdate(orderId, deliveryTask.getCourierId(), latitude, longitude);
+                    return Mono.just(updatedTask);
+                })
+                .switchIfEmpty(Mono.fromRunnable(() -> LOGGER.warn(
+                        "Delivery task not found with order id: {} for location update", orderId)));
+    }
+
+    private Mono<DeliveryTaskResponseDto> invalidated(final DeliveryTaskResponseDto task) {
+        return Mono.fromRunnable(() -> deliveryTaskCache.invalidate(task))
+                .thenReturn(task);
+    }
+
+    private void notifyLocationUpdate(final String orderId, final String courierId, final double latitude,
+                                      final double longitude) {
+        for (LocationUpdateListener listener : locationUpdateListeners) {
+            listener.onLocationUpdate(orderId, courierId, latitude, longitude);
+        }
+    }
+
+    private void notifyTrackingClosed(final String orderId) {
+        for (LocationUpdateListener listener : locationUpdateListeners) {
+            listener.onTrackingClosed(orderId);
+        }
+    }
+
+    private String generateOtp(final String id) {
+        return id.length() > otpLength ? id.substring(id.length() - otpLength) : id;
+    }
+
+    // the stored coordinates lag behind a position that is still waiting to be flushed
+    private DeliveryTaskResponseDto withLiveLocation(final DeliveryTaskResponseDto task) {
+        DeliveryTaskResponseDto liveTask = liveLocationStore.snapshot(task.orderId());
+        if (liveTask == null) {
+            return task;
+        }
+        return new DeliveryTaskResponseDto(task.id(), task.orderId(), task.courierId(), task.totalAmount(),
+                task.status(), task.orderLatitude(), task.orderLongitude(), liveTask.courierLatitude(),
+                liveTask.courierLongitude(), task.confirmationType());
+    }
+}
@@ -0,0 +1,8 @@
+package com.podzilla.courier.services.delivery_task.cache;
+
+import java.io.Serializable;
+
+// keys of one changed delivery task, broadcast so every instance drops its cached copies; null keys are skipped
+public record CacheInvalidationMessage(String origin, String id, String orderId, String courierId)
+        implements Serializable {
+}
@@ -0,0 +1,149 @@
+package com.podzilla.courier.services.delivery_task.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.rabbit.annotation.Exchange;
+import org.springframework.amqp.rabbit.annotation.Queue;
+import org.springframework.amqp.rabbit.annotation.QueueBinding;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+
+// read-through cache of delivery task reads keyed by task id, orderId and courierId. every write evicts the keys
+// of the task it touched here and queues them for a broadcast over a fanout exchange so the other instances evict
+// theirs too; the queue is bounded and sent every broadcast-interval-ms off the request thread, and the ttl bounds
+// how long an instance that missed or was never sent a broadcast can serve a stale entry
+@Component
+public class DeliveryTaskCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeliveryTaskCache.class);
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final RabbitTemplate rabbitTemplate;
+    private final String invalidationExchange;
+    private final Cache<String, DeliveryTaskResponseDto> byId;
+    private final Cache<String, List<DeliveryTaskResponseDto>> byOrderId;
+    private final Cache<String, List<DeliveryTaskResponseDto>> byCourierId;
+    private final BlockingQueue<CacheInvalidationMessage> pendingBroadcasts;
+    private final Counter droppedBroadcasts;
+
+    public DeliveryTaskCache(final RabbitTemplate rabbitTemplate,
+                             final MeterRegistry meterRegistry,
+                             @Value("${delivery-task.cache.invalidation-exchange}") final String invalidationExchange,
+                             @Value("${delivery-task.cache.maximum-size}") final long maximumSize,
+                             @Value("${delivery-task.cache.ttl-ms}") final long ttlMs,
+                             @Value("${delivery-task.cache.broadcast-queue-size}") final int broadcastQueueSize) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.invalidationExchange = invalidationExchange;
+        this.pendingBroadcasts = new ArrayBlockingQueue<>(broadcastQueueSize);
+        this.droppedBroadcasts = Counter.builder("courier.cache.invalidation.dropped")
+                .description("Cache invalidations not broadcast because the broadcast queue was full")
+                .register(meterRegistry);
+        this.byId = CaffeineCacheMetrics.monitor(meterRegistry, build(maximumSize, ttlMs), "deliveryTasksById");
+        this.byOrderId = CaffeineCacheMetrics.monitor(meterRegistry, build(maximumSize, ttlMs),
+                "deliveryTasksByOrderId");
+        this.byCourierId = CaffeineCacheMetrics.monitor(meterRegistry, build(maximumSize, ttlMs),
+                "deliveryTasksByCourierId");
+    }
+
+    // the loader may return null for a missing task, which is not cached
+    public DeliveryTaskResponseDto getById(final String id,
+                                           final Function<String, DeliveryTaskResponseDto> loader) {
+        return byId.get(id, loader);
+    }
+
+    public List<DeliveryTaskResponseDto> getByOrderId(final String orderId,
+                                                      final Function<String, List<DeliveryTaskResponseDto>> loader) {
+        return byOrderId.get(orderId, key -> List.copyOf(loader.apply(key)));
+    }
+
+    public List<DeliveryTaskResponseDto> getByCourierId(
+            final String courierId, final Function<String, List<DeliveryTaskResponseDto>> loader) {
+        return byCourierId.get(courierId, key -> List.copyOf(loader.apply(key)));
+    }
+
+    // call after the write has been stored, so a read racing with it cannot put the old value back
+    public void invalidate(final String id, final String orderId, final String courierId) {
+        evict(id, orderId, courierId);
+        if (!pendingBroadcasts.offer(new CacheInvalidationMessage(instanceId, id, orderId, courierId))) {
+            droppedBroadcasts.increment();
+            LOGGER.debug("Broadcast queue full, other instances expire delivery task {} after the ttl", id);
+        }
+    }
+
+    public void invalidate(final DeliveryTaskResponseDto task) {
+        invalidate(task.id(), task.orderId(), task.courierId());
+    }
+
+    // the queued invalidations go out on one channel
+    @Scheduled(fixedDelayString = "${delivery-task.cache.broadcast-interval-ms}")
+    public void broadcast() {
+        List<CacheInvalidationMessage> messages = new ArrayList<>();
+        pendingBroadcasts.drainTo(messages);
+        if (messages.isEmpty()) {
+            return;
+        }
+        try {
+            rabbitTemplate.invoke(operations -> {
+                messages.forEach(message -> operations.convertAndSend(invalidationExchange, "", message));
+                return null;
+            });
+        } catch (AmqpException e) {
+            LOGGER.warn("Failed to broadcast {} cache invalidations, other instances expire them after the ttl",
+                    messages.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void broadcastOnShutdown() {
+        broadcast();
+    }
+
+    @RabbitListener(bindings = @QueueBinding(
+            value = @Queue(exclusive = "true", autoDelete = "true"),
+            exchange = @Exchange(value = "${delivery-task.cache.invalidation-exchange}", type = ExchangeTypes.FANOUT)))
+    public void onInvalidation(final CacheInvalidationMessage message) {
+        if (!instanceId.equals(message.origin())) {
+            evict(message.id(), message.orderId(), message.courierId());
+        }
+    }
+
+    private void evict(final String id, final String orderId, final String courierId) {
+        if (id != null) {
+            byId.invalidate(id);
+        }
+        if (orderId != null) {
+            byOrderId.invalidate(orderId);
+        }
+        if (courierId != null) {
+            byCourierId.invalidate(courierId);
+        }
+    }
+
+    private static <V> Cache<String, V> build(final long maximumSize, final long ttlMs) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+    }
+}
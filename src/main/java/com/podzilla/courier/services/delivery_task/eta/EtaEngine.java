@@ -0,0 +1,118 @@
+package com.podzilla.courier.services.delivery_task.eta;
+
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import com.podzilla.courier.dtos.delivery_tasks.EtaDto;
+import com.podzilla.courier.services.delivery_task.location.LiveLocationStore;
+import com.podzilla.courier.services.delivery_task.location.LocationUpdateListener;
+import com.podzilla.courier.utils.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// estimated arrival per in-flight order, recomputed on every ping from the straight-line distance to the order
+// and a smoothed speed of the courier over its recent pings. the destination comes from the live location store,
+// so only orders it tracks get an estimate; reads are a map lookup per order
+@Component
+public class EtaEngine implements LocationUpdateListener {
+
+    private static final double MILLIS_PER_HOUR = 3_600_000.0;
+    // pings closer together than this are too noisy for a speed sample and are folded into the next one
+    private static final long MIN_SAMPLE_INTERVAL_MS = 2_000;
+    // a longer silence says nothing about the speed in between
+    private static final long MAX_SAMPLE_INTERVAL_MS = 300_000;
+
+    private final LiveLocationStore liveLocationStore;
+    private final double defaultSpeedKmh;
+    private final double minSpeedKmh;
+    private final double maxSpeedKmh;
+    private final double detourFactor;
+    private final double speedSmoothing;
+    private final Map<String, CourierMotion> motionByCourierId = new ConcurrentHashMap<>();
+    private final Map<String, EtaDto> etaByOrderId = new ConcurrentHashMap<>();
+
+    public EtaEngine(final LiveLocationStore liveLocationStore,
+                     @Value("${eta.default-speed-kmh}") final double defaultSpeedKmh,
+                     @Value("${eta.min-speed-kmh}") final double minSpeedKmh,
+                     @Value("${eta.max-speed-kmh}") final double maxSpeedKmh,
+                     @Value("${eta.detour-factor}") final double detourFactor,
+                     @Value("${eta.speed-smoothing}") final double speedSmoothing) {
+        this.liveLocationStore = liveLocationStore;
+        this.defaultSpeedKmh = defaultSpeedKmh;
+        this.minSpeedKmh = minSpeedKmh;
+        this.maxSpeedKmh = maxSpeedKmh;
+        this.detourFactor = detourFactor;
+        this.speedSmoothing = speedSmoothing;
+    }
+
+    @Override
+    public void onLocationUpdate(final String orderId, final String courierId, final double latitude,
+                                 final double longitude) {
+        update(orderId, courierId, latitude, longitude, System.currentTimeMillis());
+    }
+
+    @Override
+    public void onTrackingClosed(final String orderId) {
+        etaByOrderId.remove(orderId);
+    }
+
+    // estimates of the given orders in request order, orders without one are left out
+    public List<EtaDto> getEtas(final Collection<String> orderIds) {
+        List<EtaDto> etas = new ArrayList<>(orderIds.size());
+        for (String orderId : orderIds) {
+            EtaDto eta = etaByOrderId.get(orderId);
+            if (eta != null) {
+                etas.add(eta);
+            }
+        }
+        return etas;
+    }
+
+    void update(final String orderId, final String courierId, final double latitude, final double longitude,
+                final long now) {
+        DeliveryTaskResponseDto task = liveLocationStore.snapshot(orderId);
+        if (task == null || task.status().isTerminal() || task.orderLatitude() == null
+                || task.orderLongitude() == null) {
+            return;
+        }
+        double speedKmh = Double.NaN;
+        if (courierId != null) {
+            speedKmh = motionByCourierId.compute(courierId,
+                    (id, motion) -> advance(motion, latitude, longitude, now)).speedKmh();
+        }
+        double effectiveSpeedKmh = Double.isNaN(speedKmh) ? defaultSpeedKmh : Math.max(minSpeedKmh, speedKmh);
+        double remainingKm = GeoUtils.haversineKm(latitude, longitude, task.orderLatitude(), task.orderLongitude());
+        long travelMs = Math.round(remainingKm * detourFactor / effectiveSpeedKmh * MILLIS_PER_HOUR);
+        etaByOrderId.put(orderId, new EtaDto(orderId, courierId, remainingKm, effectiveSpeedKmh,
+                Instant.ofEpochMilli(now + travelMs), Instant.ofEpochMilli(now)));
+    }
+
+    private CourierMotion advance(final CourierMotion previous, final double latitude, final double longitude,
+                                  final long now) {
+        if (previous == null) {
+            return new CourierMotion(latitude, longitude, now, Double.NaN);
+        }
+        long elapsedMs = now - previous.timestamp();
+        if (elapsedMs < MIN_SAMPLE_INTERVAL_MS) {
+            return previous;
+        }
+        double sampleKmh = GeoUtils.haversineKm(previous.latitude(), previous.longitude(), latitude, longitude)
+                / (elapsedMs / MILLIS_PER_HOUR);
+        // a sample faster than any courier moves is a GPS jump, it only moves the reference point
+        if (elapsedMs > MAX_SAMPLE_INTERVAL_MS || sampleKmh > maxSpeedKmh) {
+            return new CourierMotion(latitude, longitude, now, previous.speedKmh());
+        }
+        double speedKmh = Double.isNaN(previous.speedKmh()) ? sampleKmh
+                : previous.speedKmh() + speedSmoothing * (sampleKmh - previous.speedKmh());
+        return new CourierMotion(latitude, longitude, now, speedKmh);
+    }
+
+    // speedKmh is NaN until the courier has produced a usable sample
+    private record CourierMotion(double latitude, double longitude, long timestamp, double speedKmh) {
+    }
+}
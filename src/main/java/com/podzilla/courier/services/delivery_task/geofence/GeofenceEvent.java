@@ -0,0 +1,10 @@
+package com.podzilla.courier.services.delivery_task.geofence;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+// the courier of an order crossed the geofence around its destination; latitude and longitude are the fix that
+// crossed it
+public record GeofenceEvent(String orderId, String courierId, GeofenceTransition transition, double latitude,
+                            double longitude, Instant occurredAt) implements Serializable {
+}
@@ -0,0 +1,16 @@
+package com.podzilla.courier.services.delivery_task.geofence;
+
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class GeofenceExchangeConfig {
+
+    // consumers bind order.arrived, order.left or order.* to it
+    @Bean
+    public TopicExchange geofenceExchange(@Value("${geofence.exchange}") final String exchange) {
+        return new TopicExchange(exchange);
+    }
+}
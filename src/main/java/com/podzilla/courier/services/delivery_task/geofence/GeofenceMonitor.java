@@ -0,0 +1,155 @@
+package com.podzilla.courier.services.delivery_task.geofence;
+
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import com.podzilla.courier.services.delivery_task.location.LiveLocationStore;
+import com.podzilla.courier.services.delivery_task.location.LocationUpdateListener;
+import com.podzilla.courier.utils.GeoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// raises ARRIVED when the courier of an order comes within arrival-radius-m of its destination and LEFT once it
+// is back beyond departure-radius-m, so a fix jittering around one radius does not flap. each fence is built on
+// the first ping of its order with its bounding boxes and radii in degrees, after which a ping is a map lookup
+// and a few comparisons without allocating; the distance is only computed for fixes inside the box
+@Component
+public class GeofenceMonitor implements LocationUpdateListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeofenceMonitor.class);
+    private static final double METERS_PER_KM = 1000.0;
+
+    private final LiveLocationStore liveLocationStore;
+    private final RabbitTemplate rabbitTemplate;
+    private final String exchange;
+    private final double arrivalRadiusDegrees;
+    private final double departureRadiusDegrees;
+    private final Map<String, Fence> fencesByOrderId = new ConcurrentHashMap<>();
+
+    public GeofenceMonitor(final LiveLocationStore liveLocationStore,
+                           final RabbitTemplate rabbitTemplate,
+                           @Value("${geofence.exchange}") final String exchange,
+                           @Value("${geofence.arrival-radius-m}") final double arrivalRadiusMeters,
+                           @Value("${geofence.departure-radius-m}") final double departureRadiusMeters) {
+        this.liveLocationStore = liveLocationStore;
+        this.rabbitTemplate = rabbitTemplate;
+        this.exchange = exchange;
+        this.arrivalRadiusDegrees = arrivalRadiusMeters / METERS_PER_KM / GeoUtils.KM_PER_DEGREE;
+        this.departureRadiusDegrees = Math.max(arrivalRadiusMeters, departureRadiusMeters) / METERS_PER_KM
+                / GeoUtils.KM_PER_DEGREE;
+    }
+
+    @Override
+    public void onLocationUpdate(final String orderId, final String courierId, final double latitude,
+                                 final double longitude) {
+        Fence fence = fencesByOrderId.get(orderId);
+        if (fence == null) {
+            fence = createFence(orderId);
+            if (fence == null) {
+                return;
+            }
+        }
+        GeofenceTransition transition = fence.evaluate(latitude, longitude);
+        if (transition != null) {
+            publish(new GeofenceEvent(orderId, courierId, transition, latitude, longitude, Instant.now()));
+        }
+    }
+
+    @Override
+    public void onTrackingClosed(final String orderId) {
+        fencesByOrderId.remove(orderId);
+    }
+
+    // the destination comes from the live location store, orders it does not track are not fenced
+    private Fence createFence(final String orderId) {
+        DeliveryTaskResponseDto task = liveLocationStore.snapshot(orderId);
+        if (task == null || task.status().isTerminal() || task.orderLatitude() == null
+                || task.orderLongitude() == null) {
+            return null;
+        }
+        Fence fence = new Fence(task.orderLatitude(), task.orderLongitude(), arrivalRadiusDegrees,
+                departureRadiusDegrees);
+        Fence raced = fencesByOrderId.putIfAbsent(orderId, fence);
+        return raced != null ? raced : fence;
+    }
+
+    private void publish(final GeofenceEvent event) {
+        LOGGER.info("Courier {} {} the destination of order {}", event.courierId(),
+                event.transition() == GeofenceTransition.ARRIVED ? "arrived at" : "left", event.orderId());
+        try {
+            rabbitTemplate.convertAndSend(exchange, event.transition().routingKey(), event);
+        } catch (AmqpException e) {
+            LOGGER.warn("Failed to publish geofence {} of order {}", event.transition(), event.orderId(), e);
+        }
+    }
+
+    // distances are compared on the equirectangular projection around the destination, exact enough for radii
+    // of a few hundred metres; the box does not wrap around the antimeridian
+    static final class Fence {
+        private final double latitude;
+        private final double longitude;
+        private final double longitudeScale;
+        private final double arrivalRadiusSquared;
+        private final double departureRadiusSquared;
+        private final double arrivalMinLatitude;
+        private final double arrivalMaxLatitude;
+        private final double arrivalMinLongitude;
+        private final double arrivalMaxLongitude;
+        private final double departureMinLatitude;
+        private final double departureMaxLatitude;
+        private final double departureMinLongitude;
+        private final double departureMaxLongitude;
+        private boolean inside;
+
+        Fence(final double latitude, final double longitude, final double arrivalRadiusDegrees,
+              final double departureRadiusDegrees) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.longitudeScale = Math.cos(Math.toRadians(latitude));
+            this.arrivalRadiusSquared = arrivalRadiusDegrees * arrivalRadiusDegrees;
+            this.departureRadiusSquared = departureRadiusDegrees * departureRadiusDegrees;
+            double arrivalLongitudeSpan = arrivalRadiusDegrees / longitudeScale;
+            double departureLongitudeSpan = departureRadiusDegrees / longitudeScale;
+            this.arrivalMinLatitude = latitude - arrivalRadiusDegrees;
+            this.arrivalMaxLatitude = latitude + arrivalRadiusDegrees;
+            this.arrivalMinLongitude = longitude - arrivalLongitudeSpan;
+            this.arrivalMaxLongitude = longitude + arrivalLongitudeSpan;
+            this.departureMinLatitude = latitude - departureRadiusDegrees;
+            this.departureMaxLatitude = latitude + departureRadiusDegrees;
+            this.departureMinLongitude = longitude - departureLongitudeSpan;
+            this.departureMaxLongitude = longitude + departureLongitudeSpan;
+        }
+
+        // null while the courier stays on the same side of the fence
+        synchronized GeofenceTransition evaluate(final double fixLatitude, final double fixLongitude) {
+            if (!inside) {
+                if (fixLatitude < arrivalMinLatitude || fixLatitude > arrivalMaxLatitude
+                        || fixLongitude < arrivalMinLongitude || fixLongitude > arrivalMaxLongitude
+                        || distanceSquared(fixLatitude, fixLongitude) > arrivalRadiusSquared) {
+                    return null;
+                }
+                inside = true;
+                return GeofenceTransition.ARRIVED;
+            }
+            if (fixLatitude >= departureMinLatitude && fixLatitude <= departureMaxLatitude
+                    && fixLongitude >= departureMinLongitude && fixLongitude <= departureMaxLongitude
+                    && distanceSquared(fixLatitude, fixLongitude) <= departureRadiusSquared) {
+                return null;
+            }
+            inside = false;
+            return GeofenceTransition.LEFT;
+        }
+
+        private double distanceSquared(final double fixLatitude, final double fixLongitude) {
+            double deltaLatitude = fixLatitude - latitude;
+            double deltaLongitude = (fixLongitude - longitude) * longitudeScale;
+            return deltaLatitude * deltaLatitude + deltaLongitude * deltaLongitude;
+        }
+    }
+}
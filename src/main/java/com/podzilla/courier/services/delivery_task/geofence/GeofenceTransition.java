@@ -0,0 +1,16 @@
+package com.podzilla.courier.services.delivery_task.geofence;
+
+public enum GeofenceTransition {
+    ARRIVED("order.arrived"),
+    LEFT("order.left");
+
+    private final String routingKey;
+
+    GeofenceTransition(final String routingKey) {
+        this.routingKey = routingKey;
+    }
+
+    public String routingKey() {
+        return routingKey;
+    }
+}
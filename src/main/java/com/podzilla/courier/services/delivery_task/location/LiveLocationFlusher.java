@@ -0,0 +1,48 @@
+package com.podzilla.courier.services.delivery_task.location;
+
+import com.podzilla.courier.models.CourierLocation;
+import com.podzilla.courier.repositories.delivery_task.IDeliveryTaskRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class LiveLocationFlusher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LiveLocationFlusher.class);
+    private final LiveLocationStore liveLocationStore;
+    private final IDeliveryTaskRepository deliveryTaskRepository;
+
+    public LiveLocationFlusher(final LiveLocationStore liveLocationStore,
+                               final IDeliveryTaskRepository deliveryTaskRepository) {
+        this.liveLocationStore = liveLocationStore;
+        this.deliveryTaskRepository = deliveryTaskRepository;
+    }
+
+    @Scheduled(fixedDelayString = "${location.flush-interval-ms}")
+    public void flush() {
+        List<CourierLocation> pending = liveLocationStore.drainDirty();
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            deliveryTaskRepository.updateCourierLocations(pending);
+            liveLocationStore.releaseFlushed(pending);
+            LOGGER.debug("Flushed {} courier locations", pending.size());
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to flush {} courier locations, retrying on next flush", pending.size(), e);
+            // retired orders are kept until their last position is flushed, so all of them are retried
+            pending.forEach(location -> liveLocationStore.markDirty(location.orderId()));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        LOGGER.info("Flushing buffered courier locations before shutdown");
+        flush();
+    }
+}
@@ -0,0 +1,278 @@
+package com.podzilla.courier.services.delivery_task.location;
+
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import com.podzilla.courier.dtos.delivery_tasks.LocationUpdateStatus;
+import com.podzilla.courier.models.CourierLocation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// latest courier position per active order, kept in parallel primitive arrays addressed by a linear-probing
+// hash of the orderId so a ping is a lookup plus a few array writes; dirty positions are written behind in
+// batches by LiveLocationFlusher
+@Component
+public class LiveLocationStore {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int LOAD_FACTOR_PERCENT = 75;
+    private static final int PERCENT = 100;
+    private static final int HASH_SPREAD_SHIFT = 16;
+
+    private String[] orderIds;
+    private double[] latitudes;
+    private double[] longitudes;
+    private long[] updatedAt;
+    // device time of the latest position that carried one, 0 while none has
+    private long[] recordedAt;
+    private boolean[] dirty;
+    private boolean[] retired;
+    // last known non-location fields of the task, used to answer location updates without a Mongo read
+    private DeliveryTaskResponseDto[] tasks;
+    private int size;
+
+    public LiveLocationStore(@Value("${location.store-capacity}") final int initialCapacity) {
+        allocate(tableSizeFor(initialCapacity));
+    }
+
+    // a buffered position that has not been flushed yet wins over the coordinates carried by the task
+    public synchronized void track(final DeliveryTaskResponseDto task) {
+        int slot = indexOf(task.orderId());
+        if (slot >= 0) {
+            tasks[slot] = task;
+            retired[slot] = false;
+            return;
+        }
+        if ((size + 1) * PERCENT > orderIds.length * LOAD_FACTOR_PERCENT) {
+            resize(orderIds.length << 1);
+        }
+        slot = insertionSlot(task.orderId());
+        orderIds[slot] = task.orderId();
+        latitudes[slot] = task.courierLatitude() != null ? task.courierLatitude() : 0.0;
+        longitudes[slot] = task.courierLongitude() != null ? task.courierLongitude() : 0.0;
+        updatedAt[slot] = System.currentTimeMillis();
+        recordedAt[slot] = 0L;
+        dirty[slot] = false;
+        retired[slot] = false;
+        tasks[slot] = task;
+        size++;
+    }
+
+    public synchronized boolean update(final String orderId, final double latitude, final double longitude) {
+        int slot = indexOf(orderId);
+        if (slot < 0) {
+            return false;
+        }
+        write(slot, latitude, longitude);
+        return true;
+    }
+
+    // for a position stamped by the device: device times are only compared with the order's earlier device times,
+    // never with updatedAt, which is server time. NOT_FOUND when the order is not tracked here
+    public synchronized LocationUpdateStatus update(final String orderId, final double latitude,
+                                                    final double longitude, final long recordedAtMs) {
+        int slot = indexOf(orderId);
+        if (slot < 0) {
+            return LocationUpdateStatus.NOT_FOUND;
+        }
+        if (recordedAtMs < recordedAt[slot]) {
+            return LocationUpdateStatus.SUPERSEDED;
+        }
+        recordedAt[slot] = recordedAtMs;
+        write(slot, latitude, longitude);
+        return LocationUpdateStatus.APPLIED;
+    }
+
+    public synchronized DeliveryTaskResponseDto snapshot(final String orderId) {
+        int slot = indexOf(orderId);
+        if (slot < 0) {
+            return null;
+        }
+        DeliveryTaskResponseDto task = tasks[slot];
+        return new DeliveryTaskResponseDto(
+                task.id(),
+                task.orderId(),
+                task.courierId(),
+                task.totalAmount(),
+                task.status(),
+                task.orderLatitude(),
+                task.orderLongitude(),
+                latitudes[slot],
+                longitudes[slot],
+                task.confirmationType()
+        );
+    }
+
+    public synchronized String courierIdOf(final String orderId) {
+        int slot = indexOf(orderId);
+        return slot < 0 ? null : tasks[slot].courierId();
+    }
+
+    // the order is dropped once its pending position has been flushed, see releaseFlushed
+    public synchronized void retire(final String orderId) {
+        int slot = indexOf(orderId);
+        if (slot >= 0) {
+            retired[slot] = true;
+        }
+    }
+
+    public synchronized boolean isRetired(final String orderId) {
+        int slot = indexOf(orderId);
+        return slot >= 0 && retired[slot];
+    }
+
+    public synchronized void remove(final String orderId) {
+        int slot = indexOf(orderId);
+        if (slot >= 0) {
+            removeAt(slot);
+        }
+    }
+
+    public synchronized void markDirty(final String orderId) {
+        int slot = indexOf(orderId);
+        if (slot >= 0) {
+            dirty[slot] = true;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // retired orders with a pending position stay until releaseFlushed, so a failed flush can mark them dirty again
+    public synchronized List<CourierLocation> drainDirty() {
+        List<CourierLocation> pending = new ArrayList<>();
+        List<String> retiredOrderIds = new ArrayList<>();
+        for (int slot = 0; slot < orderIds.length; slot++) {
+            if (orderIds[slot] == null) {
+                continue;
+            }
+            if (dirty[slot]) {
+                pending.add(new CourierLocation(orderIds[slot], latitudes[slot], longitudes[slot]));
+                dirty[slot] = false;
+            } else if (retired[slot]) {
+                retiredOrderIds.add(orderIds[slot]);
+            }
+        }
+        // removal shifts entries around, so it cannot happen while scanning the table
+        for (String orderId : retiredOrderIds) {
+            removeAt(indexOf(orderId));
+        }
+        return pending;
+    }
+
+    // drops the retired orders among the flushed positions, unless a newer position is pending again
+    public synchronized void releaseFlushed(final List<CourierLocation> flushed) {
+        for (CourierLocation location : flushed) {
+            int slot = indexOf(location.orderId());
+            if (slot >= 0 && retired[slot] && !dirty[slot]) {
+                removeAt(slot);
+            }
+        }
+    }
+
+    private void write(final int slot, final double latitude, final double longitude) {
+        latitudes[slot] = latitude;
+        longitudes[slot] = longitude;
+        updatedAt[slot] = System.currentTimeMillis();
+        dirty[slot] = true;
+    }
+
+    private int indexOf(final String orderId) {
+        int mask = orderIds.length - 1;
+        for (int slot = hash(orderId) & mask; orderIds[slot] != null; slot = (slot + 1) & mask) {
+            if (orderIds[slot].equals(orderId)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int insertionSlot(final String orderId) {
+        int mask = orderIds.length - 1;
+        int slot = hash(orderId) & mask;
+        while (orderIds[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // backward-shift deletion keeps probe chains intact without tombstones
+    private void removeAt(final int removedSlot) {
+        int mask = orderIds.length - 1;
+        int hole = removedSlot;
+        int slot = (hole + 1) & mask;
+        while (orderIds[slot] != null) {
+            int home = hash(orderIds[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                move(slot, hole);
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        orderIds[hole] = null;
+        tasks[hole] = null;
+        dirty[hole] = false;
+        retired[hole] = false;
+        size--;
+    }
+
+    private void move(final int from, final int to) {
+        orderIds[to] = orderIds[from];
+        latitudes[to] = latitudes[from];
+        longitudes[to] = longitudes[from];
+        updatedAt[to] = updatedAt[from];
+        recordedAt[to] = recordedAt[from];
+        dirty[to] = dirty[from];
+        retired[to] = retired[from];
+        tasks[to] = tasks[from];
+    }
+
+    private void resize(final int capacity) {
+        String[] oldOrderIds = orderIds;
+        double[] oldLatitudes = latitudes;
+        double[] oldLongitudes = longitudes;
+        long[] oldUpdatedAt = updatedAt;
+        long[] oldRecordedAt = recordedAt;
+        boolean[] oldDirty = dirty;
+        boolean[] oldRetired = retired;
+        DeliveryTaskResponseDto[] oldTasks = tasks;
+        allocate(capacity);
+        for (int from = 0; from < oldOrderIds.length; from++) {
+            if (oldOrderIds[from] == null) {
+                continue;
+            }
+            int to = insertionSlot(oldOrderIds[from]);
+            orderIds[to] = oldOrderIds[from];
+            latitudes[to] = oldLatitudes[from];
+            longitudes[to] = oldLongitudes[from];
+            updatedAt[to] = oldUpdatedAt[from];
+            recordedAt[to] = oldRecordedAt[from];
+            dirty[to] = oldDirty[from];
+            retired[to] = oldRetired[from];
+            tasks[to] = oldTasks[from];
+        }
+    }
+
+    private void allocate(final int capacity) {
+        orderIds = new String[capacity];
+        latitudes = new double[capacity];
+        longitudes = new double[capacity];
+        updatedAt = new long[capacity];
+        recordedAt = new long[capacity];
+        dirty = new boolean[capacity];
+        retired = new boolean[capacity];
+        tasks = new DeliveryTaskResponseDto[capacity];
+    }
+
+    private static int hash(final String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> HASH_SPREAD_SHIFT);
+    }
+
+    private static int tableSizeFor(final int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(capacity, MIN_CAPACITY) - 1) << 1;
+        return Math.max(tableSize, MIN_CAPACITY);
+    }
+}
@@ -0,0 +1,177 @@
+package com.podzilla.courier.services.delivery_task.location;
+
+import com.podzilla.courier.models.CourierLocation;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+// fans courier positions out to SSE subscribers. every subscriber keeps only the latest position it has not been
+// sent yet and is drained by at most one virtual thread at a time, so its events leave in order, the closed event
+// last, and a slow subscriber only ever sees the latest fix and holds up nobody but itself
+@Component
+public class LocationStreamHub implements LocationUpdateListener {
+
+    public static final String LOCATION_EVENT = "location";
+    public static final String CLOSED_EVENT = "closed";
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocationStreamHub.class);
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+    private final long streamTimeoutMs;
+
+    public LocationStreamHub(@Value("${location.stream.timeout-ms}") final long streamTimeoutMs) {
+        this.streamTimeoutMs = streamTimeoutMs;
+    }
+
+    public SseEmitter subscribe(final String orderId, final CourierLocation currentLocation) {
+        SseEmitter emitter = newEmitter();
+        // the current location is queued before the subscriber is visible, so a newer ping can only replace it
+        Subscriber subscriber = new Subscriber(orderId, emitter, currentLocation);
+        subscribers.compute(orderId, (key, orderSubscribers) -> {
+            Set<Subscriber> current = orderSubscribers == null ? ConcurrentHashMap.newKeySet() : orderSubscribers;
+            current.add(subscriber);
+            return current;
+        });
+        emitter.onCompletion(() -> unsubscribe(orderId, subscriber));
+        emitter.onTimeout(() -> unsubscribe(orderId, subscriber));
+        emitter.onError(error -> unsubscribe(orderId, subscriber));
+        LOGGER.debug("Subscribed to location stream for order id: {}", orderId);
+        subscriber.schedule();
+        return emitter;
+    }
+
+    @Override
+    public void onLocationUpdate(final String orderId, final String courierId, final double latitude,
+                                 final double longitude) {
+        Set<Subscriber> orderSubscribers = subscribers.get(orderId);
+        if (orderSubscribers == null) {
+            return;
+        }
+        CourierLocation location = new CourierLocation(orderId, latitude, longitude);
+        for (Subscriber subscriber : orderSubscribers) {
+            subscriber.offer(location);
+        }
+    }
+
+    @Override
+    public void onTrackingClosed(final String orderId) {
+        close(orderId);
+    }
+
+    public void close(final String orderId) {
+        Set<Subscriber> orderSubscribers = subscribers.remove(orderId);
+        if (orderSubscribers == null) {
+            return;
+        }
+        LOGGER.debug("Closing {} location streams for order id: {}", orderSubscribers.size(), orderId);
+        orderSubscribers.forEach(Subscriber::close);
+    }
+
+    public int subscriberCount(final String orderId) {
+        Set<Subscriber> orderSubscribers = subscribers.get(orderId);
+        return orderSubscribers == null ? 0 : orderSubscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.keySet().forEach(this::close);
+        dispatcher.shutdown();
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(streamTimeoutMs);
+    }
+
+    private void unsubscribe(final String orderId, final Subscriber subscriber) {
+        subscribers.computeIfPresent(orderId, (key, orderSubscribers) -> {
+            orderSubscribers.remove(subscriber);
+            return orderSubscribers.isEmpty() ? null : orderSubscribers;
+        });
+    }
+
+    private final class Subscriber {
+        private final String orderId;
+        private final SseEmitter emitter;
+        private final AtomicReference<CourierLocation> latest;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closing;
+        // only read and written by the thread holding draining
+        private boolean done;
+
+        private Subscriber(final String orderId, final SseEmitter emitter, final CourierLocation currentLocation) {
+            this.orderId = orderId;
+            this.emitter = emitter;
+            this.latest = new AtomicReference<>(currentLocation);
+        }
+
+        private void offer(final CourierLocation location) {
+            latest.set(location);
+            schedule();
+        }
+
+        private void close() {
+            closing = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                dispatcher.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                LOGGER.debug("Location stream dispatcher is shut down, dropping update for order id: {}", orderId);
+            }
+        }
+
+        // anything offered after the last look but before draining is released is picked up by the re-check
+        private void drain() {
+            do {
+                CourierLocation location;
+                while (!done && (location = latest.getAndSet(null)) != null) {
+                    send(location);
+                }
+                if (!done && closing) {
+                    sendClosed();
+                }
+                draining.set(false);
+            } while (!done && (closing || latest.get() != null) && draining.compareAndSet(false, true));
+        }
+
+        private void send(final CourierLocation location) {
+            try {
+                emitter.send(SseEmitter.event().name(LOCATION_EVENT).data(location));
+            } catch (IOException | IllegalStateException e) {
+                LOGGER.debug("Dropping location stream for order id: {}", orderId);
+                done = true;
+                unsubscribe(orderId, this);
+                emitter.completeWithError(e);
+            }
+        }
+
+        private void sendClosed() {
+            done = true;
+            try {
+                emitter.send(SseEmitter.event().name(CLOSED_EVENT).data(orderId));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.podzilla.courier.services.delivery_task.location;
+
+import com.podzilla.courier.dtos.delivery_tasks.LocationTrackDto;
+import com.podzilla.courier.dtos.delivery_tasks.TrackPointDto;
+import com.podzilla.courier.models.LocationTrackBucket;
+import com.podzilla.courier.models.TrackPoint;
+import com.podzilla.courier.repositories.location_track.LocationTrackRepository;
+import com.podzilla.courier.utils.TrackEncoding;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// append-only history of every courier position per delivery. pings are buffered per order and written as
+// encoded buckets once a bucket is full, the oldest buffered ping reaches max-buffer-ms or the delivery ends, so
+// the history adds roughly one insert per bucket-size pings. a track is only ever touched inside the compute of
+// its map entry, which keeps appends, drains and reads of one order serialized without a lock of its own
+@Component
+public class LocationTrackRecorder implements LocationUpdateListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocationTrackRecorder.class);
+
+    private final LocationTrackRepository locationTrackRepository;
+    private final int bucketSize;
+    private final long maxBufferMs;
+    private final int maxPendingPoints;
+    private final Map<String, PendingTrack> pendingTracks = new ConcurrentHashMap<>();
+
+    public LocationTrackRecorder(final LocationTrackRepository locationTrackRepository,
+                                 @Value("${location.track.bucket-size}") final int bucketSize,
+                                 @Value("${location.track.max-buffer-ms}") final long maxBufferMs,
+                                 @Value("${location.track.max-pending-points}") final int maxPendingPoints) {
+        this.locationTrackRepository = locationTrackRepository;
+        this.bucketSize = bucketSize;
+        this.maxBufferMs = maxBufferMs;
+        this.maxPendingPoints = maxPendingPoints;
+    }
+
+    @Override
+    public void onLocationUpdate(final String orderId, final String courierId, final double latitude,
+                                 final double longitude) {
+        TrackPoint point = new TrackPoint(System.currentTimeMillis(), latitude, longitude);
+        pendingTracks.compute(orderId, (id, track) -> {
+            PendingTrack pending = track != null ? track : new PendingTrack();
+            pending.append(courierId, point, maxPendingPoints);
+            return pending;
+        });
+    }
+
+    @Override
+    public void onTrackingClosed(final String orderId) {
+        pendingTracks.computeIfPresent(orderId, (id, track) -> {
+            track.closed = true;
+            return track;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${location.track.flush-interval-ms}")
+    public void flush() {
+        flush(false);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        LOGGER.info("Flushing buffered location tracks before shutdown");
+        flush(true);
+    }
+
+    private void flush(final boolean everything) {
+        long now = System.currentTimeMillis();
+        Map<String, PendingTrack> drained = new HashMap<>();
+        for (String orderId : pendingTracks.keySet()) {
+            pendingTracks.computeIfPresent(orderId, (id, track) -> {
+                if (track.points.isEmpty()) {
+                    return null;
+                }
+                if (everything || track.closed || track.points.size() >= bucketSize
+                        || now - track.points.peekFirst().timestamp() >= maxBufferMs) {
+                    drained.put(id, track.drain());
+                    return track.closed ? null : track;
+                }
+                return track;
+            });
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+        List<LocationTrackBucket> buckets = new ArrayList<>();
+        drained.forEach((orderId, track) -> buckets.addAll(toBuckets(orderId, track)));
+        try {
+            locationTrackRepository.insert(buckets);
+            LOGGER.debug("Flushed {} location track buckets of {} orders", buckets.size(), drained.size());
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to flush location tracks of {} orders, retrying on next flush", drained.size(), e);
+            drained.forEach(this::restore);
+        }
+    }
+
+    // the drained points go back in front of whatever arrived while the insert was failing
+    private void restore(final String orderId, final PendingTrack drained) {
+        pendingTracks.merge(orderId, drained, (current, failed) -> {
+            failed.closed |= current.closed;
+            current.points.forEach(point -> failed.append(current.courierId, point, maxPendingPoints));
+            return failed;
+        });
+    }
+
+    public Optional<LocationTrackDto> getTrack(final String orderId, final Integer maxPoints) {
+        List<TrackPoint> points = new ArrayList<>();
+        for (LocationTrackBucket bucket : locationTrackRepository.findByOrderIdOrderByStartTimeAsc(orderId)) {
+            points.addAll(TrackEncoding.decode(bucket.getPoints(), bucket.getStartTime().toEpochMilli()));
+        }
+        // points drained by a flush that is still inserting them are missing from both for that moment
+        pendingTracks.computeIfPresent(orderId, (id, track) -> {
+            points.addAll(track.points);
+            return track;
+        });
+        if (points.isEmpty()) {
+            return Optional.empty();
+        }
+        List<TrackPointDto> sampled = downsample(points, maxPoints).stream()
+                .map(point -> new TrackPointDto(Instant.ofEpochMilli(point.timestamp()), point.latitude(),
+                        point.longitude()))
+                .toList();
+        return Optional.of(new LocationTrackDto(orderId, points.size(), sampled));
+    }
+
+    // evenly spaced by index, always keeping the first and the last position
+    static List<TrackPoint> downsample(final List<TrackPoint> points, final Integer maxPoints) {
+        if (maxPoints == null || points.size() <= maxPoints) {
+            return points;
+        }
+        if (maxPoints <= 1) {
+            return List.of(points.get(points.size() - 1));
+        }
+        List<TrackPoint> sampled = new ArrayList<>(maxPoints);
+        double step = (double) (points.size() - 1) / (maxPoints - 1);
+        for (int i = 0; i < maxPoints; i++) {
+            sampled.add(points.get((int) Math.round(i * step)));
+        }
+        return sampled;
+    }
+
+    private List<LocationTrackBucket> toBuckets(final String orderId, final PendingTrack track) {
+        List<TrackPoint> points = new ArrayList<>(track.points);
+        List<LocationTrackBucket> buckets = new ArrayList<>();
+        for (int from = 0; from < points.size(); from += bucketSize) {
+            List<TrackPoint> chunk = points.subList(from, Math.min(points.size(), from + bucketSize));
+            long startTime = chunk.get(0).timestamp();
+            LocationTrackBucket bucket = new LocationTrackBucket();
+            bucket.setOrderId(orderId);
+            bucket.setCourierId(track.courierId);
+            bucket.setStartTime(Instant.ofEpochMilli(startTime));
+            bucket.setEndTime(Instant.ofEpochMilli(chunk.get(chunk.size() - 1).timestamp()));
+            bucket.setPointCount(chunk.size());
+            bucket.setPoints(TrackEncoding.encode(chunk, startTime));
+            buckets.add(bucket);
+        }
+        return buckets;
+    }
+
+    // courierId is the courier of the latest ping, a reassigned order starts its next bucket under the new one
+    private static final class PendingTrack {
+        private ArrayDeque<TrackPoint> points = new ArrayDeque<>();
+        private String courierId;
+        private boolean closed;
+
+        private void append(final String pingCourierId, final TrackPoint point, final int maxPendingPoints) {
+            if (points.size() >= maxPendingPoints) {
+                // only reached while inserts keep failing; the oldest positions are given up first
+                points.pollFirst();
+            }
+            points.addLast(point);
+            courierId = pingCourierId;
+        }
+
+        private PendingTrack drain() {
+            PendingTrack drained = new PendingTrack();
+            drained.points = points;
+            drained.courierId = courierId;
+            drained.closed = closed;
+            points = new ArrayDeque<>();
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.podzilla.courier.services.delivery_task.location;
+
+// notified on the request thread for every accepted courier position, so implementations must be cheap
+public interface LocationUpdateListener {
+    void onLocationUpdate(String orderId, String courierId, double latitude, double longitude);
+
+    // the task of the order reached a final status, no further positions will follow
+    default void onTrackingClosed(final String orderId) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.podzilla.courier.services.delivery_task.location;
+
+import com.podzilla.courier.models.CourierLocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// reactive counterpart of LocationStreamHub: one multicast sink per streamed order. every subscriber keeps only
+// the latest position it has not consumed yet, so a slow subscriber sees the newest fix and never backs up pings
+@Component
+@Profile("reactive")
+public class ReactiveLocationStreamHub implements LocationUpdateListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveLocationStreamHub.class);
+
+    private final Map<String, OrderStream> streams = new ConcurrentHashMap<>();
+    private final Duration streamTimeout;
+
+    public ReactiveLocationStreamHub(@Value("${location.stream.timeout-ms}") final long streamTimeoutMs) {
+        this.streamTimeout = Duration.ofMillis(streamTimeoutMs);
+    }
+
+    public Flux<ServerSentEvent<Object>> subscribe(final String orderId, final CourierLocation currentLocation) {
+        // the subscriber is counted in the same compute that may create or drop the sink, so a stream that is
+        // being released can never be handed to a new subscriber
+        return Flux.defer(() -> {
+            OrderStream stream = streams.compute(orderId, (key, current) -> {
+                OrderStream orderStream = current == null ? new OrderStream() : current;
+                orderStream.subscribers++;
+                return orderStream;
+            });
+            LOGGER.debug("Subscribed to location stream for order id: {}", orderId);
+            return stream.sink.asFlux()
+                    .onBackpressureLatest()
+                    .startWith(currentLocation)
+                    .map(location -> ServerSentEvent.builder()
+                            .event(LocationStreamHub.LOCATION_EVENT)
+                            .data((Object) location)
+                            .build())
+                    .concatWith(Flux.just(ServerSentEvent.builder()
+                            .event(LocationStreamHub.CLOSED_EVENT)
+                            .data((Object) orderId)
+                            .build()))
+                    .take(streamTimeout)
+                    .doFinally(signal -> unsubscribe(orderId, stream));
+        });
+    }
+
+    @Override
+    public void onLocationUpdate(final String orderId, final String courierId, final double latitude,
+                                 final double longitude) {
+        OrderStream stream = streams.get(orderId);
+        if (stream == null) {
+            return;
+        }
+        // pings of one order arrive on several threads, a sink only accepts one emitter at a time
+        synchronized (stream) {
+            stream.sink.tryEmitNext(new CourierLocation(orderId, latitude, longitude));
+        }
+    }
+
+    @Override
+    public void onTrackingClosed(final String orderId) {
+        OrderStream stream = streams.remove(orderId);
+        if (stream == null) {
+            return;
+        }
+        LOGGER.debug("Closing {} location streams for order id: {}", stream.sink.currentSubscriberCount(), orderId);
+        synchronized (stream) {
+            stream.sink.tryEmitComplete();
+        }
+    }
+
+    public int subscriberCount(final String orderId) {
+        OrderStream stream = streams.get(orderId);
+        return stream == null ? 0 : stream.sink.currentSubscriberCount();
+    }
+
+    private void unsubscribe(final String orderId, final OrderStream stream) {
+        streams.computeIfPresent(orderId, (key, current) -> {
+            if (current != stream) {
+                return current;
+            }
+            current.subscribers--;
+            return current.subscribers == 0 ? null : current;
+        });
+    }
+
+    private static final class OrderStream {
+        private final Sinks.Many<CourierLocation> sink = Sinks.many().multicast().directBestEffort();
+        private int subscribers;
+    }
+}
@@ -0,0 +1,143 @@
+package com.podzilla.courier.services.delivery_task.outbox;
+
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.models.OutboxEvent;
+import com.podzilla.courier.repositories.delivery_task.IDeliveryTaskRepository;
+import com.podzilla.courier.services.delivery_task.poll_command.Command;
+import com.podzilla.courier.services.delivery_task.poll_command.StartPollingCommand;
+import com.podzilla.courier.services.delivery_task.poll_command.StopPollingCommand;
+import com.podzilla.mq.EventPublisher;
+import com.podzilla.mq.events.OrderDeliveredEvent;
+import com.podzilla.mq.events.OrderDeliveryFailedEvent;
+import com.podzilla.mq.events.OrderOutForDeliveryEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// publishes the events left in the task outboxes by status transitions. each instance claims its batch for a lease
+// first, so the tasks of a batch are relayed by one instance at a time. a batch goes out on one channel in outbox
+// order, so events of an order are never reordered, and is only removed from the outboxes once the broker has
+// confirmed all of it; a failed batch stays claimed and is retried whole once the lease has run out, so delivery
+// is at least once
+@Component
+public class OutboxRelay {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final int MAX_BACKOFF_SHIFT = 16;
+    private static final String PUBLISH_TIMER = "courier.events.publish";
+
+    private final IDeliveryTaskRepository deliveryTaskRepository;
+    private final EventPublisher eventPublisher;
+    private final RabbitTemplate rabbitTemplate;
+    private final int batchSize;
+    private final long confirmTimeoutMs;
+    private final long retryDelayMs;
+    private final long maxRetryDelayMs;
+    private final Duration claimLease;
+    private final MeterRegistry meterRegistry;
+    private final Timer confirmTimer;
+    private int consecutiveFailures;
+    private long nextAttemptAt;
+
+    public OutboxRelay(final IDeliveryTaskRepository deliveryTaskRepository,
+                       final EventPublisher eventPublisher,
+                       final RabbitTemplate rabbitTemplate,
+                       @Value("${outbox.batch-size}") final int batchSize,
+                       @Value("${outbox.confirm-timeout-ms}") final long confirmTimeoutMs,
+                       @Value("${outbox.retry-delay-ms}") final long retryDelayMs,
+                       @Value("${outbox.max-retry-delay-ms}") final long maxRetryDelayMs,
+                       @Value("${outbox.claim-lease-ms}") final long claimLeaseMs,
+                       final MeterRegistry meterRegistry) {
+        this.deliveryTaskRepository = deliveryTaskRepository;
+        this.eventPublisher = eventPublisher;
+        this.rabbitTemplate = rabbitTemplate;
+        this.batchSize = batchSize;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.retryDelayMs = retryDelayMs;
+        this.maxRetryDelayMs = maxRetryDelayMs;
+        this.claimLease = Duration.ofMillis(claimLeaseMs);
+        this.meterRegistry = meterRegistry;
+        this.confirmTimer = Timer.builder("courier.outbox.confirm")
+                .description("Wait for the broker to confirm a relayed outbox batch")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay-interval-ms}")
+    public void relay() {
+        if (System.currentTimeMillis() < nextAttemptAt) {
+            return;
+        }
+        try {
+            List<DeliveryTask> tasks;
+            do {
+                tasks = deliveryTaskRepository.claimPendingEvents(batchSize, claimLease);
+                if (!tasks.isEmpty()) {
+                    publish(tasks);
+                }
+            } while (tasks.size() == batchSize);
+            consecutiveFailures = 0;
+        } catch (RuntimeException e) {
+            consecutiveFailures++;
+            long delay = Math.min(maxRetryDelayMs,
+                    retryDelayMs << Math.min(consecutiveFailures - 1, MAX_BACKOFF_SHIFT));
+            nextAttemptAt = System.currentTimeMillis() + delay;
+            LOGGER.warn("Failed to relay outbox events, retrying in {} ms", delay, e);
+        }
+    }
+
+    private void publish(final List<DeliveryTask> tasks) {
+        Map<String, List<String>> publishedEventIds = new HashMap<>();
+        // the event publisher sends through the same template, so every publish of the batch shares the channel
+        // opened by invoke and a single wait covers all of their confirms
+        rabbitTemplate.invoke(operations -> {
+            for (DeliveryTask task : tasks) {
+                List<String> eventIds = new ArrayList<>(task.getOutbox().size());
+                for (OutboxEvent outboxEvent : task.getOutbox()) {
+                    Command command = toCommand(task, outboxEvent);
+                    if (command != null) {
+                        publishTimer(outboxEvent.getStatus()).record(command::execute);
+                    }
+                    eventIds.add(outboxEvent.getEventId());
+                }
+                publishedEventIds.put(task.getId(), eventIds);
+            }
+            confirmTimer.record(() -> operations.waitForConfirmsOrDie(confirmTimeoutMs));
+            return null;
+        });
+        deliveryTaskRepository.removeOutboxEvents(publishedEventIds);
+        LOGGER.debug("Relayed outbox events of {} delivery tasks", publishedEventIds.size());
+    }
+
+    // the publish only writes to the channel, the broker round trip is measured by the confirm timer
+    private Timer publishTimer(final DeliveryStatus status) {
+        return Timer.builder(PUBLISH_TIMER)
+                .description("EventPublisher.publishEvent calls made by the outbox relay")
+                .tag("status", status.name())
+                .register(meterRegistry);
+    }
+
+    private Command toCommand(final DeliveryTask task, final OutboxEvent outboxEvent) {
+        return switch (outboxEvent.getStatus()) {
+            case OUT_FOR_DELIVERY -> new StartPollingCommand(eventPublisher,
+                    new OrderOutForDeliveryEvent(task.getOrderId(), task.getCourierId()));
+            case DELIVERED -> new StopPollingCommand(eventPublisher,
+                    new OrderDeliveredEvent(task.getOrderId(), task.getCourierId(), task.getCourierRating()));
+            case CANCELLED -> new StopPollingCommand(eventPublisher,
+                    new OrderDeliveryFailedEvent(task.getOrderId(), task.getCourierId(),
+                            task.getCancellationReason()));
+            case ASSIGNED -> null;
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.podzilla.courier.services.delivery_task.stats;
+
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryStatsDto;
+import com.podzilla.courier.mappers.DeliveryTaskMapper;
+import com.podzilla.courier.models.DeliveryTaskStats;
+import com.podzilla.courier.models.StatsGranularity;
+import com.podzilla.courier.repositories.delivery_task.IDeliveryTaskRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Service
+public class DeliveryStatsService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeliveryStatsService.class);
+
+    private final IDeliveryTaskRepository deliveryTaskRepository;
+    private final DeliveryTaskCounters deliveryTaskCounters;
+    private final long maxBuckets;
+    private final int topLimit;
+
+    public DeliveryStatsService(final IDeliveryTaskRepository deliveryTaskRepository,
+                                final DeliveryTaskCounters deliveryTaskCounters,
+                                @Value("${stats.max-buckets}") final long maxBuckets,
+                                @Value("${stats.top-limit}") final int topLimit) {
+        this.deliveryTaskRepository = deliveryTaskRepository;
+        this.deliveryTaskCounters = deliveryTaskCounters;
+        this.maxBuckets = maxBuckets;
+        this.topLimit = topLimit;
+    }
+
+    // empty when the range is not positive or would need more than max-buckets buckets
+    public Optional<DeliveryStatsDto> getStats(final LocalDateTime from, final LocalDateTime to,
+                                               final StatsGranularity granularity) {
+        LOGGER.info("Fetching delivery task stats from {} to {} per {}", from, to, granularity);
+        if (!from.isBefore(to)
+                || Duration.between(from, to).dividedBy(granularity.unit().getDuration()) >= maxBuckets) {
+            LOGGER.debug("Rejected stats range from {} to {} per {}", from, to, granularity);
+            return Optional.empty();
+        }
+        DeliveryTaskStats stats = deliveryTaskRepository.aggregateStats(from, to, granularity, topLimit);
+        LOGGER.debug("Aggregated stats of {} delivery tasks", stats.tasks());
+        return Optional.of(DeliveryTaskMapper.toStatsDto(stats, from, to, granularity));
+    }
+
+    public DeliveryStatsDto getLiveStats(final Integer minutes) {
+        int window = minutes == null ? deliveryTaskCounters.windowMinutes()
+                : Math.max(1, Math.min(minutes, deliveryTaskCounters.windowMinutes()));
+        LOGGER.info("Fetching live delivery task stats of the last {} minutes", window);
+        LocalDateTime now = LocalDateTime.now();
+        DeliveryTaskStats stats = deliveryTaskCounters.snapshot(window, topLimit);
+        return DeliveryTaskMapper.toStatsDto(stats, now.minusMinutes(window), now, StatsGranularity.MINUTE);
+    }
+}
@@ -0,0 +1,156 @@
+package com.podzilla.courier.services.delivery_task.stats;
+
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.models.DeliveryTaskStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// what this instance did over the last window-minutes, counted as it happens: tasks created per courier, tasks
+// entering each status, cancellation reasons and time to deliver. counts live in a ring of one slot per minute,
+// a slot is reset by the first write of a new minute, so recording is a few adder increments and a read sums at
+// most window-minutes slots. a write racing with the reset of its slot may be lost
+@Component
+public class DeliveryTaskCounters {
+
+    private static final long MILLIS_PER_MINUTE = 60_000;
+    private static final String OTHER_REASON = "other";
+
+    private final int windowMinutes;
+    private final int maxCancellationReasons;
+    private final AtomicReferenceArray<MinuteCounts> slots;
+
+    public DeliveryTaskCounters(@Value("${stats.live.window-minutes}") final int windowMinutes,
+                                @Value("${stats.live.max-cancellation-reasons}") final int maxCancellationReasons) {
+        this.windowMinutes = windowMinutes;
+        this.maxCancellationReasons = maxCancellationReasons;
+        this.slots = new AtomicReferenceArray<>(windowMinutes);
+    }
+
+    public int windowMinutes() {
+        return windowMinutes;
+    }
+
+    public void recordCreated(final DeliveryTask task) {
+        recordCreated(task, System.currentTimeMillis());
+    }
+
+    // task as returned by the transition, carrying its new status
+    public void recordTransition(final DeliveryTask task) {
+        recordTransition(task, System.currentTimeMillis());
+    }
+
+    public DeliveryTaskStats snapshot(final int minutes, final int limit) {
+        return snapshot(minutes, limit, System.currentTimeMillis());
+    }
+
+    void recordCreated(final DeliveryTask task, final long now) {
+        MinuteCounts counts = slotOf(now);
+        counts.tasks.increment();
+        counts.byStatus.get(DeliveryStatus.ASSIGNED).increment();
+        if (task.getCourierId() != null) {
+            counts.byCourier.computeIfAbsent(task.getCourierId(), id -> new LongAdder()).increment();
+        }
+    }
+
+    void recordTransition(final DeliveryTask task, final long now) {
+        MinuteCounts counts = slotOf(now);
+        counts.byStatus.get(task.getStatus()).increment();
+        if (task.getStatus() == DeliveryStatus.CANCELLED) {
+            String reason = task.getCancellationReason() == null ? DeliveryTaskStats.UNSPECIFIED_REASON
+                    : task.getCancellationReason();
+            // reasons are free text, past the limit they are only counted as other
+            if (!counts.cancellationReasons.containsKey(reason)
+                    && counts.cancellationReasons.size() >= maxCancellationReasons) {
+                reason = OTHER_REASON;
+            }
+            counts.cancellationReasons.computeIfAbsent(reason, key -> new LongAdder()).increment();
+        } else if (task.getStatus() == DeliveryStatus.DELIVERED && task.getCreatedAt() != null
+                && task.getClosedAt() != null) {
+            counts.deliveries.increment();
+            counts.deliveryMs.add(Duration.between(task.getCreatedAt(), task.getClosedAt()).toMillis());
+        }
+    }
+
+    DeliveryTaskStats snapshot(final int minutes, final int limit, final long now) {
+        long currentMinute = now / MILLIS_PER_MINUTE;
+        long firstMinute = currentMinute - Math.max(1, Math.min(minutes, windowMinutes)) + 1;
+        long tasks = 0;
+        long deliveries = 0;
+        long deliveryMs = 0;
+        Map<DeliveryStatus, Long> byStatus = new EnumMap<>(DeliveryStatus.class);
+        Map<String, Long> byCourier = new HashMap<>();
+        SortedMap<Instant, Long> byBucket = new TreeMap<>();
+        Map<String, Long> cancellationReasons = new HashMap<>();
+        for (long minute = firstMinute; minute <= currentMinute; minute++) {
+            MinuteCounts counts = slots.get(indexOf(minute));
+            if (counts == null || counts.minute != minute) {
+                continue;
+            }
+            long created = counts.tasks.sum();
+            tasks += created;
+            byBucket.put(Instant.ofEpochMilli(minute * MILLIS_PER_MINUTE), created);
+            counts.byStatus.forEach((status, count) -> {
+                long sum = count.sum();
+                if (sum > 0) {
+                    byStatus.merge(status, sum, Long::sum);
+                }
+            });
+            counts.byCourier.forEach((courierId, count) -> byCourier.merge(courierId, count.sum(), Long::sum));
+            counts.cancellationReasons.forEach((reason, count) ->
+                    cancellationReasons.merge(reason, count.sum(), Long::sum));
+            deliveries += counts.deliveries.sum();
+            deliveryMs += counts.deliveryMs.sum();
+        }
+        return new DeliveryTaskStats(tasks, byStatus, DeliveryTaskStats.top(byCourier, limit), byBucket,
+                DeliveryTaskStats.top(cancellationReasons, limit), deliveries,
+                deliveries == 0 ? null : (double) deliveryMs / deliveries);
+    }
+
+    private MinuteCounts slotOf(final long now) {
+        long minute = now / MILLIS_PER_MINUTE;
+        int index = indexOf(minute);
+        MinuteCounts counts = slots.get(index);
+        while (counts == null || counts.minute < minute) {
+            MinuteCounts fresh = new MinuteCounts(minute);
+            if (slots.compareAndSet(index, counts, fresh)) {
+                return fresh;
+            }
+            counts = slots.get(index);
+        }
+        // a clock stepping back lands in the slot of a later minute, which keeps the count
+        return counts;
+    }
+
+    private int indexOf(final long minute) {
+        return (int) Math.floorMod(minute, (long) windowMinutes);
+    }
+
+    private static final class MinuteCounts {
+        private final long minute;
+        private final LongAdder tasks = new LongAdder();
+        private final Map<DeliveryStatus, LongAdder> byStatus = new EnumMap<>(DeliveryStatus.class);
+        private final Map<String, LongAdder> byCourier = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> cancellationReasons = new ConcurrentHashMap<>();
+        private final LongAdder deliveries = new LongAdder();
+        private final LongAdder deliveryMs = new LongAdder();
+
+        private MinuteCounts(final long minute) {
+            this.minute = minute;
+            for (DeliveryStatus status : DeliveryStatus.values()) {
+                byStatus.put(status, new LongAdder());
+            }
+        }
+    }
+}
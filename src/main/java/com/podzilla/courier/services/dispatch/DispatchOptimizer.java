@@ -0,0 +1,173 @@
+package com.podzilla.courier.services.dispatch;
+
+import com.podzilla.courier.dtos.couriers.NearbyCourierDto;
+import com.podzilla.courier.dtos.dispatch.DispatchAssignmentDto;
+import com.podzilla.courier.dtos.dispatch.PendingOrderDto;
+import com.podzilla.courier.models.CourierStatus;
+import com.podzilla.courier.services.courier.spatial.CourierSpatialIndex;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+// assigns a batch of orders to AVAILABLE couriers minimising the total courier-to-order distance. candidate
+// couriers per order come from the spatial index in parallel; small batches are solved exactly with the
+// Hungarian method over those candidates, larger ones greedily by shortest candidate edge first.
+@Component
+public class DispatchOptimizer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DispatchOptimizer.class);
+    private static final double INFEASIBLE_COST = 1e9;
+    private static final int GREEDY_PASSES = 3;
+    private static final int CANDIDATE_GROWTH_FACTOR = 4;
+
+    private final CourierSpatialIndex courierSpatialIndex;
+    private final ForkJoinPool candidatePool;
+    private final int candidatesPerOrder;
+    private final int exactSolverMaxOrders;
+    private final double maxRadiusKm;
+
+    public DispatchOptimizer(final CourierSpatialIndex courierSpatialIndex,
+                             @Value("${dispatch.parallelism}") final int parallelism,
+                             @Value("${dispatch.candidates-per-order}") final int candidatesPerOrder,
+                             @Value("${dispatch.exact-solver-max-orders}") final int exactSolverMaxOrders,
+                             @Value("${courier.spatial.max-radius-km}") final double maxRadiusKm) {
+        this.courierSpatialIndex = courierSpatialIndex;
+        this.candidatePool = new ForkJoinPool(parallelism > 0 ? parallelism
+                : Runtime.getRuntime().availableProcessors());
+        this.candidatesPerOrder = candidatesPerOrder;
+        this.exactSolverMaxOrders = exactSolverMaxOrders;
+        this.maxRadiusKm = maxRadiusKm;
+    }
+
+    public List<DispatchAssignmentDto> optimize(final List<PendingOrderDto> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        long start = System.nanoTime();
+        List<DispatchAssignmentDto> assignments = orders.size() <= exactSolverMaxOrders
+                ? solveExactly(orders)
+                : solveGreedily(orders);
+        LOGGER.debug("Assigned {} of {} orders in {} ms", assignments.size(), orders.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return assignments;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        candidatePool.shutdown();
+    }
+
+    private List<List<NearbyCourierDto>> findCandidates(final List<PendingOrderDto> orders, final int perOrder) {
+        return candidatePool.submit(() -> orders.parallelStream()
+                .map(order -> courierSpatialIndex.findNearest(order.getOrderLatitude(), order.getOrderLongitude(),
+                        perOrder, maxRadiusKm, CourierStatus.AVAILABLE))
+                .toList()).join();
+    }
+
+    private List<DispatchAssignmentDto> solveGreedily(final List<PendingOrderDto> orders) {
+        List<DispatchAssignmentDto> assignments = new ArrayList<>();
+        Set<String> assignedCouriers = new HashSet<>();
+        List<PendingOrderDto> remaining = orders;
+        int perOrder = candidatesPerOrder;
+        for (int pass = 0; pass < GREEDY_PASSES && !remaining.isEmpty(); pass++) {
+            List<List<NearbyCourierDto>> candidates = findCandidates(remaining, perOrder);
+            List<Edge> edges = new ArrayList<>();
+            for (int order = 0; order < remaining.size(); order++) {
+                for (NearbyCourierDto courier : candidates.get(order)) {
+                    if (!assignedCouriers.contains(courier.courierId())) {
+                        edges.add(new Edge(order, courier.courierId(), courier.distanceKm()));
+                    }
+                }
+            }
+            if (edges.isEmpty()) {
+                break;
+            }
+            edges.sort(Comparator.comparingDouble(Edge::distanceKm));
+
+            boolean[] assignedOrders = new boolean[remaining.size()];
+            for (Edge edge : edges) {
+                if (assignedOrders[edge.order()] || !assignedCouriers.add(edge.courierId())) {
+                    continue;
+                }
+                assignedOrders[edge.order()] = true;
+                assignments.add(new DispatchAssignmentDto(remaining.get(edge.order()).getOrderId(),
+                        edge.courierId(), edge.distanceKm()));
+            }
+            // orders whose candidates were all taken by closer orders retry with a wider candidate set
+            List<PendingOrderDto> unassigned = new ArrayList<>();
+            for (int order = 0; order < remaining.size(); order++) {
+                if (!assignedOrders[order]) {
+                    unassigned.add(remaining.get(order));
+                }
+            }
+            remaining = unassigned;
+            perOrder *= CANDIDATE_GROWTH_FACTOR;
+        }
+        return assignments;
+    }
+
+    private List<DispatchAssignmentDto> solveExactly(final List<PendingOrderDto> orders) {
+        List<List<NearbyCourierDto>> candidates = findCandidates(orders, candidatesPerOrder);
+        Map<String, Integer> courierColumns = new HashMap<>();
+        List<String> courierIds = new ArrayList<>();
+        for (List<NearbyCourierDto> orderCandidates : candidates) {
+            for (NearbyCourierDto courier : orderCandidates) {
+                if (!courierColumns.containsKey(courier.courierId())) {
+                    courierColumns.put(courier.courierId(), courierIds.size());
+                    courierIds.add(courier.courierId());
+                }
+            }
+        }
+        if (courierIds.isEmpty()) {
+            return List.of();
+        }
+
+        // the solver needs rows <= columns, so with fewer couriers than orders couriers become the rows
+        boolean couriersAsRows = orders.size() > courierIds.size();
+        int rows = couriersAsRows ? courierIds.size() : orders.size();
+        int columns = couriersAsRows ? orders.size() : courierIds.size();
+        double[][] cost = new double[rows][columns];
+        for (double[] row : cost) {
+            Arrays.fill(row, INFEASIBLE_COST);
+        }
+        for (int order = 0; order < orders.size(); order++) {
+            for (NearbyCourierDto courier : candidates.get(order)) {
+                int courierIndex = courierColumns.get(courier.courierId());
+                if (couriersAsRows) {
+                    cost[courierIndex][order] = courier.distanceKm();
+                } else {
+                    cost[order][courierIndex] = courier.distanceKm();
+                }
+            }
+        }
+
+        int[] match = HungarianSolver.solve(cost);
+        List<DispatchAssignmentDto> assignments = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            double distanceKm = cost[row][match[row]];
+            if (distanceKm >= INFEASIBLE_COST) {
+                continue;
+            }
+            int order = couriersAsRows ? match[row] : row;
+            int courierIndex = couriersAsRows ? row : match[row];
+            assignments.add(new DispatchAssignmentDto(orders.get(order).getOrderId(), courierIds.get(courierIndex),
+                    distanceKm));
+        }
+        return assignments;
+    }
+
+    private record Edge(int order, String courierId, double distanceKm) {
+    }
+}
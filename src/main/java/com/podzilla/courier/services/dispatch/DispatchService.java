@@ -0,0 +1,158 @@
+package com.podzilla.courier.services.dispatch;
+
+import com.podzilla.courier.dtos.couriers.UpdateCourierRequestDto;
+import com.podzilla.courier.dtos.delivery_tasks.CreateDeliveryTaskRequestDto;
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import com.podzilla.courier.dtos.dispatch.DispatchAssignmentDto;
+import com.podzilla.courier.dtos.dispatch.PendingOrderDto;
+import com.podzilla.courier.models.CourierStatus;
+import com.podzilla.courier.services.courier.CourierService;
+import com.podzilla.courier.services.delivery_task.DeliveryTaskService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class DispatchService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DispatchService.class);
+    private final DispatchOptimizer dispatchOptimizer;
+    private final DeliveryTaskService deliveryTaskService;
+    private final CourierService courierService;
+    private final Queue<PendingOrderDto> pendingOrders = new ConcurrentLinkedQueue<>();
+    // orders in pendingOrders or in the window being dispatched, so a resubmitted order is queued once
+    private final Set<String> queuedOrderIds = ConcurrentHashMap.newKeySet();
+    // a lock rather than synchronized: the section does Mongo and RabbitMQ I/O, which would pin a virtual thread
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+    @Value("${dispatch.window-size}")
+    private int windowSize;
+
+    public DispatchService(final DispatchOptimizer dispatchOptimizer,
+                           final DeliveryTaskService deliveryTaskService,
+                           final CourierService courierService) {
+        this.dispatchOptimizer = dispatchOptimizer;
+        this.deliveryTaskService = deliveryTaskService;
+        this.courierService = courierService;
+    }
+
+    public int submitOrders(final List<PendingOrderDto> orders) {
+        LOGGER.info("Queueing {} orders for dispatch", orders.size());
+        for (PendingOrderDto order : orders) {
+            if (queuedOrderIds.add(order.getOrderId())) {
+                pendingOrders.add(order);
+            }
+        }
+        return pendingOrders.size();
+    }
+
+    @Scheduled(fixedDelayString = "${dispatch.tick-ms}")
+    public void dispatchPendingOrders() {
+        if (pendingOrders.isEmpty()) {
+            return;
+        }
+        List<PendingOrderDto> window = new ArrayList<>();
+        PendingOrderDto order;
+        while (window.size() < windowSize && (order = pendingOrders.poll()) != null) {
+            window.add(order);
+        }
+        Set<String> settledOrderIds = new HashSet<>();
+        try {
+            dispatch(window, settledOrderIds);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Dispatch failed after settling {} of {} orders, requeueing the rest",
+                    settledOrderIds.size(), window.size(), e);
+        }
+        // orders without a reachable available courier, or not reached before a failure, wait for the next tick
+        for (PendingOrderDto pendingOrder : window) {
+            if (settledOrderIds.contains(pendingOrder.getOrderId())) {
+                queuedOrderIds.remove(pendingOrder.getOrderId());
+            } else {
+                pendingOrders.add(pendingOrder);
+            }
+        }
+    }
+
+    public List<DispatchAssignmentDto> dispatch(final List<PendingOrderDto> orders) {
+        return dispatch(orders, new HashSet<>());
+    }
+
+    // settledOrderIds collects the orders that have a delivery task and an ASSIGNED courier, so a caller can tell
+    // them from the rest when the dispatch fails partway
+    private List<DispatchAssignmentDto> dispatch(final List<PendingOrderDto> orders,
+                                                 final Set<String> settledOrderIds) {
+        dispatchLock.lock();
+        try {
+            return dispatchLocked(orders, settledOrderIds);
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+    private List<DispatchAssignmentDto> dispatchLocked(final List<PendingOrderDto> orders,
+                                                       final Set<String> settledOrderIds) {
+        LOGGER.info("Dispatching {} orders", orders.size());
+        Map<String, PendingOrderDto> ordersById = new LinkedHashMap<>();
+        orders.forEach(order -> ordersById.putIfAbsent(order.getOrderId(), order));
+        List<DispatchAssignmentDto> assignments = new ArrayList<>();
+        for (DispatchAssignmentDto assignment : dispatchOptimizer.optimize(new ArrayList<>(ordersById.values()))) {
+            PendingOrderDto order = ordersById.get(assignment.orderId());
+            if (assign(order, assignment.courierId())) {
+                assignments.add(assignment);
+            }
+            settledOrderIds.add(order.getOrderId());
+        }
+        LOGGER.info("Dispatched {} of {} orders", assignments.size(), ordersById.size());
+        return assignments;
+    }
+
+    // the courier leaves the pool before the task is written, so a failure in between cannot leave a task whose
+    // courier is still AVAILABLE to the next tick. false when the order already had a task, which keeps its courier
+    private boolean assign(final PendingOrderDto order, final String courierId) {
+        updateCourierStatus(courierId, CourierStatus.ASSIGNED);
+        DeliveryTaskResponseDto task;
+        try {
+            task = deliveryTaskService.createDeliveryTask(new CreateDeliveryTaskRequestDto(
+                    order.getOrderId(),
+                    courierId,
+                    order.getTotalAmount(),
+                    order.getOrderLatitude(),
+                    order.getOrderLongitude(),
+                    order.getConfirmationType(),
+                    order.getSignature()));
+        } catch (RuntimeException e) {
+            try {
+                updateCourierStatus(courierId, CourierStatus.AVAILABLE);
+            } catch (RuntimeException releaseFailure) {
+                e.addSuppressed(releaseFailure);
+            }
+            throw e;
+        }
+        if (courierId.equals(task.courierId())) {
+            return true;
+        }
+        LOGGER.info("Order {} already has a delivery task for courier {}, releasing courier {}",
+                order.getOrderId(), task.courierId(), courierId);
+        updateCourierStatus(courierId, CourierStatus.AVAILABLE);
+        return false;
+    }
+
+    private void updateCourierStatus(final String courierId, final CourierStatus status) {
+        UpdateCourierRequestDto courierUpdate = new UpdateCourierRequestDto();
+        courierUpdate.setId(courierId);
+        courierUpdate.setStatus(status);
+        courierService.updateCourier(courierId, courierUpdate);
+    }
+}
@@ -0,0 +1,76 @@
+package com.podzilla.courier.services.dispatch;
+
+import java.util.Arrays;
+
+// minimum-cost assignment of every row to a distinct column (rows <= columns) using the O(rows^2 * columns)
+// shortest augmenting path formulation with row and column potentials
+public final class HungarianSolver {
+
+    private HungarianSolver() {
+    }
+
+    public static int[] solve(final double[][] cost) {
+        int rows = cost.length;
+        int columns = rows == 0 ? 0 : cost[0].length;
+        if (rows > columns) {
+            throw new IllegalArgumentException("Cost matrix must not have more rows than columns");
+        }
+        // index 0 is a virtual row/column, real ones are 1-based
+        double[] rowPotential = new double[rows + 1];
+        double[] columnPotential = new double[columns + 1];
+        int[] rowOfColumn = new int[columns + 1];
+        int[] previousColumn = new int[columns + 1];
+        double[] minSlack = new double[columns + 1];
+        boolean[] visited = new boolean[columns + 1];
+
+        for (int row = 1; row <= rows; row++) {
+            rowOfColumn[0] = row;
+            int column = 0;
+            Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+            Arrays.fill(visited, false);
+            do {
+                visited[column] = true;
+                int currentRow = rowOfColumn[column];
+                double delta = Double.POSITIVE_INFINITY;
+                int nextColumn = 0;
+                for (int candidate = 1; candidate <= columns; candidate++) {
+                    if (visited[candidate]) {
+                        continue;
+                    }
+                    double slack = cost[currentRow - 1][candidate - 1] - rowPotential[currentRow]
+                            - columnPotential[candidate];
+                    if (slack < minSlack[candidate]) {
+                        minSlack[candidate] = slack;
+                        previousColumn[candidate] = column;
+                    }
+                    if (minSlack[candidate] < delta) {
+                        delta = minSlack[candidate];
+                        nextColumn = candidate;
+                    }
+                }
+                for (int candidate = 0; candidate <= columns; candidate++) {
+                    if (visited[candidate]) {
+                        rowPotential[rowOfColumn[candidate]] += delta;
+                        columnPotential[candidate] -= delta;
+                    } else {
+                        minSlack[candidate] -= delta;
+                    }
+                }
+                column = nextColumn;
+            } while (rowOfColumn[column] != 0);
+            do {
+                int previous = previousColumn[column];
+                rowOfColumn[column] = rowOfColumn[previous];
+                column = previous;
+            } while (column != 0);
+        }
+
+        int[] columnOfRow = new int[rows];
+        for (int column = 1; column <= columns; column++) {
+            if (rowOfColumn[column] != 0) {
+                columnOfRow[rowOfColumn[column] - 1] = column - 1;
+            }
+        }
+        return columnOfRow;
+    }
+}
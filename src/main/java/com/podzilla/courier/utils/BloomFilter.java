@@ -0,0 +1,78 @@
+package com.podzilla.courier.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// lock-free bloom filter over string keys: mightContain never misses a key that was put since the last clear
+public final class BloomFilter {
+
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_BITS = 64;
+    private static final int HALF_SHIFT = 32;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long MIX_1 = 0xff51afd7ed558ccdL;
+    private static final long MIX_2 = 0xc4ceb9fe1a85ec53L;
+    private static final int MIX_SHIFT = 33;
+
+    private final AtomicLongArray words;
+    private final int bitCount;
+    private final int hashCount;
+
+    public BloomFilter(final int expectedInsertions, final double falsePositiveRate) {
+        double ln2 = Math.log(2);
+        int insertions = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-insertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - WORD_BITS, Math.max(WORD_BITS, bits));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / insertions * ln2));
+        this.words = new AtomicLongArray((bitCount + WORD_BITS - 1) >>> WORD_SHIFT);
+    }
+
+    public void put(final String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> HALF_SHIFT);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = bitIndex(h1 + i * h2);
+            long mask = 1L << bit;
+            words.getAndAccumulate(bit >>> WORD_SHIFT, mask, (word, m) -> word | m);
+        }
+    }
+
+    public boolean mightContain(final String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> HALF_SHIFT);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = bitIndex(h1 + i * h2);
+            if ((words.get(bit >>> WORD_SHIFT) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        for (int i = 0; i < words.length(); i++) {
+            words.set(i, 0L);
+        }
+    }
+
+    private int bitIndex(final int combinedHash) {
+        return (combinedHash & Integer.MAX_VALUE) % bitCount;
+    }
+
+    // 64-bit FNV-1a over the chars, finished with the murmur3 mixer so both halves are usable as hashes
+    private static long hash(final String key) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= MIX_1;
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= MIX_2;
+        hash ^= hash >>> MIX_SHIFT;
+        return hash;
+    }
+}
@@ -0,0 +1,22 @@
+package com.podzilla.courier.utils;
+
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    public static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180.0;
+
+    private GeoUtils() {
+    }
+
+    public static double haversineKm(final double fromLatitude, final double fromLongitude,
+                                     final double toLatitude, final double toLongitude) {
+        double deltaLatitude = Math.toRadians(toLatitude - fromLatitude);
+        double deltaLongitude = Math.toRadians(toLongitude - fromLongitude);
+        double sinLatitude = Math.sin(deltaLatitude / 2);
+        double sinLongitude = Math.sin(deltaLongitude / 2);
+        double a = sinLatitude * sinLatitude
+                + Math.cos(Math.toRadians(fromLatitude)) * Math.cos(Math.toRadians(toLatitude))
+                * sinLongitude * sinLongitude;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
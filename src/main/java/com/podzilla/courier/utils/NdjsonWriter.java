@@ -0,0 +1,36 @@
+package com.podzilla.courier.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+public final class NdjsonWriter {
+
+    private static final int FLUSH_EVERY = 256;
+
+    private NdjsonWriter() {
+    }
+
+    // writes one JSON document per line as items are pulled, leaving the output stream open
+    public static <T> long write(final ObjectMapper objectMapper, final Stream<T> items,
+                                 final OutputStream outputStream) throws IOException {
+        long written = 0;
+        try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            Iterator<T> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+                generator.writeRaw('\n');
+                if (++written % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        return written;
+    }
+}
@@ -0,0 +1,95 @@
+package com.podzilla.courier.utils;
+
+import com.podzilla.courier.models.TrackPoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// packs a track as the differences between consecutive points: coordinates in fixed point micro-degrees (about
+// 11 cm), timestamps in milliseconds, each difference zigzag and varint encoded. a courier moving a few metres
+// every few seconds costs 5 to 7 bytes per point instead of the 24 of the raw values
+public final class TrackEncoding {
+
+    private static final double COORDINATE_SCALE = 1e6;
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD_MASK = 0x7F;
+    private static final int VARINT_CONTINUATION = 0x80;
+    private static final int MAX_VARINT_BYTES = 10;
+    private static final int VALUES_PER_POINT = 3;
+
+    private TrackEncoding() {
+    }
+
+    public static byte[] encode(final List<TrackPoint> points, final long baseTimestamp) {
+        byte[] buffer = new byte[points.size() * VALUES_PER_POINT * MAX_VARINT_BYTES];
+        int position = 0;
+        long previousTimestamp = baseTimestamp;
+        long previousLatitude = 0;
+        long previousLongitude = 0;
+        for (TrackPoint point : points) {
+            long latitude = toFixed(point.latitude());
+            long longitude = toFixed(point.longitude());
+            position = writeVarint(buffer, position, zigzag(point.timestamp() - previousTimestamp));
+            position = writeVarint(buffer, position, zigzag(latitude - previousLatitude));
+            position = writeVarint(buffer, position, zigzag(longitude - previousLongitude));
+            previousTimestamp = point.timestamp();
+            previousLatitude = latitude;
+            previousLongitude = longitude;
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    public static List<TrackPoint> decode(final byte[] encoded, final long baseTimestamp) {
+        List<TrackPoint> points = new ArrayList<>();
+        int[] position = {0};
+        long timestamp = baseTimestamp;
+        long latitude = 0;
+        long longitude = 0;
+        while (position[0] < encoded.length) {
+            timestamp += unzigzag(readVarint(encoded, position));
+            latitude += unzigzag(readVarint(encoded, position));
+            longitude += unzigzag(readVarint(encoded, position));
+            points.add(new TrackPoint(timestamp, latitude / COORDINATE_SCALE, longitude / COORDINATE_SCALE));
+        }
+        return points;
+    }
+
+    private static long toFixed(final double degrees) {
+        return Math.round(degrees * COORDINATE_SCALE);
+    }
+
+    private static long zigzag(final long value) {
+        return (value << 1) ^ (value >> (Long.SIZE - 1));
+    }
+
+    private static long unzigzag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int writeVarint(final byte[] buffer, final int offset, final long value) {
+        int position = offset;
+        long remaining = value;
+        while ((remaining & ~VARINT_PAYLOAD_MASK) != 0) {
+            buffer[position++] = (byte) ((remaining & VARINT_PAYLOAD_MASK) | VARINT_CONTINUATION);
+            remaining >>>= VARINT_PAYLOAD_BITS;
+        }
+        buffer[position++] = (byte) remaining;
+        return position;
+    }
+
+    private static long readVarint(final byte[] buffer, final int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            if (position[0] >= buffer.length) {
+                throw new IllegalArgumentException("Track ends in the middle of a value");
+            }
+            current = buffer[position[0]++];
+            value |= (long) (current & VARINT_PAYLOAD_MASK) << shift;
+            shift += VARINT_PAYLOAD_BITS;
+        } while ((current & VARINT_CONTINUATION) != 0);
+        return value;
+    }
+}
@@ -50,8 +50,8 @@ class CourierControllerTest {
 	@DisplayName("GET /couriers → 200 OK with list of couriers")
 	void getAllCouriers() throws Exception {
 		List<CourierResponseDto> mockList = List.of(
-				new CourierResponseDto("1", "Alice", "0123456789", CourierStatus.AVAILABLE),
-				new CourierResponseDto("2", "Bob",   "0987654321", CourierStatus.OFFLINE)
+				new CourierResponseDto("1", "Alice", "0123456789", CourierStatus.AVAILABLE, null),
+				new CourierResponseDto("2", "Bob",   "0987654321", CourierStatus.OFFLINE, null)
 		);
 		Mockito.when(courierService.getAllCouriers()).thenReturn(mockList);
 
@@ -65,7 +65,7 @@ class CourierControllerTest {
 	@Test
 	@DisplayName("GET /couriers/{id} → 200 OK when found")
 	void getCourierByIdFound() throws Exception {
-		CourierResponseDto dto = new CourierResponseDto("42", "Charlie", "0111222333", CourierStatus.ASSIGNED);
+		CourierResponseDto dto = new CourierResponseDto("42", "Charlie", "0111222333", CourierStatus.ASSIGNED, null);
 		Mockito.when(courierService.getCourierById("42")).thenReturn(Optional.of(dto));
 
 		mockMvc.perform(get("/couriers/42"))
@@ -94,7 +94,7 @@ class CourierControllerTest {
               "status":"ON_BREAK"
             }
             """;
-		CourierResponseDto updated = new CourierResponseDto("55","Elle","0333444555",CourierStatus.ON_BREAK);
+		CourierResponseDto updated = new CourierResponseDto("55","Elle","0333444555",CourierStatus.ON_BREAK, null);
 
 		Mockito.when(courierService.updateCourier(eq("55"), Mockito.any(UpdateCourierRequestDto.class)))
 				.thenReturn(Optional.of(updated));
@@ -128,7 +128,7 @@ class CourierControllerTest {
 	@Test
 	@DisplayName("DELETE /couriers/{id} → 200 OK when delete succeeds")
 	void deleteCourierFound() throws Exception {
-		CourierResponseDto dto = new CourierResponseDto("66","George","0444555666",CourierStatus.UNAVAILABLE);
+		CourierResponseDto dto = new CourierResponseDto("66","George","0444555666",CourierStatus.UNAVAILABLE, null);
 		Mockito.when(courierService.deleteCourier("66")).thenReturn(Optional.of(dto));
 
 		mockMvc.perform(delete("/couriers/66"))
@@ -0,0 +1,58 @@
+package com.podzilla.courier.events;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventDeduplicatorTest {
+
+	private static double count(final SimpleMeterRegistry registry, final String result) {
+		return registry.get("courier.events.dedup").tag("result", result).counter().count();
+	}
+
+	@Test
+	@DisplayName("isReplay → true only for keys recorded before")
+	void replayAfterRecord() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		EventDeduplicator deduplicator = new EventDeduplicator(16, 0.01, registry);
+
+		assertFalse(deduplicator.isReplay("order-assigned:o-1"));
+		deduplicator.record("order-assigned:o-1");
+
+		assertTrue(deduplicator.isReplay("order-assigned:o-1"));
+		assertFalse(deduplicator.isReplay("order-assigned:o-2"));
+		assertEquals(1.0, count(registry, "hit"));
+		assertEquals(2.0, count(registry, "miss"));
+	}
+
+	@Test
+	@DisplayName("record → least recently seen keys are evicted beyond capacity")
+	void evictsBeyondCapacity() {
+		EventDeduplicator deduplicator = new EventDeduplicator(2, 0.01, new SimpleMeterRegistry());
+		deduplicator.record("k-1");
+		deduplicator.record("k-2");
+		assertTrue(deduplicator.isReplay("k-1"));
+
+		deduplicator.record("k-3");
+
+		assertTrue(deduplicator.isReplay("k-1"));
+		assertFalse(deduplicator.isReplay("k-2"));
+		assertTrue(deduplicator.isReplay("k-3"));
+	}
+
+	@Test
+	@DisplayName("record → keys still held survive a rebuild of the bloom filter")
+	void survivesBloomRebuild() {
+		EventDeduplicator deduplicator = new EventDeduplicator(4, 0.01, new SimpleMeterRegistry());
+		for (int i = 0; i < 100; i++) {
+			deduplicator.record("k-" + i);
+		}
+
+		for (int i = 96; i < 100; i++) {
+			assertTrue(deduplicator.isReplay("k-" + i));
+		}
+		assertFalse(deduplicator.isReplay("k-0"));
+	}
+}
@@ -0,0 +1,352 @@
+package com.podzilla.courier.repositories.delivery_task;
+
+import com.podzilla.courier.models.CourierLocation;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryStatusTransition;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.models.DeliveryTaskFields;
+import com.podzilla.courier.models.DeliveryTaskFilter;
+import com.podzilla.courier.models.DeliveryTaskStats;
+import com.podzilla.courier.models.OutboxEvent;
+import com.podzilla.courier.models.StatsGranularity;
+import com.podzilla.mq.events.ConfirmationType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.podzilla.courier.models.DeliveryTaskFields.RESPONSE;
+import static org.junit.jupiter.api.Assertions.*;
+
+// behaviour every IDeliveryTaskRepository has to share; each implementation runs it against an empty repository
+abstract class DeliveryTaskRepositoryContractTest {
+
+	private static final Duration LEASE = Duration.ofMinutes(1);
+
+	protected abstract IDeliveryTaskRepository repository();
+
+	private static DeliveryTask task(final String orderId, final String courierId,
+									 final ConfirmationType confirmationType) {
+		DeliveryTask task = new DeliveryTask();
+		task.setOrderId(orderId);
+		task.setCourierId(courierId);
+		task.setTotalAmount(BigDecimal.TEN);
+		task.setOrderLatitude(30.0);
+		task.setOrderLongitude(31.0);
+		task.setConfirmationType(confirmationType);
+		return task;
+	}
+
+	private static DeliveryTask task(final String orderId, final String courierId) {
+		return task(orderId, courierId, ConfirmationType.OTP);
+	}
+
+	private static List<String> orderIds(final List<DeliveryTask> tasks) {
+		return tasks.stream().map(DeliveryTask::getOrderId).sorted().toList();
+	}
+
+	@Test
+	@DisplayName("save → assigns an id and finds the task by id, orderId, courierId and status")
+	void saveAndFind() {
+		DeliveryTask saved = repository().save(task("o-1", "c-1"));
+
+		assertNotNull(saved.getId());
+		assertEquals("o-1", repository().findById(saved.getId()).orElseThrow().getOrderId());
+		assertEquals(List.of("o-1"), orderIds(repository().findByOrderId("o-1")));
+		assertEquals(List.of("o-1"), orderIds(repository().findByCourierId("c-1")));
+		assertEquals(List.of("o-1"), orderIds(repository().findByStatus(DeliveryStatus.ASSIGNED)));
+		assertEquals(List.of("o-1"), orderIds(repository().findAll()));
+		assertTrue(repository().findById("000000000000000000000000").isEmpty());
+	}
+
+	@Test
+	@DisplayName("save → rejects a second task for the same order")
+	void saveRejectsDuplicateOrder() {
+		repository().save(task("o-1", "c-1"));
+
+		assertThrows(DuplicateKeyException.class, () -> repository().save(task("o-1", "c-2")));
+		assertEquals(1, repository().findAll().size());
+		assertTrue(repository().findByCourierId("c-2").isEmpty());
+	}
+
+	@Test
+	@DisplayName("save → an update moves the task out of its old courier and status lookups")
+	void saveMovesTaskBetweenLookups() {
+		DeliveryTask saved = repository().save(task("o-1", "c-1"));
+		saved.setCourierId("c-2");
+		saved.setStatus(DeliveryStatus.OUT_FOR_DELIVERY);
+		repository().save(saved);
+
+		assertTrue(repository().findByCourierId("c-1").isEmpty());
+		assertTrue(repository().findByStatus(DeliveryStatus.ASSIGNED).isEmpty());
+		assertEquals(List.of("o-1"), orderIds(repository().findByCourierId("c-2")));
+		assertEquals(List.of("o-1"), orderIds(repository().findByStatus(DeliveryStatus.OUT_FOR_DELIVERY)));
+	}
+
+	@Test
+	@DisplayName("findById → changing a returned task does not change the stored one")
+	void returnedTasksAreDetached() {
+		DeliveryTask saved = repository().save(task("o-1", "c-1"));
+		DeliveryTask found = repository().findById(saved.getId()).orElseThrow();
+		found.setStatus(DeliveryStatus.CANCELLED);
+
+		assertEquals(DeliveryStatus.ASSIGNED, repository().findById(saved.getId()).orElseThrow().getStatus());
+	}
+
+	@Test
+	@DisplayName("delete → removes the task from every lookup")
+	void deleteRemovesTask() {
+		DeliveryTask saved = repository().save(task("o-1", "c-1"));
+		repository().delete(saved);
+
+		assertTrue(repository().findById(saved.getId()).isEmpty());
+		assertTrue(repository().findByOrderId("o-1").isEmpty());
+		assertTrue(repository().findByCourierId("c-1").isEmpty());
+		assertTrue(repository().findByStatus(DeliveryStatus.ASSIGNED).isEmpty());
+		// the orderId is free again
+		assertNotNull(repository().save(task("o-1", "c-1")).getId());
+	}
+
+	@Test
+	@DisplayName("transitionStatus → applies an allowed transition and queues its outbox event")
+	void transitionStatusApplies() {
+		DeliveryTask otpTask = repository().save(task("o-1", "c-1", ConfirmationType.OTP));
+		DeliveryTask qrTask = repository().save(task("o-2", "c-1", ConfirmationType.QR_CODE));
+
+		DeliveryTask sentOut = repository().transitionStatus(otpTask.getId(),
+				DeliveryStatusTransition.outForDelivery("1234", "qr-code o-1")).orElseThrow();
+		DeliveryTask qrSentOut = repository().transitionStatus(qrTask.getId(),
+				DeliveryStatusTransition.outForDelivery("5678", "qr-code o-2")).orElseThrow();
+
+		assertEquals(DeliveryStatus.OUT_FOR_DELIVERY, sentOut.getStatus());
+		assertEquals("1234", sentOut.getOtp());
+		assertNull(sentOut.getQrCode());
+		assertNull(qrSentOut.getOtp());
+		assertEquals("qr-code o-2", qrSentOut.getQrCode());
+		assertEquals(1, sentOut.getOutbox().size());
+		assertEquals(DeliveryStatus.OUT_FOR_DELIVERY, sentOut.getOutbox().get(0).getStatus());
+		assertEquals(List.of("o-1", "o-2"), orderIds(repository().findByStatus(DeliveryStatus.OUT_FOR_DELIVERY)));
+	}
+
+	@Test
+	@DisplayName("transitionStatus → empty when the task is missing or may not move to the target")
+	void transitionStatusGuarded() {
+		DeliveryTask saved = repository().save(task("o-1", "c-1"));
+
+		assertTrue(repository().transitionStatus(saved.getId(),
+				DeliveryStatusTransition.to(DeliveryStatus.DELIVERED)).isEmpty());
+		assertTrue(repository().transitionStatus("000000000000000000000000",
+				DeliveryStatusTransition.to(DeliveryStatus.CANCELLED)).isEmpty());
+
+		DeliveryTask cancelled = repository().transitionStatus(saved.getId(),
+				DeliveryStatusTransition.cancelled("customer left")).orElseThrow();
+		assertEquals("customer left", cancelled.getCancellationReason());
+		assertTrue(repository().transitionStatus(saved.getId(),
+				DeliveryStatusTransition.to(DeliveryStatus.OUT_FOR_DELIVERY)).isEmpty());
+	}
+
+	@Test
+	@DisplayName("removeOutboxEvents → tasks stay pending until all their events are removed")
+	void outboxEventsArePendingUntilRemoved() {
+		DeliveryTask saved = repository().save(task("o-1", "c-1"));
+		repository().save(task("o-2", "c-1"));
+		repository().transitionStatus(saved.getId(), DeliveryStatusTransition.to(DeliveryStatus.OUT_FOR_DELIVERY));
+		repository().transitionStatus(saved.getId(), DeliveryStatusTransition.to(DeliveryStatus.DELIVERED));
+
+		List<DeliveryTask> pending = repository().claimPendingEvents(10, LEASE);
+		assertEquals(List.of("o-1"), orderIds(pending));
+		List<OutboxEvent> outbox = pending.get(0).getOutbox();
+		assertEquals(2, outbox.size());
+
+		repository().removeOutboxEvents(Map.of(saved.getId(), List.of(outbox.get(0).getEventId())));
+		assertEquals(1, repository().claimPendingEvents(10, LEASE).get(0).getOutbox().size());
+
+		repository().removeOutboxEvents(Map.of(saved.getId(), List.of(outbox.get(1).getEventId())));
+		assertTrue(repository().claimPendingEvents(10, LEASE).isEmpty());
+	}
+
+	@Test
+	@DisplayName("claimPendingEvents → a claimed task is skipped until its lease runs out")
+	void claimedEventsAreSkippedDuringLease() {
+		DeliveryTask saved = repository().save(task("o-1", "c-1"));
+		repository().transitionStatus(saved.getId(), DeliveryStatusTransition.to(DeliveryStatus.OUT_FOR_DELIVERY));
+
+		assertEquals(1, repository().claimPendingEvents(10, Duration.ofMillis(-1)).size());
+		assertEquals(1, repository().claimPendingEvents(10, LEASE).size());
+		assertTrue(repository().claimPendingEvents(10, LEASE).isEmpty());
+	}
+
+	@Test
+	@DisplayName("findPage → keyset pages in id order, restricted by the filter")
+	void findPageWalksKeyset() {
+		for (int i = 0; i < 5; i++) {
+			repository().save(task("o-" + i, i % 2 == 0 ? "c-even" : "c-odd"));
+		}
+
+		List<DeliveryTask> first = repository().findPage(DeliveryTaskFilter.all(), null, 2, RESPONSE);
+		List<DeliveryTask> second = repository().findPage(DeliveryTaskFilter.all(), first.get(1).getId(), 2,
+				RESPONSE);
+		List<DeliveryTask> last = repository().findPage(DeliveryTaskFilter.all(), second.get(1).getId(), 2,
+				RESPONSE);
+
+		assertEquals(2, first.size());
+		assertEquals(2, second.size());
+		assertEquals(1, last.size());
+		assertTrue(first.get(1).getId().compareTo(second.get(0).getId()) < 0);
+		List<String> walked = new ArrayList<>();
+		Stream.of(first, second, last).flatMap(List::stream).forEach(task -> walked.add(task.getOrderId()));
+		assertEquals(List.of("o-0", "o-1", "o-2", "o-3", "o-4"), walked.stream().sorted().toList());
+
+		List<DeliveryTask> even = repository().findPage(DeliveryTaskFilter.byCourierId("c-even"), null, 10,
+				RESPONSE);
+		assertEquals(List.of("o-0", "o-2", "o-4"), orderIds(even));
+		assertEquals(List.of("o-3"),
+				orderIds(repository().findPage(DeliveryTaskFilter.byOrderId("o-3"), null, 10, RESPONSE)));
+	}
+
+	@Test
+	@DisplayName("streamAll → yields the tasks matching every field of the filter")
+	void streamAllFilters() {
+		DeliveryTask saved = repository().save(task("o-1", "c-1"));
+		repository().save(task("o-2", "c-1"));
+		repository().save(task("o-3", "c-2"));
+		repository().transitionStatus(saved.getId(), DeliveryStatusTransition.to(DeliveryStatus.OUT_FOR_DELIVERY));
+
+		try (Stream<DeliveryTask> tasks = repository().streamAll(
+				new DeliveryTaskFilter(DeliveryStatus.ASSIGNED, "c-1", null), RESPONSE)) {
+			assertEquals(List.of("o-2"), orderIds(tasks.toList()));
+		}
+		try (Stream<DeliveryTask> tasks = repository().streamAll(DeliveryTaskFilter.all(), RESPONSE)) {
+			assertEquals(3, tasks.count());
+		}
+	}
+
+	@Test
+	@DisplayName("findMatching → loads the id and the requested fields only")
+	void findMatchingProjects() {
+		DeliveryTask saved = task("o-1", "c-1");
+		saved.setSignature("signature");
+		saved = repository().save(saved);
+
+		DeliveryTask projected = repository().findMatching(DeliveryTaskFilter.byCourierId("c-1"),
+				DeliveryTaskFields.of("orderId")).get(0);
+
+		assertEquals(saved.getId(), projected.getId());
+		assertEquals("o-1", projected.getOrderId());
+		assertNull(projected.getCourierId());
+		assertNull(projected.getTotalAmount());
+		assertNull(projected.getSignature());
+		assertNull(repository().findById(saved.getId(), RESPONSE).orElseThrow().getSignature());
+		assertEquals("c-1", repository().findById(saved.getId(), RESPONSE).orElseThrow().getCourierId());
+	}
+
+	@Test
+	@DisplayName("updateCourierLocations → writes positions by orderId and skips unknown orders")
+	void updateCourierLocationsByOrder() {
+		DeliveryTask saved = repository().save(task("o-1", "c-1"));
+		repository().save(task("o-2", "c-2"));
+
+		repository().updateCourierLocations(List.of(new CourierLocation("o-1", 1.5, 2.5),
+				new CourierLocation("missing", 3.0, 4.0)));
+
+		DeliveryTask found = repository().findById(saved.getId()).orElseThrow();
+		assertEquals(1.5, found.getCourierLatitude());
+		assertEquals(2.5, found.getCourierLongitude());
+		assertEquals(Map.of("o-1", "c-1", "o-2", "c-2"),
+				repository().findCourierIdsByOrderIds(List.of("o-1", "o-2", "missing")));
+		assertTrue(repository().findCourierIdsByOrderIds(List.of()).isEmpty());
+	}
+
+	@Test
+	@DisplayName("insertAll → stores the batch and reports the positions that could not be inserted")
+	void insertAllReportsDuplicates() {
+		repository().save(task("o-1", "c-1"));
+
+		Set<Integer> failed = repository().insertAll(List.of(task("o-2", "c-1"), task("o-1", "c-1"),
+				task("o-3", "c-1"), task("o-2", "c-2")));
+
+		assertEquals(Set.of(1, 3), failed);
+		assertEquals(List.of("o-1", "o-2", "o-3"), orderIds(repository().findByCourierId("c-1")));
+		assertTrue(repository().findByCourierId("c-2").isEmpty());
+	}
+
+	@Test
+	@DisplayName("countByStatus → counts the tasks per status and leaves out empty statuses")
+	void countByStatus() {
+		DeliveryTask saved = repository().save(task("o-1", "c-1"));
+		repository().save(task("o-2", "c-1"));
+		repository().transitionStatus(saved.getId(), DeliveryStatusTransition.cancelled("no show"));
+
+		assertEquals(Map.of(DeliveryStatus.ASSIGNED, 1L, DeliveryStatus.CANCELLED, 1L),
+				repository().countByStatus());
+	}
+
+	@Test
+	@DisplayName("updateCourierRating → rates delivered tasks only and returns the task as it was before")
+	void updateCourierRatingReturnsPrevious() {
+		DeliveryTask saved = repository().save(task("o-1", "c-1"));
+		LocalDateTime ratedAt = LocalDateTime.of(2025, 5, 1, 12, 0);
+		assertTrue(repository().updateCourierRating(saved.getId(), BigDecimal.ONE, ratedAt).isEmpty());
+
+		repository().transitionStatus(saved.getId(), DeliveryStatusTransition.to(DeliveryStatus.OUT_FOR_DELIVERY));
+		repository().transitionStatus(saved.getId(), DeliveryStatusTransition.to(DeliveryStatus.DELIVERED));
+		DeliveryTask first = repository().updateCourierRating(saved.getId(), BigDecimal.ONE, ratedAt).orElseThrow();
+		DeliveryTask second = repository().updateCourierRating(saved.getId(), BigDecimal.TEN, ratedAt)
+				.orElseThrow();
+
+		assertNull(first.getCourierRating());
+		assertEquals(0, BigDecimal.ONE.compareTo(second.getCourierRating()));
+		assertEquals(0, BigDecimal.TEN.compareTo(repository().findById(saved.getId()).orElseThrow()
+				.getCourierRating()));
+		assertTrue(repository().updateCourierRating("000000000000000000000000", BigDecimal.ONE, ratedAt).isEmpty());
+	}
+
+	@Test
+	@DisplayName("aggregateStats → counts the tasks created in the range per status, courier, bucket and reason")
+	void aggregateStatsCountsTasksInRange() {
+		DeliveryTask cancelled = repository().save(task("o-1", "c-1"));
+		DeliveryTask delivered = repository().save(task("o-2", "c-1"));
+		repository().save(task("o-3", "c-2"));
+		DeliveryTask old = task("o-4", "c-3");
+		old.setCreatedAt(LocalDateTime.now().minusDays(2));
+		repository().save(old);
+		repository().transitionStatus(cancelled.getId(), DeliveryStatusTransition.cancelled("no show"));
+		repository().transitionStatus(delivered.getId(), DeliveryStatusTransition.to(DeliveryStatus.OUT_FOR_DELIVERY));
+		repository().transitionStatus(delivered.getId(), DeliveryStatusTransition.to(DeliveryStatus.DELIVERED));
+
+		DeliveryTaskStats stats = repository().aggregateStats(LocalDateTime.now().minusHours(1),
+				LocalDateTime.now().plusHours(1), StatsGranularity.HOUR, 10);
+
+		assertEquals(3, stats.tasks());
+		assertEquals(Map.of(DeliveryStatus.ASSIGNED, 1L, DeliveryStatus.CANCELLED, 1L, DeliveryStatus.DELIVERED, 1L),
+				stats.byStatus());
+		assertEquals(List.of("c-1", "c-2"), List.copyOf(stats.byCourier().keySet()));
+		assertEquals(2L, stats.byCourier().get("c-1"));
+		assertEquals(3L, stats.byBucket().values().stream().mapToLong(Long::longValue).sum());
+		assertEquals(Map.of("no show", 1L), stats.cancellationReasons());
+		assertEquals(1, stats.deliveries());
+		assertTrue(stats.averageDeliveryMs() >= 0);
+	}
+
+	@Test
+	@DisplayName("aggregateStats → an empty range has no counts")
+	void aggregateStatsOfEmptyRange() {
+		repository().save(task("o-1", "c-1"));
+
+		DeliveryTaskStats stats = repository().aggregateStats(LocalDateTime.now().plusHours(1),
+				LocalDateTime.now().plusHours(2), StatsGranularity.DAY, 10);
+
+		assertEquals(0, stats.tasks());
+		assertTrue(stats.byStatus().isEmpty());
+		assertTrue(stats.byBucket().isEmpty());
+		assertNull(stats.averageDeliveryMs());
+	}
+}
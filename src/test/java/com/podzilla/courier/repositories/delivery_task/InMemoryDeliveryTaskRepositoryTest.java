@@ -0,0 +1,96 @@
+package com.podzilla.courier.repositories.delivery_task;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryStatusTransition;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.mq.events.ConfirmationType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryDeliveryTaskRepositoryTest extends DeliveryTaskRepositoryContractTest {
+
+	private static final int LOCK_STRIPES = 16;
+
+	private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+	private InMemoryDeliveryTaskRepository repository;
+
+	@TempDir
+	private Path snapshotDirectory;
+
+	@BeforeEach
+	void setUp() {
+		repository = new InMemoryDeliveryTaskRepository(objectMapper, LOCK_STRIPES, "");
+	}
+
+	@Override
+	protected IDeliveryTaskRepository repository() {
+		return repository;
+	}
+
+	private static DeliveryTask task(final String orderId) {
+		DeliveryTask task = new DeliveryTask();
+		task.setOrderId(orderId);
+		task.setCourierId("c-1");
+		task.setConfirmationType(ConfirmationType.OTP);
+		return task;
+	}
+
+	@Test
+	@DisplayName("writeSnapshot → a new repository on the same path loads every task back")
+	void snapshotRoundTrip() throws Exception {
+		String path = snapshotDirectory.resolve("tasks.json").toString();
+		InMemoryDeliveryTaskRepository source = new InMemoryDeliveryTaskRepository(objectMapper, LOCK_STRIPES, path);
+		DeliveryTask saved = source.save(task("o-1"));
+		source.save(task("o-2"));
+		source.transitionStatus(saved.getId(), DeliveryStatusTransition.outForDelivery("1234", "qr-code"));
+		source.writeSnapshot();
+
+		InMemoryDeliveryTaskRepository restored = new InMemoryDeliveryTaskRepository(objectMapper, LOCK_STRIPES,
+				path);
+		restored.loadSnapshot();
+
+		DeliveryTask found = restored.findById(saved.getId()).orElseThrow();
+		assertEquals(DeliveryStatus.OUT_FOR_DELIVERY, found.getStatus());
+		assertEquals("1234", found.getOtp());
+		assertEquals(1, restored.claimPendingEvents(10, Duration.ofMinutes(1)).size());
+		assertEquals(2, restored.findByCourierId("c-1").size());
+	}
+
+	@Test
+	@DisplayName("transitionStatus → concurrent transitions of one task let exactly one through")
+	void concurrentTransitionsAreAtomic() throws Exception {
+		DeliveryTask saved = repository.save(task("o-1"));
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		List<Future<Boolean>> attempts = new ArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			DeliveryStatus target = i % 2 == 0 ? DeliveryStatus.OUT_FOR_DELIVERY : DeliveryStatus.CANCELLED;
+			attempts.add(pool.submit(() -> repository.transitionStatus(saved.getId(),
+					DeliveryStatusTransition.to(target)).isPresent()));
+		}
+		int applied = 0;
+		for (Future<Boolean> attempt : attempts) {
+			applied += attempt.get() ? 1 : 0;
+		}
+		pool.shutdown();
+
+		// ASSIGNED → OUT_FOR_DELIVERY → CANCELLED is the longest path the two targets allow
+		assertTrue(applied >= 1 && applied <= 2);
+		DeliveryTask found = repository.findById(saved.getId()).orElseThrow();
+		assertEquals(applied, found.getOutbox().size());
+		assertEquals(1, repository.countByStatus().values().stream().mapToLong(Long::longValue).sum());
+	}
+}
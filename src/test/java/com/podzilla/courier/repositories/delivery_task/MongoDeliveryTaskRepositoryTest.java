@@ -0,0 +1,32 @@
+package com.podzilla.courier.repositories.delivery_task;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// the same contract against a real Mongo; skipped where no Docker daemon is available
+@DataMongoTest(properties = "spring.data.mongodb.auto-index-creation=true")
+@Testcontainers(disabledWithoutDocker = true)
+class MongoDeliveryTaskRepositoryTest extends DeliveryTaskRepositoryContractTest {
+
+	@Container
+	@ServiceConnection
+	private static final MongoDBContainer MONGO = new MongoDBContainer("mongo:6.0");
+
+	@Autowired
+	private DeliveryTaskRepository repository;
+
+	@BeforeEach
+	void setUp() {
+		repository.deleteAll();
+	}
+
+	@Override
+	protected IDeliveryTaskRepository repository() {
+		return repository;
+	}
+}
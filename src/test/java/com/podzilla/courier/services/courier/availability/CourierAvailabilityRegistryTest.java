@@ -0,0 +1,102 @@
+package com.podzilla.courier.services.courier.availability;
+
+import com.podzilla.courier.models.CourierStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourierAvailabilityRegistryTest {
+
+	private CourierAvailabilityRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		registry = new CourierAvailabilityRegistry();
+	}
+
+	@Test
+	@DisplayName("update → moves the courier to the set of its new status")
+	void updateMovesCourierBetweenStatuses() {
+		registry.update("c-1", CourierStatus.AVAILABLE);
+		registry.update("c-2", CourierStatus.AVAILABLE);
+		registry.update("c-1", CourierStatus.DELIVERING);
+
+		assertEquals(1, registry.count(CourierStatus.AVAILABLE));
+		assertEquals(List.of("c-2"), registry.members(CourierStatus.AVAILABLE, -1));
+		assertEquals(List.of("c-1"), registry.members(CourierStatus.DELIVERING, -1));
+		assertEquals(CourierStatus.DELIVERING, registry.statusOf("c-1"));
+	}
+
+	@Test
+	@DisplayName("update → repeating the same status keeps a single membership")
+	void updateIsIdempotent() {
+		registry.update("c-1", CourierStatus.AVAILABLE);
+		registry.update("c-1", CourierStatus.AVAILABLE);
+
+		assertEquals(1, registry.count(CourierStatus.AVAILABLE));
+	}
+
+	@Test
+	@DisplayName("remove → drops the courier from every status")
+	void removeDropsCourier() {
+		registry.update("c-1", CourierStatus.ON_BREAK);
+		registry.remove("c-1");
+		registry.remove("missing");
+
+		assertEquals(0, registry.count(CourierStatus.ON_BREAK));
+		assertNull(registry.statusOf("c-1"));
+	}
+
+	@Test
+	@DisplayName("members → returns at most limit ids of the status")
+	void membersHonoursLimit() {
+		for (int i = 0; i < 10; i++) {
+			registry.update("c-" + i, CourierStatus.AVAILABLE);
+		}
+
+		List<String> members = registry.members(CourierStatus.AVAILABLE, 3);
+
+		assertEquals(3, members.size());
+		assertEquals(3, new HashSet<>(members).size());
+		assertEquals(10, registry.count(CourierStatus.AVAILABLE));
+		assertTrue(registry.members(CourierStatus.OFFLINE, 3).isEmpty());
+	}
+
+	@Test
+	@DisplayName("update → concurrent changes leave every courier in exactly one status")
+	void concurrentUpdatesKeepSingleMembership() throws Exception {
+		int couriers = 200;
+		CourierStatus[] statuses = CourierStatus.values();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int thread = 0; thread < 8; thread++) {
+			int seed = thread;
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < 20_000; i++) {
+					registry.update("c-" + (i % couriers), statuses[(i + seed) % statuses.length]);
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		Map<CourierStatus, Integer> counts = registry.counts();
+		assertEquals(couriers, counts.values().stream().mapToInt(Integer::intValue).sum());
+		for (int i = 0; i < couriers; i++) {
+			CourierStatus status = registry.statusOf("c-" + i);
+			assertTrue(registry.members(status, -1).contains("c-" + i));
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.podzilla.courier.services.courier.rating;
+
+import com.podzilla.courier.dtos.couriers.CourierRankDto;
+import com.podzilla.courier.models.CourierRating;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourierRatingLeaderboardTest {
+
+	private CourierRatingLeaderboard leaderboard;
+
+	@BeforeEach
+	void setUp() {
+		leaderboard = new CourierRatingLeaderboard(2);
+	}
+
+	@Test
+	@DisplayName("top → ranks by average, then by number of ratings")
+	void topRanksByAverageThenCount() {
+		leaderboard.update("c-1", rating(4, "4.00"));
+		leaderboard.update("c-2", rating(2, "4.50"));
+		leaderboard.update("c-3", rating(6, "4.00"));
+
+		List<CourierRankDto> top = leaderboard.top(10);
+
+		assertEquals(List.of("c-2", "c-3", "c-1"), top.stream().map(CourierRankDto::courierId).toList());
+		assertEquals(1, top.get(0).rank());
+		assertEquals(4.5, top.get(0).averageRating(), 1e-9);
+		assertEquals(6, top.get(1).ratingCount());
+	}
+
+	@Test
+	@DisplayName("top → returns at most limit couriers")
+	void topHonoursLimit() {
+		leaderboard.update("c-1", rating(2, "3.00"));
+		leaderboard.update("c-2", rating(2, "5.00"));
+
+		assertEquals(List.of("c-2"), leaderboard.top(1).stream().map(CourierRankDto::courierId).toList());
+	}
+
+	@Test
+	@DisplayName("update → a courier below min-ratings is not ranked")
+	void updateSkipsCouriersWithTooFewRatings() {
+		leaderboard.update("c-1", rating(1, "5.00"));
+
+		assertTrue(leaderboard.top(10).isEmpty());
+	}
+
+	@Test
+	@DisplayName("update → replaces the previous standing of the courier")
+	void updateReplacesStanding() {
+		leaderboard.update("c-1", rating(2, "5.00"));
+		leaderboard.update("c-2", rating(2, "4.00"));
+		leaderboard.update("c-1", rating(3, "3.00"));
+
+		List<CourierRankDto> top = leaderboard.top(10);
+
+		assertEquals(List.of("c-2", "c-1"), top.stream().map(CourierRankDto::courierId).toList());
+		assertEquals(3, top.get(1).ratingCount());
+	}
+
+	@Test
+	@DisplayName("replaceAll → drops couriers missing from the stored aggregates")
+	void replaceAllDropsMissingCouriers() {
+		leaderboard.update("c-1", rating(2, "5.00"));
+		leaderboard.update("c-2", rating(2, "4.00"));
+
+		leaderboard.replaceAll(Map.of("c-2", rating(4, "4.25")));
+
+		List<CourierRankDto> top = leaderboard.top(10);
+		assertEquals(1, top.size());
+		assertEquals("c-2", top.get(0).courierId());
+		assertEquals(4.25, top.get(0).averageRating(), 1e-9);
+	}
+
+	private static CourierRating rating(final long count, final String average) {
+		CourierRating rating = new CourierRating();
+		rating.setCount(count);
+		rating.setSumHundredths(CourierRating.toHundredths(new BigDecimal(average)) * count);
+		return rating;
+	}
+}
@@ -0,0 +1,82 @@
+package com.podzilla.courier.services.courier.spatial;
+
+import com.podzilla.courier.dtos.couriers.NearbyCourierDto;
+import com.podzilla.courier.models.CourierStatus;
+import com.podzilla.courier.utils.GeoUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourierSpatialIndexTest {
+
+	private static final int COURIERS = 20_000;
+	private static final double BASE_LATITUDE = 30.0;
+	private static final double BASE_LONGITUDE = 31.2;
+	private static final double SPREAD_DEGREES = 0.4;
+
+	private final Random random = new Random(42);
+	private final double[] latitudes = new double[COURIERS];
+	private final double[] longitudes = new double[COURIERS];
+	private final CourierStatus[] statuses = new CourierStatus[COURIERS];
+	private CourierSpatialIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new CourierSpatialIndex(0.01);
+		for (int i = 0; i < COURIERS; i++) {
+			latitudes[i] = BASE_LATITUDE + random.nextDouble() * SPREAD_DEGREES;
+			longitudes[i] = BASE_LONGITUDE + random.nextDouble() * SPREAD_DEGREES;
+			statuses[i] = i % 3 == 0 ? CourierStatus.AVAILABLE : CourierStatus.DELIVERING;
+			index.updateStatus("c-" + i, statuses[i]);
+			index.updatePosition("c-" + i, latitudes[i], longitudes[i]);
+		}
+	}
+
+	private List<NearbyCourierDto> bruteForce(final double latitude, final double longitude,
+											  final CourierStatus status) {
+		List<NearbyCourierDto> all = new ArrayList<>();
+		for (int i = 0; i < COURIERS; i++) {
+			if (statuses[i] == status) {
+				all.add(new NearbyCourierDto("c-" + i, statuses[i], latitudes[i], longitudes[i],
+						GeoUtils.haversineKm(latitude, longitude, latitudes[i], longitudes[i])));
+			}
+		}
+		all.sort(Comparator.comparingDouble(NearbyCourierDto::distanceKm));
+		return all;
+	}
+
+	@Test
+	@DisplayName("findNearest/findWithinRadius → same couriers as a brute-force scan")
+	void matchesBruteForce() {
+		for (int query = 0; query < 100; query++) {
+			double latitude = BASE_LATITUDE + random.nextDouble() * SPREAD_DEGREES;
+			double longitude = BASE_LONGITUDE + random.nextDouble() * SPREAD_DEGREES;
+			List<NearbyCourierDto> expected = bruteForce(latitude, longitude, CourierStatus.AVAILABLE);
+
+			List<NearbyCourierDto> nearest = index.findNearest(latitude, longitude, 10, 50, CourierStatus.AVAILABLE);
+			assertEquals(expected.subList(0, 10), nearest);
+
+			List<NearbyCourierDto> withinRadius = index.findWithinRadius(latitude, longitude, 1.5,
+					CourierStatus.AVAILABLE);
+			assertEquals(expected.stream().filter(courier -> courier.distanceKm() <= 1.5).toList(), withinRadius);
+		}
+	}
+
+	@Test
+	@DisplayName("updatePosition/remove → moved couriers change cells, removed couriers disappear")
+	void moveAndRemove() {
+		index.updatePosition("c-0", 10.0, 10.0);
+		assertEquals("c-0", index.findNearest(10.0, 10.0, 1, 1, null).get(0).courierId());
+
+		index.remove("c-0");
+		assertTrue(index.findNearest(10.0, 10.0, 1, 1, null).isEmpty());
+		assertEquals(COURIERS - 1, index.size());
+	}
+}
@@ -0,0 +1,112 @@
+package com.podzilla.courier.services.delivery_task.eta;
+
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import com.podzilla.courier.dtos.delivery_tasks.EtaDto;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.services.delivery_task.location.LiveLocationStore;
+import com.podzilla.courier.utils.GeoUtils;
+import com.podzilla.mq.events.ConfirmationType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EtaEngineTest {
+
+	private static final double DEFAULT_SPEED_KMH = 20.0;
+	private static final double MIN_SPEED_KMH = 5.0;
+	private static final double MAX_SPEED_KMH = 120.0;
+	private static final double DETOUR_FACTOR = 1.0;
+	private static final double SMOOTHING = 0.5;
+	private static final double ORDER_LATITUDE = 30.0;
+	private static final double ORDER_LONGITUDE = 31.0;
+	// latitude offset of 1 km along a meridian
+	private static final double ONE_KM = 1.0 / GeoUtils.KM_PER_DEGREE;
+	private static final long MINUTE_MS = 60_000;
+
+	private LiveLocationStore liveLocationStore;
+	private EtaEngine engine;
+
+	@BeforeEach
+	void setUp() {
+		liveLocationStore = new LiveLocationStore(16);
+		engine = new EtaEngine(liveLocationStore, DEFAULT_SPEED_KMH, MIN_SPEED_KMH, MAX_SPEED_KMH, DETOUR_FACTOR,
+				SMOOTHING);
+		liveLocationStore.track(task("o-1"));
+	}
+
+	private static DeliveryTaskResponseDto task(final String orderId) {
+		return new DeliveryTaskResponseDto("task-" + orderId, orderId, "c-1", BigDecimal.TEN,
+				DeliveryStatus.OUT_FOR_DELIVERY, ORDER_LATITUDE, ORDER_LONGITUDE, 0.0, 0.0, ConfirmationType.OTP);
+	}
+
+	private EtaDto eta(final String orderId) {
+		List<EtaDto> etas = engine.getEtas(List.of(orderId));
+		return etas.isEmpty() ? null : etas.get(0);
+	}
+
+	@Test
+	@DisplayName("update → the first ping is estimated with the default speed")
+	void firstPingUsesDefaultSpeed() {
+		engine.update("o-1", "c-1", ORDER_LATITUDE - 10 * ONE_KM, ORDER_LONGITUDE, 0);
+
+		EtaDto eta = eta("o-1");
+		assertEquals(10.0, eta.remainingKm(), 1e-3);
+		assertEquals(DEFAULT_SPEED_KMH, eta.speedKmh());
+		// 10 km at 20 km/h
+		assertEquals(Instant.ofEpochMilli(30 * MINUTE_MS), eta.estimatedArrival());
+	}
+
+	@Test
+	@DisplayName("update → later pings estimate with the smoothed speed of the courier")
+	void laterPingsUseMeasuredSpeed() {
+		engine.update("o-1", "c-1", ORDER_LATITUDE - 10 * ONE_KM, ORDER_LONGITUDE, 0);
+		// 1 km per minute is 60 km/h
+		engine.update("o-1", "c-1", ORDER_LATITUDE - 9 * ONE_KM, ORDER_LONGITUDE, MINUTE_MS);
+		assertEquals(60.0, eta("o-1").speedKmh(), 1e-3);
+
+		// 0.5 km per minute is 30 km/h, halfway there with a smoothing of 0.5
+		engine.update("o-1", "c-1", ORDER_LATITUDE - 8.5 * ONE_KM, ORDER_LONGITUDE, 2 * MINUTE_MS);
+		EtaDto eta = eta("o-1");
+		assertEquals(45.0, eta.speedKmh(), 1e-3);
+		assertEquals(2 * MINUTE_MS + Math.round(8.5 / 45.0 * 60 * MINUTE_MS), eta.estimatedArrival().toEpochMilli(),
+				1);
+	}
+
+	@Test
+	@DisplayName("update → pings in quick succession and GPS jumps leave the speed alone")
+	void noisySamplesIgnored() {
+		engine.update("o-1", "c-1", ORDER_LATITUDE - 10 * ONE_KM, ORDER_LONGITUDE, 0);
+		engine.update("o-1", "c-1", ORDER_LATITUDE - 9 * ONE_KM, ORDER_LONGITUDE, MINUTE_MS);
+		engine.update("o-1", "c-1", ORDER_LATITUDE - 8 * ONE_KM, ORDER_LONGITUDE, MINUTE_MS + 500);
+		assertEquals(60.0, eta("o-1").speedKmh(), 1e-3);
+
+		engine.update("o-1", "c-1", ORDER_LATITUDE + 50 * ONE_KM, ORDER_LONGITUDE, 2 * MINUTE_MS);
+		assertEquals(60.0, eta("o-1").speedKmh(), 1e-3);
+	}
+
+	@Test
+	@DisplayName("update → a courier standing still is estimated with the minimum speed")
+	void stationaryCourierUsesMinimumSpeed() {
+		engine.update("o-1", "c-1", ORDER_LATITUDE - ONE_KM, ORDER_LONGITUDE, 0);
+		engine.update("o-1", "c-1", ORDER_LATITUDE - ONE_KM, ORDER_LONGITUDE, MINUTE_MS);
+
+		assertEquals(MIN_SPEED_KMH, eta("o-1").speedKmh());
+	}
+
+	@Test
+	@DisplayName("getEtas → only orders tracked and still in flight have an estimate")
+	void onlyTrackedOrders() {
+		engine.update("o-2", "c-1", ORDER_LATITUDE, ORDER_LONGITUDE, 0);
+		engine.update("o-1", "c-1", ORDER_LATITUDE, ORDER_LONGITUDE, 0);
+		assertEquals(List.of("o-1"), engine.getEtas(List.of("o-2", "o-1")).stream().map(EtaDto::orderId).toList());
+
+		engine.onTrackingClosed("o-1");
+		assertTrue(engine.getEtas(List.of("o-1")).isEmpty());
+	}
+}
@@ -0,0 +1,100 @@
+package com.podzilla.courier.services.delivery_task.geofence;
+
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.services.delivery_task.location.LiveLocationStore;
+import com.podzilla.courier.utils.GeoUtils;
+import com.podzilla.mq.events.ConfirmationType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class GeofenceMonitorTest {
+
+	private static final String EXCHANGE = "courier.geofence";
+	private static final double ORDER_LATITUDE = 30.0;
+	private static final double ORDER_LONGITUDE = 31.0;
+	// latitude offset of 1 m along a meridian
+	private static final double ONE_METER = 1.0 / (GeoUtils.KM_PER_DEGREE * 1000);
+
+	private LiveLocationStore liveLocationStore;
+	private RabbitTemplate rabbitTemplate;
+	private GeofenceMonitor monitor;
+
+	private static DeliveryTaskResponseDto task(final String orderId, final DeliveryStatus status) {
+		return new DeliveryTaskResponseDto("task-" + orderId, orderId, "c-1", BigDecimal.TEN, status,
+				ORDER_LATITUDE, ORDER_LONGITUDE, 0.0, 0.0, ConfirmationType.OTP);
+	}
+
+	@BeforeEach
+	void setUp() {
+		liveLocationStore = new LiveLocationStore(16);
+		liveLocationStore.track(task("o-1", DeliveryStatus.OUT_FOR_DELIVERY));
+		rabbitTemplate = mock(RabbitTemplate.class);
+		monitor = new GeofenceMonitor(liveLocationStore, rabbitTemplate, EXCHANGE, 75, 150);
+	}
+
+	private void ping(final double metersNorth, final double metersEast) {
+		double longitudeScale = Math.cos(Math.toRadians(ORDER_LATITUDE));
+		monitor.onLocationUpdate("o-1", "c-1", ORDER_LATITUDE + metersNorth * ONE_METER,
+				ORDER_LONGITUDE + metersEast * ONE_METER / longitudeScale);
+	}
+
+	@Test
+	@DisplayName("onLocationUpdate → ARRIVED once the courier is inside the arrival radius")
+	void arrivalPublished() {
+		ping(500, 0);
+		ping(80, 0);
+		verifyNoInteractions(rabbitTemplate);
+
+		ping(0, 70);
+
+		ArgumentCaptor<GeofenceEvent> event = ArgumentCaptor.forClass(GeofenceEvent.class);
+		verify(rabbitTemplate).convertAndSend(eq(EXCHANGE), eq("order.arrived"), event.capture());
+		assertEquals("o-1", event.getValue().orderId());
+		assertEquals("c-1", event.getValue().courierId());
+		assertEquals(GeofenceTransition.ARRIVED, event.getValue().transition());
+	}
+
+	@Test
+	@DisplayName("onLocationUpdate → jitter between the two radii raises no further transitions")
+	void hysteresis() {
+		ping(50, 0);
+		ping(100, 0);
+		ping(60, 0);
+		ping(-140, 0);
+
+		verify(rabbitTemplate, times(1)).convertAndSend(anyString(), anyString(), any(Object.class));
+	}
+
+	@Test
+	@DisplayName("onLocationUpdate → LEFT once the courier is beyond the departure radius, then ARRIVED again")
+	void departurePublished() {
+		ping(0, 0);
+		ping(0, 160);
+		ping(0, 10);
+
+		verify(rabbitTemplate, times(2)).convertAndSend(eq(EXCHANGE), eq("order.arrived"), any(Object.class));
+		verify(rabbitTemplate).convertAndSend(eq(EXCHANGE), eq("order.left"), any(Object.class));
+	}
+
+	@Test
+	@DisplayName("onLocationUpdate → orders not tracked by the live store or already finished are not fenced")
+	void untrackedOrdersIgnored() {
+		liveLocationStore.track(task("o-3", DeliveryStatus.DELIVERED));
+
+		monitor.onLocationUpdate("o-2", "c-1", ORDER_LATITUDE, ORDER_LONGITUDE);
+		monitor.onLocationUpdate("o-3", "c-1", ORDER_LATITUDE, ORDER_LONGITUDE);
+
+		verifyNoInteractions(rabbitTemplate);
+	}
+}
@@ -0,0 +1,124 @@
+package com.podzilla.courier.services.delivery_task.location;
+
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import com.podzilla.courier.dtos.delivery_tasks.LocationUpdateStatus;
+import com.podzilla.courier.models.CourierLocation;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.mq.events.ConfirmationType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveLocationStoreTest {
+
+	private static DeliveryTaskResponseDto task(final String orderId) {
+		return new DeliveryTaskResponseDto("task-" + orderId, orderId, "courier-1", BigDecimal.TEN,
+				DeliveryStatus.OUT_FOR_DELIVERY, 30.0, 31.0, 0.0, 0.0, ConfirmationType.OTP);
+	}
+
+	@Test
+	@DisplayName("update → ignored for untracked orders")
+	void updateUntracked() {
+		LiveLocationStore store = new LiveLocationStore(16);
+
+		assertFalse(store.update("o-1", 1.0, 2.0));
+		assertNull(store.snapshot("o-1"));
+		assertTrue(store.drainDirty().isEmpty());
+	}
+
+	@Test
+	@DisplayName("update with a device time → older device positions are superseded, server pings are not compared")
+	void deviceTimeComparedWithDeviceTime() {
+		LiveLocationStore store = new LiveLocationStore(16);
+		store.track(task("o-1"));
+		assertEquals(LocationUpdateStatus.NOT_FOUND, store.update("o-2", 1.0, 2.0, 1_000));
+
+		// a device clock far behind the server still applies after a live ping
+		store.update("o-1", 1.0, 2.0);
+		assertEquals(LocationUpdateStatus.APPLIED, store.update("o-1", 3.0, 4.0, 1_000));
+		assertEquals(LocationUpdateStatus.SUPERSEDED, store.update("o-1", 5.0, 6.0, 999));
+
+		assertEquals(3.0, store.snapshot("o-1").courierLatitude());
+	}
+
+	@Test
+	@DisplayName("drainDirty → coalesces pings to the latest position per order")
+	void drainCoalesces() {
+		LiveLocationStore store = new LiveLocationStore(16);
+		store.track(task("o-1"));
+
+		store.update("o-1", 1.0, 2.0);
+		store.update("o-1", 3.0, 4.0);
+
+		assertEquals(List.of(new CourierLocation("o-1", 3.0, 4.0)), store.drainDirty());
+		assertTrue(store.drainDirty().isEmpty());
+		DeliveryTaskResponseDto snapshot = store.snapshot("o-1");
+		assertEquals(3.0, snapshot.courierLatitude());
+		assertEquals(DeliveryStatus.OUT_FOR_DELIVERY, snapshot.status());
+	}
+
+	@Test
+	@DisplayName("retire → order dropped only after its pending position is flushed")
+	void retireAfterFlush() {
+		LiveLocationStore store = new LiveLocationStore(16);
+		store.track(task("o-1"));
+		store.update("o-1", 1.0, 2.0);
+		assertFalse(store.isRetired("o-1"));
+
+		store.retire("o-1");
+
+		assertTrue(store.isRetired("o-1"));
+		assertNotNull(store.snapshot("o-1"));
+		List<CourierLocation> pending = store.drainDirty();
+		assertEquals(1, pending.size());
+		assertNotNull(store.snapshot("o-1"));
+
+		// a failed flush marks the position dirty again, and the next drain still has it
+		store.markDirty("o-1");
+		assertEquals(pending, store.drainDirty());
+
+		store.releaseFlushed(pending);
+		assertNull(store.snapshot("o-1"));
+		assertFalse(store.isRetired("o-1"));
+		assertEquals(0, store.size());
+	}
+
+	@Test
+	@DisplayName("drainDirty → drops a retired order without a pending position")
+	void retireWithoutPendingPosition() {
+		LiveLocationStore store = new LiveLocationStore(16);
+		store.track(task("o-1"));
+		store.retire("o-1");
+
+		assertTrue(store.drainDirty().isEmpty());
+		assertNull(store.snapshot("o-1"));
+	}
+
+	@Test
+	@DisplayName("track/remove → entries survive growth and backward-shift deletion")
+	void growAndRemove() {
+		LiveLocationStore store = new LiveLocationStore(16);
+		for (int i = 0; i < 1000; i++) {
+			store.track(task("o-" + i));
+			store.update("o-" + i, i, -i);
+		}
+		for (int i = 0; i < 1000; i += 2) {
+			store.remove("o-" + i);
+		}
+
+		assertEquals(500, store.size());
+		for (int i = 0; i < 1000; i++) {
+			DeliveryTaskResponseDto snapshot = store.snapshot("o-" + i);
+			if (i % 2 == 0) {
+				assertNull(snapshot);
+			} else {
+				assertEquals((double) i, snapshot.courierLatitude());
+				assertEquals((double) -i, snapshot.courierLongitude());
+			}
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.podzilla.courier.services.delivery_task.location;
+
+import com.podzilla.courier.models.CourierLocation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationStreamHubTest {
+
+	private static final long TIMEOUT_MS = 5_000;
+	private static final String CLOSED = "closed";
+
+	private final List<RecordingEmitter> emitters = Collections.synchronizedList(new ArrayList<>());
+	private LocationStreamHub hub;
+
+	// events are recorded as the CourierLocation sent, or CLOSED for the closed event
+	private static final class RecordingEmitter extends SseEmitter {
+		private final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+		private final CountDownLatch entered = new CountDownLatch(1);
+		private final CountDownLatch gate;
+		private volatile boolean completed;
+
+		private RecordingEmitter(final CountDownLatch gate) {
+			this.gate = gate;
+		}
+
+		@Override
+		public void send(final SseEventBuilder builder) {
+			entered.countDown();
+			try {
+				gate.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			for (DataWithMediaType data : builder.build()) {
+				if (data.getData() instanceof CourierLocation location) {
+					events.add(location);
+				} else if (data.getData() instanceof String text
+						&& text.contains("event:" + LocationStreamHub.CLOSED_EVENT)) {
+					events.add(CLOSED);
+				}
+			}
+		}
+
+		@Override
+		public void complete() {
+			completed = true;
+		}
+
+		private List<Object> events() {
+			synchronized (events) {
+				return List.copyOf(events);
+			}
+		}
+	}
+
+	private CountDownLatch nextGate = new CountDownLatch(0);
+
+	@BeforeEach
+	void setUp() {
+		hub = new LocationStreamHub(TIMEOUT_MS) {
+			@Override
+			SseEmitter newEmitter() {
+				RecordingEmitter emitter = new RecordingEmitter(nextGate);
+				emitters.add(emitter);
+				return emitter;
+			}
+		};
+	}
+
+	@AfterEach
+	void tearDown() {
+		hub.shutdown();
+	}
+
+	private static CourierLocation location(final String orderId, final int index) {
+		return new CourierLocation(orderId, index, -index);
+	}
+
+	private RecordingEmitter subscribe(final String orderId) {
+		hub.subscribe(orderId, location(orderId, 0));
+		return emitters.get(emitters.size() - 1);
+	}
+
+	private static void await(final BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for the stream");
+			Thread.sleep(5);
+		}
+	}
+
+	@Test
+	@DisplayName("onLocationUpdate → positions published during a slow send are coalesced to the latest")
+	void coalescesWhileSending() throws InterruptedException {
+		CountDownLatch gate = new CountDownLatch(1);
+		nextGate = gate;
+		RecordingEmitter emitter = subscribe("o-1");
+		assertTrue(emitter.entered.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+		for (int i = 1; i <= 5; i++) {
+			hub.onLocationUpdate("o-1", "c-1", i, -i);
+		}
+		gate.countDown();
+
+		await(() -> emitter.events().size() == 2);
+		assertEquals(List.of(location("o-1", 0), location("o-1", 5)), emitter.events());
+	}
+
+	@Test
+	@DisplayName("onLocationUpdate → a subscriber never receives an older position after a newer one")
+	void keepsOrder() throws InterruptedException {
+		RecordingEmitter emitter = subscribe("o-1");
+
+		for (int i = 1; i <= 2_000; i++) {
+			hub.onLocationUpdate("o-1", "c-1", i, -i);
+		}
+
+		await(() -> emitter.events().contains(location("o-1", 2_000)));
+		List<Object> events = emitter.events();
+		for (int i = 1; i < events.size(); i++) {
+			assertTrue(((CourierLocation) events.get(i - 1)).latitude()
+					< ((CourierLocation) events.get(i)).latitude(), "out of order at event " + i);
+		}
+	}
+
+	@Test
+	@DisplayName("onLocationUpdate → a slow subscriber does not hold up the others")
+	void slowSubscriberIsolated() throws InterruptedException {
+		CountDownLatch gate = new CountDownLatch(1);
+		nextGate = gate;
+		RecordingEmitter slow = subscribe("o-1");
+		nextGate = new CountDownLatch(0);
+		RecordingEmitter fast = subscribe("o-2");
+
+		hub.onLocationUpdate("o-2", "c-2", 1, -1);
+
+		await(() -> fast.events().contains(location("o-2", 1)));
+		assertTrue(slow.events().isEmpty());
+		gate.countDown();
+		await(() -> slow.events().size() == 1);
+	}
+
+	@Test
+	@DisplayName("onTrackingClosed → the closed event is sent last and the stream completes")
+	void closesStream() throws InterruptedException {
+		RecordingEmitter emitter = subscribe("o-1");
+		hub.onLocationUpdate("o-1", "c-1", 1, -1);
+
+		hub.onTrackingClosed("o-1");
+		hub.onLocationUpdate("o-1", "c-1", 2, -2);
+
+		await(() -> emitter.completed);
+		List<Object> events = emitter.events();
+		assertEquals(CLOSED, events.get(events.size() - 1));
+		assertFalse(events.contains(location("o-1", 2)));
+		assertEquals(0, hub.subscriberCount("o-1"));
+	}
+}
@@ -0,0 +1,133 @@
+package com.podzilla.courier.services.delivery_task.location;
+
+import com.podzilla.courier.dtos.delivery_tasks.LocationTrackDto;
+import com.podzilla.courier.models.LocationTrackBucket;
+import com.podzilla.courier.models.TrackPoint;
+import com.podzilla.courier.repositories.location_track.LocationTrackRepository;
+import com.podzilla.courier.utils.TrackEncoding;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class LocationTrackRecorderTest {
+
+	private static final int BUCKET_SIZE = 4;
+	private static final long MAX_BUFFER_MS = 60_000;
+	private static final int MAX_PENDING_POINTS = 10;
+
+	private LocationTrackRepository repository;
+	private LocationTrackRecorder recorder;
+	private final List<LocationTrackBucket> stored = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(LocationTrackRepository.class);
+		doAnswer(this::store).when(repository).insert(anyList());
+		when(repository.findByOrderIdOrderByStartTimeAsc("o-1")).thenAnswer(invocation -> List.copyOf(stored));
+		recorder = new LocationTrackRecorder(repository, BUCKET_SIZE, MAX_BUFFER_MS, MAX_PENDING_POINTS);
+	}
+
+	private Object store(final InvocationOnMock invocation) {
+		stored.addAll(invocation.getArgument(0));
+		return invocation.getArgument(0);
+	}
+
+	private void ping(final int index) {
+		recorder.onLocationUpdate("o-1", "c-1", 30.0 + index * 1e-4, 31.0 - index * 1e-4);
+	}
+
+	@Test
+	@DisplayName("encode → decode restores points to micro-degree precision")
+	void encodingRoundTrip() {
+		List<TrackPoint> points = List.of(new TrackPoint(1_000, 30.0444196, 31.2357116),
+				new TrackPoint(4_000, 30.0444921, 31.2356002), new TrackPoint(3_500, -33.8688, 151.2093));
+
+		byte[] encoded = TrackEncoding.encode(points, 1_000);
+		List<TrackPoint> decoded = TrackEncoding.decode(encoded, 1_000);
+
+		assertEquals(points.size(), decoded.size());
+		for (int i = 0; i < points.size(); i++) {
+			assertEquals(points.get(i).timestamp(), decoded.get(i).timestamp());
+			assertEquals(points.get(i).latitude(), decoded.get(i).latitude(), 1e-6);
+			assertEquals(points.get(i).longitude(), decoded.get(i).longitude(), 1e-6);
+		}
+	}
+
+	@Test
+	@DisplayName("flush → partial tracks stay buffered, full ones are written as buckets")
+	void flushWritesFullBuckets() {
+		IntStream.range(0, BUCKET_SIZE - 1).forEach(this::ping);
+		recorder.flush();
+		verify(repository, never()).insert(anyList());
+
+		IntStream.range(BUCKET_SIZE - 1, BUCKET_SIZE * 2 + 1).forEach(this::ping);
+		recorder.flush();
+
+		assertEquals(List.of(BUCKET_SIZE, BUCKET_SIZE, 1),
+				stored.stream().map(LocationTrackBucket::getPointCount).toList());
+		assertEquals("c-1", stored.get(0).getCourierId());
+	}
+
+	@Test
+	@DisplayName("flush → a closed track is written whatever its size")
+	void flushWritesClosedTrack() {
+		ping(0);
+		recorder.onTrackingClosed("o-1");
+		recorder.flush();
+
+		assertEquals(1, stored.size());
+		assertEquals(1, stored.get(0).getPointCount());
+	}
+
+	@Test
+	@DisplayName("getTrack → joins stored buckets and buffered pings, oldest first")
+	void getTrackJoinsStoredAndPending() {
+		IntStream.range(0, BUCKET_SIZE).forEach(this::ping);
+		recorder.flush();
+		IntStream.range(BUCKET_SIZE, BUCKET_SIZE + 2).forEach(this::ping);
+
+		LocationTrackDto track = recorder.getTrack("o-1", null).orElseThrow();
+
+		assertEquals(1, stored.size());
+		assertEquals(BUCKET_SIZE + 2, track.recordedPoints());
+		assertEquals(30.0, track.points().get(0).latitude(), 1e-6);
+		assertEquals(30.0 + (BUCKET_SIZE + 1) * 1e-4, track.points().get(BUCKET_SIZE + 1).latitude(), 1e-6);
+		assertTrue(recorder.getTrack("o-2", null).isEmpty());
+	}
+
+	@Test
+	@DisplayName("flush → a failed insert keeps the points for the next flush")
+	void flushRetriesAfterFailure() {
+		IntStream.range(0, BUCKET_SIZE).forEach(this::ping);
+		doThrow(new IllegalStateException("mongo down")).doAnswer(this::store).when(repository).insert(anyList());
+
+		recorder.flush();
+		assertTrue(stored.isEmpty());
+		ping(BUCKET_SIZE);
+		recorder.flush();
+
+		assertEquals(List.of(BUCKET_SIZE, 1), stored.stream().map(LocationTrackBucket::getPointCount).toList());
+		assertEquals(30.0, TrackEncoding.decode(stored.get(0).getPoints(),
+				stored.get(0).getStartTime().toEpochMilli()).get(0).latitude(), 1e-6);
+	}
+
+	@Test
+	@DisplayName("downsample → keeps the first and last point and spreads the rest evenly")
+	void downsampleKeepsEnds() {
+		List<TrackPoint> points = IntStream.range(0, 101).mapToObj(i -> new TrackPoint(i, i, i)).toList();
+
+		List<TrackPoint> sampled = LocationTrackRecorder.downsample(points, 5);
+
+		assertEquals(List.of(0L, 25L, 50L, 75L, 100L), sampled.stream().map(TrackPoint::timestamp).toList());
+		assertSame(points, LocationTrackRecorder.downsample(points, null));
+	}
+}
@@ -0,0 +1,108 @@
+package com.podzilla.courier.services.delivery_task.stats;
+
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.models.DeliveryTask;
+import com.podzilla.courier.models.DeliveryTaskStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeliveryTaskCountersTest {
+
+	private static final int WINDOW_MINUTES = 5;
+	private static final int MAX_REASONS = 2;
+	private static final long MINUTE_MS = 60_000;
+	private static final long NOW = 1_000 * MINUTE_MS;
+
+	private DeliveryTaskCounters counters;
+
+	@BeforeEach
+	void setUp() {
+		counters = new DeliveryTaskCounters(WINDOW_MINUTES, MAX_REASONS);
+	}
+
+	private static DeliveryTask task(final String courierId, final DeliveryStatus status) {
+		DeliveryTask task = new DeliveryTask();
+		task.setCourierId(courierId);
+		task.setStatus(status);
+		return task;
+	}
+
+	private static DeliveryTask cancelled(final String reason) {
+		DeliveryTask task = task("c-1", DeliveryStatus.CANCELLED);
+		task.setCancellationReason(reason);
+		return task;
+	}
+
+	@Test
+	@DisplayName("snapshot → sums created tasks and transitions over the window, per minute")
+	void snapshotSumsWindow() {
+		counters.recordCreated(task("c-1", DeliveryStatus.ASSIGNED), NOW - MINUTE_MS);
+		counters.recordCreated(task("c-1", DeliveryStatus.ASSIGNED), NOW);
+		counters.recordCreated(task("c-2", DeliveryStatus.ASSIGNED), NOW);
+		counters.recordTransition(task("c-1", DeliveryStatus.OUT_FOR_DELIVERY), NOW);
+
+		DeliveryTaskStats stats = counters.snapshot(WINDOW_MINUTES, 10, NOW);
+
+		assertEquals(3, stats.tasks());
+		assertEquals(Map.of(DeliveryStatus.ASSIGNED, 3L, DeliveryStatus.OUT_FOR_DELIVERY, 1L), stats.byStatus());
+		assertEquals(List.of("c-1", "c-2"), List.copyOf(stats.byCourier().keySet()));
+		assertEquals(Map.of(Instant.ofEpochMilli(NOW - MINUTE_MS), 1L, Instant.ofEpochMilli(NOW), 2L),
+				stats.byBucket());
+	}
+
+	@Test
+	@DisplayName("snapshot → leaves out minutes older than the window, even when their slot was not reused")
+	void snapshotDropsExpiredMinutes() {
+		counters.recordCreated(task("c-1", DeliveryStatus.ASSIGNED), NOW - WINDOW_MINUTES * MINUTE_MS);
+		counters.recordCreated(task("c-1", DeliveryStatus.ASSIGNED), NOW - 2 * MINUTE_MS);
+
+		assertEquals(1, counters.snapshot(WINDOW_MINUTES, 10, NOW).tasks());
+		assertEquals(0, counters.snapshot(2, 10, NOW).tasks());
+	}
+
+	@Test
+	@DisplayName("recordCreated → a reused slot starts from zero")
+	void reusedSlotIsReset() {
+		counters.recordCreated(task("c-1", DeliveryStatus.ASSIGNED), NOW);
+		counters.recordCreated(task("c-1", DeliveryStatus.ASSIGNED), NOW + WINDOW_MINUTES * MINUTE_MS);
+
+		assertEquals(1, counters.snapshot(1, 10, NOW + WINDOW_MINUTES * MINUTE_MS).tasks());
+	}
+
+	@Test
+	@DisplayName("recordTransition → counts cancellation reasons up to the limit, the rest as other")
+	void cancellationReasonsAreCapped() {
+		counters.recordTransition(cancelled("no show"), NOW);
+		counters.recordTransition(cancelled("no show"), NOW);
+		counters.recordTransition(cancelled(null), NOW);
+		counters.recordTransition(cancelled("address"), NOW);
+
+		assertEquals(Map.of("no show", 2L, DeliveryTaskStats.UNSPECIFIED_REASON, 1L, "other", 1L),
+				counters.snapshot(1, 10, NOW).cancellationReasons());
+	}
+
+	@Test
+	@DisplayName("recordTransition → averages the time from creation to delivery")
+	void averagesTimeToDeliver() {
+		LocalDateTime createdAt = LocalDateTime.of(2025, 5, 1, 12, 0);
+		for (int minutes : new int[] {10, 20}) {
+			DeliveryTask delivered = task("c-1", DeliveryStatus.DELIVERED);
+			delivered.setCreatedAt(createdAt);
+			delivered.setClosedAt(createdAt.plusMinutes(minutes));
+			counters.recordTransition(delivered, NOW);
+		}
+
+		DeliveryTaskStats stats = counters.snapshot(1, 10, NOW);
+
+		assertEquals(2, stats.deliveries());
+		assertEquals(15 * MINUTE_MS, stats.averageDeliveryMs(), 1e-9);
+	}
+}
@@ -0,0 +1,127 @@
+package com.podzilla.courier.services.dispatch;
+
+import com.podzilla.courier.dtos.dispatch.DispatchAssignmentDto;
+import com.podzilla.courier.dtos.dispatch.PendingOrderDto;
+import com.podzilla.courier.models.CourierStatus;
+import com.podzilla.courier.services.courier.spatial.CourierSpatialIndex;
+import com.podzilla.mq.events.ConfirmationType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DispatchOptimizerTest {
+
+	private static final double BASE_LATITUDE = 30.0;
+	private static final double BASE_LONGITUDE = 31.2;
+	private static final int CANDIDATES_PER_ORDER = 8;
+	private static final double MAX_RADIUS_KM = 50;
+
+	private final Random random = new Random(42);
+	private final List<DispatchOptimizer> optimizers = new ArrayList<>();
+	private CourierSpatialIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new CourierSpatialIndex(0.01);
+	}
+
+	@AfterEach
+	void tearDown() {
+		optimizers.forEach(DispatchOptimizer::shutdown);
+	}
+
+	private DispatchOptimizer optimizer(final int exactSolverMaxOrders) {
+		DispatchOptimizer optimizer = new DispatchOptimizer(index, 2, CANDIDATES_PER_ORDER, exactSolverMaxOrders,
+				MAX_RADIUS_KM);
+		optimizers.add(optimizer);
+		return optimizer;
+	}
+
+	private void courier(final String id, final CourierStatus status, final double longitudeOffset) {
+		index.updateStatus(id, status);
+		index.updatePosition(id, BASE_LATITUDE, BASE_LONGITUDE + longitudeOffset);
+	}
+
+	private static PendingOrderDto order(final String id, final double latitude, final double longitude) {
+		return new PendingOrderDto(id, BigDecimal.TEN, latitude, longitude, ConfirmationType.OTP, null);
+	}
+
+	private static Map<String, String> courierByOrder(final List<DispatchAssignmentDto> assignments) {
+		return assignments.stream()
+				.collect(Collectors.toMap(DispatchAssignmentDto::orderId, DispatchAssignmentDto::courierId));
+	}
+
+	// taking the shortest edge first sends o-2 to c-1 and leaves o-1 the far courier; the optimum pairs them
+	// the other way round
+	private List<PendingOrderDto> greedyTrap() {
+		courier("c-1", CourierStatus.AVAILABLE, 0.006);
+		courier("c-2", CourierStatus.AVAILABLE, 0.0205);
+		return List.of(order("o-1", BASE_LATITUDE, BASE_LONGITUDE),
+				order("o-2", BASE_LATITUDE, BASE_LONGITUDE + 0.010));
+	}
+
+	@Test
+	@DisplayName("optimize → minimum total distance while the window is within exact-solver-max-orders")
+	void exactWithinLimit() {
+		List<DispatchAssignmentDto> assignments = optimizer(64).optimize(greedyTrap());
+
+		assertEquals(Map.of("o-1", "c-1", "o-2", "c-2"), courierByOrder(assignments));
+	}
+
+	@Test
+	@DisplayName("optimize → shortest edge first above exact-solver-max-orders")
+	void greedyAboveLimit() {
+		List<DispatchAssignmentDto> assignments = optimizer(1).optimize(greedyTrap());
+
+		assertEquals(Map.of("o-1", "c-2", "o-2", "c-1"), courierByOrder(assignments));
+	}
+
+	@Test
+	@DisplayName("optimize → each AVAILABLE courier is used at most once per window, by either solver")
+	void courierUsedOnce() {
+		for (int i = 0; i < 60; i++) {
+			courier("c-" + i, i % 4 == 0 ? CourierStatus.DELIVERING : CourierStatus.AVAILABLE,
+					random.nextDouble() * 0.2);
+		}
+		List<PendingOrderDto> orders = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			orders.add(order("o-" + i, BASE_LATITUDE + random.nextDouble() * 0.01,
+					BASE_LONGITUDE + random.nextDouble() * 0.2));
+		}
+
+		for (int exactSolverMaxOrders : new int[]{0, 1000}) {
+			List<DispatchAssignmentDto> assignments = optimizer(exactSolverMaxOrders).optimize(orders);
+
+			Set<String> couriers = new HashSet<>();
+			Set<String> assignedOrders = new HashSet<>();
+			for (DispatchAssignmentDto assignment : assignments) {
+				assertTrue(couriers.add(assignment.courierId()), "courier assigned twice");
+				assertTrue(assignedOrders.add(assignment.orderId()), "order assigned twice");
+				assertNotEquals(0, Integer.parseInt(assignment.courierId().substring(2)) % 4,
+						"courier is not AVAILABLE");
+			}
+			assertFalse(assignments.isEmpty());
+		}
+	}
+
+	@Test
+	@DisplayName("optimize → no assignments without an AVAILABLE courier in range")
+	void noCourierInRange() {
+		courier("c-1", CourierStatus.DELIVERING, 0.001);
+		courier("c-2", CourierStatus.AVAILABLE, 5.0);
+
+		assertTrue(optimizer(64).optimize(List.of(order("o-1", BASE_LATITUDE, BASE_LONGITUDE))).isEmpty());
+	}
+}
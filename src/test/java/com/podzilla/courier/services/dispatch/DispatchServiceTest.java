@@ -0,0 +1,120 @@
+package com.podzilla.courier.services.dispatch;
+
+import com.podzilla.courier.dtos.couriers.UpdateCourierRequestDto;
+import com.podzilla.courier.dtos.delivery_tasks.CreateDeliveryTaskRequestDto;
+import com.podzilla.courier.dtos.delivery_tasks.DeliveryTaskResponseDto;
+import com.podzilla.courier.dtos.dispatch.DispatchAssignmentDto;
+import com.podzilla.courier.dtos.dispatch.PendingOrderDto;
+import com.podzilla.courier.models.CourierStatus;
+import com.podzilla.courier.models.DeliveryStatus;
+import com.podzilla.courier.services.courier.CourierService;
+import com.podzilla.courier.services.delivery_task.DeliveryTaskService;
+import com.podzilla.mq.events.ConfirmationType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class DispatchServiceTest {
+
+	private DispatchOptimizer dispatchOptimizer;
+	private DeliveryTaskService deliveryTaskService;
+	private CourierService courierService;
+	private DispatchService dispatchService;
+
+	private static PendingOrderDto order(final String id) {
+		return new PendingOrderDto(id, BigDecimal.TEN, 30.0, 31.2, ConfirmationType.OTP, null);
+	}
+
+	private static DeliveryTaskResponseDto task(final String orderId, final String courierId) {
+		return new DeliveryTaskResponseDto("task-" + orderId, orderId, courierId, BigDecimal.TEN,
+				DeliveryStatus.ASSIGNED, 30.0, 31.2, null, null, ConfirmationType.OTP);
+	}
+
+	// each order goes to the courier with the same number
+	private static List<DispatchAssignmentDto> assignEach(final List<PendingOrderDto> orders) {
+		return orders.stream()
+				.map(order -> new DispatchAssignmentDto(order.getOrderId(), "c-" + order.getOrderId().substring(2),
+						1.0))
+				.toList();
+	}
+
+	@BeforeEach
+	void setUp() {
+		dispatchOptimizer = mock(DispatchOptimizer.class);
+		deliveryTaskService = mock(DeliveryTaskService.class);
+		courierService = mock(CourierService.class);
+		dispatchService = new DispatchService(dispatchOptimizer, deliveryTaskService, courierService);
+		ReflectionTestUtils.setField(dispatchService, "windowSize", 10);
+		when(dispatchOptimizer.optimize(anyList())).thenAnswer(invocation -> assignEach(invocation.getArgument(0)));
+		when(deliveryTaskService.createDeliveryTask(any())).thenAnswer(invocation -> {
+			CreateDeliveryTaskRequestDto request = invocation.getArgument(0);
+			return task(request.getOrderId(), request.getCourierId());
+		});
+	}
+
+	private void verifyStatus(final String courierId, final CourierStatus status) {
+		verify(courierService).updateCourier(eq(courierId),
+				argThat((UpdateCourierRequestDto update) -> update.getStatus() == status));
+	}
+
+	@Test
+	@DisplayName("dispatch → the courier is ASSIGNED before its delivery task is created")
+	void courierAssignedFirst() {
+		List<DispatchAssignmentDto> assignments = dispatchService.dispatch(List.of(order("o-1")));
+
+		assertEquals(List.of(new DispatchAssignmentDto("o-1", "c-1", 1.0)), assignments);
+		InOrder inOrder = inOrder(courierService, deliveryTaskService);
+		inOrder.verify(courierService).updateCourier(eq("c-1"), any());
+		inOrder.verify(deliveryTaskService).createDeliveryTask(any());
+		verifyStatus("c-1", CourierStatus.ASSIGNED);
+	}
+
+	@Test
+	@DisplayName("dispatch → an order that already has a task keeps its courier, the chosen one is released")
+	void existingTaskKeepsCourier() {
+		doReturn(task("o-1", "c-other")).when(deliveryTaskService).createDeliveryTask(any());
+
+		assertTrue(dispatchService.dispatch(List.of(order("o-1"))).isEmpty());
+
+		verifyStatus("c-1", CourierStatus.ASSIGNED);
+		verifyStatus("c-1", CourierStatus.AVAILABLE);
+	}
+
+	@Test
+	@DisplayName("dispatchPendingOrders → a failure partway requeues the orders it did not settle")
+	void requeueOnPartialFailure() {
+		doThrow(new IllegalStateException("write failed")).when(deliveryTaskService)
+				.createDeliveryTask(argThat(request -> request.getOrderId().equals("o-2")));
+		dispatchService.submitOrders(List.of(order("o-1"), order("o-2"), order("o-3")));
+
+		dispatchService.dispatchPendingOrders();
+
+		verifyStatus("c-2", CourierStatus.AVAILABLE);
+		reset(dispatchOptimizer);
+		when(dispatchOptimizer.optimize(anyList())).thenReturn(List.of());
+		dispatchService.dispatchPendingOrders();
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<PendingOrderDto>> window = ArgumentCaptor.forClass(List.class);
+		verify(dispatchOptimizer).optimize(window.capture());
+		assertEquals(List.of("o-2", "o-3"), window.getValue().stream().map(PendingOrderDto::getOrderId).toList());
+	}
+
+	@Test
+	@DisplayName("submitOrders → an order already waiting for dispatch is queued once")
+	void submitDeduplicates() {
+		assertEquals(1, dispatchService.submitOrders(List.of(order("o-1"), order("o-1"))));
+		assertEquals(2, dispatchService.submitOrders(List.of(order("o-1"), order("o-2"))));
+	}
+}
@@ -0,0 +1,79 @@
+package com.podzilla.courier.services.dispatch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HungarianSolverTest {
+
+	private final Random random = new Random(42);
+
+	private static double total(final double[][] cost, final int[] match) {
+		double total = 0;
+		for (int row = 0; row < cost.length; row++) {
+			total += cost[row][match[row]];
+		}
+		return total;
+	}
+
+	// cheapest assignment of the remaining rows to the unused columns, by trying every one
+	private static double bruteForce(final double[][] cost, final int row, final boolean[] used) {
+		if (row == cost.length) {
+			return 0;
+		}
+		double best = Double.POSITIVE_INFINITY;
+		for (int column = 0; column < used.length; column++) {
+			if (!used[column]) {
+				used[column] = true;
+				best = Math.min(best, cost[row][column] + bruteForce(cost, row + 1, used));
+				used[column] = false;
+			}
+		}
+		return best;
+	}
+
+	@Test
+	@DisplayName("solve → known optimum of a small matrix")
+	void knownOptimum() {
+		double[][] cost = {
+				{4, 1, 3},
+				{2, 0, 5},
+				{3, 2, 2}
+		};
+
+		int[] match = HungarianSolver.solve(cost);
+
+		assertArrayEquals(new int[]{1, 0, 2}, match);
+		assertEquals(5, total(cost, match));
+	}
+
+	@Test
+	@DisplayName("solve → same total as a brute-force search, each column used at most once")
+	void matchesBruteForce() {
+		for (int trial = 0; trial < 200; trial++) {
+			int rows = 1 + random.nextInt(5);
+			int columns = rows + random.nextInt(3);
+			double[][] cost = new double[rows][columns];
+			for (double[] row : cost) {
+				for (int column = 0; column < columns; column++) {
+					row[column] = random.nextInt(100);
+				}
+			}
+
+			int[] match = HungarianSolver.solve(cost);
+
+			assertEquals(rows, Arrays.stream(match).distinct().count());
+			assertEquals(bruteForce(cost, 0, new boolean[columns]), total(cost, match), 1e-9);
+		}
+	}
+
+	@Test
+	@DisplayName("solve → more rows than columns is rejected")
+	void moreRowsThanColumns() {
+		assertThrows(IllegalArgumentException.class, () -> HungarianSolver.solve(new double[2][1]));
+	}
+}